@@ -222,6 +222,17 @@ public class WordCache {
         }
     }
 
+    /**
+     * add a word to the generic dictionary; a copy of the word is made only if it is long enough to be learned
+     * @param word a view on a word which may change after the call
+     */
+    public static void learn(final CharSequence word) {
+        if (word == null || word.length() < commonWordsMinLength) {
+            return;
+        }
+        learn(new StringBuilder(word));
+    }
+
     public static void learn(Collection<String> wordset) {
         for (String s: wordset) {
             learn(new StringBuilder(s));
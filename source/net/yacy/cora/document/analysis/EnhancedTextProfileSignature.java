@@ -28,6 +28,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.update.processor.Lookup3Signature;
@@ -116,6 +117,28 @@ public class EnhancedTextProfileSignature extends Lookup3Signature {
       if (tok.cnt > maxFreq)
         maxFreq = tok.cnt;
     }
+    addProfile(tokens, maxFreq);
+  }
+
+  /**
+   * add the profile of token counts which were computed outside of this class, i.e. from a shared token stream.
+   * The tokens must be lower case, longer than minTokenLen, and given in the order of their first appearance
+   * in the text; then the signature is the same as the signature of add(String).
+   * @param counts the number of occurrences of each token
+   */
+  public void add(Map<String, Integer> counts) {
+    HashMap<String, Token> tokens = new HashMap<String, Token>();
+    int maxFreq = 0;
+    for (Map.Entry<String, Integer> entry: counts.entrySet()) {
+      Token tok = new Token(entry.getValue().intValue(), entry.getKey());
+      tokens.put(tok.val, tok);
+      if (tok.cnt > maxFreq)
+        maxFreq = tok.cnt;
+    }
+    addProfile(tokens, maxFreq);
+  }
+
+  private void addProfile(HashMap<String, Token> tokens, int maxFreq) {
     Iterator<Token> it = tokens.values().iterator();
     ArrayList<Token> profile = new ArrayList<Token>();
     // calculate the QUANT value
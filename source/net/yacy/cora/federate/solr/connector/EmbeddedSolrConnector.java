@@ -233,13 +233,15 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
         final String originalName = Thread.currentThread().getName();
         if (response != null) {
             try {
+                /* read only the stored fields requested with the 'fl' parameter (null when all fields are requested) */
+                final Set<String> fields = resultContext == null || resultContext.getReturnFields() == null ? null : resultContext.getReturnFields().getLuceneFieldNames();
                 final SolrIndexSearcher searcher = req.getSearcher();
                 final int responseCount = response.size();
                 final DocIterator iterator = response.iterator();
                 for (int i = 0; i < responseCount; i++) {
                     final int docid = iterator.nextDoc();
                     Thread.currentThread().setName("EmbeddedSolrConnector.SolrQueryResponse2SolrDocumentList: " + docid);
-                    final Document responsedoc = searcher.doc(docid, (Set<String>) null);
+                    final Document responsedoc = searcher.doc(docid, fields);
                     final SolrDocument sordoc = this.doc2SolrDoc(responsedoc);
                     sdl.add(sordoc);
                 }
@@ -40,17 +40,39 @@ import net.yacy.kelondro.data.word.Word;
 
 public class MirrorSolrConnector extends AbstractSolrConnector implements SolrConnector {
 
+    /**
+     * a listener which is notified about every add, update and delete of this connector
+     */
+    public interface ChangeListener {
+        /**
+         * @param count the number of added or deleted documents, 1 if the number is not known
+         */
+        public void changed(int count);
+    }
+
     // the twin solrs
     private SolrConnector solr0, solr1;
+    private ChangeListener changeListener;
 
     public MirrorSolrConnector() {
         this.solr0 = null;
         this.solr1 = null;
+        this.changeListener = null;
     }
 
     public MirrorSolrConnector(SolrConnector solr0, SolrConnector solr1) {
         this.solr0 = solr0;
         this.solr1 = solr1;
+        this.changeListener = null;
+    }
+
+    public void setChangeListener(final ChangeListener listener) {
+        this.changeListener = listener;
+    }
+
+    private void changed(final int count) {
+        final ChangeListener listener = this.changeListener;
+        if (listener != null) listener.changed(count);
     }
 
     @Override
@@ -154,6 +176,7 @@ public class MirrorSolrConnector extends AbstractSolrConnector implements SolrCo
     public void clear() throws IOException {
         if (this.solr0 != null) this.solr0.clear();
         if (this.solr1 != null) this.solr1.clear();
+        changed(1);
     }
 
     /**
@@ -165,6 +188,7 @@ public class MirrorSolrConnector extends AbstractSolrConnector implements SolrCo
     public void deleteById(final String id) throws IOException {
         if (this.solr0 != null) this.solr0.deleteById(id);
         if (this.solr1 != null) this.solr1.deleteById(id);
+        changed(1);
     }
 
     /**
@@ -176,12 +200,14 @@ public class MirrorSolrConnector extends AbstractSolrConnector implements SolrCo
     public void deleteByIds(final Collection<String> ids) throws IOException {
         if (this.solr0 != null) this.solr0.deleteByIds(ids);
         if (this.solr1 != null) this.solr1.deleteByIds(ids);
+        changed(ids.size());
     }
 
     @Override
     public void deleteByQuery(final String querystring) throws IOException {
         if (this.solr0 != null) this.solr0.deleteByQuery(querystring);
         if (this.solr1 != null) this.solr1.deleteByQuery(querystring);
+        changed(1);
     }
 
     @Override
@@ -203,12 +229,14 @@ public class MirrorSolrConnector extends AbstractSolrConnector implements SolrCo
     public void add(final SolrInputDocument solrdoc) throws IOException {
         if (this.solr0 != null) this.solr0.add(solrdoc);
         if (this.solr1 != null) this.solr1.add(solrdoc);
+        changed(1);
     }
 
     @Override
     public void add(final Collection<SolrInputDocument> solrdocs) throws IOException, SolrException {
         if (this.solr0 != null) this.solr0.add(solrdocs);
         if (this.solr1 != null) this.solr1.add(solrdocs);
+        changed(solrdocs.size());
     }
 
     /**
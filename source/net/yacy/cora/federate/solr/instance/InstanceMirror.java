@@ -41,6 +41,7 @@ public class InstanceMirror {
     private Map<String, SolrConnector> mirrorConnectorCache;
     private Map<String, EmbeddedSolrConnector> embeddedConnectorCache;
     private Map<String, RemoteSolrConnector> remoteConnectorCache;
+    private MirrorSolrConnector.ChangeListener changeListener;
 
     public InstanceMirror() {
         this.embeddedSolrInstance = null;
@@ -48,6 +49,16 @@ public class InstanceMirror {
         this.mirrorConnectorCache = new ConcurrentHashMap<>();
         this.embeddedConnectorCache = new ConcurrentHashMap<>();
         this.remoteConnectorCache = new ConcurrentHashMap<>();
+        this.changeListener = null;
+    }
+
+    /**
+     * set a listener which is notified about all writes to the mirror connectors of this instance
+     * @param listener the listener, null to remove it
+     */
+    public void setChangeListener(final MirrorSolrConnector.ChangeListener listener) {
+        this.changeListener = listener;
+        for (SolrConnector msc: this.mirrorConnectorCache.values()) ((MirrorSolrConnector) msc).setChangeListener(listener);
     }
     
     public boolean isConnectedEmbedded() {
@@ -179,7 +190,9 @@ public class InstanceMirror {
         if (msc != null) return msc;
         EmbeddedSolrConnector esc = getEmbeddedConnector(corename);
         RemoteSolrConnector rsc = getRemoteConnector(corename);
-        msc = new MirrorSolrConnector(esc, rsc);
+        final MirrorSolrConnector mirror = new MirrorSolrConnector(esc, rsc);
+        mirror.setChangeListener(this.changeListener);
+        msc = mirror;
         this.mirrorConnectorCache.put(corename, msc);
         return msc;
     }
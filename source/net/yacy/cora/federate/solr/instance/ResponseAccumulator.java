@@ -20,8 +20,16 @@
 
 package net.yacy.cora.federate.solr.instance;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.apache.solr.common.SolrDocument;
 
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocumentList;
@@ -36,6 +44,7 @@ public class ResponseAccumulator {
     final SimpleOrderedMap<Object> highlightingAcc;
     final SimpleOrderedMap<Object> headerAcc;
     final SolrDocumentList resultsAcc;
+    final List<SolrDocumentList> resultLists; // the results of the single responses, in order of addition
 
     public ResponseAccumulator() {
         this.fieldsAcc = new SimpleOrderedMap<Object>();
@@ -44,7 +53,7 @@ public class ResponseAccumulator {
         this.highlightingAcc = new SimpleOrderedMap<Object>();
         this.headerAcc = new SimpleOrderedMap<Object>();
         this.resultsAcc = new SolrDocumentList();
-        
+        this.resultLists = new ArrayList<SolrDocumentList>();
     }
     
     public void addResponse(NamedList<Object> response) {
@@ -65,6 +74,7 @@ public class ResponseAccumulator {
         // accumulate the results
         SolrDocumentList results = (SolrDocumentList) response.get("response");
         if (results != null) {
+            this.resultLists.add(results);
             long found = results.size();
             for (int i = 0; i < found; i++) resultsAcc.add(results.get(i));
             resultsAcc.setNumFound(resultsAcc.getNumFound() + results.getNumFound());
@@ -121,6 +131,70 @@ public class ResponseAccumulator {
         return responsesAcc;
     }
 
+    /**
+     * get the accumulated response of a distributed query where every shard was asked for the first start + rows documents
+     * @param start the offset of the documents of the combined result
+     * @param rows the number of documents of the combined result
+     * @param byScore true if the documents shall be merged by their score, false if they shall be interleaved in the order of the shards
+     * @return the combined response; the documents are merged and deduplicated by id
+     */
+    public NamedList<Object> getMergedResponse(final int start, final int rows, final boolean byScore) {
+        NamedList<Object> responsesAcc = getAccumulatedResponse();
+        responsesAcc.setVal(responsesAcc.indexOf("response", 0), merge(this.resultLists, start, rows, byScore));
+        return responsesAcc;
+    }
+
+    /**
+     * merge the result lists of shards
+     * @param lists the result lists of the shards, each in the order of its own ranking
+     * @param start the number of merged documents to skip
+     * @param rows the maximum number of documents of the merged list
+     * @param byScore if true, the documents are ordered by the score field (documents without score are ranked last),
+     *        otherwise the documents of the lists are interleaved by their position
+     * @return the merged list; the numFound is the sum of all lists, documents with the same id are only contained once
+     */
+    public static SolrDocumentList merge(final List<SolrDocumentList> lists, final int start, final int rows, final boolean byScore) {
+        final List<SolrDocument> all = new ArrayList<SolrDocument>();
+        final SolrDocumentList merged = new SolrDocumentList();
+        float maxScore = 0f;
+        int maxSize = 0;
+        for (final SolrDocumentList list: lists) {
+            merged.setNumFound(merged.getNumFound() + list.getNumFound());
+            if (list.getMaxScore() != null) maxScore = Math.max(maxScore, list.getMaxScore().floatValue());
+            maxSize = Math.max(maxSize, list.size());
+        }
+        if (byScore) {
+            for (final SolrDocumentList list: lists) all.addAll(list);
+            Collections.sort(all, new Comparator<SolrDocument>() { // stable; equal scores keep the order of the shards
+                @Override
+                public int compare(final SolrDocument a, final SolrDocument b) {
+                    return Float.compare(score(b), score(a));
+                }
+            });
+        } else {
+            for (int i = 0; i < maxSize; i++) {
+                for (final SolrDocumentList list: lists) if (i < list.size()) all.add(list.get(i));
+            }
+        }
+        final Set<Object> ids = new HashSet<Object>();
+        int skip = start;
+        for (final SolrDocument doc: all) {
+            if (merged.size() >= rows) break;
+            final Object id = doc.getFieldValue("id");
+            if (id != null && !ids.add(id)) continue;
+            if (skip > 0) {skip--; continue;}
+            merged.add(doc);
+        }
+        merged.setStart(start);
+        merged.setMaxScore(maxScore);
+        return merged;
+    }
+
+    private static float score(final SolrDocument doc) {
+        final Object score = doc.getFieldValue("score");
+        return score instanceof Number ? ((Number) score).floatValue() : Float.NEGATIVE_INFINITY;
+    }
+
     public static QueryResponse combineResponses(Collection<QueryResponse> qrl) {
         ResponseAccumulator acc = new ResponseAccumulator();
         for (final QueryResponse rsp: qrl) {
@@ -24,6 +24,7 @@ package net.yacy.cora.federate.solr.instance;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -33,10 +34,13 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.StreamingResponseCallback;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.beans.DocumentObjectBinder;
+import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.SolrPingResponse;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.NamedList;
 
@@ -469,11 +473,63 @@ public class ServerShard extends SolrClient {
      */ 
     @Override
     public NamedList<Object> request(@SuppressWarnings("rawtypes") SolrRequest request, String collection) throws SolrServerException, IOException {
+        final List<SolrClient> qs = this.shards.server4read();
+        if (request instanceof QueryRequest && qs.size() > 1) return distributedQuery((QueryRequest) request, collection, qs);
         ResponseAccumulator acc = new ResponseAccumulator();
-        for (SolrClient s: this.shards.server4read()) acc.addResponse(s.request(request, collection));
+        for (SolrClient s: qs) acc.addResponse(s.request(request, collection));
         return acc.getAccumulatedResponse();  
     }
 
+    /**
+     * Perform a query concurrently on all shards and merge the results like a distributed solr query with a shards parameter:
+     * every shard is asked for the first start + rows documents, the documents are merged by score and
+     * the requested window is cut out of the merged list. If the query is sorted by another field than the score,
+     * the results of the shards are interleaved.
+     */
+    private NamedList<Object> distributedQuery(final QueryRequest request, final String collection, final List<SolrClient> qs) throws SolrServerException {
+        final SolrParams params = request.getParams();
+        final int start = params.getInt(CommonParams.START, 0);
+        final int rows = params.getInt(CommonParams.ROWS, 10);
+        final String sort = params.get(CommonParams.SORT);
+        final boolean byScore = sort == null || sort.trim().startsWith("score desc");
+        final ModifiableSolrParams shardParams = new ModifiableSolrParams(params);
+        shardParams.set(CommonParams.START, 0);
+        shardParams.set(CommonParams.ROWS, start + rows);
+        final String fl = params.get(CommonParams.FL);
+        if (byScore && fl != null && !fl.contains("score") && !fl.contains("*")) shardParams.set(CommonParams.FL, fl + ",score");
+
+        // every thread sets only its own element; the join makes the elements visible
+        final List<NamedList<Object>> responses = new ArrayList<NamedList<Object>>(Collections.<NamedList<Object>>nCopies(qs.size(), null));
+        final List<Thread> t = new ArrayList<Thread>(qs.size());
+        for (int i = 0; i < qs.size(); i++) {
+            final int shard = i;
+            final QueryRequest shardRequest = new QueryRequest(shardParams, request.getMethod());
+            shardRequest.setResponseParser(request.getResponseParser());
+            Thread t0 = new Thread("ServerShard.distributedQuery(" + params.get(CommonParams.Q) + ")") {
+                @Override
+                public void run() {
+                    try {
+                        responses.set(shard, qs.get(shard).request(shardRequest, collection));
+                    } catch (final Throwable e) {}
+                }
+            };
+            t0.start();
+            t.add(t0);
+        }
+        for (Thread t0: t) {
+            try {t0.join();} catch (final InterruptedException e) {
+                for (Thread t1: t) t1.interrupt();
+                throw new SolrServerException("distributed query interrupted");
+            }
+        }
+
+        ResponseAccumulator acc = new ResponseAccumulator();
+        int answered = 0;
+        for (NamedList<Object> response: responses) if (response != null) {acc.addResponse(response); answered++;}
+        if (answered == 0) throw new SolrServerException("no shard answered");
+        return acc.getMergedResponse(start, rows, byScore);
+    }
+
     @Override
     public DocumentObjectBinder getBinder() {
         DocumentObjectBinder db;
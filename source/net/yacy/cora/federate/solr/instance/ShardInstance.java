@@ -60,7 +60,7 @@ public class ShardInstance implements SolrInstance {
     public SolrClient getDefaultServer() {
         if (this.defaultServer != null) return this.defaultServer;
         ArrayList<SolrClient> server = new ArrayList<SolrClient>(instances.size());
-        for (int i = 0; i < instances.size(); i++) server.set(i, instances.get(i).getDefaultServer());
+        for (int i = 0; i < instances.size(); i++) server.add(i, instances.get(i).getDefaultServer());
         this.defaultServer = new ServerShard(server, method, this.writeEnabled);
         return this.defaultServer;
     }
@@ -28,11 +28,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.apache.lucene.document.Document;
@@ -310,9 +312,10 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
                 SolrIndexSearcher searcher = request.getSearcher();
                 DocIterator iterator = documents.iterator();
                 IndexSchema schema = request.getSchema();
+                final Set<String> storedFields = storedFieldsToLoad(rsp.getReturnFields());
 
                 int id = iterator.nextDoc();
-                Document doc = searcher.doc(id);
+                Document doc = searcher.doc(id, storedFields);
                 LinkedHashMap<String, String> tdoc = translateDoc(schema, doc, rsp.getReturnFields());
 
     			String title = doc.get(CollectionSchema.title.getSolrFieldName()); // title is multivalued, after translation fieldname could be in tdoc. "title_0" ..., so get it from doc
@@ -326,7 +329,7 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
 
                 while (iterator.hasNext()) {
                     id = iterator.nextDoc();
-                    doc = searcher.doc(id);
+                    doc = searcher.doc(id, storedFields);
                     tdoc = translateDoc(schema, doc, rsp.getReturnFields());
 
                     writeDoc(writer, tdoc, coreName, rsp.getReturnFields(), rootPath);
@@ -363,6 +366,25 @@ public class HTMLResponseWriter implements QueryResponseWriter, SolrjResponseWri
 		writer.write("</body></html>\n");
 	}
 
+	/**
+	 * Compute the stored fields to read from the index, so that large fields not
+	 * requested with the 'fl' parameter (such as text_t) are not loaded for each
+	 * document of the result set.
+	 * 
+	 * @param returnFields the eventual fields return configuration. May be null.
+	 * @return the names of the stored fields to load, or null when all fields are requested
+	 */
+	private static Set<String> storedFieldsToLoad(final ReturnFields returnFields) {
+		final Set<String> luceneFields = returnFields == null ? null : returnFields.getLuceneFieldNames();
+		if (luceneFields == null) {
+			return null;
+		}
+		final Set<String> storedFields = new HashSet<>(luceneFields);
+		/* the title is always used to render the page title of single document responses */
+		storedFields.add(CollectionSchema.title.getSolrFieldName());
+		return storedFields;
+	}
+
 	/**
 	 * Append to the writer HTML reprensentation of the given documents list. 
 	 * @param writer the output writer
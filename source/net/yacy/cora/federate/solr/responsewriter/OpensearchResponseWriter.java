@@ -413,15 +413,20 @@ public class OpensearchResponseWriter implements QueryResponseWriter, SolrjRespo
         String urlhash = null;
         MultiProtocolURL url = null;
         final DocIterator iterator = documents.iterator();
+        // the field buffers are re-used for each document to avoid allocations on large result sets
+        final List<String> texts = new ArrayList<>();
+        final List<String> descriptions = new ArrayList<>();
+        final List<Object> images_protocol_obj = new ArrayList<>();
+        final List<String> images_stub = new ArrayList<>();
         while(iterator.hasNext()) {
             openTag(writer, "item");
             int id = iterator.nextDoc();
             Document doc = searcher.doc(id, SOLR_FIELDS);
-            List<String> texts = new ArrayList<>();
-            List<String> descriptions = new ArrayList<>();
+            texts.clear();
+            descriptions.clear();
             String docTitle = "";
-            List<Object> images_protocol_obj = new ArrayList<>();
-        	List<String> images_stub = new ArrayList<>();
+            images_protocol_obj.clear();
+            images_stub.clear();
             for (final IndexableField value : doc.getFields()) {
                 String fieldName = value.name();
 
@@ -288,6 +288,11 @@ public class YJsonResponseWriter implements QueryResponseWriter, SolrjResponseWr
 			final Map<String, Collection<String>> snippets) throws IOException {
         final SolrIndexSearcher searcher = request.getSearcher();
         final DocIterator iterator = documents.iterator();
+        // the field buffers are re-used for each document to avoid allocations on large result sets
+        final List<String> descriptions = new ArrayList<>();
+        final StringBuilder path = new StringBuilder(80);
+        final List<Object> imagesProtocolObjs = new ArrayList<>();
+        final List<String> imagesStubs = new ArrayList<>();
         int writtenDocs = 0;
         while(iterator.hasNext()) {
         	if(writtenDocs > 0) {
@@ -299,11 +304,11 @@ public class YJsonResponseWriter implements QueryResponseWriter, SolrjResponseWr
             	Document doc = searcher.doc(id, OpensearchResponseWriter.SOLR_FIELDS);
             	MultiProtocolURL url = null;
             	String urlhash = null;
-            	List<String> descriptions = new ArrayList<>();
+            	descriptions.clear();
             	String docTitle = "";
-            	StringBuilder path = new StringBuilder(80);
-            	List<Object> imagesProtocolObjs = new ArrayList<>();
-            	List<String> imagesStubs = new ArrayList<>();
+            	path.setLength(0);
+            	imagesProtocolObjs.clear();
+            	imagesStubs.clear();
         	
             	for (final IndexableField value : doc.getFields()) {
             		String fieldName = value.name();
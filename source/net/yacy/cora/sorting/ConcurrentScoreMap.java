@@ -135,13 +135,27 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         return this.map.isEmpty();
     }
 
+    /**
+     * @param obj a key of this map. Must not be null.
+     * @return the counter of the key, created when not yet present
+     */
+    private AtomicInteger counter(final E obj) {
+        // only allocate a new counter on the first occurrence of the key
+        AtomicInteger counter = this.map.get(obj);
+        if (counter == null) {
+            counter = new AtomicInteger(0);
+            final AtomicInteger previous = this.map.putIfAbsent(obj, counter);
+            if (previous != null) counter = previous;
+        }
+        return counter;
+    }
+
     @Override
     public void inc(final E obj) {
         if (obj == null) return;
 
         // use atomic operations
-        this.map.putIfAbsent(obj, new AtomicInteger(0));
-        this.map.get(obj).incrementAndGet();
+        this.counter(obj).incrementAndGet();
 
         // increase overall counter
         this.gcount++;
@@ -154,8 +168,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         if (obj == null) return;
 
         // use atomic operations
-        this.map.putIfAbsent(obj, new AtomicInteger(0));
-        this.map.get(obj).decrementAndGet();
+        this.counter(obj).decrementAndGet();
 
         // increase overall counter
         this.gcount--;
@@ -185,8 +198,7 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         if (obj == null) return;
 
         // use atomic operations
-        this.map.putIfAbsent(obj, new AtomicInteger(0));
-        this.map.get(obj).addAndGet(incrementScore);
+        this.counter(obj).addAndGet(incrementScore);
 
         // increase overall counter
         this.gcount += incrementScore;
@@ -194,6 +206,28 @@ public class ConcurrentScoreMap<E> extends AbstractScoreMap<E> implements ScoreM
         dispatchUpdateToListener();
     }
 
+    /**
+     * Add all positive scores of the given map to this map, dispatching a single update event.
+     * @param map pre-aggregated scores, for example computed from a batch of documents or from facets
+     */
+    @Override
+    public void inc(final ScoreMap<E> map) {
+        if (map == null) return;
+        long added = 0;
+        for (final E entry: map) {
+            if (entry == null) continue;
+            final int count = map.get(entry);
+            if (count > 0) {
+                this.counter(entry).addAndGet(count);
+                added += count;
+            }
+        }
+        if (added > 0) {
+            this.gcount += added;
+            dispatchUpdateToListener();
+        }
+    }
+
     @Override
     public void dec(final E obj, final int decrementScore) {
         inc(obj, -decrementScore);
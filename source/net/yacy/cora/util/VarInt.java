@@ -0,0 +1,104 @@
+/**
+ *  VarInt
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * variable-length encoding of numbers and length-prefixed strings for the binary p2p formats:
+ * seven bits per byte, the highest bit marks that another byte follows.
+ * Signed numbers are zigzag-encoded so that small negative numbers are also short.
+ */
+public class VarInt {
+
+    /** upper limit of a length prefix, protects against corrupted or hostile input */
+    public static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    public static void writeUnsigned(final DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readUnsigned(final DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("varint too long");
+    }
+
+    public static void writeSigned(final DataOutput out, final long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSigned(final DataInput in) throws IOException {
+        final long z = readUnsigned(in);
+        return (z >>> 1) ^ -(z & 1);
+    }
+
+    /**
+     * read an unsigned number which is used as a length or count
+     * @throws IOException if the number exceeds MAX_LENGTH
+     */
+    public static int readLength(final DataInput in) throws IOException {
+        final long length = readUnsigned(in);
+        if (length > MAX_LENGTH) throw new IOException("length " + length + " exceeds limit");
+        return (int) length;
+    }
+
+    public static void writeBytes(final DataOutput out, final byte[] b) throws IOException {
+        if (b == null) {
+            writeUnsigned(out, 0);
+            return;
+        }
+        writeUnsigned(out, b.length);
+        out.write(b);
+    }
+
+    public static byte[] readBytes(final DataInput in) throws IOException {
+        final byte[] b = new byte[readLength(in)];
+        in.readFully(b);
+        return b;
+    }
+
+    /**
+     * write a string as UTF-8; null is written as empty string
+     */
+    public static void writeString(final DataOutput out, final String s) throws IOException {
+        writeBytes(out, s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String readString(final DataInput in) throws IOException {
+        final int length = readLength(in);
+        if (length == 0) return "";
+        final byte[] b = new byte[length];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,127 @@
+/**
+ *  CrawlLeases
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.crawler.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.crawler.retrieval.Request;
+
+/**
+ * The leases of remote crawl URLs which were pulled by other peers in batches.
+ * A URL which is handed over to a remote crawler is leased for a limited time; if no receipt arrives
+ * within that time the lease expires and the URL is returned to the global crawl stack, so it can be
+ * pulled by another peer. A URL is returned only once, if the lease expires a second time the URL is dropped.
+ */
+public class CrawlLeases {
+
+    public static final int MAX_BATCH = 1000;                     // maximum number of URLs in one batch
+    public static final long DEFAULT_LEASE_TIME = 30L * 60000L;
+    public static final long MIN_LEASE_TIME = 60000L;
+    public static final long MAX_LEASE_TIME = 60L * 60000L;
+    private static final long RETURN_MEMORY = 24L * 60L * 60000L;  // time how long returned URLs are remembered
+
+    private final Map<String, Lease> leases;  // url hash / lease
+    private final Map<String, Long> returned; // url hash / time when the URL was returned after an expired lease
+
+    private static class Lease {
+        private final Request request;
+        private final String peer;
+        private final long expires;
+        private Lease(final Request request, final String peer, final long expires) {
+            this.request = request;
+            this.peer = peer;
+            this.expires = expires;
+        }
+    }
+
+    public CrawlLeases() {
+        this.leases = new ConcurrentHashMap<String, Lease>();
+        this.returned = new ConcurrentHashMap<String, Long>();
+    }
+
+    /**
+     * lease a URL to a remote peer
+     * @param peer the hash of the peer which pulled the URL
+     * @param request the crawl request of the URL
+     * @param leaseTime the lease time in milliseconds, limited to MIN_LEASE_TIME..MAX_LEASE_TIME
+     */
+    public void lease(final String peer, final Request request, final long leaseTime) {
+        final long time = Math.min(MAX_LEASE_TIME, Math.max(MIN_LEASE_TIME, leaseTime));
+        this.leases.put(ASCII.String(request.url().hash()), new Lease(request, peer, System.currentTimeMillis() + time));
+    }
+
+    /**
+     * release the lease of a URL because a receipt arrived
+     * @param urlhash the hash of the URL
+     * @return the leased request or null if the URL was not leased
+     */
+    public Request release(final String urlhash) {
+        final Lease lease = this.leases.remove(urlhash);
+        this.returned.remove(urlhash);
+        return lease == null ? null : lease.request;
+    }
+
+    /**
+     * remove all expired leases
+     * @param now the current time
+     * @param exhausted requests which were returned once before are added here and must not be crawled again
+     * @return the requests which shall be returned to the crawl stack
+     */
+    public List<Request> expire(final long now, final List<Request> exhausted) {
+        final List<Request> retry = new ArrayList<Request>();
+        final Iterator<Map.Entry<String, Lease>> i = this.leases.entrySet().iterator();
+        while (i.hasNext()) {
+            final Map.Entry<String, Lease> entry = i.next();
+            if (entry.getValue().expires > now) continue;
+            i.remove();
+            if (this.returned.put(entry.getKey(), now) == null) retry.add(entry.getValue().request); else exhausted.add(entry.getValue().request);
+        }
+        final Iterator<Long> j = this.returned.values().iterator();
+        while (j.hasNext()) if (now - j.next() > RETURN_MEMORY) j.remove();
+        return retry;
+    }
+
+    /**
+     * @return the number of URLs which are leased to the given peer
+     */
+    public int size(final String peer) {
+        int c = 0;
+        for (final Lease lease: this.leases.values()) if (lease.peer.equals(peer)) c++;
+        return c;
+    }
+
+    /**
+     * @return the number of leased URLs
+     */
+    public int size() {
+        return this.leases.size();
+    }
+
+    public void clear() {
+        this.leases.clear();
+        this.returned.clear();
+    }
+
+}
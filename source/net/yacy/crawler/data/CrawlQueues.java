@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -61,6 +62,7 @@ import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.crawler.robots.RobotsTxtEntry;
 import net.yacy.kelondro.workflow.WorkflowJob;
+import net.yacy.peers.CrawlReceipts;
 import net.yacy.peers.DHTSelection;
 import net.yacy.peers.Protocol;
 import net.yacy.peers.Seed;
@@ -76,6 +78,9 @@ public class CrawlQueues {
     private final static Request POISON_REQUEST = new Request();
     private final static ConcurrentLog log = new ConcurrentLog("CRAWLER");
 
+    /** number of URLs which are pulled in one batch from peers supporting the batched remote crawl */
+    private final static int REMOTE_CRAWL_BATCH = 300;
+
     private final Switchboard sb;
     private final Loader[] worker;
     private final ArrayBlockingQueue<Request> workerQueue;
@@ -87,6 +92,12 @@ public class CrawlQueues {
     /** URLs pulled by remote peers in order to crawl them for us */
     public Map<String, DigestURL> delegatedURL;
 
+    /** leases of URLs pulled by remote peers in batches */
+    public final CrawlLeases leases;
+
+    /** pending receipts for URLs we crawled for remote peers */
+    public final CrawlReceipts receipts;
+
     public CrawlQueues(final Switchboard sb, final File queuePath) {
         this.sb = sb;
         final int maxWorkers = (int) sb.getConfigLong(SwitchboardConstants.CRAWLER_THREADS_ACTIVE_MAX, 10);
@@ -104,6 +115,8 @@ public class CrawlQueues {
         this.errorURL = new ErrorCache(sb);
         log.config("Opening delegatedURL..");
         this.delegatedURL = null;
+        this.leases = new CrawlLeases();
+        this.receipts = new CrawlReceipts();
     }
 
     public void initRemoteCrawlQueues () {
@@ -130,6 +143,7 @@ public class CrawlQueues {
         this.noticeURL.close();
         this.noticeURL = new NoticedURL(newQueuePath, sb.getConfigInt("crawler.onDemandLimit", 1000), this.sb.exceed134217727);
         if (this.delegatedURL != null) this.delegatedURL.clear();
+        this.leases.clear();
     }
 
     public synchronized void close() {
@@ -167,6 +181,63 @@ public class CrawlQueues {
         if (this.remoteCrawlProviderHashes != null) this.remoteCrawlProviderHashes.clear();
         this.noticeURL.clear();
         if (this.delegatedURL != null) this.delegatedURL.clear();
+        this.leases.clear();
+    }
+
+    /**
+     * return the URLs of expired remote crawl leases to the global crawl stack; URLs which were
+     * returned already once are moved to the error cache
+     * @return the number of returned URLs
+     */
+    public int returnExpiredLeases() {
+        final List<Request> exhausted = new ArrayList<Request>();
+        final List<Request> expired = this.leases.expire(System.currentTimeMillis(), exhausted);
+        int c = 0;
+        for (final Request request: expired) {
+            if (this.delegatedURL != null) this.delegatedURL.remove(ASCII.String(request.url().hash()));
+            final CrawlProfile profile = this.sb.crawler.get(ASCII.getBytes(request.profileHandle()));
+            if (profile == null) continue;
+            final String error = this.noticeURL.push(StackType.GLOBAL, request, profile, this.sb.robots);
+            if (error == null) c++; else log.info("returnExpiredLeases: cannot return " + request.url().toNormalform(true) + ": " + error);
+        }
+        for (final Request request: exhausted) {
+            if (this.delegatedURL != null) this.delegatedURL.remove(ASCII.String(request.url().hash()));
+            this.errorURL.push(request.url(), request.depth(), null, FailCategory.FINAL_LOAD_CONTEXT, "remote crawl lease expired twice", -1);
+        }
+        if (!expired.isEmpty() || !exhausted.isEmpty()) {
+            log.info("returnExpiredLeases: returned " + c + " URLs to the global crawl stack, dropped " + exhausted.size() + " URLs, " + this.leases.size() + " leases remaining");
+        }
+        return c;
+    }
+
+    /**
+     * send the pending crawl receipts for one initiator peer in one batch
+     * @param initiator the hash of the initiator peer
+     * @return the number of sent receipts
+     */
+    public int sendReceipts(final String initiator) {
+        final List<CrawlReceipts.Receipt> batch = this.receipts.take(initiator);
+        if (batch.isEmpty()) return 0;
+        final Seed target = this.sb.peers.getConnected(initiator);
+        if (target == null) return 0; // the initiator is gone, its leases will expire
+        final long t = System.currentTimeMillis();
+        final Map<String, String> response = Protocol.crawlReceipts(this.sb, target, batch);
+        if (response == null) {
+            log.info("Sending " + batch.size() + " crawl receipts to " + target.getName() + " FAILED, send time = " + (System.currentTimeMillis() - t));
+            return 0;
+        }
+        log.info("Sending " + batch.size() + " crawl receipts to " + target.getName() + " success, accepted = " + response.get("accepted") + ", send time = " + (System.currentTimeMillis() - t));
+        return batch.size();
+    }
+
+    /**
+     * send all pending crawl receipts
+     * @return the number of sent receipts
+     */
+    public int sendReceipts() {
+        int c = 0;
+        for (final String initiator: this.receipts.initiators()) c += sendReceipts(initiator);
+        return c;
     }
 
     /**
@@ -527,7 +598,10 @@ public class CrawlQueues {
         // we know a peer which should provide remote crawl entries. load them now.
 		final boolean preferHttps = sb.getConfigBool(SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED,
 				SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED_DEFAULT);
-        final RSSFeed feed = Protocol.queryRemoteCrawlURLs(this.sb.peers, seed, 60, 10000, preferHttps);
+        // peers which support batches lease us a larger number of urls grouped by host
+        final RSSFeed feed = seed.getFlagRemoteCrawlBatch() ?
+                Protocol.queryRemoteCrawlURLs(this.sb.peers, seed, REMOTE_CRAWL_BATCH, 10000, CrawlLeases.DEFAULT_LEASE_TIME, preferHttps) :
+                Protocol.queryRemoteCrawlURLs(this.sb.peers, seed, 60, 10000, preferHttps);
         if (feed == null || feed.isEmpty()) {
             // try again and ask another peer
             return remoteCrawlLoaderJob();
@@ -0,0 +1,154 @@
+/**
+ *  CharTokenizer
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.util.Locale;
+
+/**
+ * A tokenizer which produces the same tokens as the combination of SentenceReader and WordTokenizer
+ * without creating an object for each token: the text is copied once into a char array and the current
+ * token is a view on that array. Punctuation characters are single tokens, invisible characters separate the words.
+ * The lower case form of the current token is computed into a reusable buffer.
+ * The current token is only valid until the next call of next().
+ */
+public class CharTokenizer implements CharSequence {
+
+    private final char[] text;
+    private int pos;
+    private int start, length; // the current token
+    private char[] lower;      // the lower case form of the current token
+    private int lowerLength;   // -1 if the lower case form is not computed
+
+    public CharTokenizer(final String text) {
+        this.text = text == null ? new char[0] : text.toCharArray();
+        this.pos = 0;
+        this.start = 0;
+        this.length = 0;
+        this.lower = new char[32];
+        this.lowerLength = -1;
+    }
+
+    /**
+     * advance to the next token
+     * @return false if there are no more tokens
+     */
+    public boolean next() {
+        final char[] t = this.text;
+        this.lowerLength = -1;
+        while (this.pos < t.length) {
+            final char c = t[this.pos];
+            if (SentenceReader.punctuation(c)) {
+                this.start = this.pos++;
+                this.length = 1;
+                return true;
+            }
+            if (!SentenceReader.invisible(c)) break;
+            this.pos++;
+        }
+        if (this.pos >= t.length) {
+            this.length = 0;
+            return false;
+        }
+        this.start = this.pos;
+        while (this.pos < t.length) {
+            final char c = t[this.pos];
+            if (SentenceReader.punctuation(c) || SentenceReader.invisible(c)) break;
+            this.pos++;
+        }
+        this.length = this.pos - this.start;
+        return true;
+    }
+
+    /**
+     * @return true if the current token is a punctuation character
+     */
+    public boolean isPunctuation() {
+        return this.length == 1 && SentenceReader.punctuation(this.text[this.start]);
+    }
+
+    /**
+     * compute the lower case form of the current token like String.toLowerCase(Locale.ENGLISH)
+     * @return the length of the lower case form in lowerBuffer()
+     */
+    public int lower() {
+        if (this.lowerLength >= 0) return this.lowerLength;
+        if (this.lower.length < this.length) this.lower = new char[Math.max(this.length, this.lower.length * 2)];
+        for (int i = 0; i < this.length; i++) {
+            final char c = this.text[this.start + i];
+            if (c == '\u0130' || c == '\u03A3') {
+                // characters where the lower case form depends on the context or has a different length
+                final String lc = new String(this.text, this.start, this.length).toLowerCase(Locale.ENGLISH);
+                if (this.lower.length < lc.length()) this.lower = new char[lc.length()];
+                lc.getChars(0, lc.length(), this.lower, 0);
+                this.lowerLength = lc.length();
+                return this.lowerLength;
+            }
+            this.lower[i] = Character.toLowerCase(c);
+        }
+        this.lowerLength = this.length;
+        return this.lowerLength;
+    }
+
+    /**
+     * @return the buffer containing the lower case form of the current token after a call of lower()
+     */
+    public char[] lowerBuffer() {
+        return this.lower;
+    }
+
+    /**
+     * compare the lower case form of the current token with a lower case string
+     */
+    public boolean lowerEquals(final String s) {
+        final int l = lower();
+        if (l != s.length()) return false;
+        for (int i = 0; i < l; i++) if (this.lower[i] != s.charAt(i)) return false;
+        return true;
+    }
+
+    /**
+     * @return the lower case form of the current token as string
+     */
+    public String lowerString() {
+        final int l = lower();
+        return new String(this.lower, 0, l);
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return this.text[this.start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int s, final int e) {
+        return new String(this.text, this.start + s, e - s);
+    }
+
+    @Override
+    public String toString() {
+        return new String(this.text, this.start, this.length);
+    }
+
+}
@@ -29,7 +29,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -75,7 +74,28 @@ public final class Condenser extends Tokenizer {
             final boolean findDatesInContent,
             final int timezoneOffset
             ) {
-        super(document.dc_source(), indexText ? document.getTextString() : "", meaningLib, doAutotagging, scraper);
+        this(document, scraper, indexText, indexMedia, meaningLib, doAutotagging, findDatesInContent, timezoneOffset,
+             indexText ? new TokenProfile(Ranking.getMinTokenLen()) : null, new Identificator());
+    }
+
+    /**
+     * the text of the document is tokenized once; the token stream is shared by the word statistics,
+     * the token profile of the fuzzy signature and the streaming language identification
+     */
+    private Condenser(
+            final Document document,
+            final VocabularyScraper scraper,
+            final boolean indexText,
+            final boolean indexMedia,
+            final WordCache meaningLib,
+            final boolean doAutotagging,
+            final boolean findDatesInContent,
+            final int timezoneOffset,
+            final TokenProfile profile,
+            final Identificator identificator
+            ) {
+        super(document.dc_source(), indexText ? document.getTextString() : "", meaningLib, doAutotagging, scraper,
+              profile == null ? null : identificator.isStreaming() ? new TokenAnalyzer[]{profile, identificator} : new TokenAnalyzer[]{profile});
         
         final String initialThreadName = Thread.currentThread().getName();
         Thread.currentThread().setName("condenser-" + document.dc_identifier()); // for debugging
@@ -92,10 +112,10 @@ public final class Condenser extends Tokenizer {
         if (contentDomain == ContentDomain.APP   || !document.getApplinks().isEmpty())   this.RESULT_FLAGS.set(flag_cat_hasapp,   true);
         if (document.lat() != 0.0 && document.lon() != 0.0) this.RESULT_FLAGS.set(flag_cat_haslocation, true);
 
-        this.languageIdentificator = new Identificator();
+        this.languageIdentificator = identificator;
 
         // add the URL components to the word list
-        insertTextToWords(new SentenceReader(document.dc_source().toTokens()), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
+        insertTextToWords(document.dc_source().toTokens(), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
 
         Map.Entry<AnchorURL, String> entry;
         if (indexText) {
@@ -113,17 +133,17 @@ public final class Condenser extends Tokenizer {
             // phrase  98 is taken from the embedded anchor/hyperlinks description (REMOVED!)
             // phrase  99 is taken from the media Link url and anchor description
             // phrase 100 and above are lines from the text
-            insertTextToWords(new SentenceReader(document.dc_title()),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_title(),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
             for (String description: document.dc_description()) {
-                insertTextToWords(new SentenceReader(description), 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(description, 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
             }
-            insertTextToWords(new SentenceReader(document.dc_creator()),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_publisher()),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_subject(' ')),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_creator(),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_publisher(),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_subject(' '),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
             // missing: tags!
             final String[] titles = document.getSectionTitles();
             for (int i = 0; i < titles.length; i++) {
-                insertTextToWords(new SentenceReader(titles[i]), i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(titles[i], i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // anchors: for text indexing we add only the anchor description
@@ -151,24 +171,24 @@ public final class Condenser extends Tokenizer {
             Iterator<Map.Entry<AnchorURL, String>> i = document.getAudiolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // video
             i = document.getVideolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // applications
             i = document.getApplinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // images
@@ -179,8 +199,8 @@ public final class Condenser extends Tokenizer {
                 ientry = j.next();
                 url = ientry.url();
                 if (url == null) continue;
-                insertTextToWords(new SentenceReader(url.toNormalform(true)), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(ientry.alt()), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(url.toNormalform(true), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(ientry.alt(), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // finally check all words for missing flag entry
@@ -207,7 +227,7 @@ public final class Condenser extends Tokenizer {
         }
 
         String text = document.getTextString();
-        this.languageIdentificator.add(text); // use content text for language detection (before we added already title etc. for best identification content text is valuable)
+        if (profile == null || !identificator.isStreaming()) this.languageIdentificator.add(text); // use content text for language detection (before we added already title etc. for best identification content text is valuable)
 
         // create hashes for duplicate detection
         // check dups with http://localhost:8090/solr/select?q=*:*&start=0&rows=3&fl=sku,fuzzy_signature_text_t,fuzzy_signature_l,fuzzy_signature_unique_b
@@ -216,11 +236,13 @@ public final class Condenser extends Tokenizer {
         sp.put("quantRate", Float.toString(Ranking.getQuantRate())); // for minTokenLen = 2 the value should not be below 0.24; for minTokenLen = 3 the value must be not below 0.5!
         sp.put("minTokenLen", Integer.toString(Ranking.getMinTokenLen()));
         fuzzySignatureFactory.init(new MapSolrParams(sp));
-        fuzzySignatureFactory.add(text);
+        if (profile == null) fuzzySignatureFactory.add(text); else fuzzySignatureFactory.add(profile.getCounts());
         this.fuzzy_signature = EnhancedTextProfileSignature.getSignatureLong(fuzzySignatureFactory);
         this.fuzzy_signature_text = fuzzySignatureFactory.getSignatureText().toString();
         this.exact_signature = EnhancedTextProfileSignature.getSignatureLong(text);
 
+        this.terms = null; // the lookup table is only needed while the words are collected
+
         /* Restore the current thread initial name */
         Thread.currentThread().setName(initialThreadName);
     }
@@ -256,35 +278,34 @@ public final class Condenser extends Tokenizer {
 	}
 
     private void insertTextToWords(
-            final SentenceReader text,
+            final String text,
             final int phrase,
             final int flagpos,
             final Bitfield flagstemplate,
             final boolean useForLanguageIdentification,
             final WordCache meaningLib) {
         if (text == null) return;
-        String word;
         Word wprop;
-        WordTokenizer wordenum = new WordTokenizer(text, meaningLib);
-        try {
-	        int pip = 0;
-	        while (wordenum.hasMoreElements()) {
-	            word = wordenum.nextElement().toString();
-	            if (useForLanguageIdentification) this.languageIdentificator.add(word); // langdetect is case sensitive
-                    if (word.length() < 2) continue;
-                    word = word.toLowerCase(Locale.ENGLISH);
-	            wprop = this.words.get(word);
-	            if (wprop == null) wprop = new Word(0, pip, phrase);
-	            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
-	            wprop.flags.set(flagpos, true);
-	            this.words.put(word, wprop);
-	            pip++;
-	            this.RESULT_NUMB_WORDS++;
-	            //this.RESULT_DIFF_WORDS++;
-                }
-        } finally {
-        	wordenum.close();
-        	wordenum = null;
+        final CharTokenizer tokens = new CharTokenizer(text);
+        int pip = 0;
+        while (tokens.next()) {
+            if (meaningLib != null) WordCache.learn(tokens);
+            if (useForLanguageIdentification) {
+                if (this.languageIdentificator.isStreaming()) this.languageIdentificator.token(tokens); else this.languageIdentificator.add(tokens.toString()); // langdetect is case sensitive
+            }
+            if (tokens.length() < 2) continue;
+            final int len = tokens.lower();
+            final char[] lc = tokens.lowerBuffer();
+            wprop = this.terms.get(lc, 0, len);
+            if (wprop == null) {
+                wprop = new Word(0, pip, phrase);
+                this.words.put(this.terms.put(lc, 0, len, wprop), wprop);
+            }
+            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
+            wprop.flags.set(flagpos, true);
+            pip++;
+            this.RESULT_NUMB_WORDS++;
+            //this.RESULT_DIFF_WORDS++;
         }
     }
 
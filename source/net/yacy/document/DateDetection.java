@@ -37,6 +37,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -151,15 +152,28 @@ public class DateDetection {
     }
 
     public static HolidayMap Holidays = new HolidayMap();
-    public static Map<Pattern, Date[]> HolidayPattern = new HashMap<>();
+
+    /**
+     * one pattern for all holiday names, so the text is scanned only once and not once for each holiday.
+     * Each name is a capturing group; the dates of group i are in HolidayDates[i - 1].
+     * The boundaries are look-arounds and do not consume characters, so adjacent names are found as well.
+     */
+    public static Pattern HolidayPattern;
+    private static Date[][] HolidayDates;
     
     static {
     	Holidays.putAll(getHolidays(CURRENT_YEAR));
         
-        
-        for (Map.Entry<String, Date[]> holiday: Holidays.entrySet()) {
-            HolidayPattern.put(Pattern.compile(BODNCG + holiday.getKey() + EODNCG), holiday.getValue());
+        final List<Map.Entry<String, Date[]>> holidays = new ArrayList<>(Holidays.entrySet());
+        holidays.sort((a, b) -> b.getKey().length() - a.getKey().length()); // prefer the longest name at the same position
+        final StringBuilder holidayMatchString = new StringBuilder();
+        HolidayDates = new Date[holidays.size()][];
+        for (int i = 0; i < holidays.size(); i++) {
+            if (i > 0) holidayMatchString.append('|');
+            holidayMatchString.append('(').append(holidays.get(i).getKey()).append(')');
+            HolidayDates[i] = holidays.get(i).getValue();
         }
+        HolidayPattern = Pattern.compile("(?:^|(?<=\\s))(?:" + holidayMatchString + ")(?=[).:;! ]|$)");
     }
 
 	/**
@@ -680,9 +694,16 @@ public class DateDetection {
 
         LinkedHashSet<Date> dates = parseRawDate(text);
         
-        for (Map.Entry<Pattern, Date[]> entry: HolidayPattern.entrySet()) {
-            if (entry.getKey().matcher(text).find()) {
-                for (Date d: entry.getValue()) dates.add(d);
+        final boolean[] found = new boolean[HolidayDates.length];
+        final Matcher matcher = HolidayPattern.matcher(text);
+        while (matcher.find()) {
+            for (int i = 0; i < found.length; i++) {
+                if (matcher.start(i + 1) < 0) continue;
+                if (!found[i]) {
+                    found[i] = true;
+                    for (Date d: HolidayDates[i]) dates.add(d);
+                }
+                break;
             }
         }
         return dates;
@@ -171,6 +171,36 @@ public class Document {
         this.partiallyParsed = false;
     }
 
+    /**
+     * Create a copy of this document for another location of the same content. The text is
+     * materialized as string and the collections are copied, so the copy can be changed independently;
+     * the parser object and the scraper object are shared.
+     * @param location the source url of the copy
+     * @return a new document with the content of this document
+     */
+    public Document copy(final DigestURL location) {
+        final Document copy = new Document(location, this.mimeType, this.charset, this.parserObject,
+                this.languages == null ? null : new HashSet<String>(this.languages),
+                this.keywords.toArray(new String[this.keywords.size()]),
+                new ArrayList<String>(this.titles),
+                this.creator.toString(), this.publisher,
+                this.sections.toArray(new String[this.sections.size()]),
+                new ArrayList<String>(this.descriptions),
+                this.lon, this.lat,
+                this.getTextString(),
+                new ArrayList<AnchorURL>(this.anchors),
+                new LinkedHashMap<DigestURL, String>(this.rss),
+                new LinkedHashMap<DigestURL, ImageEntry>(this.images),
+                this.indexingDenied, this.lastModified);
+        copy.icons = new HashMap<DigestURL, IconEntry>(this.icons);
+        copy.linkedDataTypes = new HashSet<DigestURL>(this.linkedDataTypes);
+        copy.generic_facets.putAll(this.generic_facets);
+        copy.scraperObject = this.scraperObject;
+        copy.crawldepth = this.crawldepth;
+        copy.partiallyParsed = this.partiallyParsed;
+        return copy;
+    }
+
     /**
      * Get the content domain of a document. This tries to get the content domain from the mime type
      * and if this fails it uses alternatively the content domain from the file extension.
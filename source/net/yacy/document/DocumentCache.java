@@ -0,0 +1,149 @@
+/**
+ *  DocumentCache
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Digest;
+
+/**
+ * A cache of parser results keyed by the hash of the content. The same content is often loaded from
+ * several urls (i.e. session-id or tracking parameter variants of an url); with this cache the content
+ * is parsed only once and the following copies get a copy of the parsed document with their own url.
+ *
+ * The parser result depends on the url because relative links are resolved against it; therefore the
+ * key contains the base of the url (the url without query and fragment) together with the content hash,
+ * the media type, the charset and the crawl profile which defines the parser settings. Only results of
+ * one document for the loaded url are cached.
+ *
+ * The cache is bounded by the number of entries and by the total length of the cached texts and
+ * removes the least recently used entries first.
+ */
+public class DocumentCache {
+
+    private final int maxEntries;
+    private final long maxTextLength;
+    private final LinkedHashMap<String, Document> cache;
+    private long textLength;
+    private long hits, misses;
+
+    /**
+     * @param maxEntries the maximum number of cached documents, 0 disables the cache
+     * @param maxTextLength the maximum total number of characters of the cached texts
+     */
+    public DocumentCache(final int maxEntries, final long maxTextLength) {
+        this.maxEntries = maxEntries;
+        this.maxTextLength = maxTextLength;
+        this.cache = new LinkedHashMap<String, Document>(16, 0.75f, true);
+        this.textLength = 0;
+        this.hits = 0;
+        this.misses = 0;
+    }
+
+    /**
+     * compute the cache key of a loaded content
+     * @param url the url of the content
+     * @param mimeType the media type of the content
+     * @param charset the charset of the content
+     * @param profileHandle the handle of the crawl profile
+     * @param content the content
+     * @return the key
+     */
+    public static String key(final DigestURL url, final String mimeType, final String charset, final String profileHandle, final byte[] content) {
+        String base = url.toNormalform(true);
+        final int p = base.indexOf('?');
+        if (p >= 0) base = base.substring(0, p);
+        final int q = base.indexOf('#');
+        if (q >= 0) base = base.substring(0, q);
+        return Digest.encodeMD5Hex(content) + " " + mimeType + " " + charset + " " + profileHandle + " " + base;
+    }
+
+    public boolean isEnabled() {
+        return this.maxEntries > 0;
+    }
+
+    /**
+     * get a parsed document for the given url
+     * @param key the key of the content
+     * @param url the url of the requested document
+     * @return a copy of the cached document for the url or null if the content is not in the cache
+     */
+    public Document get(final String key, final DigestURL url) {
+        final Document cached;
+        synchronized (this.cache) {
+            cached = this.cache.get(key);
+            if (cached == null) {
+                this.misses++;
+                return null;
+            }
+            this.hits++;
+        }
+        return cached.copy(url);
+    }
+
+    /**
+     * cache the result of a parser
+     * @param key the key of the content
+     * @param url the url of the parsed content
+     * @param documents the parser result; it is cached only if it is a single document for the url
+     */
+    public void put(final String key, final DigestURL url, final Document[] documents) {
+        if (!isEnabled() || documents == null || documents.length != 1 || documents[0].dc_source() == null) return;
+        if (!documents[0].dc_source().toNormalform(true).equals(url.toNormalform(true))) return;
+        final Document copy = documents[0].copy(url); // the documents are changed by the indexer
+        final long length = copy.getTextString().length();
+        if (length > this.maxTextLength) return;
+        synchronized (this.cache) {
+            final Document old = this.cache.put(key, copy);
+            if (old != null) this.textLength -= old.getTextString().length();
+            this.textLength += length;
+            final Iterator<Map.Entry<String, Document>> i = this.cache.entrySet().iterator();
+            while ((this.cache.size() > this.maxEntries || this.textLength > this.maxTextLength) && i.hasNext()) {
+                this.textLength -= i.next().getValue().getTextString().length();
+                i.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (this.cache) {
+            this.cache.clear();
+            this.textLength = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+}
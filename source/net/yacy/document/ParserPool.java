@@ -0,0 +1,305 @@
+/**
+ *  ParserPool
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.yacy.cora.document.id.MultiProtocolURL;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Execution service for the parsers. A parser runs in a sandbox thread of this pool while the calling
+ * thread watches the wall clock time and the CPU time of the parser; if a budget is exceeded the parser
+ * is interrupted and the call fails with a {@link Timeout}. Cancellation is cooperative: parsers which
+ * check the interrupt flag (i.e. the archive parsers between their entries) stop early, other parsers
+ * keep their sandbox thread until they return, but the calling thread is released in any case.
+ *
+ * The pool has no queue: if all sandbox threads are busy, the parser runs in the calling thread without
+ * a budget, so nested calls from archive parsers can never wait for a free thread.
+ *
+ * The pool also parses the entries of archives in parallel, see {@link Batch}.
+ */
+public class ParserPool {
+
+    /**
+     * a parser job
+     */
+    public interface ParseTask {
+        public Document[] parse() throws Exception;
+    }
+
+    /**
+     * the failure when a parser exceeded its budget
+     */
+    public static class Timeout extends Parser.Failure {
+        private static final long serialVersionUID = 5471287103942834262L;
+        public Timeout(final String message, final MultiProtocolURL url) {
+            super(message, url);
+        }
+    }
+
+    private static final int MAX_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 4);
+    private static final int ENTRY_PARALLELISM = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private static final AtomicInteger threadCounter = new AtomicInteger(0);
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            0, MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+            r -> {
+                final Thread t = new Thread(r, "ParserPool." + threadCounter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    /** true in threads which already run within the budget of a sandbox */
+    private static final ThreadLocal<Boolean> sandboxed = new ThreadLocal<Boolean>();
+
+    private static volatile long timeLimit = 0; // milliseconds, 0 = no limit
+    private static volatile long cpuLimit = 0;  // milliseconds, 0 = no limit
+
+    /**
+     * set the budget of each parsed document; if both limits are zero the parsers run in the calling thread
+     * @param time the maximum wall clock time of a parser in milliseconds, 0 for no limit
+     * @param cpu the maximum CPU time of a parser in milliseconds, 0 for no limit
+     */
+    public static void setLimits(final long time, final long cpu) {
+        timeLimit = Math.max(0, time);
+        cpuLimit = threadBean.isThreadCpuTimeSupported() ? Math.max(0, cpu) : 0;
+    }
+
+    public static long getTimeLimit() {
+        return timeLimit;
+    }
+
+    public static long getCPULimit() {
+        return cpuLimit;
+    }
+
+    private static class Sandbox implements Callable<Document[]> {
+        private final MultiProtocolURL location;
+        private final ParseTask task;
+        private volatile Thread thread = null;
+        private volatile long cpuStart = 0;
+        private Sandbox(final MultiProtocolURL location, final ParseTask task) {
+            this.location = location;
+            this.task = task;
+        }
+        @Override
+        public Document[] call() throws Exception {
+            final Thread t = Thread.currentThread();
+            final String origName = t.getName();
+            t.setName("parsing + " + this.location.toNormalform(true)); // set a name to get the address in Thread Dump
+            if (cpuLimit > 0) this.cpuStart = threadBean.getCurrentThreadCpuTime();
+            this.thread = t;
+            final Boolean outer = sandboxed.get(); // not null if the pool was busy and the parser runs in the calling thread
+            sandboxed.set(Boolean.TRUE);
+            try {
+                return this.task.parse();
+            } finally {
+                sandboxed.set(outer);
+                this.thread = null;
+                t.setName(origName);
+            }
+        }
+        private long cpuTime() {
+            final Thread t = this.thread;
+            if (t == null) return 0;
+            final long cpu = threadBean.getThreadCpuTime(t.getId());
+            return cpu < 0 ? 0 : (cpu - this.cpuStart) / 1000000L;
+        }
+    }
+
+    /**
+     * run a parser within the budget of a document
+     * @param location the url of the parsed document
+     * @param task the parser job
+     * @return the result of the parser
+     * @throws Parser.Failure if the parser failed, was interrupted or exceeded the budget
+     */
+    public static Document[] execute(final MultiProtocolURL location, final ParseTask task) throws Parser.Failure {
+        final long time = timeLimit, cpu = cpuLimit;
+        if ((time <= 0 && cpu <= 0) || sandboxed.get() != null) {
+            // no budget or already within the budget of an enclosing document
+            try {
+                return task.parse();
+            } catch (final Parser.Failure e) {
+                throw e;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Parser.Failure("parser interrupted", location);
+            } catch (final Exception e) {
+                throw new Parser.Failure(e.getMessage(), location, e);
+            }
+        }
+        final Sandbox sandbox = new Sandbox(location, task);
+        final FutureTask<Document[]> future = new FutureTask<Document[]>(sandbox);
+        final long start = System.currentTimeMillis();
+        executor.execute(future);
+        try {
+            while (true) {
+                try {
+                    return future.get(100, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException e) {
+                    final long elapsed = System.currentTimeMillis() - start;
+                    if (time > 0 && elapsed > time) {
+                        future.cancel(true);
+                        throw new Timeout("parser exceeded the time limit of " + time + " milliseconds", location);
+                    }
+                    if (cpu > 0 && sandbox.cpuTime() > cpu) {
+                        future.cancel(true);
+                        throw new Timeout("parser exceeded the cpu limit of " + cpu + " milliseconds", location);
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new Parser.Failure("parser interrupted", location);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Parser.Failure) throw (Parser.Failure) cause;
+            throw new Parser.Failure(cause == null ? e.getMessage() : cause.getMessage(), location, cause == null ? e : cause);
+        }
+    }
+
+    /**
+     * Parallel parsing of the entries of an archive. The archive parser reads the entries one after the other
+     * and submits the parsing of each entry; the number of entries in parsing is bounded, so the archive parser
+     * waits for a free slot before it extracts the next entry and the memory and temporary files needed for the
+     * entries do not grow with the size of the archive. The results are returned in the order of the entries.
+     * The entries are parsed within the budget of the archive: if the archive parser is interrupted, all
+     * entries are cancelled. The temporary file of an entry is deleted by the batch when the entry is finished
+     * or cancelled, also if it was cancelled before it was started.
+     */
+    public static class Batch {
+
+        private final Semaphore slots;
+        private final List<Entry> entries;
+
+        public Batch() {
+            this(ENTRY_PARALLELISM);
+        }
+
+        public Batch(final int parallelism) {
+            this.slots = new Semaphore(Math.max(1, parallelism));
+            this.entries = new ArrayList<Entry>();
+        }
+
+        /**
+         * the parsing of one entry; the slot and the temporary file are released when the entry is done,
+         * which includes the cancellation of an entry that did not start
+         */
+        private class Entry extends FutureTask<Document[]> {
+
+            private final File tmp;
+
+            private Entry(final Callable<Document[]> callable, final File tmp) {
+                super(callable);
+                this.tmp = tmp;
+            }
+
+            @Override
+            protected void done() {
+                if (this.tmp != null) FileUtils.deletedelete(this.tmp);
+                Batch.this.slots.release();
+            }
+        }
+
+        /**
+         * submit the parsing of an entry; this blocks until a slot for the entry is free
+         * @param task the parser job of the entry, a Parser.Failure of the entry is logged and skipped
+         * @throws InterruptedException if the archive parser was interrupted while waiting for a slot
+         */
+        public void submit(final ParseTask task) throws InterruptedException {
+            submit(task, null);
+        }
+
+        /**
+         * submit the parsing of an entry which was extracted into a temporary file; this blocks until a slot for the entry is free
+         * @param task the parser job of the entry, a Parser.Failure of the entry is logged and skipped
+         * @param tmp the temporary file of the entry; it is deleted by the batch, also if the submission fails
+         * @throws InterruptedException if the archive parser was interrupted while waiting for a slot
+         */
+        public void submit(final ParseTask task, final File tmp) throws InterruptedException {
+            try {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                this.slots.acquire();
+            } catch (final InterruptedException e) {
+                if (tmp != null) FileUtils.deletedelete(tmp);
+                throw e;
+            }
+            final Entry entry = new Entry(() -> {
+                final Boolean outer = sandboxed.get(); // not null if the pool was busy and the entry runs in the archive parser thread
+                sandboxed.set(Boolean.TRUE);
+                try {
+                    return task.parse();
+                } finally {
+                    sandboxed.set(outer);
+                }
+            }, tmp);
+            this.entries.add(entry);
+            executor.execute(entry);
+        }
+
+        /**
+         * wait for all entries
+         * @return the documents of the entries in the order of the submission; failed entries are skipped
+         * @throws InterruptedException if the archive parser was interrupted; then all entries are cancelled
+         */
+        public List<Document[]> collect() throws InterruptedException {
+            final List<Document[]> result = new ArrayList<Document[]>(this.entries.size());
+            try {
+                for (final Entry entry: this.entries) {
+                    try {
+                        final Document[] docs = entry.get();
+                        if (docs != null) result.add(docs);
+                    } catch (final ExecutionException e) {
+                        AbstractParser.log.warn("archive entry: " + (e.getCause() == null ? e.getMessage() : e.getCause().getMessage()));
+                    }
+                }
+            } catch (final InterruptedException e) {
+                cancel();
+                throw e;
+            }
+            return result;
+        }
+
+        /**
+         * cancel all entries which are not finished; the archive parser must call this if it stops the extraction with an exception
+         */
+        public void cancel() {
+            for (final Entry entry: this.entries) entry.cancel(true);
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+/**
+ *  TermTable
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+/**
+ * An open addressing hash table of terms which is accessed with a slice of a char array,
+ * so a lookup of a term which is already in the table does not create any object.
+ * A string of the term is created only once when the term is added.
+ * @param <V> the value type
+ */
+public class TermTable<V> {
+
+    private String[] keys;
+    private int[] hashes;
+    private Object[] values;
+    private int size;
+
+    public TermTable(final int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.values = new Object[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * compute the hash of a term; this is identical to String.hashCode() of the term
+     */
+    public static int hash(final char[] b, final int off, final int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) h = 31 * h + b[i];
+        return h;
+    }
+
+    private int slot(final char[] b, final int off, final int len, final int hash) {
+        final int mask = this.keys.length - 1;
+        int i = (hash ^ (hash >>> 16)) & mask;
+        while (true) {
+            final String key = this.keys[i];
+            if (key == null) return i;
+            if (this.hashes[i] == hash && key.length() == len) {
+                boolean eq = true;
+                for (int j = 0; j < len; j++) if (key.charAt(j) != b[off + j]) {eq = false; break;}
+                if (eq) return i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * get the value of a term
+     * @return the value or null if the term is not in the table
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final char[] b, final int off, final int len) {
+        return (V) this.values[slot(b, off, len, hash(b, off, len))];
+    }
+
+    /**
+     * get the string of a term which is in the table
+     * @return the string or null if the term is not in the table
+     */
+    public String key(final char[] b, final int off, final int len) {
+        return this.keys[slot(b, off, len, hash(b, off, len))];
+    }
+
+    /**
+     * add a term or replace the value of a term
+     * @return the string of the term
+     */
+    public String put(final char[] b, final int off, final int len, final V value) {
+        final int hash = hash(b, off, len);
+        final int i = slot(b, off, len, hash);
+        this.values[i] = value;
+        String key = this.keys[i];
+        if (key != null) return key;
+        key = new String(b, off, len);
+        this.keys[i] = key;
+        this.hashes[i] = hash;
+        if (++this.size * 2 > this.keys.length) grow();
+        return key;
+    }
+
+    /**
+     * add a term with a string which is already available
+     */
+    public void put(final String key, final V value) {
+        final char[] b = key.toCharArray();
+        final int hash = hash(b, 0, b.length);
+        final int i = slot(b, 0, b.length, hash);
+        this.values[i] = value;
+        if (this.keys[i] != null) return;
+        this.keys[i] = key;
+        this.hashes[i] = hash;
+        if (++this.size * 2 > this.keys.length) grow();
+    }
+
+    private void grow() {
+        final String[] k = this.keys;
+        final int[] h = this.hashes;
+        final Object[] v = this.values;
+        this.keys = new String[k.length * 2];
+        this.hashes = new int[k.length * 2];
+        this.values = new Object[k.length * 2];
+        final int mask = this.keys.length - 1;
+        for (int j = 0; j < k.length; j++) {
+            if (k[j] == null) continue;
+            int i = (h[j] ^ (h[j] >>> 16)) & mask;
+            while (this.keys[i] != null) i = (i + 1) & mask;
+            this.keys[i] = k[j];
+            this.hashes[i] = h[j];
+            this.values[i] = v[j];
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -337,6 +337,9 @@ public final class TextParser {
                     try {
                         return parseSource(location, mimeType, parser, charset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset,
                                 nonCloseInputStream, maxLinks, maxBytes);
+                    } catch (final ParserPool.Timeout e) {
+                        /* the parser may still read the stream : do not try another parser */
+                        throw e;
                     } catch (final Parser.Failure e) {
                         /* Try to reset the marked stream. If the failed parser has consumed too many bytes :
                          * too bad, the marks is invalid and process fails now with an IOException */
@@ -512,15 +515,14 @@ public final class TextParser {
 
         if (AbstractParser.log.isFine()) AbstractParser.log.fine("Parsing " + location + " with mimeType '" + mimeType + "' and file extension '" + fileExt + "'.");
         try {
-            final Document[] docs;
-            if(parser.isParseWithLimitsSupported()) {
-                docs = parser.parseWithLimits(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, sourceStream, maxLinks, maxBytes);
-            } else {
+            return ParserPool.execute(location, () -> {
+                if(parser.isParseWithLimitsSupported()) {
+                    return parser.parseWithLimits(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, sourceStream, maxLinks, maxBytes);
+                }
                 /* Parser do not support partial parsing within limits : let's control it here*/
                 final InputStream limitedSource = new StrictLimitInputStream(sourceStream, maxBytes);
-                docs = parser.parse(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, limitedSource);
-            }
-            return docs;
+                return parser.parse(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, limitedSource);
+            });
         } catch(final Parser.Failure e) {
             throw e;
         } catch (final Exception e) {
@@ -574,16 +576,22 @@ public final class TextParser {
                 } else {
                     bis = new ByteArrayInputStream(sourceArray);
                 }
+                final InputStream source = bis;
                 try {
-                    if(parser.isParseWithLimitsSupported()) {
-                        docs = parser.parseWithLimits(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, bis, maxLinks, maxBytes);
-                    } else {
+                    docs = ParserPool.execute(location, () -> {
+                        if(parser.isParseWithLimitsSupported()) {
+                            return parser.parseWithLimits(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, source, maxLinks, maxBytes);
+                        }
                         /* Partial parsing is not supported by this parser : check content length now */
                         if(sourceArray.length > maxBytes) {
                             throw new Parser.Failure("Content size is over maximum size of " + maxBytes + "", location);
                         }
-                        docs = parser.parse(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, bis);
-                    }
+                        return parser.parse(location, mimeType, documentCharset, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, source);
+                    });
+                } catch (final ParserPool.Timeout e) {
+                    /* the budget of the document is exhausted : do not try another parser */
+                    failedParser.put(parser, e);
+                    break;
                 } catch (final Parser.Failure e) {
                     if(parser instanceof gzipParser && e.getCause() instanceof GZIPOpeningStreamException &&
                             (parsers.size() == 1 || (parsers.size() == 2 && parsers.contains(genericIdiom)))) {
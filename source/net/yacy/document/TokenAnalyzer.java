@@ -0,0 +1,35 @@
+/**
+ *  TokenAnalyzer
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+/**
+ * An analyzer in the chain of the Tokenizer: every analyzer of the chain sees the same token stream
+ * of a text, so the text is tokenized once for all analyses.
+ */
+public interface TokenAnalyzer {
+
+    /**
+     * analyze the current token; the token is a view on the text which is only valid during this call,
+     * punctuation tokens are included
+     * @param token the tokenizer positioned at the current token
+     */
+    public void token(CharTokenizer token);
+
+}
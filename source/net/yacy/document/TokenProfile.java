@@ -0,0 +1,73 @@
+/**
+ *  TokenProfile
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Counts the tokens of a text for the page profile of the EnhancedTextProfileSignature.
+ * The words of the CharTokenizer consist of letters and digits only, so they are the tokens of the
+ * signature; the token is brought to lower case character by character like in the signature, and
+ * tokens equal or shorter than minTokenLen are discarded.
+ */
+public class TokenProfile implements TokenAnalyzer {
+
+    private final int minTokenLen;
+    private final TermTable<int[]> counts;
+    private final List<String> order; // the tokens in the order of their first appearance
+    private final List<int[]> orderCounts; // the counters of the tokens in the same order
+    private char[] lower;
+
+    public TokenProfile(final int minTokenLen) {
+        this.minTokenLen = minTokenLen;
+        this.counts = new TermTable<int[]>(256);
+        this.order = new ArrayList<String>();
+        this.orderCounts = new ArrayList<int[]>();
+        this.lower = new char[32];
+    }
+
+    @Override
+    public void token(final CharTokenizer token) {
+        final int len = token.length();
+        if (len <= this.minTokenLen || token.isPunctuation()) return;
+        if (this.lower.length < len) this.lower = new char[Math.max(len, this.lower.length * 2)];
+        for (int i = 0; i < len; i++) this.lower[i] = Character.toLowerCase(token.charAt(i));
+        final int[] c = this.counts.get(this.lower, 0, len);
+        if (c != null) {
+            c[0]++;
+            return;
+        }
+        final int[] n = new int[]{1};
+        this.order.add(this.counts.put(this.lower, 0, len, n));
+        this.orderCounts.add(n);
+    }
+
+    /**
+     * @return the token counts in the order of the first appearance of the tokens
+     */
+    public LinkedHashMap<String, Integer> getCounts() {
+        final LinkedHashMap<String, Integer> result = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < this.order.size(); i++) result.put(this.order.get(i), this.orderCounts.get(i)[0]);
+        return result;
+    }
+
+}
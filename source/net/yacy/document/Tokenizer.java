@@ -27,7 +27,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -57,6 +56,7 @@ public class Tokenizer {
 
     //private Properties analysis;
     protected final Map<String, Word> words; // a string (the words) to (indexWord) - relation (key: words are lowercase)
+    protected TermTable<Word> terms; // the same words for a lookup with the char buffer of the tokenizer, only used during the construction
     private final Set<String> synonyms; // a set of synonyms to the words
     protected final Map<String, Set<Tagging.Metatag>> tags = new HashMap<String, Set<Tagging.Metatag>>(); // a set of tags, discovered from Autotagging
     
@@ -65,7 +65,16 @@ public class Tokenizer {
     public Bitfield RESULT_FLAGS = new Bitfield(4);
 
     public Tokenizer(final DigestURL root, final String text, final WordCache meaningLib, boolean doAutotagging, final VocabularyScraper scraper) {
+        this(root, text, meaningLib, doAutotagging, scraper, null);
+    }
+
+    /**
+     * tokenize the text once and feed the token stream also to a chain of analyzers
+     * @param analyzers additional analyzers which see every token of the text, may be null
+     */
+    protected Tokenizer(final DigestURL root, final String text, final WordCache meaningLib, boolean doAutotagging, final VocabularyScraper scraper, final TokenAnalyzer[] analyzers) {
         this.words = new TreeMap<String, Word>(NaturalOrder.naturalComparator);
+        this.terms = new TermTable<Word>(text == null ? 16 : Math.min(100000, text.length() / 16));
         this.synonyms = new LinkedHashSet<String>();
         assert text != null;
         final String[] wordcache = new String[LibraryProvider.autotagging.getMaxWordsInTerm() - 1];
@@ -78,62 +87,61 @@ public class Tokenizer {
         int allsentencecounter = 0;
         int wordInSentenceCounter = 1;
         boolean comb_indexof = false, last_last = false, last_index = false;
-        //final Map<StringBuilder, Phrase> sentences = new HashMap<StringBuilder, Phrase>(100);
         if (LibraryProvider.autotagging.isEmpty()) doAutotagging = false;
 
-        // read source
-        WordTokenizer wordenum = new WordTokenizer(new SentenceReader(text), meaningLib);
-        try {
-            while (wordenum.hasMoreElements()) {
-                String word = wordenum.nextElement().toString().toLowerCase(Locale.ENGLISH);
-                // handle punktuation (start new sentence)
-                if (word.length() == 1 && SentenceReader.punctuation(word.charAt(0))) {
-                    // store sentence
-                    if (wordInSentenceCounter > 1) // if no word in sentence repeated punktuation ".....", don't count as sentence
-                        allsentencecounter++;
-                    wordInSentenceCounter = 1;
-                    continue;
-                }
-                if (word.length() < wordminsize) continue;
+        // read source: the tokens are views on one char buffer, a string is only created for a new word
+        final CharTokenizer tokens = new CharTokenizer(text);
+        while (tokens.next()) {
+            // put word to words statistics cache
+            if (meaningLib != null) WordCache.learn(tokens);
+            if (analyzers != null) for (final TokenAnalyzer analyzer: analyzers) analyzer.token(tokens);
+            // handle punktuation (start new sentence)
+            if (tokens.isPunctuation()) {
+                // store sentence
+                if (wordInSentenceCounter > 1) // if no word in sentence repeated punktuation ".....", don't count as sentence
+                    allsentencecounter++;
+                wordInSentenceCounter = 1;
+                continue;
+            }
+            final int len = tokens.lower();
+            if (len < wordminsize) continue;
+            final char[] lc = tokens.lowerBuffer();
+
+            // get tags from autotagging
+            if (doAutotagging) {
+                final String word = tokens.lowerString();
+                Set<String> vocabularyNames = LibraryProvider.autotagging.getVocabularyNames();
+                extendVocabularies(root, scraper, vocabularyNames);
+
+                extractAutoTagsFromText(wordcache, word, vocabularyNames);
 
-                // get tags from autotagging
-                if (doAutotagging) {
-                    Set<String> vocabularyNames = LibraryProvider.autotagging.getVocabularyNames();
-                    extendVocabularies(root, scraper, vocabularyNames);
-                    
-                    extractAutoTagsFromText(wordcache, word, vocabularyNames);
-                }
                 // shift wordcache
                 System.arraycopy(wordcache, 1, wordcache, 0, wordcache.length - 1);
                 wordcache[wordcache.length - 1] = word;
+            }
 
-                // check index.of detection
-                if (last_last && comb_indexof && word.equals("modified")) {
-                    this.RESULT_FLAGS.set(flag_cat_indexof, true);
-                    wordenum.pre(true); // parse lines as they come with CRLF
-                }
-                if (last_index && (wordminsize > 2 || word.equals("of"))) comb_indexof = true;
-                last_last = word.equals("last");
-                last_index = word.equals("index");
+            // check index.of detection
+            if (last_last && comb_indexof && tokens.lowerEquals("modified")) {
+                this.RESULT_FLAGS.set(flag_cat_indexof, true);
+            }
+            if (last_index && (wordminsize > 2 || tokens.lowerEquals("of"))) comb_indexof = true;
+            last_last = tokens.lowerEquals("last");
+            last_index = tokens.lowerEquals("index");
 
-                // store word
-                allwordcounter++;
-                Word wsp = this.words.get(word);
-                if (wsp != null) {
-                    // word already exists
-                    wsp.inc();
-                } else {
-                    // word does not yet exist, create new word entry
-                    wsp = new Word(allwordcounter, wordInSentenceCounter, allsentencecounter + 100); // nomal sentence start at 100 !
-                    wsp.flags = this.RESULT_FLAGS.clone();
-                    this.words.put(word, wsp);
-                }
-                // we now have the unique handle of the word, put it into the sentence:
-                wordInSentenceCounter++;
+            // store word
+            allwordcounter++;
+            Word wsp = this.terms.get(lc, 0, len);
+            if (wsp != null) {
+                // word already exists
+                wsp.inc();
+            } else {
+                // word does not yet exist, create new word entry
+                wsp = new Word(allwordcounter, wordInSentenceCounter, allsentencecounter + 100); // nomal sentence start at 100 !
+                wsp.flags = this.RESULT_FLAGS.clone();
+                this.words.put(this.terms.put(lc, 0, len, wsp), wsp);
             }
-        } finally {
-            wordenum.close();
-            wordenum = null;
+            // we now have the unique handle of the word, put it into the sentence:
+            wordInSentenceCounter++;
         }
 
         if (pseudostemming) {
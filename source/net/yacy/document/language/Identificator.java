@@ -32,19 +32,30 @@ import com.cybozu.labs.langdetect.LangDetectException;
 import com.cybozu.labs.langdetect.Language;
 
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.document.CharTokenizer;
+import net.yacy.document.TokenAnalyzer;
 
 /**
  * This class can try to identify the language a text is written in.
+ * If the compact n-gram profiles are loaded (see {@link NGramProfiles}), the text is analyzed while it is
+ * streamed into this object, otherwise the text is collected for the langdetect library.
+ * As a TokenAnalyzer this can be fed with the token stream of the Tokenizer.
  */
-public final class Identificator {
+public final class Identificator implements TokenAnalyzer {
 
     private Detector detector;
+    private NGramDetector ngramDetector;
     private Language language;
 
     /**
-     * Default constructor. Requires the DetectorFactory language profiles to be loaded before.
+     * Default constructor. Requires the NGramProfiles or the DetectorFactory language profiles to be loaded before.
      */
     public Identificator() {
+        final NGramProfiles profiles = NGramProfiles.get();
+        if (profiles != null) {
+            this.ngramDetector = new NGramDetector(profiles);
+            return;
+        }
         try {
             this.detector = DetectorFactory.create();
         } catch (LangDetectException e) {
@@ -52,13 +63,34 @@ public final class Identificator {
         }
     }
 
+    /**
+     * @return true if the language is identified while the text is streamed; then tokens can be fed with {@link #token(CharTokenizer)}
+     */
+    public boolean isStreaming() {
+        return this.ngramDetector != null;
+    }
+
+    /**
+     * feed a token of the tokenizer; this is only used for the streaming identification
+     */
+    @Override
+    public void token(final CharTokenizer token) {
+        if (this.ngramDetector == null || this.ngramDetector.isDone() || token.isPunctuation()) return;
+        this.ngramDetector.append(token);
+    }
+
     /**
      * Append a word to the text to be analyzed.
      * Analysis takes letter case into account (this means word should not be upper- or lower cased)
      * @param word
      */
     public void add(final String word) {
-        if (word == null || this.detector == null) {
+        if (word == null) return;
+        if (this.ngramDetector != null) {
+            this.ngramDetector.append(word);
+            return;
+        }
+        if (this.detector == null) {
         	return;
         }
         this.detector.append(" " + word); // detector internally caches text up to maxtextlen = default = 10000 chars
@@ -71,6 +103,11 @@ public final class Identificator {
      * @return 2 char language code (ISO 639-1)
      */
     public String getLanguage() {
+        if (this.ngramDetector != null) {
+            final String lang = this.ngramDetector.getLanguage();
+            if (lang == null || this.ngramDetector.getProbability() <= 0.3) return null;
+            return lang.length() == 2 ? lang : lang.substring(0, 2);
+        }
     	if(this.detector != null) {
     		try {
     			ArrayList<Language> probabilities = this.detector.getProbabilities();
@@ -99,6 +136,9 @@ public final class Identificator {
      * @return 0.0 to 1.0
      */
     public double getProbability() {
+        if (this.ngramDetector != null) {
+            return this.ngramDetector.getProbability();
+        }
         if (language != null) {
             return language.prob;
         }
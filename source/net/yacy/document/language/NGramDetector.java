@@ -0,0 +1,148 @@
+/**
+ *  NGramDetector
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document.language;
+
+import com.cybozu.labs.langdetect.util.NGram;
+
+/**
+ * Streaming language detection with the compact n-gram profiles. The characters are normalized and cut into
+ * n-grams like in langdetect, but the scores of the languages are updated immediately for every n-gram
+ * (a naive Bayes classification with the same smoothing as langdetect), so no text is buffered.
+ * The detection stops to consume input as soon as the margin between the best and the second best language
+ * is confident, or when the maximum text length is reached.
+ */
+public class NGramDetector {
+
+    /** the maximum number of characters which are analyzed, as in langdetect */
+    public static final int MAX_TEXT_LENGTH = 10000;
+
+    /** the minimum number of n-grams before the detection may stop early */
+    private static final int MIN_GRAMS = 150;
+
+    /** the log-likelihood margin of the best language over the second language which stops the detection */
+    private static final double CONFIDENT_MARGIN = 12.0d;
+
+    private final NGramProfiles profiles;
+    private final double[] scores;
+    private char g0, g1, g2; // the n-gram window, g2 is the last character
+    private int length;      // the number of characters in the window
+    private boolean capitalword;
+    private int chars, grams;
+    private boolean done;
+
+    public NGramDetector(final NGramProfiles profiles) {
+        this.profiles = profiles;
+        this.scores = new double[profiles.getLanguages().length];
+        this.g0 = ' ';
+        this.g1 = ' ';
+        this.g2 = ' ';
+        this.length = 1;
+        this.capitalword = false;
+        this.chars = 0;
+        this.grams = 0;
+        this.done = false;
+    }
+
+    /**
+     * @return true if the detection is finished and further input is ignored
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * append text to the analyzed text
+     */
+    public void append(final CharSequence text) {
+        if (this.done) return;
+        addChar(' ');
+        for (int i = 0; i < text.length() && !this.done; i++) addChar(text.charAt(i));
+    }
+
+    /**
+     * append one character; the n-grams ending at this character are scored
+     */
+    public void addChar(char c) {
+        if (this.done) return;
+        c = NGram.normalize(c);
+        final char last = this.g2;
+        if (last == ' ') {
+            // a new word starts with a space in the window
+            this.g0 = ' ';
+            this.g1 = ' ';
+            this.length = 1;
+            this.capitalword = false;
+            if (c == ' ') return;
+        } else if (this.length >= 3) {
+            this.length--;
+        }
+        this.g0 = this.g1;
+        this.g1 = this.g2;
+        this.g2 = c;
+        this.length++;
+        if (Character.isUpperCase(c)) {
+            if (Character.isUpperCase(last)) this.capitalword = true;
+        } else {
+            this.capitalword = false;
+        }
+        if (++this.chars >= MAX_TEXT_LENGTH) this.done = true;
+        if (this.capitalword) return;
+
+        // score the n-grams ending with this character
+        boolean found = false;
+        if (c != ' ') found |= this.profiles.update(NGramProfiles.key(1, c, (char) 0, (char) 0), this.scores);
+        if (this.length >= 2) found |= this.profiles.update(NGramProfiles.key(2, this.g1, c, (char) 0), this.scores);
+        if (this.length >= 3) found |= this.profiles.update(NGramProfiles.key(3, this.g0, this.g1, c), this.scores);
+        if (found && ++this.grams >= MIN_GRAMS && (this.grams & 31) == 0 && margin() > CONFIDENT_MARGIN) this.done = true;
+    }
+
+    private int best() {
+        int best = -1;
+        for (int i = 0; i < this.scores.length; i++) if (best < 0 || this.scores[i] > this.scores[best]) best = i;
+        return best;
+    }
+
+    private double margin() {
+        final int best = best();
+        double second = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.scores.length; i++) if (i != best && this.scores[i] > second) second = this.scores[i];
+        return this.scores[best] - second;
+    }
+
+    /**
+     * @return the name of the language with the highest score or null if no n-gram was found
+     */
+    public String getLanguage() {
+        if (this.grams == 0 || this.scores.length == 0) return null;
+        return this.profiles.getLanguages()[best()];
+    }
+
+    /**
+     * @return the probability of the best language, computed from the scores of all languages
+     */
+    public double getProbability() {
+        if (this.grams == 0 || this.scores.length == 0) return 0.0d;
+        final double top = this.scores[best()];
+        double sum = 0.0d;
+        for (final double s: this.scores) sum += Math.exp(s - top);
+        return 1.0d / sum;
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ *  NGramProfiles
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document.language;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * A compact table of the n-gram profiles of the languages, computed once from the profile files of langdetect.
+ * For each n-gram (one to three characters) the table holds only the languages which contain the n-gram,
+ * together with the log-likelihood gain of the n-gram for that language against the smoothing value which
+ * applies to all languages that do not contain the n-gram. The n-grams are packed into a long key and found
+ * in a primitive open addressing hash table, so the lookup of an n-gram does not create any object.
+ */
+public class NGramProfiles {
+
+    /** the smoothing probability of an n-gram which is not in a profile, as in langdetect (alpha / base frequency) */
+    private static final double SMOOTHING = 0.5d / 10000.0d;
+
+    private static volatile NGramProfiles instance = null;
+
+    private final String[] languages;
+    private final long[] keys;     // the packed n-grams, 0 = empty slot
+    private final int[] entries;   // the index of the n-gram in offsets for each slot
+    private final int[] offsets;   // the range of the languages of n-gram i is offsets[i] .. offsets[i + 1]
+    private final short[] langs;   // the language index of each entry
+    private final float[] gains;   // the log-likelihood gain of each entry
+
+    /**
+     * load the profiles for the identification of languages
+     * @param profileDir the directory with the langdetect profile files
+     */
+    public static void load(final File profileDir) throws IOException {
+        instance = new NGramProfiles(profileDir);
+    }
+
+    /**
+     * @return the loaded profiles or null if no profiles are loaded
+     */
+    public static NGramProfiles get() {
+        return instance;
+    }
+
+    public static void clear() {
+        instance = null;
+    }
+
+    /**
+     * pack up to three characters of an n-gram into a key
+     */
+    public static long key(final int n, final char c0, final char c1, final char c2) {
+        return ((long) n << 48) | ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+
+    private NGramProfiles(final File profileDir) throws IOException {
+        final String[] files = profileDir.list();
+        if (files == null) throw new IOException("no language profiles in " + profileDir);
+        Arrays.sort(files);
+        final List<String> names = new ArrayList<String>();
+        final Map<Long, List<double[]>> table = new HashMap<Long, List<double[]>>(); // n-gram -> {language, gain}
+        for (final String file: files) {
+            final File f = new File(profileDir, file);
+            if (!f.isFile()) continue;
+            try {
+                final JSONObject profile = new JSONObject(UTF8.String(FileUtils.read(f)));
+                final JSONObject freq = profile.getJSONObject("freq");
+                final JSONArray nWords = profile.getJSONArray("n_words");
+                final int lang = names.size();
+                names.add(profile.getString("name"));
+                final Iterator<String> i = freq.keys();
+                while (i.hasNext()) {
+                    final String gram = i.next();
+                    final int n = gram.length();
+                    if (n < 1 || n > 3) continue;
+                    final double p = freq.getLong(gram) / nWords.getDouble(n - 1);
+                    final long key = key(n, gram.charAt(0), n > 1 ? gram.charAt(1) : 0, n > 2 ? gram.charAt(2) : 0);
+                    List<double[]> l = table.get(key);
+                    if (l == null) {
+                        l = new ArrayList<double[]>(2);
+                        table.put(key, l);
+                    }
+                    l.add(new double[]{lang, Math.log(p + SMOOTHING) - Math.log(SMOOTHING)});
+                }
+            } catch (final JSONException e) {
+                throw new IOException("cannot read language profile " + f + ": " + e.getMessage());
+            }
+        }
+        this.languages = names.toArray(new String[names.size()]);
+
+        int capacity = 16;
+        while (capacity < table.size() * 2) capacity <<= 1;
+        this.keys = new long[capacity];
+        this.entries = new int[capacity];
+        this.offsets = new int[table.size() + 1];
+        int count = 0;
+        for (final List<double[]> l: table.values()) count += l.size();
+        this.langs = new short[count];
+        this.gains = new float[count];
+        int gram = 0, entry = 0;
+        for (final Map.Entry<Long, List<double[]>> e: table.entrySet()) {
+            final int slot = slot(e.getKey().longValue());
+            this.keys[slot] = e.getKey().longValue();
+            this.entries[slot] = gram;
+            this.offsets[gram] = entry;
+            for (final double[] lg: e.getValue()) {
+                this.langs[entry] = (short) lg[0];
+                this.gains[entry] = (float) lg[1];
+                entry++;
+            }
+            gram++;
+        }
+        this.offsets[gram] = entry;
+    }
+
+    private int slot(final long key) {
+        final int mask = this.keys.length - 1;
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (this.keys[i] != 0 && this.keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    /**
+     * add the gains of an n-gram to the scores of the languages
+     * @param key the packed n-gram
+     * @param scores the scores of the languages
+     * @return true if the n-gram is in the profile of at least one language
+     */
+    public boolean update(final long key, final double[] scores) {
+        final int slot = slot(key);
+        if (this.keys[slot] == 0) return false;
+        final int gram = this.entries[slot];
+        for (int i = this.offsets[gram]; i < this.offsets[gram + 1]; i++) scores[this.langs[i]] += this.gains[i];
+        return true;
+    }
+
+    /**
+     * @return the names of the languages; the index of a name is the index of the score of the language
+     */
+    public String[] getLanguages() {
+        return this.languages;
+    }
+
+}
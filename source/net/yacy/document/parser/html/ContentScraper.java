@@ -428,16 +428,16 @@ public class ContentScraper extends AbstractScraper implements Scraper {
             if ((b.length() != 0) && (!(SentenceReader.punctuation(b.charAt(b.length() - 1))))) b = b + '.';
             //System.out.println("*** Appended dot: " + b.toString());
         }
-        // find absolute URLs inside text
-        final Object[] listeners = this.htmlFilterEventListeners.getListenerList();
-        List<ContentScraperListener> anchorListeners = new ArrayList<>();
-        for (int i = 0; i < listeners.length; i += 2) {
-            if (listeners[i] == ContentScraperListener.class) {
-                anchorListeners.add((ContentScraperListener)listeners[i+1]);
+        // find absolute URLs inside text; most texts have no url scheme, then the listeners are not needed
+        if(!this.maxAnchorsExceeded && b.indexOf("://") >= 0) {
+            final Object[] listeners = this.htmlFilterEventListeners.getListenerList();
+            List<ContentScraperListener> anchorListeners = new ArrayList<>();
+            for (int i = 0; i < listeners.length; i += 2) {
+                if (listeners[i] == ContentScraperListener.class) {
+                    anchorListeners.add((ContentScraperListener)listeners[i+1]);
+                }
             }
-        }
-        
-        if(!this.maxAnchorsExceeded) {
+
             int maxLinksToDetect = this.maxAnchors - this.anchors.size();
             if(maxLinksToDetect < Integer.MAX_VALUE) {
                 /* Add one to the anchors limit to detect when the limit is exceeded */
@@ -471,7 +471,7 @@ public class ContentScraper extends AbstractScraper implements Scraper {
      * @return the number of well formed URLs detected
      */
     public static long findAbsoluteURLs(final String text, final Collection<AnchorURL> urls, final Collection<ContentScraperListener> listeners, final long maxURLs) {
-        if(text == null) {
+        if(text == null || text.indexOf("://") < 0) {
             return 0;
         }
         int schemePosition, offset = 0;
@@ -36,6 +36,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Locale;
 import java.util.Properties;
@@ -54,9 +55,16 @@ public final class TransformerWriter extends Writer {
     public static final char singlequote = '\'';
     public static final char doublequote = '"';
 
+    private static final char[] EMPTY = new char[0];
+
+    /** token buffers up to this size are kept for the next writer in the same thread */
+    private static final int POOLED_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<char[]> bufferPool = new ThreadLocal<char[]>();
+
     private final OutputStream outStream;
     private OutputStreamWriter out;
-    private CharBuffer buffer;
+    private char[] buffer; // the current token, reused for all tokens
+    private int bufferLength;
     private Stack<ContentScraper.Tag> tagStack;
     private final Scraper scraper;
     private boolean inSingleQuote;
@@ -83,7 +91,14 @@ public final class TransformerWriter extends Writer {
     ) {
         this.outStream     = outStream;
         this.scraper       = scraper;
-        this.buffer        = new CharBuffer(ContentScraper.MAX_DOCSIZE, initialBufferSize);
+        final char[] pooled = bufferPool.get();
+        if (pooled == null) {
+            this.buffer = new char[Math.max(16, initialBufferSize)];
+        } else {
+            bufferPool.remove();
+            this.buffer = pooled;
+        }
+        this.bufferLength  = 0;
         this.tagStack      = new Stack<ContentScraper.Tag>();
         this.inSingleQuote = false;
         this.inDoubleQuote = false;
@@ -97,16 +112,18 @@ public final class TransformerWriter extends Writer {
     }
 
     public static char[] genTag0raw(final String tagname, final boolean opening, final char[] tagopts) {
-            final CharBuffer bb = new CharBuffer(ContentScraper.MAX_DOCSIZE, tagname.length() + tagopts.length + 3);
+            return genTag0raw(tagname, opening, tagopts, 0, tagopts.length);
+    }
+
+    private static char[] genTag0raw(final String tagname, final boolean opening, final char[] tagopts, final int start, final int end) {
+            final CharBuffer bb = new CharBuffer(ContentScraper.MAX_DOCSIZE, tagname.length() + end - start + 3);
             bb.append('<');
             if (!opening) {
                 bb.append('/');
             }
             bb.append(tagname);
-            if (tagopts.length > 0) {
-//              if (tagopts[0] == (byte) 32)
-                bb.append(tagopts);
-//              else bb.append((byte) 32).append(tagopts);
+            if (end > start) {
+                bb.append(tagopts, start, end - start);
             }
             bb.append('>');
             final char[] result = bb.getChars();
@@ -175,39 +192,37 @@ public final class TransformerWriter extends Writer {
 
     /**
      * the token processor distinguishes three different types of input: opening tag, closing tag, text content
-     * @param in - the token to be processed
+     * The token is read from the token buffer; only the parts which are handed over to the scraper are copied.
      * @param quotechar
      * @return a processed version of the token
      */
-    private char[] tokenProcessor(final char[] in, final char quotechar) {
-        if (in.length == 0) return in;
-        
+    private char[] tokenProcessor(final char quotechar) {
+        final char[] in = this.buffer;
+        final int length = this.bufferLength;
+        if (length == 0) return EMPTY;
+
         // scan the string and parse structure
-        if (in.length <= 2 || in[0] != lb) return filterTag(in); // this is a text
+        if (length <= 2 || in[0] != lb) return filterTag(Arrays.copyOf(in, length)); // this is a text
 
         // this is a tag
         String tag;
         int tagend;
         if (in[1] == '/') {
             // a closing tag
-            tagend = tagEnd(in, 2);
+            tagend = tagEnd(in, 2, length);
             tag = new String(in, 2, tagend - 2).toLowerCase(Locale.ROOT);
-            final char[] text = new char[in.length - tagend - 1];
-            System.arraycopy(in, tagend, text, 0, in.length - tagend - 1);
-            return filterTag(text, quotechar, tag, false);
+            return filterTag(in, tagend, length - 1, quotechar, tag, false);
         }
 
         // don't add text from within <script> section, here e.g. a "if 1<a" expression could confuse tag detection
         if (this.tagStack.size()>0 && this.tagStack.lastElement().name.equals(TagName.script.name())) {
-            return new char[0];
+            return EMPTY;
         }
 
         // an opening tag
-        tagend = tagEnd(in, 1);
+        tagend = tagEnd(in, 1, length);
         tag = new String(in, 1, tagend - 1).toLowerCase(Locale.ROOT);
-        final char[] text = new char[in.length - tagend - 1];
-        System.arraycopy(in, tagend, text, 0, in.length - tagend - 1);
-        return filterTag(text, quotechar, tag, true);
+        return filterTag(in, tagend, length - 1, quotechar, tag, true);
     }
     
     // distinguish the following cases:
@@ -240,10 +255,15 @@ public final class TransformerWriter extends Writer {
             this.scraper.scrapeText(content, this.tagStack.lastElement());
         }
         this.tagStack.lastElement().content.append(content);
-        return new char[0];
+        return EMPTY;
     }
-            
-    private char[] filterTag(final char[] content, final char quotechar, final String tagname, final boolean opening) {
+
+    /**
+     * @param content the token buffer
+     * @param start the start of the tag options in the content
+     * @param end the end (exclusive) of the tag options in the content
+     */
+    private char[] filterTag(final char[] content, final int start, final int end, final char quotechar, final String tagname, final boolean opening) {
         assert tagname != null;
         
         if (this.tagStack.size() == 0) {
@@ -252,39 +272,38 @@ public final class TransformerWriter extends Writer {
             // we have a new tag
             if (opening) {
                 // case (2):
-                return filterTagOpening(tagname, content);
+                return filterTagOpening(tagname, content, start, end);
             }
 
             // its a close tag where no should be
             // case (3): we ignore that thing and return it again
-            return genTag0raw(tagname, false, content);
+            return this.out == null ? EMPTY : genTag0raw(tagname, false, content, start, end);
 
         }
 
         // we are collection tag text for the tag 'filterTag' -> case (4) - (7)
-        if (tagname.equals("!")) filterTag(content);
+        if (tagname.equals("!")) filterTag(Arrays.copyOfRange(content, start, end));
 
         // it's a tag! which one?
         if (opening) {
             // case (5): the opening should not be here. But we keep the order anyway
-            this.tagStack.lastElement().content.append(filterTagOpening(tagname, content));
-            return new char[0];
+            this.tagStack.lastElement().content.append(filterTagOpening(tagname, content, start, end));
+            return EMPTY;
         }
 
         if (!tagname.equalsIgnoreCase(this.tagStack.lastElement().name)) {
             // case (6): its a closing tag, but the wrong one. just add it.
-            this.tagStack.lastElement().content.append(genTag0raw(tagname, opening, content));
-            return new char[0];
+            this.tagStack.lastElement().content.append(genTag0raw(tagname, opening, content, start, end));
+            return EMPTY;
         }
 
         // it's our closing tag! return complete result.
         return filterTagCloseing(quotechar);
     }
 
-    private char[] filterTagOpening(final String tagname, final char[] content) {
-        final CharBuffer charBuffer = new CharBuffer(ContentScraper.MAX_DOCSIZE, content);
-        ContentScraper.Tag tag = new ContentScraper.Tag(tagname, this.scraper.defaultValency(), charBuffer.propParser());
-        charBuffer.close();
+    private char[] filterTagOpening(final String tagname, final char[] content, final int start, final int end) {
+        // the attributes are parsed directly from the token buffer
+        ContentScraper.Tag tag = new ContentScraper.Tag(tagname, this.scraper.defaultValency(), CharBuffer.propParser(content, start, end));
         
         final ContentScraper.Tag parentTag;
         if(this.tagStack.size() > 0) {
@@ -310,42 +329,48 @@ public final class TransformerWriter extends Writer {
         if (this.scraper != null && this.scraper.isTag1(tagname)) {
             // ok, start collecting; we don't push this here to the scraper or transformer; we do that when the tag is closed.
             this.tagStack.push(tag);
-            return new char[0];
+            return EMPTY;
         }
-        // we ignore that thing and return it again
-        return genTag0raw(tagname, true, content);
+        // we ignore that thing and return it again; without an output the tag is only needed inside of a collected tag
+        if (this.out == null && this.tagStack.size() == 0) return EMPTY;
+        return genTag0raw(tagname, true, content, start, end);
     }
 
     private char[] filterTagCloseing(final char quotechar) {
         char[] ret;
         ContentScraper.Tag tag = this.tagStack.lastElement();
         if (this.scraper != null) this.scraper.scrapeTag1(tag);
-        ret = genTag1(tag.name, tag.opts, tag.content.getChars(), quotechar);
         if (this.scraper != null && this.scraper.isTag1(tag.name)) {
             // remove the tag from the stack as soon as the tag is processed
             this.tagStack.pop();
             // at this point the characters from the recently processed tag must be attached to the previous tag
-            if (this.tagStack.size() > 0) this.tagStack.lastElement().content.append(ret);
+            if (this.tagStack.size() > 0) {
+                ret = genTag1(tag.name, tag.opts, tag.content.getChars(), quotechar);
+                this.tagStack.lastElement().content.append(ret);
+                return ret;
+            }
+            // without an output the re-generated tag is not needed
+            if (this.out == null) return EMPTY;
         }
-        return ret;
+        return genTag1(tag.name, tag.opts, tag.content.getChars(), quotechar);
     }
 
     private char[] filterFinalize(final char quotechar) {
         if (this.tagStack.size() == 0) {
-            return new char[0];
+            return EMPTY;
         }
 
         // it's our closing tag! return complete result.
-        char[] ret;
+        char[] ret = EMPTY;
         if (this.scraper != null) this.scraper.scrapeTag1(this.tagStack.lastElement());
-        ret = genTag1(this.tagStack.lastElement().name, this.tagStack.lastElement().opts, this.tagStack.lastElement().content.getChars(), quotechar);
+        if (this.out != null) ret = genTag1(this.tagStack.lastElement().name, this.tagStack.lastElement().opts, this.tagStack.lastElement().content.getChars(), quotechar);
         this.tagStack.pop();
         return ret;
     }
 
-    private static int tagEnd(final char[] tag, final int start) {
+    private static int tagEnd(final char[] tag, final int start, final int length) {
         char c;
-        for (int i = start; i < tag.length; i++) {
+        for (int i = start; i < length; i++) {
             c = tag[i];
             if (c != '!' && c != '-' &&
                 (c < '0' || c > '9') &&
@@ -353,7 +378,18 @@ public final class TransformerWriter extends Writer {
                 (c < 'A' || c > 'Z')
             ) return i;
         }
-        return tag.length - 1;
+        return length - 1;
+    }
+
+    /**
+     * append a char to the token buffer; like a CharBuffer, the buffer does not grow beyond the maximum document size
+     */
+    private void append(final int c) {
+        if (this.bufferLength == this.buffer.length) {
+            if (this.bufferLength >= ContentScraper.MAX_DOCSIZE) return;
+            this.buffer = Arrays.copyOf(this.buffer, Math.min(ContentScraper.MAX_DOCSIZE, this.bufferLength * 2));
+        }
+        this.buffer[this.bufferLength++] = (char) c;
     }
 
     /**
@@ -375,93 +411,87 @@ public final class TransformerWriter extends Writer {
         if (this.binaryUnsuspect || !this.passbyIfBinarySuspect) {
             char[] filtered;
             if (this.inSingleQuote) {
-                this.buffer.append(c);
+                append(c);
                 if (c == singlequote) this.inSingleQuote = false;
                 // check error cases
-                if ((c == rb) && (this.buffer.length() > 0 && this.buffer.charAt(0) == lb)) {
+                if ((c == rb) && (this.bufferLength > 0 && this.buffer[0] == lb)) {
                     this.inSingleQuote = false;
                     // the tag ends here. after filtering: pass on
-                    filtered = tokenProcessor(this.buffer.getChars(), singlequote);
+                    filtered = tokenProcessor(singlequote);
                     if (this.out != null) { this.out.write(filtered); }
-                    // this.buffer = new serverByteBuffer();
-                    this.buffer.reset();
+                    this.bufferLength = 0;
                 }
             } else if (this.inDoubleQuote) {
-                this.buffer.append(c);
+                append(c);
                 if (c == doublequote) this.inDoubleQuote = false;
                 // check error cases
-                if (c == rb && this.buffer.length() > 0 && this.buffer.charAt(0) == lb) {
+                if (c == rb && this.bufferLength > 0 && this.buffer[0] == lb) {
                     this.inDoubleQuote = false;
                     // the tag ends here. after filtering: pass on
-                    filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                    filtered = tokenProcessor(doublequote);
                     if (this.out != null) this.out.write(filtered);
-                    // this.buffer = new serverByteBuffer();
-                    this.buffer.reset();
+                    this.bufferLength = 0;
                 }
             } else if (this.inComment) {
-                this.buffer.append(c);
+                append(c);
                 if (c == rb &&
-                    this.buffer.length() > 6 &&
-                    this.buffer.charAt(this.buffer.length() - 3) == dash) {
+                    this.bufferLength > 6 &&
+                    this.buffer[this.bufferLength - 3] == dash) {
                     // comment is at end
                     this.inComment = false;
-                    final char[] comment = this.buffer.getChars();
+                    final char[] comment = Arrays.copyOf(this.buffer, this.bufferLength);
                     if (this.scraper != null) this.scraper.scrapeComment(comment);
                     if (this.out != null) this.out.write(comment);
-                    // this.buffer = new serverByteBuffer();
-                    this.buffer.reset();
+                    this.bufferLength = 0;
                 }
             } else {
-                if (this.buffer.isEmpty()) {
+                if (this.bufferLength == 0) {
                     if (c == rb) {
                         // very strange error case; we just let it pass
                         if (this.out != null) this.out.write(c);
                     } else {
-                        this.buffer.append(c);
+                        append(c);
                     }
-                } else if (this.buffer.length() > 0 && this.buffer.charAt(0) == lb) {
+                } else if (this.bufferLength > 0 && this.buffer[0] == lb) {
                     if (c == singlequote) this.inSingleQuote = true;
                     if (c == doublequote) this.inDoubleQuote = true;
                     // fill in tag text
-                    if ((this.buffer.length() >= 3) && (this.buffer.charAt(1) == excl) &&
-                        (this.buffer.charAt(2) == dash) && (c == dash)) {
+                    if ((this.bufferLength >= 3) && (this.buffer[1] == excl) &&
+                        (this.buffer[2] == dash) && (c == dash)) {
                         // this is the start of a comment
                         this.inComment = true;
-                        this.buffer.append(c);
+                        append(c);
                     } else if (c == rb) {
-                        this.buffer.append(c);
+                        append(c);
                         // the tag ends here. after filtering: pass on
-                        filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                        filtered = tokenProcessor(doublequote);
                         if (this.out != null) this.out.write(filtered);
-                        // this.buffer = new serverByteBuffer();
-                        this.buffer.reset();
+                        this.bufferLength = 0;
                     } else if (c == lb) {
                         // this is an error case
                         // we consider that there is one rb missing
-                        if (this.buffer.length() > 0) {
-                            filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                        if (this.bufferLength > 0) {
+                            filtered = tokenProcessor(doublequote);
                             if (this.out != null) this.out.write(filtered);
                         }
-                        // this.buffer = new serverByteBuffer();
-                        this.buffer.reset();
-                        this.buffer.append(c);
+                        this.bufferLength = 0;
+                        append(c);
                     } else {
-                        this.buffer.append(c);
+                        append(c);
                     }
                 } else {
                     // fill in plain text
                     if (c == lb) {
                         // the text ends here
-                        if (this.buffer.length() > 0) {
-                            filtered = tokenProcessor(this.buffer.getChars(), doublequote);
+                        if (this.bufferLength > 0) {
+                            filtered = tokenProcessor(doublequote);
                             if (this.out != null) this.out.write(filtered);
                         }
-                        // this.buffer = new serverByteBuffer();
-                        this.buffer.reset();
-                        this.buffer.append(c);
+                        this.bufferLength = 0;
+                        append(c);
                     } else {
                         // simply append
-                        this.buffer.append(c);
+                        append(c);
                     }
                 }
             }
@@ -479,7 +509,8 @@ public final class TransformerWriter extends Writer {
     public void write(final char b[], final int off, final int len) throws IOException {
 //      System.out.println(UTF8.String(b, off, len));
         if ((off | len | (b.length - (len + off)) | (off + len)) < 0) throw new IndexOutOfBoundsException();
-        for (int i = off ; i < (len - off) ; i++) this.write(b[i]);
+        final int end = off + len;
+        for (int i = off; i < end; i++) this.write(b[i]);
     }
 
     @Override
@@ -497,12 +528,14 @@ public final class TransformerWriter extends Writer {
         flush();
         final char quotechar = (this.inSingleQuote) ? singlequote : doublequote;
         if (this.buffer != null) {
-            if (this.buffer.length() > 0) {
-                final char[] filtered = tokenProcessor(this.buffer.getChars(), quotechar);
+            if (this.bufferLength > 0) {
+                final char[] filtered = tokenProcessor(quotechar);
                 if (this.out != null) this.out.write(filtered);
             }
-            this.buffer.close();
+            // keep the buffer for the next document which is parsed in this thread
+            if (this.buffer.length <= POOLED_BUFFER_SIZE) bufferPool.set(this.buffer);
             this.buffer = null;
+            this.bufferLength = 0;
         }
         final char[] finalized = filterFinalize(quotechar);
         if (this.out != null) {
@@ -43,6 +43,7 @@ import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.document.AbstractParser;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
+import net.yacy.document.ParserPool;
 import net.yacy.document.TextParser;
 import net.yacy.document.VocabularyScraper;
 import net.yacy.document.parser.html.TagValency;
@@ -93,19 +94,17 @@ public class tarParser extends AbstractParser implements Parser {
         
         // create maindoc for this tar container
         final Document maindoc = createMainDocument(location, mimeType, charset, this);
-        // loop through the elements in the tar file and parse every single file inside
+        // loop through the elements in the tar file and parse every single file inside;
+        // the entries are extracted one after the other and parsed in parallel
+        final ParserPool.Batch batch = new ParserPool.Batch();
         while (true) {
             try {
-                File tmp = null;
                 entry = tis.getNextTarEntry();
                 if (entry == null) break;
                 if (entry.isDirectory() || entry.getSize() <= 0) continue;
                 final String name = entry.getName();
                 final int idx = name.lastIndexOf('.');
                 final String mime = TextParser.mimeOf((idx > -1) ? name.substring(idx+1) : "");
-                try {
-                    tmp = FileUtils.createTempFile(this.getClass(), name);
-                    FileUtils.copy(tis, tmp, entry.getSize());
 /*
  * Create an appropriate sub location to prevent unwanted fallback to the tarparser on resources included in the archive. 
  * We use the tar file name as the parent sub path. Example : http://host/archive.tar/name.
@@ -113,22 +112,35 @@ public class tarParser extends AbstractParser implements Parser {
  * extension of the URL is still ".tar", thus incorrectly making the tar parser
  * as a possible parser for the sub resource.
  */
-                    final DigestURL subLocation = new DigestURL(parentTarURL, name);
-                    final Document[] subDocs = TextParser.parseSource(subLocation, mime, null, defaultValency, valencySwitchTagNames, scraper, timezoneOffset,999, tmp);
-                    if (subDocs == null) {
-                    continue;
-                    }
-                    maindoc.addSubDocuments(subDocs);
-                } catch (final Parser.Failure e) {
-                    AbstractParser.log.warn("tar parser entry " + name + ": " + e.getMessage());
-                } finally {
-                    if (tmp != null) FileUtils.deletedelete(tmp);
+                final DigestURL subLocation = new DigestURL(parentTarURL, name);
+                final File tmp = FileUtils.createTempFile(this.getClass(), name);
+                try {
+                    FileUtils.copy(tis, tmp, entry.getSize());
+                } catch (final IOException e) {
+                    FileUtils.deletedelete(tmp);
+                    throw e;
                 }
+                batch.submit(() -> {
+                    try {
+                        return TextParser.parseSource(subLocation, mime, null, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, 999, tmp);
+                    } catch (final Parser.Failure e) {
+                        AbstractParser.log.warn("tar parser entry " + name + ": " + e.getMessage());
+                        return null;
+                    }
+                }, tmp); // the batch deletes the temporary file
             } catch (final IOException e) {
                 AbstractParser.log.warn("tar parser:" + e.getMessage());
                 break;
+            } catch (final InterruptedException | RuntimeException e) {
+                batch.cancel(); // the pending entries are not needed any more; the batch deletes their temporary files
+                throw e;
             }
         }
+        try {
+            for (final Document[] subDocs: batch.collect()) maindoc.addSubDocuments(subDocs);
+        } catch (final IOException e) {
+            AbstractParser.log.warn("tar parser:" + e.getMessage());
+        }
         return new Document[]{maindoc};
     }
 
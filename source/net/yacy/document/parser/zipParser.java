@@ -37,6 +37,7 @@ import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.document.AbstractParser;
 import net.yacy.document.Document;
 import net.yacy.document.Parser;
+import net.yacy.document.ParserPool;
 import net.yacy.document.TextParser;
 import net.yacy.document.VocabularyScraper;
 import net.yacy.document.parser.html.TagValency;
@@ -107,10 +108,11 @@ public class zipParser extends AbstractParser implements Parser {
                 false,
                 new Date());
 
-        // loop through the elements in the zip file and parse every single file inside
+        // loop through the elements in the zip file and parse every single file inside;
+        // the entries are extracted one after the other and parsed in parallel
+        final ParserPool.Batch batch = new ParserPool.Batch();
         while (true) {
             try {
-                File tmp = null;
                 if (zis.available() <= 0) break;
                 entry = zis.getNextEntry();
                 if (entry == null) break;
@@ -118,24 +120,35 @@ public class zipParser extends AbstractParser implements Parser {
                 final String name = entry.getName();
                 final int idx = name.lastIndexOf('.');
                 final String mime = TextParser.mimeOf((idx >= 0) ? name.substring(idx + 1) : "");
+                final DigestURL virtualURL = DigestURL.newURL(location, "#" + name);
+                final File tmp = FileUtils.createTempFile(this.getClass(), name);
                 try {
-                    tmp = FileUtils.createTempFile(this.getClass(), name);
                     FileUtils.copy(zis, tmp, entry.getSize());
-                    final DigestURL virtualURL = DigestURL.newURL(location, "#" + name);
-                    //this.log.logInfo("ZIP file parser: " + virtualURL.toNormalform(false, false));
-                    final Document[] docs = TextParser.parseSource(virtualURL, mime, null, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, 999, tmp);
-                    if (docs == null) continue;
-                    maindoc.addSubDocuments(docs);
-                } catch (final Parser.Failure e) {
-                    AbstractParser.log.warn("ZIP parser entry " + name + ": " + e.getMessage());
-                } finally {
-                    if (tmp != null) FileUtils.deletedelete(tmp);
+                } catch (final IOException e) {
+                    FileUtils.deletedelete(tmp);
+                    throw e;
                 }
+                batch.submit(() -> {
+                    try {
+                        return TextParser.parseSource(virtualURL, mime, null, defaultValency, valencySwitchTagNames, scraper, timezoneOffset, 999, tmp);
+                    } catch (final Parser.Failure e) {
+                        AbstractParser.log.warn("ZIP parser entry " + name + ": " + e.getMessage());
+                        return null;
+                    }
+                }, tmp); // the batch deletes the temporary file
             } catch (final IOException e) {
                 AbstractParser.log.warn("ZIP parser:" + e.getMessage());
                 break;
+            } catch (final InterruptedException | RuntimeException e) {
+                batch.cancel(); // the pending entries are not needed any more; the batch deletes their temporary files
+                throw e;
             }
         }
+        try {
+            for (final Document[] docs: batch.collect()) maindoc.addSubDocuments(docs);
+        } catch (final IOException e) {
+            AbstractParser.log.warn("ZIP parser:" + e.getMessage());
+        }
         return new Document[]{maindoc};
     }
 }
@@ -44,6 +44,7 @@ import net.yacy.kelondro.util.Formatter;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.kelondro.util.OS;
 import net.yacy.kelondro.workflow.BusyThread;
+import net.yacy.kelondro.workflow.WorkflowBalancer;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
 import net.yacy.search.index.Segment;
@@ -332,6 +333,17 @@ public class PerformanceQueues_p {
 			}
 		}
 
+        if ((post != null) && (post.containsKey("workflowConfig"))) {
+            final boolean adaptive = post.getBoolean("workflowAdaptive");
+            sb.setConfig(SwitchboardConstants.INDEXING_WORKFLOW_ADAPTIVE, adaptive);
+            final int budget = post.getInt("workflowThreads", sb.indexingBalancer.getBudget());
+            if (budget > 0) {
+                sb.setConfig(SwitchboardConstants.INDEXING_WORKFLOW_THREADS, budget);
+                sb.indexingBalancer.setBudget(budget);
+            }
+            if (!adaptive) sb.indexingBalancer.reset();
+        }
+
         if ((post != null) && (post.containsKey("onlineCautionSubmit"))) {
             sb.setConfig(SwitchboardConstants.PROXY_ONLINE_CAUTION_DELAY, Integer.toString(post.getInt("crawlPauseProxy", 30000)));
             sb.setConfig(SwitchboardConstants.LOCALSEACH_ONLINE_CAUTION_DELAY, Integer.toString(post.getInt("crawlPauseLocalsearch", 30000)));
@@ -368,6 +380,21 @@ public class PerformanceQueues_p {
 
         prop.put("pool", "3");
 
+        // adaptive thread allocation of the indexing stages
+        prop.put("workflowAdaptive", sb.getConfigBool(SwitchboardConstants.INDEXING_WORKFLOW_ADAPTIVE, true) ? "1" : "0");
+        prop.put("workflowThreads", sb.indexingBalancer.getBudget());
+        c = 0;
+        for (final WorkflowBalancer.Stage stage: sb.indexingBalancer.getStages()) {
+            prop.put("workflow_" + c + "_name", stage.getName());
+            prop.putNum("workflow_" + c + "_queuesize", stage.getQueueSize());
+            prop.put("workflow_" + c + "_allocation", stage.getAllocation());
+            prop.put("workflow_" + c + "_executors", stage.getExecutors());
+            prop.put("workflow_" + c + "_limits", stage.getMin() + " - " + stage.getMax());
+            prop.put("workflow_" + c + "_exectime", String.format("%.1f", stage.getAvgExecTime()));
+            c++;
+        }
+        prop.put("workflow", c);
+
         /* Connection pools settings */
 		prop.put(SwitchboardConstants.HTTP_OUTGOING_POOL_GENERAL_MAX_TOTAL,
 				sb.getConfigInt(SwitchboardConstants.HTTP_OUTGOING_POOL_GENERAL_MAX_TOTAL,
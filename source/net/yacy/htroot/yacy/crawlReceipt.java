@@ -60,8 +60,6 @@ public final class crawlReceipt {
             return prop;
         }
 
-        final ConcurrentLog log = sb.getLog();
-
         //int proxyPrefetchDepth = Integer.parseInt(env.getConfig("proxyPrefetchDepth", "0"));
         //int crawlingDepth = Integer.parseInt(env.getConfig("crawlingDepth", "0"));
 
@@ -115,34 +113,48 @@ public final class crawlReceipt {
         	return prop;
     	}
 
+        prop.put("delay", receive(sb, iam, youare, otherPeerName, result, reason, propStr));
+        return prop;
+    }
+
+    /**
+     * process the receipt of one URL which was crawled for us by another peer
+     * @param sb the switchboard
+     * @param iam the hash of the peer which crawled the URL
+     * @param youare our own peer hash
+     * @param otherPeerName the name of the other peer for logging
+     * @param result the result, see above
+     * @param reason the reason for that result
+     * @param propStr the metadata of the crawled URL in the property form
+     * @return the delay in seconds which the other peer shall wait before sending the next receipt
+     */
+    static String receive(final Switchboard sb, final String iam, final String youare, final String otherPeerName, final String result, final String reason, final String propStr) {
+        final ConcurrentLog log = sb.getLog();
+
         // generating a new loaded URL entry
         final URIMetadataNode entry = URIMetadataNode.importEntry(propStr, "dht");
         if (entry == null) {
             if (log.isWarn()) log.warn("crawlReceipt: RECEIVED wrong RECEIPT (entry null) from peer " + iam + "\n\tURL properties: "+ propStr);
-            prop.put("delay", "3600");
-            return prop;
+            return "3600";
         }
 
         if (entry.url() == null) {
             if (log.isWarn()) log.warn("crawlReceipt: RECEIVED wrong RECEIPT (url null) for hash " + ASCII.String(entry.hash()) + " from peer " + iam + "\n\tURL properties: "+ propStr);
-            prop.put("delay", "3600");
-            return prop;
+            return "3600";
         }
 
         // check if the entry is in our network domain
         final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomain(entry.url());
         if (urlRejectReason != null) {
             log.warn("crawlReceipt: RECEIVED wrong RECEIPT (" + urlRejectReason + ") for hash " + ASCII.String(entry.hash()) + " from peer " + iam + "\n\tURL properties: "+ propStr);
-            prop.put("delay", "9999");
-            return prop;
+            return "9999";
         }
 
         // Check URL against DHT blacklist
         if (Switchboard.urlBlacklist.isListed(BlacklistType.DHT, entry.url())) {
             // URL is blacklisted
             log.warn("crawlReceipt: RECEIVED wrong RECEIPT (URL is blacklisted) for URL " + ASCII.String(entry.hash()) + ":" + entry.url().toNormalform(false) + " from peer " + iam);
-            prop.put("delay", "9999");
-            return prop;
+            return "9999";
         }
 
         if ("fill".equals(result) && sb.crawlQueues.delegatedURL != null) try {
@@ -150,27 +162,23 @@ public final class crawlReceipt {
             sb.index.fulltext().putMetadata(entry);
             ResultURLs.stack(ASCII.String(entry.url().hash()), entry.url().getHost(), youare.getBytes(), iam.getBytes(), EventOrigin.REMOTE_RECEIPTS);
             sb.crawlQueues.delegatedURL.remove(ASCII.String(entry.hash())); // the delegated work has been done
+            sb.crawlQueues.leases.release(ASCII.String(entry.hash()));
             if (log.isInfo()) log.info("crawlReceipt: RECEIVED RECEIPT from " + otherPeerName + " for URL " + ASCII.String(entry.hash()) + ":" + entry.url().toNormalform(false));
 
             // ready for more
-            prop.put("delay", "10");
-            return prop;
+            return "10";
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
-            prop.put("delay", "3600");
-            return prop;
+            return "3600";
         }
 
         if (sb.crawlQueues.delegatedURL != null) { // the delegated work is transformed into an error case
             sb.crawlQueues.delegatedURL.remove(ASCII.String(entry.hash()));
+            sb.crawlQueues.leases.release(ASCII.String(entry.hash()));
             sb.crawlQueues.errorURL.push(entry.url(), 997, null, FailCategory.FINAL_LOAD_CONTEXT, result + ":" + reason, -1);
         }
         //switchboard.noticeURL.remove(receivedUrlhash);
-        prop.put("delay", "3600");
-        return prop;
-
-         // return rewrite properties
-
+        return "3600";
     }
 
 }
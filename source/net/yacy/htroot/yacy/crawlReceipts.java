@@ -0,0 +1,79 @@
+// crawlReceipts.java
+// -----------------------
+// part of YaCy
+// first published on http://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.htroot.yacy;
+
+import java.io.IOException;
+import java.util.List;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.crawler.data.CrawlLeases;
+import net.yacy.peers.CrawlReceipts;
+import net.yacy.peers.Protocol;
+import net.yacy.peers.Seed;
+import net.yacy.search.Switchboard;
+import net.yacy.server.serverObjects;
+import net.yacy.server.serverSwitch;
+
+/**
+ * batched crawl receipts: the receipts of a number of URLs which were pulled with a remote crawl batch
+ * and crawled by the requesting peer. Parameter: receipts, the binary form of CrawlReceipts, base64-encoded.
+ * Every receipt is processed like a single crawlReceipt request; the answer contains the number of
+ * accepted receipts and the smallest delay of the single receipts.
+ */
+public final class crawlReceipts {
+
+    public static serverObjects respond(@SuppressWarnings("unused") final RequestHeader header, final serverObjects post, final serverSwitch env) {
+        final Switchboard sb = (Switchboard) env;
+        final serverObjects prop = new serverObjects();
+        prop.put("accepted", 0);
+        prop.put("delay", "3600");
+        if (post == null || env == null || !Protocol.authentifyRequest(post, env)) return prop;
+
+        final String iam = post.get("iam", "");
+        final String youare = post.get("youare", "");
+        if (sb.peers.mySeed() == null || !sb.peers.mySeed().hash.equals(youare)) return prop;
+        final Seed otherPeer = sb.peers.get(iam);
+        if (sb.isRobinsonMode() && !sb.isInMyCluster(otherPeer)) {
+            prop.put("delay", "9999");
+            return prop;
+        }
+        final String otherPeerName = iam + ":" + ((otherPeer == null) ? "NULL" : (otherPeer.getName() + "/" + otherPeer.getVersion()));
+
+        final List<CrawlReceipts.Receipt> receipts;
+        try {
+            receipts = CrawlReceipts.decode(Base64Order.standardCoder.decode(post.get("receipts", "")), CrawlLeases.MAX_BATCH);
+        } catch (final IOException e) {
+            sb.getLog().warn("crawlReceipts: RECEIVED wrong RECEIPTS from peer " + otherPeerName + ": " + e.getMessage());
+            return prop;
+        }
+        int accepted = 0;
+        int delay = 3600;
+        for (final CrawlReceipts.Receipt receipt: receipts) {
+            final String d = crawlReceipt.receive(sb, iam, youare, otherPeerName, receipt.result, receipt.reason, receipt.entry);
+            if ("10".equals(d)) accepted++;
+            delay = Math.min(delay, Integer.parseInt(d));
+        }
+        prop.put("accepted", accepted);
+        prop.put("delay", Integer.toString(delay));
+        return prop;
+    }
+
+}
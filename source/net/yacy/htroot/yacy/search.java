@@ -30,6 +30,7 @@
 
 package net.yacy.htroot.yacy;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -62,6 +63,7 @@ import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.Bitfield;
 import net.yacy.kelondro.util.ISO639;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.peers.BinarySearchResponse;
 import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
 import net.yacy.peers.Protocol;
@@ -86,7 +88,7 @@ import net.yacy.utils.crypt;
 
 public final class search {
 
-    public static serverObjects respond(final RequestHeader header, final serverObjects post, final serverSwitch env) {
+    public static Object respond(final RequestHeader header, final serverObjects post, final serverSwitch env) {
         // return variable that accumulates replacements
         final Switchboard sb = (Switchboard) env;
         sb.remoteSearchLastAccess = System.currentTimeMillis();
@@ -113,6 +115,7 @@ public final class search {
         final String  exclude= post.get("exclude", "");// a string of word hashes that shall not be within the search result
         final String  urls   = post.get("urls", "");         // a string of url hashes that are preselected for the search: no other may be returned
         final String  abstracts = post.get("abstracts", "");  // a string of word hashes for abstracts that shall be generated, or 'auto' (for maxcount-word), or '' (for none)
+        final BinarySearchResponse binary = BinarySearchResponse.ENCODING.equals(post.get("encoding", "")) ? new BinarySearchResponse() : null; // the requester understands the binary response
         final int     count  = Math.min((int) sb.getConfigLong(SwitchboardConstants.REMOTESEARCH_MAXCOUNT_DEFAULT, 10), post.getInt("count", 10)); // maximum number of wanted results
         final long    maxtime = Math.min((int) sb.getConfigLong(SwitchboardConstants.REMOTESEARCH_MAXTIME_DEFAULT, 3000), post.getLong("time", 3000)); // maximum waiting time
         final int     maxdist= post.getInt("maxdist", Integer.MAX_VALUE);
@@ -275,10 +278,15 @@ public final class search {
                     wordhash = entry.getKey();
                     final ReferenceContainer<WordReference> container = entry.getValue();
                     indexabstractContainercount += container.size();
+                    final String compressed = WordReferenceFactory.compressIndex(container, null, 1000).toString();
+                    if (binary != null) {
+                        binary.indexabstract.put(wordhash, compressed);
+                        continue;
+                    }
                     indexabstract.append("indexabstract.");
                     indexabstract.append(ASCII.String(wordhash));
                     indexabstract.append("=");
-                    indexabstract.append(WordReferenceFactory.compressIndex(container, null, 1000).toString());
+                    indexabstract.append(compressed);
                     indexabstract.append(serverCore.CRLF_STRING);
                 }
             }
@@ -347,6 +355,7 @@ public final class search {
                 final Iterator<Map.Entry<byte[], Integer>> i = theSearch.abstractsCount();
                 while (i.hasNext()) {
                     entry = i.next();
+                    if (binary != null) binary.indexcount.put(entry.getKey(), entry.getValue());
                     indexcount.append("indexcount.").append(ASCII.String(entry.getKey())).append('=').append((entry.getValue()).toString()).append(serverCore.CRLF_STRING);
                 }
                 if (abstractSet != null) {
@@ -356,7 +365,7 @@ public final class search {
                     while (j.hasNext()) {
                         wordhash = j.next();
                         indexabstractContainercount += theSearch.abstractsCount(wordhash);
-                        indexabstract.append("indexabstract.").append(ASCII.String(wordhash)).append("=").append(theSearch.abstractsString(wordhash)).append(serverCore.CRLF_STRING);
+                        appendAbstract(indexabstract, binary, wordhash, theSearch.abstractsString(wordhash));
                     }
                 }
                 prop.put("indexcount", indexcount.toString());
@@ -369,11 +378,11 @@ public final class search {
                 } else if (abstracts.equals("auto")) {
                     // automatically attach the index abstract for the index that has the most references. This should be our target dht position
                     indexabstractContainercount += theSearch.abstractsCount(theSearch.getAbstractsMaxCountHash());
-                    indexabstract.append("indexabstract.").append(ASCII.String(theSearch.getAbstractsMaxCountHash())).append("=").append(theSearch.abstractsString(theSearch.getAbstractsMaxCountHash())).append(serverCore.CRLF_STRING);
+                    appendAbstract(indexabstract, binary, theSearch.getAbstractsMaxCountHash(), theSearch.abstractsString(theSearch.getAbstractsMaxCountHash()));
                     if ((theSearch.getAbstractsNearDHTHash() != null) && (!(Arrays.equals(theSearch.getAbstractsNearDHTHash(), theSearch.getAbstractsMaxCountHash())))) {
                         // in case that the neardhthash is different from the maxcounthash attach also the neardhthash-container
                         indexabstractContainercount += theSearch.abstractsCount(theSearch.getAbstractsNearDHTHash());
-                        indexabstract.append("indexabstract.").append(ASCII.String(theSearch.getAbstractsNearDHTHash())).append("=").append(theSearch.abstractsString(theSearch.getAbstractsNearDHTHash())).append(serverCore.CRLF_STRING);
+                        appendAbstract(indexabstract, binary, theSearch.getAbstractsNearDHTHash(), theSearch.abstractsString(theSearch.getAbstractsNearDHTHash()));
                     }
                     //System.out.println("DEBUG-ABSTRACTGENERATION: maxcounthash = " + maxcounthash);
                     //System.out.println("DEBUG-ABSTRACTGENERATION: neardhthash  = "+ neardhthash);
@@ -418,6 +427,10 @@ public final class search {
             WeakPriorityBlockingQueue.Element<URIMetadataNode> entry;
             for (int i = 0; i < accu.size(); i++) {
                 entry = accu.get(i);
+                if (binary != null) {
+                    binary.links.add(entry.getElement());
+                    continue;
+                }
                 resource = entry.getElement().resource();
                 if (resource != null) {
                     links.append("resource").append(i).append('=').append(resource).append(serverCore.CRLF_STRING);
@@ -457,7 +470,27 @@ public final class search {
         final int links = prop.getInt("linkcount",0);
         sb.peers.mySeed().incSI(links);
         sb.peers.mySeed().incSU(links);
+
+        if (binary != null) {
+            binary.properties.put("searchtime", prop.get("searchtime", "0"));
+            binary.properties.put("references", prop.get("references", ""));
+            binary.properties.put("joincount", prop.get("joincount", "0"));
+            binary.properties.put("count", prop.get("linkcount", "0"));
+            try {
+                return new ByteArrayInputStream(binary.export());
+            } catch (final IOException e) {
+                Network.log.warn("yacy.search: binary response failed: " + e.getMessage());
+            }
+        }
         return prop;
     }
 
+    private static void appendAbstract(final StringBuilder indexabstract, final BinarySearchResponse binary, final byte[] wordhash, final String compressed) {
+        if (binary != null) {
+            binary.indexabstract.put(wordhash, compressed);
+        } else {
+            indexabstract.append("indexabstract.").append(ASCII.String(wordhash)).append("=").append(compressed).append(serverCore.CRLF_STRING);
+        }
+    }
+
 }
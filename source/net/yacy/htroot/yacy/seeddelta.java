@@ -0,0 +1,88 @@
+// seeddelta.java
+// -----------------------
+// part of YaCy
+// first published on http://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.htroot.yacy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.peers.Network;
+import net.yacy.peers.Protocol;
+import net.yacy.peers.Seed;
+import net.yacy.peers.SeedDelta;
+import net.yacy.search.Switchboard;
+import net.yacy.server.serverObjects;
+import net.yacy.server.serverSwitch;
+
+/**
+ * incremental seed list: returns the connected peers which were added, changed or removed
+ * after the journal version that the requesting peer received with its last request.
+ * Parameters: epoch and since, the epoch and version of the last delta; without them or if
+ * the journal does not reach back to that version the full list of connected peers is returned.
+ * The answer is the binary form of SeedDelta, base64-encoded.
+ */
+public final class seeddelta {
+
+    private static final int LISTMAX = 1000;
+
+    public static serverObjects respond(final RequestHeader header, final serverObjects post, final serverSwitch env) {
+        final Switchboard sb = (Switchboard) env;
+        final serverObjects prop = new serverObjects();
+        prop.put("delta", "");
+        if (post == null || env == null) return prop;
+        if (!Protocol.authentifyRequest(post, env)) return prop;
+
+        final String iam = post.get("iam", "");
+        final Seed other = sb.peers.get(iam);
+        final String otherPeerName = other == null ? header.getRemoteAddr() : other.getName();
+        if (sb.isRobinsonMode() && !sb.isInMyCluster(otherPeerName)) {
+            // if we are a robinson cluster, answer only if this client is known by our network definition
+            return prop;
+        }
+
+        final SeedDelta journal = sb.peers.seedDelta();
+        final long version = journal.version(); // changes after this version are sent with the next request
+        final Map<String, Boolean> changes = journal.since(post.getLong("epoch", 0L), post.getLong("since", -1L));
+        final List<Seed> changed = new ArrayList<Seed>();
+        final List<String> removed = new ArrayList<String>();
+        boolean full = changes == null || changes.size() > LISTMAX;
+        if (!full) {
+            for (final Map.Entry<String, Boolean> change: changes.entrySet()) {
+                if (change.getKey().equals(iam)) continue;
+                final Seed seed = change.getValue().booleanValue() ? null : sb.peers.getConnected(change.getKey());
+                if (seed == null) removed.add(change.getKey()); else changed.add(seed);
+            }
+        } else {
+            for (final Seed seed: sb.peers.getSeedlist(LISTMAX, false, false, 0.0f)) {
+                if (!seed.hash.equals(iam)) changed.add(seed);
+            }
+        }
+        try {
+            prop.put("delta", Base64Order.standardCoder.encode(SeedDelta.encode(journal.epoch(), version, full, changed, removed)));
+        } catch (final IOException e) {
+            Network.log.warn("seeddelta: cannot encode delta: " + e.getMessage());
+        }
+        return prop;
+    }
+
+}
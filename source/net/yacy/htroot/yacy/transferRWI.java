@@ -28,15 +28,19 @@
 
 package net.yacy.htroot.yacy;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.feed.RSSMessage;
 import net.yacy.cora.federate.yacy.Distribution;
+import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.storage.HandleSet;
@@ -44,10 +48,14 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.Memory;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.data.word.WordReferenceRow;
 import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceContainerCache;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.peers.BinaryIndexTransfer;
 import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
 import net.yacy.peers.Protocol;
@@ -55,11 +63,15 @@ import net.yacy.peers.Seed;
 import net.yacy.repository.Blacklist.BlacklistType;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
+import net.yacy.search.index.Segment;
 import net.yacy.server.serverObjects;
 import net.yacy.server.serverSwitch;
 
 public final class transferRWI {
 
+    /** fill ratio of the RWI ram buffer where incoming references are rejected */
+    private static final double BUFFER_HIGH_WATERMARK = 0.9d;
+
     public static serverObjects respond(final RequestHeader header, final serverObjects post, final serverSwitch env) {
 
         // return variable that accumulates replacements
@@ -115,7 +127,8 @@ public final class transferRWI {
 //      final String key      = (String) post.get("key", "");             // transmission key
         final int wordc       = post.getInt("wordc", 0);                  // number of different words
         final int entryc      = post.getInt("entryc", 0);                 // number of entries in indexes
-        byte[] indexes        = post.get("indexes", "").getBytes();       // the indexes, as list of word entries
+        final boolean binary  = BinaryIndexTransfer.ENCODING.equals(post.get("encoding", "")); // the indexes are sent as binary payload
+        byte[] indexes        = binary ? Base64Order.standardCoder.decode(post.get("indexes$file", "")) : post.get("indexes", "").getBytes(); // the indexes, as list of word entries
         boolean granted       = sb.getConfigBool(SwitchboardConstants.INDEX_RECEIVE_ALLOW, false);
         final boolean blockBlacklist = sb.getConfigBool(SwitchboardConstants.INDEX_RECEIVE_BLOCK_BLACKLIST, false);
         final long cachelimit = sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 100000);
@@ -153,8 +166,8 @@ public final class transferRWI {
             sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". Not granted. This peer is in robinson mode");
             result = "not_granted";
             pause = 60000;
-        } else if (sb.index.RWIBufferCount() > cachelimit) {
-            // we are too busy to receive indexes
+        } else if (sb.index.RWIBufferCount() > cachelimit * BUFFER_HIGH_WATERMARK) {
+            // we are too busy to receive indexes; reject before the buffer is full so the flush can catch up
             sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". We are too busy (buffersize=" + sb.index.RWIBufferCount() + ").");
             granted = false; // don't accept more words if there are too many words to flush
             result = "busy";
@@ -170,73 +183,99 @@ public final class transferRWI {
             if (sb.getLog().isFine()) sb.getLog().fine("Processing " + indexes.length + " bytes / " + wordc + " words / " + entryc + " entries from " + otherPeerName);
             final long startProcess = System.currentTimeMillis();
 
-            // decode request
-            //System.out.println("STRINGS " + UTF8.String(indexes));
-            final Iterator<String> it = FileUtils.strings(indexes);
-
-            // free memory
-            indexes = null;
-
-            // now parse the Strings in the value-vector and write index entries
-            String estring;
-            int p;
-            String wordHash;
-            byte[] urlHash;
-            WordReferenceRow iEntry;
+            // now parse the indexes and collect the accepted entries, grouped by term
+            final ReferenceContainerCache<WordReference> incoming = new ReferenceContainerCache<WordReference>(Segment.wordReferenceFactory, Base64Order.enhancedCoder, Word.commonHashLength);
+            final Map<String, Boolean> acceptedURLs = new HashMap<String, Boolean>(); // the blacklist and domain check is done once per url
             final HandleSet unknownURL = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 0);
             final ArrayList<String> wordhashes = new ArrayList<String>();
             int received = 0;
             int blocked = 0;
-            int count = 0;
-            final Set<String> testids = new HashSet<String>();
-            while (it.hasNext()) {
-                estring = it.next();
-                count++;
-                if (count > 1000) break; // protection against flooding
-
-                // check if RWI entry is well-formed
-                p = estring.indexOf('{',0);
-                if (p < 0 || estring.indexOf("x=",0) < 0 || !(estring.indexOf("[B@",0) < 0)) {
-                    blocked++;
-                    continue;
+            if (binary) {
+                // decode the binary payload into a cache; it is limited to 1000 entries as protection against flooding
+                final ReferenceContainerCache<WordReference> decoded = new ReferenceContainerCache<WordReference>(Segment.wordReferenceFactory, Base64Order.enhancedCoder, Word.commonHashLength);
+                try {
+                    BinaryIndexTransfer.parseRWI(indexes, decoded, 1000);
+                } catch (final IOException | SpaceExceededException e) {
+                    sb.getLog().warn("transferRWI: cannot decode binary indexes from peer " + otherPeerName + ": " + e.getMessage());
                 }
-                wordHash = estring.substring(0, p);
-                wordhashes.add(wordHash);
-                iEntry = new WordReferenceRow(estring.substring(p));
-                urlHash = iEntry.urlhash();
-
-                // block blacklisted entries
-                if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
-                    Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
-                    blocked++;
-                    continue;
+                indexes = null;
+                for (final ReferenceContainer<WordReference> container: decoded) {
+                    final byte[] wordHash = container.getTermHash();
+                    wordhashes.add(ASCII.String(wordHash));
+                    final Iterator<WordReference> i = container.entries();
+                    while (i.hasNext()) {
+                        final WordReference iEntry = i.next();
+                        if (!accept(sb, iEntry.urlhash(), blockBlacklist, otherPeerName, acceptedURLs)) {
+                            blocked++;
+                            continue;
+                        }
+                        try {
+                            incoming.add(wordHash, iEntry);
+                        } catch (final SpaceExceededException e) {
+                            ConcurrentLog.logException(e);
+                        }
+                    }
                 }
+            } else {
+                // decode request
+                //System.out.println("STRINGS " + UTF8.String(indexes));
+                final Iterator<String> it = FileUtils.strings(indexes);
+
+                // free memory
+                indexes = null;
 
-                // check if the entry is in our network domain
-                final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
-                if (urlRejectReason != null) {
-                    Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
-                    //if (yacyCore.log.isFine()) yacyCore.log.logFine("transferRWI: blocked URL hash '" + urlHash + "' (" + urlRejectReason + ") from peer " + otherPeerName);
-                    blocked++;
-                    continue;
+                // now parse the Strings in the value-vector
+                String estring;
+                int p;
+                String wordHash;
+                WordReferenceRow iEntry;
+                int count = 0;
+                while (it.hasNext()) {
+                    estring = it.next();
+                    count++;
+                    if (count > 1000) break; // protection against flooding
+
+                    // check if RWI entry is well-formed
+                    p = estring.indexOf('{',0);
+                    if (p < 0 || estring.indexOf("x=",0) < 0 || !(estring.indexOf("[B@",0) < 0)) {
+                        blocked++;
+                        continue;
+                    }
+                    wordHash = estring.substring(0, p);
+                    wordhashes.add(wordHash);
+                    iEntry = new WordReferenceRow(estring.substring(p));
+                    if (!accept(sb, iEntry.urlhash(), blockBlacklist, otherPeerName, acceptedURLs)) {
+                        blocked++;
+                        continue;
+                    }
+                    try {
+                        incoming.add(ASCII.getBytes(wordHash), iEntry);
+                    } catch (final SpaceExceededException e) {
+                        ConcurrentLog.logException(e);
+                    }
                 }
+            }
 
-                // learn entry
+            // learn entries: one container per term
+            for (final ReferenceContainer<WordReference> container: incoming) {
                 try {
-                    sb.index.storeRWI(ASCII.getBytes(wordHash), iEntry);
+                    sb.index.storeRWI(container);
+                    received += container.size();
                 } catch (final Exception e) {
                     ConcurrentLog.logException(e);
                 }
+            }
 
-                // check if we need to ask for the corresponding URL
-                testids.add(ASCII.String(urlHash));
-                received++;
+            // check in one batch if we need to ask for the corresponding URLs
+            final Set<String> testids = new HashSet<String>();
+            for (final Map.Entry<String, Boolean> entry: acceptedURLs.entrySet()) {
+                if (entry.getValue().booleanValue()) testids.add(entry.getKey());
             }
+            final Set<String> knownids = sb.index.fulltext().exists(testids);
             for (final String id: testids) {
+                if (knownids.contains(id)) continue;
                 try {
-                    if (!sb.index.fulltext().exists(id)) {
-                        unknownURL.put(ASCII.getBytes(id));
-                    }
+                    unknownURL.put(ASCII.getBytes(id));
                 } catch (final SpaceExceededException e) {
                     sb.getLog().warn("transferRWI: DB-Error while trying to determine if URL with hash '" + id + "' is known.", e);
                 }
@@ -261,7 +300,7 @@ public final class transferRWI {
             }
             result = "ok";
 
-            pause = (int) (sb.index.RWIBufferCount() * 20000 / sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 100000)); // estimation of necessary pause time
+            pause = pause(sb.index.RWIBufferCount(), cachelimit); // estimation of necessary pause time
         }
 
         prop.put("unknownURL", unknownURLs.toString());
@@ -272,6 +311,49 @@ public final class transferRWI {
         return prop;
     }
 
+    /**
+     * the pause which a sender should wait before the next transmission to this peer:
+     * it grows with the fill of the RWI buffer and much faster when the buffer is more than half full,
+     * so that senders slow down before the buffer is full and their transmissions are rejected
+     * @param bufferCount the current number of terms in the RWI ram buffer
+     * @param cachelimit the maximum number of terms in the RWI ram buffer
+     * @return the pause time in milliseconds
+     */
+    private static int pause(final long bufferCount, final long cachelimit) {
+        final double fill = Math.min(1.0d, (double) bufferCount / Math.max(1, cachelimit));
+        return (int) (20000 * fill + (fill > 0.5d ? 100000 * (fill - 0.5d) : 0));
+    }
+
+    /**
+     * check if a received reference may be stored; the result for each url is remembered in the given map
+     * @return false if the url is blacklisted or not in our network domain
+     */
+    private static boolean accept(final Switchboard sb, final byte[] urlHash, final boolean blockBlacklist, final String otherPeerName, final Map<String, Boolean> checked) {
+        final String id = ASCII.String(urlHash);
+        Boolean accepted = checked.get(id);
+        if (accepted == null) {
+            accepted = Boolean.valueOf(accept(sb, urlHash, blockBlacklist, otherPeerName));
+            checked.put(id, accepted);
+        }
+        return accepted.booleanValue();
+    }
+
+    private static boolean accept(final Switchboard sb, final byte[] urlHash, final boolean blockBlacklist, final String otherPeerName) {
+        // block blacklisted entries
+        if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
+            Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
+            return false;
+        }
+
+        // check if the entry is in our network domain
+        final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
+        if (urlRejectReason != null) {
+            Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
+            return false;
+        }
+        return true;
+    }
+
     /**
      * @param requestIdentifier
      * @param msg
@@ -30,18 +30,22 @@ package net.yacy.htroot.yacy;
 
 import java.io.IOException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.yacy.cora.date.GenericFormatter;
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.feed.RSSMessage;
+import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.data.ResultURLs;
 import net.yacy.crawler.data.ResultURLs.EventOrigin;
 import net.yacy.gui.Audio;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.peers.BinaryIndexTransfer;
 import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
 import net.yacy.peers.Protocol;
@@ -90,14 +94,25 @@ public final class transferURL {
             int received = 0;
             int blocked = 0;
             int doublecheck = 0;
-            // read the urls from the other properties and store
-            String urls;
+            // read the urls from the binary payload or from the other properties and store
+            List<String> resources;
+            if (BinaryIndexTransfer.ENCODING.equals(post.get("encoding", ""))) {
+                try {
+                    // transferRWI accepts 1000 references per request, therefore not more urls can be unknown
+                    resources = BinaryIndexTransfer.parseURLs(Base64Order.standardCoder.decode(post.get("urls$file", "")), 1000);
+                } catch (final IOException e) {
+                    Network.log.warn("transferURL: cannot decode binary urls from peer " + otherPeerName + ": " + e.getMessage());
+                    resources = new ArrayList<String>(0);
+                }
+            } else {
+                resources = new ArrayList<String>(urlc);
+                for (int i = 0; i < urlc; i++) resources.add(post.get("url" + i));
+            }
             URIMetadataNode lEntry;
             final Map<String, URIMetadataNode> lEm = new HashMap<String, URIMetadataNode>();
-            for (int i = 0; i < urlc; i++) {
+            for (final String urls: resources) {
 
                 // read new lurl-entry
-                urls = post.get("url" + i);
                 if (urls == null) {
                     if (Network.log.isFine()) Network.log.fine("transferURL: got null URL-string from peer " + otherPeerName);
                     blocked++;
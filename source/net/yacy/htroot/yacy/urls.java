@@ -27,11 +27,16 @@
 package net.yacy.htroot.yacy;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import net.yacy.cora.date.GenericFormatter;
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.data.CrawlLeases;
 import net.yacy.crawler.data.NoticedURL;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
@@ -57,15 +62,21 @@ public class urls {
         if ((post == null) || (env == null)) return prop;
         if (!Protocol.authentifyRequest(post, env)) return prop;
 
-        if (post.get("call", "").equals("remotecrawl")) {
+        final String call = post.get("call", "");
+        if (call.equals("remotecrawl") || call.equals("remotecrawlbatch")) {
             // perform a remote crawl url handover
+            // a batch is grouped by host and leased to the requesting peer; without a receipt the urls are returned to the stack
+            final boolean batch = call.equals("remotecrawlbatch");
+            final String iam = post.get("iam", "");
             final NoticedURL.StackType stackType = NoticedURL.StackType.GLOBAL;
-            int maxCount = Math.min(100, post.getInt("count", 10));
+            int maxCount = batch ?
+                    Math.min(CrawlLeases.MAX_BATCH - sb.crawlQueues.leases.size(iam), post.getInt("count", 100)) :
+                    Math.min(100, post.getInt("count", 10));
+            final long leaseTime = post.getLong("lease", CrawlLeases.DEFAULT_LEASE_TIME);
             final long maxTime = Math.min(20000, Math.max(1000, post.getInt("time", 10000)));
             final long timeout = System.currentTimeMillis() + maxTime;
-            int c = 0;
+            final Map<String, List<Request>> hosts = new LinkedHashMap<String, List<Request>>(); // host / entries, in order of first appearance
             Request entry;
-            String referrerURL;
             while ((maxCount > 0) &&
                    (System.currentTimeMillis() < timeout) &&
                    (!sb.crawlQueues.noticeURL.isEmpty(stackType))) {
@@ -75,34 +86,46 @@ public class urls {
                     break;
                 }
                 if (entry == null) break;
+                final String host = batch ? entry.url().getHost() : "";
+                List<Request> entries = hosts.get(host);
+                if (entries == null) {
+                    entries = new ArrayList<Request>();
+                    hosts.put(host, entries);
+                }
+                entries.add(entry);
+                maxCount--;
+            }
 
+            int c = 0;
+            String referrerURL;
+            for (final List<Request> entries: hosts.values()) for (final Request request: entries) {
                 // find referrer, if there is one
                 try {
-                    referrerURL = sb.getURL(entry.referrerhash());
+                    referrerURL = sb.getURL(request.referrerhash());
                 } catch (final IOException e) {
                     referrerURL = null;
                     ConcurrentLog.logException(e);
                 }
 
                 // place url to notice-url db
-                if (sb.crawlQueues.delegatedURL != null) sb.crawlQueues.delegatedURL.put(ASCII.String(entry.url().hash()), entry.url());
+                if (sb.crawlQueues.delegatedURL != null) sb.crawlQueues.delegatedURL.put(ASCII.String(request.url().hash()), request.url());
+                if (batch) sb.crawlQueues.leases.lease(iam, request, leaseTime);
 
                 // create RSS entry
                 prop.put("item_" + c + "_title", "");
-                prop.putXML("item_" + c + "_link", entry.url().toNormalform(true));
+                prop.putXML("item_" + c + "_link", request.url().toNormalform(true));
                 prop.putXML("item_" + c + "_referrer", (referrerURL == null) ? "" : referrerURL);
-                prop.putXML("item_" + c + "_description", entry.name());
+                prop.putXML("item_" + c + "_description", request.name());
                 prop.put("item_" + c + "_author", "");
-                prop.put("item_" + c + "_pubDate", GenericFormatter.SHORT_SECOND_FORMATTER.format(entry.appdate()));
-                prop.put("item_" + c + "_guid", entry.url().hash());
+                prop.put("item_" + c + "_pubDate", GenericFormatter.SHORT_SECOND_FORMATTER.format(request.appdate()));
+                prop.put("item_" + c + "_guid", request.url().hash());
                 c++;
-                maxCount--;
             }
             prop.put("item", c);
             prop.putXML("response", "ok");
         }
 
-        if (post.get("call", "").equals("urlhashlist")) {
+        if (call.equals("urlhashlist")) {
             // retrieve a list of urls from the local index by a given list of url hashes
             final String urlhashes = post.get("hashes", "");
             if (urlhashes.length() % 12 != 0) return prop;
@@ -68,6 +68,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.DisMaxParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.MultiMapSolrParams;
+import org.apache.solr.common.util.FastWriter;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SimpleOrderedMap;
 import org.apache.solr.core.SolrCore;
@@ -305,7 +306,8 @@ public class SolrSelectServlet extends HttpServlet {
                 if (responseWriter instanceof BinaryResponseWriter) {
                     ((BinaryResponseWriter) responseWriter).write(response.getOutputStream(), req, rsp);
                 } else {
-                    OutputStreamWriter osw = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+                    /* buffer the many small writes of the response writers before they reach the charset encoder */
+                    final Writer osw = FastWriter.wrap(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
                     responseWriter.write(osw, req, rsp);
                     osw.close();
                 }
@@ -373,7 +375,7 @@ public class SolrSelectServlet extends HttpServlet {
                 } else if(responseWriter instanceof BinaryResponseWriter) {
                     ((BinaryResponseWriter) responseWriter).write(response.getOutputStream(), req, rsp);
                 } else {
-                    OutputStreamWriter osw = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+                    final Writer osw = FastWriter.wrap(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
                     responseWriter.write(osw, req, rsp);
                     osw.close();
                 }
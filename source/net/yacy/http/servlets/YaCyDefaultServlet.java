@@ -1271,7 +1271,7 @@ public class YaCyDefaultServlet extends HttpServlet  {
                     final String n = job.getKey();
                     final byte[] v = job.getValue();
                     final String filename = args.get(n);
-                    if (filename != null && filename.endsWith(".gz")) {
+                    if (filename != null && (filename.endsWith(".gz") || filename.endsWith(".bin"))) {
                         // transform this value into base64
                         final String b64 = Base64Order.standardCoder.encode(v);
                         args.put(n + "$file", b64);
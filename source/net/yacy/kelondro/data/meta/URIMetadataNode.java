@@ -23,6 +23,8 @@
 package net.yacy.kelondro.data.meta;
 
 import java.awt.Dimension;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.text.ParseException;
@@ -55,6 +57,7 @@ import net.yacy.cora.federate.solr.SolrType;
 import net.yacy.cora.lod.vocabulary.Tagging;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.VarInt;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.document.SentenceReader;
 import net.yacy.document.Tokenizer;
@@ -86,6 +89,7 @@ import net.yacy.utils.crypt;
 public class URIMetadataNode extends SolrDocument /* implements Comparable<URIMetadataNode>, Comparator<URIMetadataNode> */ {
 
     private static final long serialVersionUID = -256046934741561968L;
+    private static final long DAY_MILLIS = 86400000L;
 
     protected String keywords = null;
     protected DigestURL url;
@@ -169,6 +173,68 @@ public class URIMetadataNode extends SolrDocument /* implements Comparable<URIMe
     }
 
 
+    /**
+     * Creates an instance from the binary transport form written by exportBinary().
+     * @param in the stream positioned at the start of the record
+     * @param collection collection origin (e.g. "dht")
+     * @throws IOException if the record is truncated or malformed
+     */
+    public URIMetadataNode(final DataInput in, final String collection) throws IOException {
+        super();
+        this.url = new DigestURL(VarInt.readString(in));
+        this.setField(CollectionSchema.title.name(), VarInt.readString(in));
+        this.setField(CollectionSchema.author.name(), VarInt.readString(in));
+        this.keywords = Tagging.cleanTagFromAutotagging(VarInt.readString(in));
+        this.setField(CollectionSchema.publisher_t.name(), VarInt.readString(in));
+        if (in.readBoolean()) {
+            this.lat = in.readDouble();
+            this.lon = in.readDouble();
+        } else {
+            this.lat = 0.0d;
+            this.lon = 0.0d;
+        }
+        this.setField(CollectionSchema.last_modified.name(), new Date(VarInt.readSigned(in) * DAY_MILLIS));
+        this.setField(CollectionSchema.load_date_dt.name(), new Date(VarInt.readSigned(in) * DAY_MILLIS));
+        this.setField(CollectionSchema.fresh_date_dt.name(), new Date(VarInt.readSigned(in) * DAY_MILLIS));
+        this.setField(CollectionSchema.referrer_id_s.name(), VarInt.readString(in));
+        this.setField(CollectionSchema.size_i.name(), (int) VarInt.readSigned(in));
+        this.setField(CollectionSchema.wordcount_i.name(), (int) VarInt.readSigned(in));
+        final char dt = (char) in.readUnsignedByte();
+        final String mime = VarInt.readString(in); // empty if equal to doctype2mime()
+        if (!mime.isEmpty() && Response.docType(mime) == dt) {
+            this.setField(CollectionSchema.content_type.name(), mime);
+        } else {
+            this.setField(CollectionSchema.content_type.name(), Response.doctype2mime(null, dt));
+        }
+        final byte[] flagbytes = VarInt.readBytes(in);
+        this.flags = new Bitfield(4);
+        if (flagbytes.length <= 4) System.arraycopy(flagbytes, 0, this.flags.bytes(), 0, flagbytes.length);
+        this.setField(CollectionSchema.language_s.name(), VarInt.readString(in));
+        this.setField(CollectionSchema.inboundlinkscount_i.name(), (int) VarInt.readSigned(in));
+        this.setField(CollectionSchema.outboundlinkscount_i.name(), (int) VarInt.readSigned(in));
+        this.imagec = (int) VarInt.readSigned(in);
+        this.audioc = (int) VarInt.readSigned(in);
+        this.videoc = (int) VarInt.readSigned(in);
+        this.appc = (int) VarInt.readSigned(in);
+        VarInt.readSigned(in); // score: we don't use the remote rwi ranking but the local rwi ranking profile
+        final List<String> cs = new ArrayList<String>();
+        cs.add(collection);
+        this.setField(CollectionSchema.collection_sxt.name(), cs);
+        final byte[] wordrow = VarInt.readBytes(in);
+        this.word = null;
+        if (wordrow.length == WordReferenceRow.urlEntryRow.objectsize) {
+            this.word = new WordReferenceVars(Segment.wordReferenceFactory.produceSlow(WordReferenceRow.urlEntryRow.newEntry(wordrow)), false);
+        } else if (wordrow.length > 0) {
+            throw new IOException("bad word reference length " + wordrow.length);
+        }
+        final String rawFaviconURL = VarInt.readString(in);
+        if (!rawFaviconURL.isEmpty()) {
+            this.setIconsFields(new DigestURL(rawFaviconURL));
+        }
+        final String snippetLine = VarInt.readString(in);
+        this.snippet = snippetLine.isEmpty() ? null : snippetLine;
+    }
+
     public URIMetadataNode(final SolrDocument doc) throws MalformedURLException {
         super();
         for (String name : doc.getFieldNames()) {
@@ -1039,6 +1105,50 @@ public class URIMetadataNode extends SolrDocument /* implements Comparable<URIMe
         return this.toString(this.textSnippet.getLineRaw());
     }
 
+    /**
+     * write the transport resource in the binary form which is read by URIMetadataNode(DataInput, String).
+     * It carries the same properties as resource() but without the property-list and base64 encoding.
+     * @param out the target stream
+     * @throws IOException
+     */
+    public void exportBinary(final DataOutput out) throws IOException {
+        VarInt.writeString(out, this.url().toNormalform(true));
+        VarInt.writeString(out, this.dc_title());
+        VarInt.writeString(out, this.dc_creator());
+        VarInt.writeString(out, Tagging.cleanTagFromAutotagging(this.dc_subject()));
+        VarInt.writeString(out, this.dc_publisher());
+        final double lat0 = this.lat(), lon0 = this.lon();
+        out.writeBoolean(lat0 != 0.0d || lon0 != 0.0d);
+        if (lat0 != 0.0d || lon0 != 0.0d) {
+            out.writeDouble(lat0);
+            out.writeDouble(lon0);
+        }
+        VarInt.writeSigned(out, Math.floorDiv(this.moddate().getTime(), DAY_MILLIS));
+        VarInt.writeSigned(out, Math.floorDiv(this.loaddate().getTime(), DAY_MILLIS));
+        VarInt.writeSigned(out, Math.floorDiv(this.freshdate().getTime(), DAY_MILLIS));
+        VarInt.writeString(out, this.referrerHash() == null ? "" : ASCII.String(this.referrerHash()));
+        VarInt.writeSigned(out, this.filesize());
+        VarInt.writeSigned(out, this.wordCount());
+        final char dt = this.doctype();
+        out.writeByte(dt);
+        final String mime = this.mime();
+        VarInt.writeString(out, mime == null || mime.equals(Response.doctype2mime(null, dt)[0]) ? "" : mime);
+        VarInt.writeBytes(out, this.flags().bytes());
+        VarInt.writeString(out, this.language());
+        VarInt.writeSigned(out, this.llocal());
+        VarInt.writeSigned(out, this.lother());
+        VarInt.writeSigned(out, this.limage());
+        VarInt.writeSigned(out, this.laudio());
+        VarInt.writeSigned(out, this.lvideo());
+        VarInt.writeSigned(out, this.lapp());
+        VarInt.writeSigned(out, this.score());
+        VarInt.writeBytes(out, this.word() == null ? null : this.word().toKelondroEntry().bytes());
+        IconEntry faviconEntry = null;
+        if (!this.getIcons().isEmpty()) faviconEntry = this.getFavicon(new Dimension(16, 16));
+        VarInt.writeString(out, faviconEntry == null ? "" : faviconEntry.getUrl().toNormalform(false));
+        VarInt.writeString(out, (this.textSnippet == null || !this.textSnippet.exists()) ? "" : this.textSnippet.getLineRaw());
+    }
+
     @Override
     public int hashCode() {
         return this.url().hashCode();
@@ -221,6 +221,13 @@ public final class Column implements Cloneable, Serializable {
     	this.cellwidth = cellwidth;
     }
 
+    /**
+     * @return true if the cell holds a number which can be read and written with Row.Entry.getColLong/setCol
+     */
+    public boolean isCardinal() {
+        return this.celltype == celltype_cardinal && (this.encoder == encoder_b64e || this.encoder == encoder_b256);
+    }
+
     @Override
     public final String toString() {
         final StringBuilder s = new StringBuilder(20);
@@ -136,6 +136,20 @@ public abstract class AbstractIndex <ReferenceType extends Reference> implements
         return new TermSearch<ReferenceType>(this, queryHashes, excludeHashes, urlselection, termFactory, maxDistance);
     }
 
+    /**
+     * @param fullInclusion when false, the terms are joined in order of selectivity and only the candidate references of each
+     * term are retrieved; use true when the complete containers are needed (for example to compute index abstracts)
+     */
+    public TermSearch<ReferenceType> query(
+            final HandleSet queryHashes,
+            final HandleSet excludeHashes,
+            final HandleSet urlselection,
+            final ReferenceFactory<ReferenceType> termFactory,
+            final int maxDistance,
+            final boolean fullInclusion) throws SpaceExceededException {
+        return new TermSearch<ReferenceType>(this, queryHashes, excludeHashes, urlselection, termFactory, maxDistance, fullInclusion);
+    }
+
     @Override
     public Row referenceRow() {
         return this.factory.getRow();
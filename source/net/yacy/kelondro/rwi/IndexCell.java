@@ -351,7 +351,7 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
      */
     @Override
     public ReferenceContainer<ReferenceType> get(final byte[] termHash, final HandleSet urlselection) throws IOException {
-        final ReferenceContainer<ReferenceType> c0 = this.ram.get(termHash, null);
+        final ReferenceContainer<ReferenceType> c0 = this.ram.get(termHash, urlselection);
         ReferenceContainer<ReferenceType> c1 = null;
         try {
             c1 = this.array.get(termHash);
@@ -382,9 +382,49 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
             final HandleSet s = this.removeDelayedURLs.get(termHash);
             if (s != null) result.removeEntries(s);
         }
+        if (urlselection != null && result != c0) {
+            // the container from the file array is a fresh copy, keep only the selected references
+            result = select(result, urlselection);
+        }
         return result;
     }
 
+    /**
+     * @param container a container which can be modified
+     * @param urlselection the url hashes to keep
+     * @return a container with only the references of the container which are in urlselection
+     */
+    private ReferenceContainer<ReferenceType> select(final ReferenceContainer<ReferenceType> container, final HandleSet urlselection) {
+        if (container.size() <= urlselection.size()) {
+            // remove the entries which are not selected
+            final HandleSet unselected = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 0);
+            final Iterator<ReferenceType> i = container.entries();
+            ReferenceType entry;
+            try {
+                while (i.hasNext()) {
+                    entry = i.next();
+                    if (!urlselection.has(entry.urlhash())) unselected.put(entry.urlhash());
+                }
+            } catch (final SpaceExceededException e) {
+                return container;
+            }
+            container.removeEntries(unselected);
+            return container;
+        }
+        // the selection is much smaller than the container: probe the container for each selected url
+        try {
+            final ReferenceContainer<ReferenceType> selected = new ReferenceContainer<ReferenceType>(this.factory, container.getTermHash(), urlselection.size());
+            ReferenceType entry;
+            for (final byte[] urlhash: urlselection) {
+                entry = container.getReference(urlhash);
+                if (entry != null) selected.add(entry);
+            }
+            return selected;
+        } catch (final SpaceExceededException e) {
+            return container;
+        }
+    }
+
     /**
      * deleting a container affects the containers in RAM and all the BLOB files
      * the deleted containers are merged and returned as result of the method
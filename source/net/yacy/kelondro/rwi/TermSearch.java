@@ -27,11 +27,20 @@
 
 package net.yacy.kelondro.rwi;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.TreeMap;
 
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.index.RowHandleSet;
 
 
 public class TermSearch <ReferenceType extends Reference> {
@@ -46,6 +55,29 @@ public class TermSearch <ReferenceType extends Reference> {
             final HandleSet urlselection,
             ReferenceFactory<ReferenceType> termFactory,
             int maxDistance) throws SpaceExceededException {
+        this(base, queryHashes, excludeHashes, urlselection, termFactory, maxDistance, true);
+    }
+
+    /**
+     * @param fullInclusion when true, the complete container of each included term is retrieved and available with inclusion(),
+     * as needed to compute index abstracts. When false, the terms are retrieved in order of selectivity: the term with the
+     * fewest references is loaded first and the other terms are only retrieved for the remaining candidate urls; the search
+     * stops as soon as the conjunction is empty. inclusion() then contains only the candidate references of each term.
+     */
+    public TermSearch(
+            Index<ReferenceType> base,
+            final HandleSet queryHashes,
+            final HandleSet excludeHashes,
+            final HandleSet urlselection,
+            ReferenceFactory<ReferenceType> termFactory,
+            int maxDistance,
+            final boolean fullInclusion) throws SpaceExceededException {
+
+        if (!fullInclusion) {
+            this.inclusionContainers = new TreeMap<byte[], ReferenceContainer<ReferenceType>>(Base64Order.enhancedCoder);
+            this.joinResult = plannedJoin(base, queryHashes, excludeHashes, urlselection, termFactory, maxDistance);
+            return;
+        }
 
         this.inclusionContainers =
             (queryHashes.isEmpty()) ?
@@ -69,6 +101,74 @@ public class TermSearch <ReferenceType extends Reference> {
                 maxDistance);
     }
 
+    /**
+     * join the included terms starting with the rarest term, and probe all other terms only for the current candidate urls
+     * @return the joined and excluded references, an empty container if any included term has no candidate references
+     */
+    private ReferenceContainer<ReferenceType> plannedJoin(
+            final Index<ReferenceType> base,
+            final HandleSet queryHashes,
+            final HandleSet excludeHashes,
+            final HandleSet urlselection,
+            final ReferenceFactory<ReferenceType> termFactory,
+            final int maxDistance) throws SpaceExceededException {
+        if (queryHashes.isEmpty()) return ReferenceContainer.emptyContainer(termFactory, null, 0);
+
+        // order the terms by their number of references; the counts are cached in the index
+        final List<byte[]> terms = new ArrayList<byte[]>(queryHashes.size());
+        final TreeMap<byte[], Integer> counts = new TreeMap<byte[], Integer>(Base64Order.enhancedCoder);
+        for (final byte[] termHash: queryHashes) {
+            terms.add(termHash);
+            counts.put(termHash, base.count(termHash));
+        }
+        Collections.sort(terms, new Comparator<byte[]>() {
+            @Override
+            public int compare(final byte[] o1, final byte[] o2) {
+                return counts.get(o1).compareTo(counts.get(o2));
+            }
+        });
+
+        HandleSet candidates = urlselection;
+        ReferenceContainer<ReferenceType> result = null;
+        for (final byte[] termHash: terms) {
+            final ReferenceContainer<ReferenceType> container = get(base, termHash, candidates);
+            if (container == null || container.isEmpty()) {
+                // this is a conjunction: one term without candidates makes the result empty
+                this.inclusionContainers.clear();
+                return ReferenceContainer.emptyContainer(termFactory, null, 0);
+            }
+            this.inclusionContainers.put(termHash, container);
+            result = result == null ? container : ReferenceContainer.joinConstructive(termFactory, result, container, maxDistance);
+            if (result == null || result.isEmpty()) return ReferenceContainer.emptyContainer(termFactory, null, 0);
+            candidates = urlHashes(result);
+        }
+
+        // exclusion terms are only probed for the remaining candidates
+        final List<ReferenceContainer<ReferenceType>> exclusionContainers = new ArrayList<ReferenceContainer<ReferenceType>>(excludeHashes.size());
+        for (final byte[] termHash: excludeHashes) {
+            final ReferenceContainer<ReferenceType> container = get(base, termHash, candidates);
+            if (container != null && !container.isEmpty()) exclusionContainers.add(container);
+        }
+        ReferenceContainer.excludeContainers(termFactory, result, exclusionContainers);
+        return result;
+    }
+
+    private static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> get(final Index<ReferenceType> base, final byte[] termHash, final HandleSet urlselection) {
+        try {
+            return base.get(termHash, urlselection);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
+    }
+
+    private static <ReferenceType extends Reference> HandleSet urlHashes(final ReferenceContainer<ReferenceType> container) throws SpaceExceededException {
+        final HandleSet urlHashes = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, container.size());
+        final Iterator<ReferenceType> i = container.entries();
+        while (i.hasNext()) urlHashes.put(i.next().urlhash());
+        return urlHashes;
+    }
+
     public ReferenceContainer<ReferenceType> joined() {
         return this.joinResult;
     }
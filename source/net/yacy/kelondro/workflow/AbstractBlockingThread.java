@@ -54,8 +54,14 @@ public abstract class AbstractBlockingThread<J extends WorkflowJob> extends Abst
         long timestamp;
         long memstamp0, memstamp1;
         long busyCycles = 0;
+        boolean retired = false;
 
         while (this.running) {
+            if (this.manager.retireExecutor()) {
+                // the number of executors of the manager was decreased
+                retired = true;
+                break;
+            }
             try {
                 // check memory status
                 if (!shutdownInProgress() && MemoryControl.shortStatus()) {
@@ -108,7 +114,7 @@ public abstract class AbstractBlockingThread<J extends WorkflowJob> extends Abst
                 busyCycles++;
             }
         }
-        this.manager.decExecutors();
+        if (!retired) this.manager.decExecutors();
         this.close();
         logSystem("thread '" + this.getName() + "' terminated.");
     }
@@ -0,0 +1,180 @@
+/**
+ *  WorkflowBalancer
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adaptive allocation of a shared budget of worker threads to the stages of a workflow.
+ * Every stage is a WorkflowProcessor; the balancer samples the queue length and the execution time
+ * statistics of each stage and computes the backlog of each stage as the number of waiting jobs
+ * multiplied with the average execution time of a job. The budget is assigned to the stages in
+ * proportion to their backlog, so the threads are moved to the bottleneck stage, whether that is
+ * parsing or storage. Each stage keeps a minimum of threads and is limited to a maximum.
+ */
+public class WorkflowBalancer {
+
+    /**
+     * a stage of the workflow with its limits and the sampled statistics
+     */
+    public static class Stage {
+        private final WorkflowProcessor<?> processor;
+        private final int min, max, initial;
+        private long lastExecTime, lastExecCount;
+        private double avgExecTime; // milliseconds
+        private double backlog;     // milliseconds
+        private Stage(final WorkflowProcessor<?> processor, final int min, final int max) {
+            this.processor = processor;
+            this.min = Math.max(1, min);
+            this.max = Math.max(this.min, max);
+            this.initial = processor.getMaxConcurrency();
+            this.lastExecTime = processor.getExecTime();
+            this.lastExecCount = processor.getExecCount();
+            this.avgExecTime = 1.0d;
+            this.backlog = 0.0d;
+        }
+        private void sample() {
+            final long execTime = this.processor.getExecTime();
+            final long execCount = this.processor.getExecCount();
+            if (execCount > this.lastExecCount) {
+                this.avgExecTime = Math.max(1.0d, ((double) (execTime - this.lastExecTime)) / (execCount - this.lastExecCount));
+            }
+            this.lastExecTime = execTime;
+            this.lastExecCount = execCount;
+            this.backlog = this.processor.getQueueSize() * this.avgExecTime;
+        }
+        public String getName() {
+            return this.processor.getName();
+        }
+        public int getQueueSize() {
+            return this.processor.getQueueSize();
+        }
+        public int getAllocation() {
+            return this.processor.getMaxConcurrency();
+        }
+        public int getExecutors() {
+            return this.processor.getExecutors();
+        }
+        public double getAvgExecTime() {
+            return this.avgExecTime;
+        }
+        public int getMin() {
+            return this.min;
+        }
+        public int getMax() {
+            return this.max;
+        }
+    }
+
+    private final List<Stage> stages;
+    private int budget;
+
+    /**
+     * @param budget the total number of worker threads of all stages
+     */
+    public WorkflowBalancer(final int budget) {
+        this.stages = new ArrayList<Stage>();
+        this.budget = budget;
+    }
+
+    /**
+     * add a stage to the workflow
+     * @param processor the processor of the stage
+     * @param min the minimum number of threads of the stage
+     * @param max the maximum number of threads of the stage
+     */
+    public synchronized void add(final WorkflowProcessor<?> processor, final int min, final int max) {
+        this.stages.add(new Stage(processor, min, max));
+    }
+
+    public synchronized List<Stage> getStages() {
+        return new ArrayList<Stage>(this.stages);
+    }
+
+    public synchronized int getBudget() {
+        return this.budget;
+    }
+
+    public synchronized void setBudget(final int budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * sample the statistics of all stages and redistribute the budget according to the backlog of the stages;
+     * if no stage has a backlog the allocation is not changed
+     * @return true if the allocation of a stage was changed
+     */
+    public synchronized boolean balance() {
+        double total = 0.0d;
+        for (final Stage stage: this.stages) {
+            stage.sample();
+            total += stage.backlog;
+        }
+        if (total <= 0.0d) return false;
+        final int[] allocation = allocate(this.stages, this.budget);
+        boolean changed = false;
+        for (int i = 0; i < allocation.length; i++) {
+            final Stage stage = this.stages.get(i);
+            if (allocation[i] == stage.getAllocation()) continue;
+            stage.processor.setMaxConcurrency(allocation[i]);
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * compute an allocation: every stage gets its minimum, then each remaining thread goes to the stage with the
+     * highest backlog per allocated thread which is below its maximum
+     */
+    private static int[] allocate(final List<Stage> stages, final int budget) {
+        final int[] allocation = new int[stages.size()];
+        int rest = budget;
+        for (int i = 0; i < allocation.length; i++) {
+            allocation[i] = stages.get(i).min;
+            rest -= allocation[i];
+        }
+        while (rest > 0) {
+            int best = -1;
+            double bestLoad = 0.0d;
+            for (int i = 0; i < allocation.length; i++) {
+                final Stage stage = stages.get(i);
+                if (allocation[i] >= stage.max) continue;
+                final double load = stage.backlog / allocation[i];
+                if (load > bestLoad) {
+                    best = i;
+                    bestLoad = load;
+                }
+            }
+            if (best < 0) break;
+            allocation[best]++;
+            rest--;
+        }
+        return allocation;
+    }
+
+    /**
+     * restore the initial allocation of all stages
+     */
+    public synchronized void reset() {
+        for (final Stage stage: this.stages) stage.processor.setMaxConcurrency(stage.initial);
+    }
+
+}
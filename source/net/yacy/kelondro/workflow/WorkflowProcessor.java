@@ -46,7 +46,7 @@ public class WorkflowProcessor<J extends WorkflowJob> {
     private AtomicInteger executorRunning;
     private BlockingQueue<J> input;
     private final WorkflowProcessor<J> output;
-    private final int maxpoolsize;
+    private volatile int maxpoolsize;
     private final WorkflowTask<J> task;
     private final String processName, description;
     private final String[] childs;
@@ -105,6 +105,30 @@ public class WorkflowProcessor<J extends WorkflowJob> {
     public int getMaxConcurrency() {
         return this.maxpoolsize;
     }
+
+    /**
+     * change the maximum number of concurrent executors; if the number is decreased,
+     * surplus executors terminate after their current job
+     * @param maxpoolsize the new maximum, at least 1
+     */
+    public void setMaxConcurrency(final int maxpoolsize) {
+        this.maxpoolsize = Math.max(1, maxpoolsize);
+        ensureExecutors();
+    }
+
+    /**
+     * check if an executor shall terminate because there are more executors running than allowed;
+     * the executor count is decreased if this returns true
+     * the retireExecutor method may only be called within the AbstractBlockingThread while loop!!
+     * @return true if the calling executor must terminate
+     */
+    public boolean retireExecutor() {
+        while (true) {
+            final int running = this.executorRunning.get();
+            if (running <= this.maxpoolsize) return false;
+            if (this.executorRunning.compareAndSet(running, running - 1)) return true;
+        }
+    }
     
     public int getExecutors() {
         return this.executorRunning.get();
@@ -183,12 +207,7 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         while (this.input != null) {
             try {
                 this.input.put(in);
-                if (this.input.size() > this.executorRunning.get() && this.executorRunning.get() < this.maxpoolsize) synchronized (executor) {
-                    if (this.input.size() > this.executorRunning.get() && this.executorRunning.get() < this.maxpoolsize) {
-                        this.executorRunning.incrementAndGet();
-                        this.executor.submit(new InstantBlockingThread<J>(this));
-                    }
-                }
+                ensureExecutors();
                 break;
             } catch (final Throwable e) {
                 try {Thread.sleep(10);} catch (final InterruptedException ee) {}
@@ -196,6 +215,18 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         }
     }
 
+    private void ensureExecutors() {
+        final BlockingQueue<J> in = this.input;
+        final ExecutorService ex = this.executor;
+        if (in == null || ex == null || ex.isShutdown()) return;
+        if (in.size() > this.executorRunning.get() && this.executorRunning.get() < this.maxpoolsize) synchronized (ex) {
+            while (in.size() > this.executorRunning.get() && this.executorRunning.get() < this.maxpoolsize) {
+                this.executorRunning.incrementAndGet();
+                ex.submit(new InstantBlockingThread<J>(this));
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public void shutdown() {
         if (this.executor == null) {
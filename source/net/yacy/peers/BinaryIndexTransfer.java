@@ -0,0 +1,234 @@
+/**
+ *  BinaryIndexTransfer
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.cora.util.VarInt;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.index.Column;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceContainerCache;
+import net.yacy.search.index.Segment;
+
+/**
+ * The binary form of the DHT transmission payloads for /yacy/transferRWI.html and /yacy/transferURL.html.
+ * It is sent as a file part together with the parameter encoding=binary to peers which announce
+ * it with the flag of Seed.getFlagBinaryIndexTransfer(); all other peers get the text form.
+ * <p>
+ * The RWI payload is grouped by term: each term hash is followed by the sorted url hashes of its references,
+ * every url hash stored as the length of the prefix shared with its predecessor and the remaining suffix.
+ * The other columns of the WordReferenceRow are written column by column, numbers as varints and
+ * all other cells as raw bytes, so that similar values are close to each other for the deflater.
+ * The URL payload is a list of length-prefixed metadata resources.
+ * Both payloads start with magic bytes and a compression byte like the BinarySearchResponse.
+ */
+public class BinaryIndexTransfer {
+
+    /** value of the request parameter 'encoding' which announces a binary payload */
+    public static final String ENCODING = "binary";
+
+    /** file name of the binary payload parts; the '.bin' suffix tells the servlet to keep the part as base64 */
+    public static final String FILENAME = "payload.bin";
+
+    private static final byte[] MAGIC_RWI = new byte[]{0, 'Y', 'R', 1};
+    private static final byte[] MAGIC_URL = new byte[]{0, 'Y', 'U', 1};
+    private static final int COMPRESSION_NONE = 0;
+    private static final int COMPRESSION_DEFLATE = 1;
+    private static final int COMPRESSION_THRESHOLD = 1024; // do not compress small payloads
+
+    /**
+     * encode the references of a DHT transmission
+     * @param indexes the containers to transmit; each container is sorted by this method
+     * @return the binary payload
+     * @throws IOException
+     */
+    public static byte[] exportRWI(final ReferenceContainerCache<WordReference> indexes) throws IOException {
+        final Row rowdef = WordReferenceRow.urlEntryRow;
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(indexes.size() * 64 + 16);
+        final DataOutputStream out = new DataOutputStream(body);
+        VarInt.writeUnsigned(out, indexes.size());
+        final List<Row.Entry> rows = new ArrayList<Row.Entry>();
+        for (final ReferenceContainer<WordReference> container: indexes) {
+            container.sort();
+            rows.clear();
+            final Iterator<Row.Entry> i = container.iterator();
+            while (i.hasNext()) rows.add(i.next());
+            out.write(container.getTermHash(), 0, Word.commonHashLength);
+            VarInt.writeUnsigned(out, rows.size());
+
+            // url hashes, prefix-compressed
+            byte[] previous = null;
+            for (final Row.Entry row: rows) {
+                final byte[] urlhash = row.getPrimaryKeyBytes();
+                int shared = 0;
+                if (previous != null) while (shared < Word.commonHashLength && previous[shared] == urlhash[shared]) shared++;
+                out.writeByte(shared);
+                out.write(urlhash, shared, Word.commonHashLength - shared);
+                previous = urlhash;
+            }
+
+            // all other columns, one after the other
+            for (int c = 1; c < rowdef.columns(); c++) {
+                final Column column = rowdef.column(c);
+                if (column.isCardinal()) {
+                    for (final Row.Entry row: rows) VarInt.writeUnsigned(out, row.getColLong(c));
+                } else {
+                    for (final Row.Entry row: rows) out.write(row.getColBytes(c, false), 0, column.cellwidth);
+                }
+            }
+        }
+        out.flush();
+        return frame(MAGIC_RWI, body);
+    }
+
+    /**
+     * decode the references of a DHT transmission into a cache; the counts in the payload are not trusted,
+     * not more than maxReferences rows are allocated
+     * @param b the binary payload
+     * @param cache the target of the decoded references
+     * @param maxReferences decoding stops after this number of references
+     * @return the number of decoded references
+     * @throws IOException if the payload is malformed
+     * @throws SpaceExceededException
+     */
+    public static int parseRWI(final byte[] b, final ReferenceContainerCache<WordReference> cache, final int maxReferences) throws IOException, SpaceExceededException {
+        final Row rowdef = WordReferenceRow.urlEntryRow;
+        int count = 0;
+        try (final DataInputStream in = new DataInputStream(open(MAGIC_RWI, b))) {
+            final int terms = VarInt.readLength(in);
+            for (int t = 0; t < terms && count < maxReferences; t++) {
+                final byte[] termHash = new byte[Word.commonHashLength];
+                in.readFully(termHash);
+                final int n = VarInt.readLength(in);
+                // the rows beyond the limit are read into a scratch row and dropped
+                final int accepted = Math.min(n, maxReferences - count);
+                final Row.Entry[] rows = new Row.Entry[accepted];
+                final Row.Entry scratch = rowdef.newEntry();
+                final byte[] urlhash = new byte[Word.commonHashLength];
+                for (int i = 0; i < n; i++) {
+                    final int shared = in.readUnsignedByte();
+                    if (shared > Word.commonHashLength || (i == 0 && shared > 0)) throw new IOException("bad url hash prefix " + shared);
+                    in.readFully(urlhash, shared, Word.commonHashLength - shared);
+                    if (i < accepted) rows[i] = rowdef.newEntry();
+                    (i < accepted ? rows[i] : scratch).setCol(0, urlhash);
+                }
+                for (int c = 1; c < rowdef.columns(); c++) {
+                    final Column column = rowdef.column(c);
+                    if (column.isCardinal()) {
+                        for (int i = 0; i < n; i++) (i < accepted ? rows[i] : scratch).setCol(c, VarInt.readUnsigned(in));
+                    } else {
+                        final byte[] cell = new byte[column.cellwidth];
+                        for (int i = 0; i < n; i++) {
+                            in.readFully(cell);
+                            (i < accepted ? rows[i] : scratch).setCol(c, cell);
+                        }
+                    }
+                }
+                final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(Segment.wordReferenceFactory, termHash, accepted);
+                for (int i = 0; i < accepted; i++) container.addUnique(rows[i]);
+                cache.add(container);
+                count += accepted;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * encode the url metadata of a DHT transmission
+     * @param resources the transport form of the metadata, as given by URIMetadataNode.toString()
+     * @return the binary payload
+     * @throws IOException
+     */
+    public static byte[] exportURLs(final Collection<String> resources) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(resources.size() * 1024 + 16);
+        final DataOutputStream out = new DataOutputStream(body);
+        VarInt.writeUnsigned(out, resources.size());
+        for (final String resource: resources) VarInt.writeString(out, resource);
+        out.flush();
+        return frame(MAGIC_URL, body);
+    }
+
+    /**
+     * decode the url metadata of a DHT transmission
+     * @param b the binary payload
+     * @param max the maximum number of resources which are accepted
+     * @return the transport form of the metadata
+     * @throws IOException if the payload is malformed, contains more than max resources or more than VarInt.MAX_LENGTH bytes of resources
+     */
+    public static List<String> parseURLs(final byte[] b, final int max) throws IOException {
+        try (final DataInputStream in = new DataInputStream(open(MAGIC_URL, b))) {
+            final int n = VarInt.readLength(in);
+            if (n > max) throw new IOException("too many urls: " + n);
+            final List<String> resources = new ArrayList<String>(n);
+            long size = 0;
+            for (int i = 0; i < n; i++) {
+                final String resource = VarInt.readString(in);
+                size += resource.length();
+                if (size > VarInt.MAX_LENGTH) throw new IOException("url payload exceeds limit");
+                resources.add(resource);
+            }
+            return resources;
+        }
+    }
+
+    static byte[] frame(final byte[] magic, final ByteArrayOutputStream body) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(body.size() / 2 + magic.length + 1);
+        result.write(magic);
+        if (body.size() < COMPRESSION_THRESHOLD) {
+            result.write(COMPRESSION_NONE);
+            body.writeTo(result);
+        } else {
+            result.write(COMPRESSION_DEFLATE);
+            final DeflaterOutputStream deflater = new DeflaterOutputStream(result, new Deflater(Deflater.BEST_SPEED));
+            body.writeTo(deflater);
+            deflater.finish();
+            deflater.close();
+        }
+        return result.toByteArray();
+    }
+
+    static InputStream open(final byte[] magic, final byte[] b) throws IOException {
+        if (b == null || b.length < magic.length + 1) throw new IOException("payload too short");
+        for (int i = 0; i < magic.length; i++) if (b[i] != magic[i]) throw new IOException("bad payload magic");
+        final InputStream body = new ByteArrayInputStream(b, magic.length + 1, b.length - magic.length - 1);
+        final int compression = b[magic.length];
+        if (compression == COMPRESSION_DEFLATE) return new InflaterInputStream(body);
+        if (compression != COMPRESSION_NONE) throw new IOException("unknown compression " + compression);
+        return body;
+    }
+
+}
@@ -0,0 +1,167 @@
+/**
+ *  BinarySearchResponse
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.VarInt;
+import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * The binary form of a /yacy/search.html response. It is requested by the search client with the
+ * parameter encoding=binary and carries the same information as the text properties of search.html:
+ * the scalar properties, the index counts, the index abstracts and the result links.
+ * Links are written as binary URIMetadataNode records with varint numbers and an attached
+ * word reference row; the index abstracts keep their compressIndex form as length-prefixed bytes.
+ * Peers that do not know the encoding parameter answer in the text form; clients recognize a binary
+ * response by its magic bytes.
+ */
+public class BinarySearchResponse {
+
+    /** value of the request parameter 'encoding' which asks for a binary response */
+    public static final String ENCODING = "binary";
+
+    private static final byte[] MAGIC = new byte[]{0, 'Y', 'S', 1}; // a text response never starts with a zero byte
+    private static final int COMPRESSION_NONE = 0;
+    private static final int COMPRESSION_DEFLATE = 1;
+    private static final int COMPRESSION_THRESHOLD = 1024; // do not compress small responses
+
+    public final Map<String, String> properties;
+    public final Map<byte[], Integer> indexcount;
+    public final Map<byte[], String> indexabstract;
+    public final List<URIMetadataNode> links;
+
+    public BinarySearchResponse() {
+        this.properties = new LinkedHashMap<String, String>();
+        this.indexcount = new TreeMap<byte[], Integer>(Base64Order.enhancedCoder);
+        this.indexabstract = new TreeMap<byte[], String>(Base64Order.enhancedCoder);
+        this.links = new ArrayList<URIMetadataNode>();
+    }
+
+    /**
+     * @param b a response body
+     * @return true if the body is a binary search response
+     */
+    public static boolean isBinary(final byte[] b) {
+        if (b == null || b.length < MAGIC.length + 1) return false;
+        for (int i = 0; i < MAGIC.length; i++) if (b[i] != MAGIC[i]) return false;
+        return true;
+    }
+
+    /**
+     * @return the binary response; the body is deflated if it is large enough to benefit from compression
+     * @throws IOException
+     */
+    public byte[] export() throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        final DataOutputStream out = new DataOutputStream(body);
+        VarInt.writeUnsigned(out, this.properties.size());
+        for (final Map.Entry<String, String> entry: this.properties.entrySet()) {
+            VarInt.writeString(out, entry.getKey());
+            VarInt.writeString(out, entry.getValue());
+        }
+        VarInt.writeUnsigned(out, this.indexcount.size());
+        for (final Map.Entry<byte[], Integer> entry: this.indexcount.entrySet()) {
+            out.write(entry.getKey(), 0, Word.commonHashLength);
+            VarInt.writeUnsigned(out, entry.getValue().intValue());
+        }
+        VarInt.writeUnsigned(out, this.indexabstract.size());
+        for (final Map.Entry<byte[], String> entry: this.indexabstract.entrySet()) {
+            out.write(entry.getKey(), 0, Word.commonHashLength);
+            VarInt.writeBytes(out, ASCII.getBytes(entry.getValue()));
+        }
+        VarInt.writeUnsigned(out, this.links.size());
+        for (final URIMetadataNode link: this.links) link.exportBinary(out);
+        out.flush();
+
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(body.size() / 2 + MAGIC.length + 1);
+        result.write(MAGIC);
+        if (body.size() < COMPRESSION_THRESHOLD) {
+            result.write(COMPRESSION_NONE);
+            body.writeTo(result);
+        } else {
+            result.write(COMPRESSION_DEFLATE);
+            final DeflaterOutputStream deflater = new DeflaterOutputStream(result, new Deflater(Deflater.BEST_SPEED));
+            body.writeTo(deflater);
+            deflater.finish();
+            deflater.close();
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * parse a binary search response
+     * @param b the response body, must start with the magic bytes
+     * @param collection the collection name of the links, e.g. "dht"
+     * @return the decoded response
+     * @throws IOException if the response is not a binary search response or is malformed
+     */
+    public static BinarySearchResponse parse(final byte[] b, final String collection) throws IOException {
+        if (!isBinary(b)) throw new IOException("not a binary search response");
+        InputStream body = new ByteArrayInputStream(b, MAGIC.length + 1, b.length - MAGIC.length - 1);
+        final int compression = b[MAGIC.length];
+        if (compression == COMPRESSION_DEFLATE) {
+            body = new InflaterInputStream(body);
+        } else if (compression != COMPRESSION_NONE) {
+            throw new IOException("unknown compression " + compression);
+        }
+        final BinarySearchResponse response = new BinarySearchResponse();
+        try (final DataInputStream in = new DataInputStream(body)) {
+            int n = VarInt.readLength(in);
+            for (int i = 0; i < n; i++) {
+                response.properties.put(VarInt.readString(in), VarInt.readString(in));
+            }
+            n = VarInt.readLength(in);
+            for (int i = 0; i < n; i++) {
+                final byte[] wordhash = new byte[Word.commonHashLength];
+                in.readFully(wordhash);
+                response.indexcount.put(wordhash, Integer.valueOf(VarInt.readLength(in)));
+            }
+            n = VarInt.readLength(in);
+            for (int i = 0; i < n; i++) {
+                final byte[] wordhash = new byte[Word.commonHashLength];
+                in.readFully(wordhash);
+                response.indexabstract.put(wordhash, ASCII.String(VarInt.readBytes(in)));
+            }
+            n = VarInt.readLength(in);
+            for (int i = 0; i < n; i++) {
+                response.links.add(new URIMetadataNode(in, collection));
+            }
+        }
+        return response;
+    }
+
+}
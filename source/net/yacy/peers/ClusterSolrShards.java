@@ -0,0 +1,106 @@
+/**
+ *  ClusterSolrShards
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.yacy.cora.federate.solr.connector.RemoteSolrConnector;
+import net.yacy.cora.federate.solr.connector.ShardSelection;
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.instance.RemoteInstance;
+import net.yacy.cora.federate.solr.instance.ShardInstance;
+import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.search.Switchboard;
+import net.yacy.search.SwitchboardConstants;
+
+/**
+ * The embedded solr cores of the peers of a robinson cluster as shards of one distributed solr index.
+ * A search in the cluster is done with a single query to the shard connector which queries the solr
+ * interfaces of all cluster peers concurrently and merges the results by score, instead of one remote
+ * search thread with the YaCy search protocol for every cluster peer.
+ * The connector is cached and only rebuilt if the set of cluster peers changes.
+ */
+public class ClusterSolrShards {
+
+    private String shardKey;          // the sorted base urls of the shards of the current connector
+    private SolrConnector connector;
+    private ShardInstance instance;
+
+    public ClusterSolrShards() {
+        this.shardKey = null;
+        this.connector = null;
+        this.instance = null;
+    }
+
+    /**
+     * get a connector to the solr shards of the given peers
+     * @param peers the cluster peers; peers without address or with an inaccessible solr interface are omitted
+     * @return the connector or null if no peer can be used as shard
+     */
+    public synchronized SolrConnector connector(final Collection<Seed> peers) {
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final boolean preferHttps = sb.getConfigBool(SwitchboardConstants.REMOTESEARCH_HTTPS_PREFERRED, SwitchboardConstants.REMOTESEARCH_HTTPS_PREFERRED_DEFAULT);
+        final Set<String> urls = new TreeSet<String>();
+        for (final Seed seed: peers) {
+            if (seed == null || !seed.getFlagSolrAvailable()) continue;
+            final Set<String> ips = seed.getIPs();
+            if (ips.isEmpty()) continue;
+            urls.add(seed.getPublicURL(ips.iterator().next(), preferHttps));
+        }
+        if (urls.isEmpty()) return null;
+        final String key = urls.toString();
+        if (key.equals(this.shardKey) && this.connector != null) return this.connector;
+
+        close();
+        final int timeout = sb.getConfigInt(SwitchboardConstants.FEDERATED_SERVICE_SOLR_INDEXING_TIMEOUT, 6000);
+        final boolean trustSelfSigned = sb.getConfigBool(SwitchboardConstants.FEDERATED_SERVICE_SOLR_INDEXING_AUTHENTICATED_ALLOW_SELF_SIGNED,
+                SwitchboardConstants.FEDERATED_SERVICE_SOLR_INDEXING_AUTHENTICATED_ALLOW_SELF_SIGNED_DEFAULT);
+        final long maxBytesPerResponse = MemoryControl.available() / 4;
+        final ArrayList<RemoteInstance> instances = new ArrayList<RemoteInstance>(urls.size());
+        for (final String url: urls) {
+            try {
+                instances.add(new RemoteInstance(url, null, "solr", timeout, trustSelfSigned, maxBytesPerResponse, false)); // 'solr' is the default collection of a peer
+            } catch (final IOException e) {
+                Network.log.info("cluster shards: cannot connect solr of " + url + ": " + e.getMessage());
+            }
+        }
+        if (instances.isEmpty()) return null;
+        this.instance = new ShardInstance(instances, ShardSelection.Method.MODULO_HOST_MD5, false);
+        this.connector = new RemoteSolrConnector(this.instance,
+                sb.getConfigBool(SwitchboardConstants.REMOTE_SOLR_BINARY_RESPONSE_ENABLED, SwitchboardConstants.REMOTE_SOLR_BINARY_RESPONSE_ENABLED_DEFAULT),
+                "solr");
+        this.shardKey = key;
+        Network.log.info("cluster shards: connected " + instances.size() + " solr shards " + key);
+        return this.connector;
+    }
+
+    public synchronized void close() {
+        if (this.connector != null) this.connector.close();
+        if (this.instance != null) this.instance.close();
+        this.connector = null;
+        this.instance = null;
+        this.shardKey = null;
+    }
+
+}
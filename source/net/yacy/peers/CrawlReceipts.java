@@ -0,0 +1,158 @@
+/**
+ *  CrawlReceipts
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.yacy.cora.util.VarInt;
+import net.yacy.kelondro.data.meta.URIMetadataNode;
+
+/**
+ * Batches of crawl receipts for URLs which were crawled for other peers.
+ * Instead of one crawlReceipt request for every loaded URL, the receipts are collected for each
+ * initiator peer and sent together in one compressed batch when the batch is full or when the
+ * pending receipts are flushed by the cleanup job.
+ */
+public class CrawlReceipts {
+
+    public static final int BATCH_SIZE = 100;
+    private static final byte[] MAGIC = new byte[]{0, 'Y', 'C', 1};
+
+    private final Map<String, List<Receipt>> pending; // initiator peer hash / receipts
+
+    /**
+     * the receipt of one URL, see crawlReceipt for the result values
+     */
+    public static class Receipt {
+        public final String result, reason;
+        public final String entry; // the URL metadata in the property form of URIMetadataNode
+        public Receipt(final String result, final String reason, final String entry) {
+            this.result = result;
+            this.reason = reason;
+            this.entry = entry;
+        }
+        public Receipt(final String result, final String reason, final URIMetadataNode entry) {
+            this(result, reason, entryString(entry));
+        }
+    }
+
+    public CrawlReceipts() {
+        this.pending = new HashMap<String, List<Receipt>>();
+    }
+
+    /**
+     * the property form of the metadata of a crawled URL; the document abstract is added as snippet
+     * because it is remotely stored in description_txt
+     * @param entry the metadata, may be null
+     * @return the property form, an empty string if the entry is null
+     */
+    public static String entryString(final URIMetadataNode entry) {
+        if (entry == null) return "";
+        final ArrayList<String> ldesc = entry.getDescription();
+        return ldesc.isEmpty() ? entry.toString() : entry.toString(ldesc.get(0));
+    }
+
+    /**
+     * add a receipt for an initiator peer
+     * @return true if the batch of that peer is full and should be sent
+     */
+    public synchronized boolean add(final String initiator, final Receipt receipt) {
+        List<Receipt> receipts = this.pending.get(initiator);
+        if (receipts == null) {
+            receipts = new ArrayList<Receipt>();
+            this.pending.put(initiator, receipts);
+        }
+        receipts.add(receipt);
+        return receipts.size() >= BATCH_SIZE;
+    }
+
+    /**
+     * remove the pending receipts of an initiator peer
+     * @return the receipts, an empty list if there are none
+     */
+    public synchronized List<Receipt> take(final String initiator) {
+        final List<Receipt> receipts = this.pending.remove(initiator);
+        return receipts == null ? new ArrayList<Receipt>(0) : receipts;
+    }
+
+    /**
+     * @return the hashes of the peers which have pending receipts
+     */
+    public synchronized Collection<String> initiators() {
+        return new ArrayList<String>(this.pending.keySet());
+    }
+
+    /**
+     * @return the number of pending receipts
+     */
+    public synchronized int size() {
+        int c = 0;
+        for (final List<Receipt> receipts: this.pending.values()) c += receipts.size();
+        return c;
+    }
+
+    /**
+     * encode a batch of receipts in the binary form
+     * @return the binary payload
+     * @throws IOException
+     */
+    public static byte[] encode(final Collection<Receipt> receipts) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(receipts.size() * 512 + 8);
+        final DataOutputStream out = new DataOutputStream(body);
+        VarInt.writeUnsigned(out, receipts.size());
+        for (final Receipt receipt: receipts) {
+            VarInt.writeString(out, receipt.result);
+            VarInt.writeString(out, receipt.reason);
+            VarInt.writeString(out, receipt.entry);
+        }
+        out.flush();
+        return BinaryIndexTransfer.frame(MAGIC, body);
+    }
+
+    /**
+     * decode a batch of receipts
+     * @param b the binary payload
+     * @param max the maximum number of receipts which are accepted
+     * @return the receipts
+     * @throws IOException if the payload is malformed or contains more than max receipts
+     */
+    public static List<Receipt> decode(final byte[] b, final int max) throws IOException {
+        try (final DataInputStream in = new DataInputStream(BinaryIndexTransfer.open(MAGIC, b))) {
+            final int n = VarInt.readLength(in);
+            if (n > max) throw new IOException("too many receipts: " + n);
+            final List<Receipt> receipts = new ArrayList<Receipt>(n);
+            for (int i = 0; i < n; i++) {
+                final String result = VarInt.readString(in);
+                final String reason = VarInt.readString(in);
+                receipts.add(new Receipt(result, reason, VarInt.readString(in)));
+            }
+            return receipts;
+        }
+    }
+
+}
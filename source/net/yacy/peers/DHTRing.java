@@ -0,0 +1,139 @@
+/**
+ *  DHTRing
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.util.Arrays;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.federate.yacy.Distribution;
+import net.yacy.peers.operation.yacyVersion;
+
+/**
+ * An immutable view of the DHT ring: the connected peers which accept remote indexes, ordered by their
+ * horizontal DHT position. The ring is divided into the vertical partitions of the distribution scheme;
+ * the first ring member of every partition is precomputed, so the redundant target peers of a word
+ * in a vertical partition are found with a binary search inside the partition followed by the next
+ * ring members, without an iteration over the seed database.
+ * The SeedDB rebuilds the ring whenever the snapshot of the connected peers changes.
+ */
+public class DHTRing {
+
+    private static final byte[] LOWEST_HASH = ASCII.getBytes("AAAAAAAAAAAA");
+
+    private final PeerTable.Snapshot peers;
+    private final Distribution scheme;
+    private final long[] positions;      // horizontal DHT position of the ring members, ascending
+    private final int[] members;         // index of the ring members in the peer snapshot
+    private final int[] partitionStart;  // first ring index of each vertical partition; the last entry is size()
+
+    public DHTRing(final PeerTable.Snapshot peers, final Distribution scheme) {
+        this.peers = peers;
+        this.scheme = scheme;
+        final int n = peers.size();
+        final long[] p = new long[n];
+        final int[] m = new int[n];
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            if (!peers.flag(i, PeerTable.FLAG_ACCEPT_REMOTE_INDEX)) continue; // probably a robinson peer
+            if (!peers.hasVersion(i, yacyVersion.YACY_HANDLES_COLLECTION_INDEX)) continue;
+            p[c] = Distribution.horizontalDHTPosition(ASCII.getBytes(peers.seed(i).hash));
+            m[c] = i;
+            c++;
+        }
+        // the peer snapshot is in DHT order, therefore the positions are already ascending
+        this.positions = Arrays.copyOf(p, c);
+        this.members = Arrays.copyOf(m, c);
+        final int partitions = scheme.verticalPartitions();
+        this.partitionStart = new int[partitions + 1];
+        for (int v = 0; v < partitions; v++) {
+            this.partitionStart[v] = ceiling(scheme.verticalDHTPosition(LOWEST_HASH, v), 0, c);
+        }
+        this.partitionStart[partitions] = c;
+    }
+
+    /**
+     * @return the peer snapshot of this ring; the member methods return indexes of this snapshot
+     */
+    public PeerTable.Snapshot peers() {
+        return this.peers;
+    }
+
+    /**
+     * @return the number of ring members
+     */
+    public int size() {
+        return this.members.length;
+    }
+
+    /**
+     * @param ringIndex any non-negative number; the ring is closed at the end
+     * @return the index of the ring member in the peer snapshot
+     */
+    public int member(final int ringIndex) {
+        return this.members[ringIndex % this.members.length];
+    }
+
+    /**
+     * the first ring member which is responsible for a word in a vertical partition
+     * @param wordhash the word hash
+     * @param verticalPosition the vertical partition, 0 <= verticalPosition < scheme.verticalPartitions()
+     * @return a ring index, to be used with member()
+     */
+    public int position(final byte[] wordhash, final int verticalPosition) {
+        final long target = this.scheme.verticalDHTPosition(wordhash, verticalPosition);
+        final int p = ceiling(target, this.partitionStart[verticalPosition], this.partitionStart[verticalPosition + 1]);
+        return p == this.members.length ? 0 : p;
+    }
+
+    /**
+     * the first ring member at or after a horizontal position
+     * @param hash a word or peer hash
+     * @return a ring index, to be used with member()
+     */
+    public int position(final byte[] hash) {
+        final int p = ceiling(Distribution.horizontalDHTPosition(hash), 0, this.members.length);
+        return p == this.members.length ? 0 : p;
+    }
+
+    /**
+     * @return the number of ring members which are passed from the position of the start hash
+     *         until the position of the target hash is reached
+     */
+    public int distance(final byte[] startHash, final byte[] targetHash) {
+        final long start = Distribution.horizontalDHTPosition(startHash);
+        final long target = Distribution.horizontalDHTPosition(targetHash);
+        final int a = ceiling(start, 0, this.members.length);
+        final int b = ceiling(target, 0, this.members.length);
+        return target >= start ? b - a : this.members.length - a + b;
+    }
+
+    /**
+     * binary search for the first position which is not lower than the target
+     * @return an index from low..high
+     */
+    private int ceiling(final long target, int low, int high) {
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (this.positions[mid] < target) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+}
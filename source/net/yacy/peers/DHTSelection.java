@@ -38,7 +38,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import net.yacy.cora.document.encoding.ASCII;
-import net.yacy.cora.federate.yacy.Distribution;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.Digest;
 import net.yacy.cora.sorting.OrderedScoreMap;
@@ -88,23 +87,26 @@ public class DHTSelection {
             final OrderedScoreMap<Seed> seedSelection = new OrderedScoreMap<Seed>(null);
             
             // create sets that contains only robinson/node/large/young peers
-            Iterator<Seed> dhtEnum = seedDB.seedsConnected(true, false, null, 0.50f);
+            final PeerTable.Snapshot peers = seedDB.connectedPeers();
+            final long now = System.currentTimeMillis();
             Seed seed;
-            while (dhtEnum.hasNext()) {
-                seed = dhtEnum.next();
-                if (seed == null) continue;
+            for (int i = 0; i < peers.size(); i++) {
+                if (!peers.hasVersion(i, 0.50f)) continue;
+                if (Math.abs(now - peers.lastSeen(i)) > 3600000) continue; // do not ask peers that had not been seen more than one hour (happens during a startup situation)
+                if (!peers.flag(i, PeerTable.FLAG_SOLR_AVAILABLE)) continue; // extra peers always use solr direct, skip if solr interface is not available
+                seed = peers.seed(i);
                 if (omit != null && omit.contains(seed)) continue; // sort out peers that are target for DHT
-                if (seed.isLastSeenTimeout(3600000)) continue; // do not ask peers that had not been seen more than one hour (happens during a startup situation)
-                if (!seed.getFlagSolrAvailable()) continue; // extra peers always use solr direct, skip if solr interface is not available
-                if (!seed.getFlagAcceptRemoteIndex() && seed.matchPeerTags(wordhashes)) seedSelection.dec(seed, r.nextInt(10) + 2); // robinson peers with matching peer tags
-                if (seed.getFlagRootNode()) seedSelection.dec(seed, r.nextInt(30) + 6); // root nodes (fast peers)
-                if (seed.getAge() < minage) seedSelection.dec(seed, r.nextInt(15) + 3); // young peers (with fresh info)
-                if (seed.getAge() < 1) seedSelection.dec(seed, r.nextInt(40) + 8); // the 'workshop feature', fresh peers should be seen
-                if (seed.getLinkCount() >= 100000 && seed.getLinkCount() < 1000000) { // peers above 100.000 links take part on a selection of medium-size peers
+                final int age = peers.age(i, now);
+                final long linkCount = peers.linkCount(i);
+                if (!peers.flag(i, PeerTable.FLAG_ACCEPT_REMOTE_INDEX) && seed.matchPeerTags(wordhashes)) seedSelection.dec(seed, r.nextInt(10) + 2); // robinson peers with matching peer tags
+                if (peers.flag(i, PeerTable.FLAG_ROOT_NODE)) seedSelection.dec(seed, r.nextInt(30) + 6); // root nodes (fast peers)
+                if (age < minage) seedSelection.dec(seed, r.nextInt(15) + 3); // young peers (with fresh info)
+                if (age < 1) seedSelection.dec(seed, r.nextInt(40) + 8); // the 'workshop feature', fresh peers should be seen
+                if (linkCount >= 100000 && linkCount < 1000000) { // peers above 100.000 links take part on a selection of medium-size peers
                     seedSelection.dec(seed, r.nextInt(25) + 5);
                 }
-                if (seed.getLinkCount() >= 1000000) { // peers above 1 million links take part on a selection of large peers
-                    int pf = 1 + (int) (20000000 / seed.getLinkCount());
+                if (linkCount >= 1000000) { // peers above 1 million links take part on a selection of large peers
+                    int pf = 1 + (int) (20000000 / linkCount);
                     seedSelection.dec(seed, r.nextInt(pf) + pf / 5); // large peers; choose large one less frequent to reduce load on their peer
                 }
             }
@@ -199,25 +201,33 @@ public class DHTSelection {
      * @return a list of seeds for the redundant positions
      */
     private static ArrayList<Seed> selectVerticalDHTPositions(final SeedDB seedDB, final byte[] wordhash, final int minage, final int minWordCount, final int redundancy, int verticalPosition) {
+        return selectVerticalDHTPositions(seedDB.dhtRing(), wordhash, minage, minWordCount, redundancy, verticalPosition); // the ring contains only peers which accept remote indexes
+    }
+
+    /**
+     * collecting vertical positions on a given ring, i.e. the ring of the seeds database or the ring of a simulated network
+     * @param ring the DHT ring of the peers which accept remote indexes
+     * @see #selectVerticalDHTPositions(SeedDB, byte[], int, int, int, int)
+     */
+    static ArrayList<Seed> selectVerticalDHTPositions(final DHTRing ring, final byte[] wordhash, final int minage, final int minWordCount, final int redundancy, int verticalPosition) {
         // this method is called from the search target computation
         ArrayList<Seed> seeds = new ArrayList<>(redundancy);
-        final long dhtVerticalTarget = seedDB.scheme.verticalDHTPosition(wordhash, verticalPosition);
-        final byte[] verticalhash = Distribution.positionToHash(dhtVerticalTarget);
-        final Iterator<Seed> dhtEnum = getAcceptRemoteIndexSeeds(seedDB, verticalhash, redundancy, false);
-        int c = Math.min(seedDB.sizeConnected(), redundancy);
-        int cc = 20; // in case that the network grows rapidly, we may jump to several additional peers but that must have a limit
-        while (dhtEnum.hasNext() && c > 0 && cc-- > 0) {
-            Seed seed = dhtEnum.next();
-            if (seed == null || seed.hash == null) continue;
-            if (!seed.getFlagAcceptRemoteIndex()) continue; // probably a robinson peer
-            if (seed.getAge() < minage) continue; // prevent bad results because of too strong network growth
-            if(seed.getWordCount() < minWordCount) {
+        final PeerTable.Snapshot peers = ring.peers();
+        if (ring.size() == 0) return seeds;
+        final int start = ring.position(wordhash, verticalPosition);
+        final long now = System.currentTimeMillis();
+        int c = Math.min(ring.size(), redundancy); // the number of redundant positions which are inspected
+        for (int step = 0; c > 0; step++) {
+            final int i = ring.member(start + step);
+            c--;
+            if (peers.age(i, now) < minage) continue; // prevent bad results because of too strong network growth
+            if (peers.wordCount(i) < minWordCount) {
             	/* Even if the peer is not a robinson and has the required minimum age, it may have an empty or disabled RWI */
             	continue;
             }
-            if (RemoteSearch.log.isInfo()) RemoteSearch.log.info("selectPeers/DHTorder: " + seed.hash + ":" + seed.getName() + "/ score " + c);
+            final Seed seed = peers.seed(i);
+            if (RemoteSearch.log.isInfo()) RemoteSearch.log.info("selectPeers/DHTorder: " + seed.hash + ":" + seed.getName() + "/ score " + (c + 1));
             seeds.add(seed);
-            c--;
         }
         return seeds;
     }
@@ -256,110 +266,45 @@ public class DHTSelection {
         return new acceptRemoteIndexSeedEnum(seedDB, starthash, Math.min(max, seedDB.sizeConnected()), alsoMyOwn);
     }
 
+    /**
+     * enumerates the peers in DHT order from a start position around the ring, using the DHT ring of the connected peers
+     */
     private static class acceptRemoteIndexSeedEnum extends LookAheadIterator<Seed> implements Iterator<Seed>, Iterable<Seed> {
 
-        private final Iterator<Seed> se;
-        private final SeedDB seedDB;
+        private final DHTRing ring;
+        private final int start;
+        private int step;
         private int remaining;
-        private final boolean alsoMyOwn;
+        private Seed mySeed; // null if the own seed is not enumerated or was already enumerated
+        private final int myStep; // the own seed is enumerated before the peer at this step
 
-        private acceptRemoteIndexSeedEnum(SeedDB seedDB, final byte[] starthash, int max, boolean alsoMyOwn) {
-            this.seedDB = seedDB;
-            this.se = new seedDHTEnum(seedDB, starthash, alsoMyOwn);
+        private acceptRemoteIndexSeedEnum(final SeedDB seedDB, final byte[] starthash, final int max, final boolean alsoMyOwn) {
+            this.ring = seedDB.dhtRing();
+            this.start = this.ring.position(starthash);
+            this.step = 0;
             this.remaining = max;
-            this.alsoMyOwn = alsoMyOwn;
+            this.mySeed = alsoMyOwn ? seedDB.mySeed() : null;
+            this.myStep = alsoMyOwn ? this.ring.distance(starthash, ASCII.getBytes(this.mySeed.hash)) : 0;
         }
 
         @Override
         protected Seed next0() {
             if (this.remaining <= 0) return null;
-            Seed s = null;
-            try {
-                while (this.se.hasNext()) {
-                    s = this.se.next();
-                    if (s == null) return null;
-                    if (s.getFlagAcceptRemoteIndex() ||
-                        (this.alsoMyOwn && s.hash.equals(this.seedDB.mySeed().hash)) // Accept own peer regardless of FlagAcceptRemoteIndex
-                       ) {
-                        this.remaining--;
-                        break;
-                    }
+            final int n = this.ring.size();
+            while (true) {
+                if (this.mySeed != null && this.step >= this.myStep) {
+                    // Accept own peer regardless of FlagAcceptRemoteIndex
+                    final Seed s = this.mySeed;
+                    this.mySeed = null;
+                    this.remaining--;
+                    return s;
                 }
-                return s;
-            } catch (final kelondroException e) {
-                System.out.println("DEBUG acceptRemoteIndexSeedEnum:" + e.getMessage());
-                Network.log.severe("database inconsistency (" + e.getMessage() + "), re-set of db.");
-                this.seedDB.resetActiveTable();
-                return null;
-            }
-        }
-
-    }
-    
-    private static class seedDHTEnum implements Iterator<Seed> {
-
-        private Iterator<Seed> e;
-        private int steps;
-        private final SeedDB seedDB;
-        private boolean alsoMyOwn;
-        private int pass, insertOwnInPass;
-        private Seed nextSeed;
-
-        private seedDHTEnum(final SeedDB seedDB, final byte[] firstHash, final boolean alsoMyOwn) {
-            this.seedDB = seedDB;
-            this.steps = seedDB.sizeConnected() + ((alsoMyOwn) ? 1 : 0);
-            this.e = seedDB.seedsConnected(true, false, firstHash, yacyVersion.YACY_HANDLES_COLLECTION_INDEX);
-            this.pass = 1;
-            this.alsoMyOwn = alsoMyOwn;
-            if (alsoMyOwn) {
-                this.insertOwnInPass = (Base64Order.enhancedCoder.compare(ASCII.getBytes(seedDB.mySeed().hash), firstHash) > 0) ? 1 : 2;
-            } else {
-                this.insertOwnInPass = 0;
-            }
-            this.nextSeed = nextInternal();
-        }
-
-        @Override
-        public boolean hasNext() {
-            return (this.nextSeed != null) || this.alsoMyOwn;
-        }
-
-        public Seed nextInternal() {
-            if (this.steps == 0) return null;
-            this.steps--;
-
-            if (!this.e.hasNext() && this.pass == 1) {
-                // rotate from the beginning; this closes the ordering of the DHT at the ends
-                this.e = this.seedDB.seedsConnected(true, false, null, yacyVersion.YACY_HANDLES_COLLECTION_INDEX);
-                this.pass = 2;
+                if (this.step >= n) return null;
+                this.remaining--;
+                return this.ring.peers().seed(this.ring.member(this.start + this.step++));
             }
-            if (this.e.hasNext()) {
-                return this.e.next();
-            }
-            this.steps = 0;
-            return null;
         }
 
-        @Override
-        public Seed next() {
-            if (this.alsoMyOwn &&
-                ((this.pass > this.insertOwnInPass) ||
-                 (this.pass == this.insertOwnInPass && this.nextSeed == null) || // Own hash is last in line
-                 (this.pass == this.insertOwnInPass && this.nextSeed != null && (Base64Order.enhancedCoder.compare(ASCII.getBytes(this.seedDB.mySeed().hash), ASCII.getBytes(this.nextSeed.hash)) < 0)))
-               ) {
-                // take my own seed hash instead the enumeration result
-                this.alsoMyOwn = false;
-                return this.seedDB.mySeed();
-            }
-            final Seed next = this.nextSeed;
-            this.nextSeed = nextInternal();
-            return next;
-        }
-
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException();
-        }
     }
 
     /**
@@ -25,6 +25,7 @@
 
 package net.yacy.peers;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
@@ -32,6 +33,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.order.Base64Order;
@@ -104,6 +106,12 @@ public class Dispatcher implements WorkflowTask<Transmission.Chunk> {
 
     /** transmission object */
     private final Transmission transmission;
+
+    /** the number of chunks which are currently transmitted to a target, the key is the target hash */
+    private final Map<String, AtomicInteger> inFlight;
+
+    /** maximum number of chunks which are transmitted concurrently to the same target */
+    private static final int maxChunksPerTarget = 1;
     
     /** The Switchboard instance holding the server environment */
     private final Switchboard env;
@@ -118,7 +126,12 @@ public class Dispatcher implements WorkflowTask<Transmission.Chunk> {
         this.segment = env.index;
         this.seeds = env.peers;
         this.log = new ConcurrentLog("INDEX-TRANSFER-DISPATCHER");
-		this.transmission = new Transmission(env, this.log, gzipBody, timeout);
+        this.inFlight = new ConcurrentHashMap<String, AtomicInteger>();
+
+        // references from transmissions which did not finish before the last shutdown or crash go back to the index
+        final TransmissionJournal journal = new TransmissionJournal(new File(env.queuesRoot, "dhtOutbound"), this.log);
+        journal.replay(this.segment);
+		this.transmission = new Transmission(env, this.log, gzipBody, timeout, journal);
 
         final int concurrentSender = Math.min(8, WorkflowProcessor.availableCPU);
         this.indexingTransmissionProcessor = new WorkflowProcessor<Transmission.Chunk>(
@@ -333,7 +346,8 @@ public class Dispatcher implements WorkflowTask<Transmission.Chunk> {
     /**
      * PROCESS(5)
      * take the largest container from the write buffer and put it into the 'next' array,
-     * where it waits to be processed.
+     * where it waits to be processed. Targets which already have maxChunksPerTarget chunks
+     * in transmission are skipped, so the concurrent senders are spread over several targets.
      * This method returns true if a container was dequeued, false if not
      */
     public boolean dequeueContainer() {
@@ -342,6 +356,8 @@ public class Dispatcher implements WorkflowTask<Transmission.Chunk> {
         String maxtarget = null;
         int maxsize = -1;
         for (final Map.Entry<String, Transmission.Chunk> chunk: this.transmissionBuffer.entrySet()) {
+            final AtomicInteger running = this.inFlight.get(chunk.getKey());
+            if (running != null && running.get() >= maxChunksPerTarget) continue;
             if (chunk.getValue().containersSize() > maxsize) {
                 maxsize = chunk.getValue().containersSize();
                 maxtarget = chunk.getKey();
@@ -349,13 +365,26 @@ public class Dispatcher implements WorkflowTask<Transmission.Chunk> {
         }
         if (maxsize < 0) return false;
         final Transmission.Chunk chunk = this.transmissionBuffer.remove(maxtarget);
+        if (chunk == null) return false;
+        AtomicInteger running = this.inFlight.get(maxtarget);
+        if (running == null) {
+            running = new AtomicInteger(0);
+            final AtomicInteger r = this.inFlight.putIfAbsent(maxtarget, running);
+            if (r != null) running = r;
+        }
+        running.incrementAndGet();
         this.indexingTransmissionProcessor.enQueue(chunk);
         return true;
     }
     
     @Override
     public Chunk process(final Transmission.Chunk chunk) throws Exception {
-    	return transferDocumentIndex(chunk);
+        try {
+            return transferDocumentIndex(chunk);
+        } finally {
+            final AtomicInteger running = this.inFlight.get(chunk.dhtTarget().hash);
+            if (running != null) running.decrementAndGet();
+        }
     }
 
     /**
@@ -382,13 +411,8 @@ public class Dispatcher implements WorkflowTask<Transmission.Chunk> {
         // removes all entries from the dispatcher and puts them back to a RAMRI
         if (this.indexingTransmissionProcessor != null) this.indexingTransmissionProcessor.shutdown();
         if (this.transmissionBuffer != null) {
-        	outerLoop: for (final Map.Entry<String, Transmission.Chunk> e : this.transmissionBuffer.entrySet()) {
-        		for (final ReferenceContainer<WordReference> i : e.getValue()) try {
-        		    this.segment.storeRWI(i);
-        		} catch (final Exception e1) {
-        		    ConcurrentLog.logException(e1);
-        		    break outerLoop;
-        		}
+        	for (final Map.Entry<String, Transmission.Chunk> e : this.transmissionBuffer.entrySet()) {
+        		e.getValue().restore();
         	}
         	this.transmissionBuffer.clear();
         }
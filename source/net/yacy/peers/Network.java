@@ -39,10 +39,9 @@
 package net.yacy.peers;
 
 import java.net.MalformedURLException;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -69,7 +68,6 @@ public class Network
 {
 
     // statics
-    public static final ThreadGroup publishThreadGroup = new ThreadGroup("publishThreadGroup");
     public static final HashMap<String, String> seedUploadMethods = new HashMap<>();
     public static final ConcurrentLog log = new ConcurrentLog("YACY");
     /** pseudo-random key derived from a time-interval while YaCy startup */
@@ -83,17 +81,22 @@ public class Network
     private static final int PING_MIN_DBSIZE = 5;
     private static final int PING_MIN_PEERSEEN = 1; // min. accessible to force senior
     private static final long PING_MAX_DBAGE = 15 * 60 * 1000; // in milliseconds
+    private static final int PING_CANDIDATES = 4; // factor for the number of peers which are considered for a ping
+    private static final long PING_TIMEOUT = 2 * 60 * 1000; // maximum time of a ping round in milliseconds
 
     // public static yacyShare shareManager = null;
     // public static boolean terminate = false;
 
     // class variables
     Switchboard sb;
+    private final PingScheduler pingScheduler;
+    private final Map<String, long[]> seedDeltaCursors = new ConcurrentHashMap<>(); // peer hash / epoch and version of the last seed list delta
 
     public Network(final Switchboard sb) {
         final long time = System.currentTimeMillis();
 
         this.sb = sb;
+        this.pingScheduler = new PingScheduler(PING_INITIAL);
         sb.setConfig("yacyStatus", "");
 
         // create a peer news channel
@@ -118,6 +121,10 @@ public class Network
         speedKey = System.currentTimeMillis() - time;
     }
 
+    public void close() {
+        this.pingScheduler.close();
+    }
+
     public final void publishSeedList() {
         if (log.isFine()) log.fine("yacyCore.publishSeedList: Triggered Seed Publish");
 
@@ -188,18 +195,20 @@ public class Network
         this.publishMySeed();
     }
 
-    protected class publishThread extends Thread
+    protected class publishTask implements Runnable
     {
         private final Seed seed;
+        private volatile boolean reached = false;
 
-        public publishThread(final ThreadGroup tg, final Seed seed) {
-            super(tg, "PublishSeed_" + seed.getName());
+        public publishTask(final Seed seed) {
             this.seed = seed;
         }
 
         @Override
         public final void run() {
         	Map<String, String> result = null;
+            final String threadName = Thread.currentThread().getName();
+            Thread.currentThread().setName("PublishSeed_" + this.seed.getName());
             try {
 				final boolean preferHttps = Network.this.sb.getConfigBool(
 						SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED,
@@ -207,12 +216,13 @@ public class Network
                 for (final String ip: this.seed.getIPs()) {
                 	try {
                 		MultiProtocolURL targetBaseURL = this.seed.getPublicMultiprotocolURL(ip, preferHttps);
-                        result = Protocol.hello(Network.this.sb.peers.mySeed(), Network.this.sb.peers.peerActions, targetBaseURL, this.seed.hash);
+                        final long start = System.currentTimeMillis();
+                        result = Protocol.hello(Network.this.sb.peers.mySeed(), Network.this.sb.peers.peerActions, targetBaseURL, this.seed.hash, Network.this.pingScheduler);
 						if (result == null && targetBaseURL.isHTTPS()) {
 							/* Failed with https : retry with http on the same address */
 							targetBaseURL = this.seed.getPublicMultiprotocolURL(ip, false);
 							result = Protocol.hello(Network.this.sb.peers.mySeed(), Network.this.sb.peers.peerActions,
-									targetBaseURL, this.seed.hash);
+									targetBaseURL, this.seed.hash, Network.this.pingScheduler);
 							if (result != null) {
 								/* Got a result using http : mark SSL as unavailable on the peer */
 								log.info("publish: SSL/TLS unavailable on " + this.seed.get(Seed.PEERTYPE, Seed.PEERTYPE_SENIOR) + " peer '"
@@ -229,6 +239,8 @@ public class Network
                             Network.this.sb.peers.peerActions.interfaceDeparture(this.seed, ip);
                             continue;
                         }
+                        Network.this.pingScheduler.success(this.seed.hash, System.currentTimeMillis() - start);
+                        this.reached = true;
                 	} catch(final MalformedURLException e) {
                         final String cause = "malformed peer URL";
                         log.info("publish: disconnected " + this.seed.get(Seed.PEERTYPE, Seed.PEERTYPE_SENIOR) + " peer '" + this.seed.getName() + "' from " + this.seed.getIPs() + ": " + cause);
@@ -278,8 +290,11 @@ public class Network
             } catch (final Exception e ) {
                 ConcurrentLog.logException(e);
                 log.severe(
-                    "publishThread: error with target seed " + this.seed.toString() + ": " + e.getMessage(),
+                    "publishTask: error with target seed " + this.seed.toString() + ": " + e.getMessage(),
                     e);
+            } finally {
+                if (!this.reached) Network.this.pingScheduler.failure(this.seed.hash);
+                Thread.currentThread().setName(threadName);
             }
         }
     }
@@ -338,7 +353,13 @@ public class Network
                         attempts = PING_MAX_RUNNING;
                     }
                 }
-                seeds = DHTSelection.seedsByAge(this.sb.peers, false, attempts); // best for seed list maintenance/cleaning
+                seeds = DHTSelection.seedsByAge(this.sb.peers, false, attempts * PING_CANDIDATES); // best for seed list maintenance/cleaning
+                if (seeds != null) {
+                    // skip stable peers which have been pinged recently
+                    final Map<String, Seed> due = new HashMap<>();
+                    for (final Seed s: this.pingScheduler.selectDue(seeds.values(), attempts)) due.put(s.hash, s);
+                    seeds = due;
+                }
             }
 
             if (seeds == null || seeds.isEmpty()) return false;
@@ -361,10 +382,9 @@ public class Network
             }
             this.sb.peers.mySeed().setUnusedFlags();
             //if (seeds.length > 1) {
-            // holding a reference to all started threads
-            final List<publishThread> syncList = Collections.synchronizedList(new LinkedList<publishThread>()); // memory for threads
+            final List<publishTask> tasks = new ArrayList<>();
 
-            // go through the peer list and starting a new publisher thread for each peer
+            // go through the peer list and create a publisher task for each peer
             int i = 0;
             while ( si.hasNext() ) {
                 seed = si.next();
@@ -386,19 +406,25 @@ public class Network
                 		// we don't like that address, delete it
                 		this.sb.peers.peerActions.interfaceDeparture(seed, ip);
                 	} else {
-                		// starting a new publisher thread
-                		final publishThread t = new publishThread(Network.publishThreadGroup, seed);
-                		t.start();
-                		syncList.add(t);
+                		tasks.add(new publishTask(seed));
                 	}
                 }
             }
 
-            // receiving the result of all started publisher threads
-            for (final publishThread t: syncList) {
-                // waiting for the next thread to finish
-                t.join();
+            // run the publisher tasks concurrently and integrate the seeds which the other peers sent us
+            final int finished = this.pingScheduler.ping(tasks, PING_TIMEOUT);
+            final int received = this.pingScheduler.flushArrivals(this.sb.peers.peerActions);
+            final long[] latency = this.pingScheduler.latencyPercentiles();
+            log.info("PeerPing: " + finished + " of " + tasks.size() + " hello(s) finished, received " + received + " seed(s); latency of the last "
+                    + this.pingScheduler.latencySamples() + " pings: median " + latency[0] + " ms, 90% " + latency[1] + " ms, 99% " + latency[2] + " ms, max " + latency[3] + " ms");
+
+            // fetch the changes of the seed list from a reached peer, preferably from the peer of the last delta
+            publishTask source = null;
+            for (final publishTask t: tasks) {
+                if (!t.reached || !t.seed.getFlagSeedDelta()) continue;
+                if (source == null || this.seedDeltaCursors.containsKey(t.seed.hash)) source = t;
             }
+            if (source != null) syncSeedList(source.seed);
 
             int accessible = 0;
             int notaccessible = 0;
@@ -468,61 +494,33 @@ public class Network
             this.sb.peers.saveMySeed();
             return false;
         } catch (final InterruptedException e ) {
-            try {
-                log.info("publish: Interruption detected while publishing my seed.");
-
-                // consuming the theads interrupted signal
-                Thread.interrupted();
-
-                // interrupt all already started publishThreads
-                log.info("publish: Signaling shutdown to "
-                    + Network.publishThreadGroup.activeCount()
-                    + " remaining publishing threads ...");
-                Network.publishThreadGroup.interrupt();
-
-                // waiting some time for the publishThreads to finish execution
-                try {
-                    Thread.sleep(500);
-                } catch (final InterruptedException ex ) {
-                }
-
-                // getting the amount of remaining publishing threads
-                int threadCount = Network.publishThreadGroup.activeCount();
-                final Thread[] threadList = new Thread[threadCount];
-                threadCount = Network.publishThreadGroup.enumerate(threadList);
-
-                // we need to use a timeout here because of missing interruptable session threads ...
-                if ( log.isFine() ) {
-                    log.fine("publish: Waiting for "
-                        + Network.publishThreadGroup.activeCount()
-                        + " remaining publishing threads to finish shutdown ...");
-                }
-                for ( int currentThreadIdx = 0; currentThreadIdx < threadCount; currentThreadIdx++ ) {
-                    final Thread currentThread = threadList[currentThreadIdx];
-
-                    if ( currentThread.isAlive() ) {
-                        if ( log.isFine() ) {
-                            log.fine("publish: Waiting for remaining publishing thread '"
-                                + currentThread.getName()
-                                + "' to finish shutdown");
-                        }
-                        try {
-                            currentThread.join(500);
-                        } catch (final InterruptedException ex ) {
-                        }
-                    }
-                }
-
-                log.info("publish: Shutdown off all remaining publishing thread finished.");
-
-            } catch (final Exception ee ) {
-                log.warn("publish: Unexpected error while trying to shutdown all remaining publishing threads.", e);
-            }
-
+            // the ping scheduler has cancelled all remaining publisher tasks
+            log.info("publish: Interruption detected while publishing my seed.");
             return false;
         }
     }
 
+    /**
+     * integrate the changes of the connected peers of another peer since our last request to that peer
+     * @param peer the other peer
+     */
+    private void syncSeedList(final Seed peer) {
+        final long[] cursor = this.seedDeltaCursors.get(peer.hash);
+        final SeedDelta.Delta delta = Protocol.seedDelta(peer, cursor == null ? 0L : cursor[0], cursor == null ? -1L : cursor[1]);
+        if (delta == null) return;
+        if (cursor == null && this.seedDeltaCursors.size() >= PING_INITIAL) this.seedDeltaCursors.clear();
+        this.seedDeltaCursors.put(peer.hash, new long[]{delta.epoch, delta.version});
+        final String myHash = this.sb.peers.mySeed().hash;
+        int connected = 0;
+        for (final Seed seed: delta.changed) {
+            if (!seed.hash.equals(myHash) && this.sb.peers.peerActions.peerArrival(seed, false)) connected++;
+        }
+        final long cutoff = System.currentTimeMillis() - PING_MAX_DBAGE;
+        for (final String hash: delta.removed) this.sb.peers.peerActions.peerRemoval(hash, cutoff);
+        log.info("PeerPing: seed list delta from peer '" + peer.getName() + "'" + (delta.full ? " (full list)" : "") + ": "
+                + delta.changed.size() + " changed seed(s), " + connected + " connected, " + delta.removed.size() + " removed");
+    }
+
     @SuppressWarnings("unchecked")
     public static HashMap<String, String> getSeedUploadMethods() {
         synchronized ( Network.seedUploadMethods ) {
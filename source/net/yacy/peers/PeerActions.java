@@ -240,6 +240,20 @@ public class PeerActions {
         EventChannel.channels(EventChannel.PEERNEWS).addMessage(new RSSMessage(peer.getName() + " left the network", "", ""));
     }
 
+    /**
+     * A peer was reported as removed by another peer in a seed list delta. It is only disconnected
+     * if we had no contact to it since the given time, so other peers cannot remove peers which we can reach.
+     * @param hash the hash of the removed peer
+     * @param cutoff the time in milliseconds since epoch
+     */
+    public void peerRemoval(final String hash, final long cutoff) {
+        synchronized (this.seedDB) {
+            final Seed peer = this.seedDB.getConnected(hash);
+            if (peer == null || peer.getLastSeenUTC() >= cutoff) return;
+            this.seedDB.addDisconnected(peer);
+        }
+    }
+
     public void peerPing(final Seed peer) {
         if (peer == null) return;
         // this is called only if the peer has junior status
@@ -0,0 +1,271 @@
+/**
+ *  PeerTable
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * An in-memory table of the connected peers which is kept in sync with the persistent seed table.
+ * The properties which are needed for the peer selection are parsed once when a seed is put into the table.
+ * Readers get an immutable snapshot where these properties are stored as columns of primitives,
+ * ordered by the peer hash in DHT order, so that a DHT position is found with a binary search
+ * and the selection does not parse seed strings or create seed objects.
+ * The snapshot is rebuilt on the first read after a change of the table.
+ */
+public class PeerTable {
+
+    public static final int FLAG_ACCEPT_REMOTE_INDEX = 1;
+    public static final int FLAG_ACCEPT_REMOTE_CRAWL = 2;
+    public static final int FLAG_ROOT_NODE           = 4;
+    public static final int FLAG_SOLR_AVAILABLE      = 8;
+    public static final int FLAG_SSL_AVAILABLE       = 16;
+    public static final int FLAG_DIRECT_CONNECT      = 32;
+
+    private static final Snapshot EMPTY = new Snapshot(new Peer[0]);
+
+    private final ConcurrentHashMap<String, Peer> peers;
+    private volatile Snapshot snapshot; // null if the table was changed after the last snapshot
+
+    public PeerTable() {
+        this.peers = new ConcurrentHashMap<String, Peer>();
+        this.snapshot = EMPTY;
+    }
+
+    /**
+     * put a new or changed seed into the table
+     * @param seed the seed; the table keeps a copy
+     */
+    public void put(final Seed seed) {
+        if (seed == null || seed.hash == null || seed.hash.length() != Word.commonHashLength) return;
+        final Peer peer = new Peer(seed.clone());
+        // changes are synchronized with the snapshot build, otherwise a snapshot built before the change could be published after it
+        synchronized (this) {
+            this.peers.put(seed.hash, peer);
+            this.snapshot = null;
+        }
+    }
+
+    public synchronized void remove(final String hash) {
+        if (hash == null) return;
+        if (this.peers.remove(hash) != null) this.snapshot = null;
+    }
+
+    public synchronized void clear() {
+        this.peers.clear();
+        this.snapshot = EMPTY;
+    }
+
+    public int size() {
+        return this.peers.size();
+    }
+
+    /**
+     * @return the current state of the table; the snapshot does not change when the table is changed
+     */
+    public Snapshot snapshot() {
+        Snapshot s = this.snapshot;
+        if (s != null) return s;
+        synchronized (this) {
+            s = this.snapshot;
+            if (s != null) return s;
+            s = new Snapshot(this.peers.values().toArray(new Peer[this.peers.size()]));
+            this.snapshot = s;
+            return s;
+        }
+    }
+
+    /**
+     * the selection properties of one seed, parsed from the seed dna
+     */
+    private static class Peer {
+
+        private final Seed seed;
+        private final byte[] hash;
+        private final String ip;
+        private final int port;
+        private final int flags;
+        private final long linkCount, wordCount, lastSeen, birthdate;
+        private final double version;
+
+        private Peer(final Seed seed) {
+            this.seed = seed;
+            this.hash = ASCII.getBytes(seed.hash);
+            final Set<String> ips = seed.getIPs();
+            this.ip = ips.isEmpty() ? null : ips.iterator().next();
+            this.port = seed.getPort();
+            this.flags =
+                    (seed.getFlagAcceptRemoteIndex() ? FLAG_ACCEPT_REMOTE_INDEX : 0) |
+                    (seed.getFlagAcceptRemoteCrawl() ? FLAG_ACCEPT_REMOTE_CRAWL : 0) |
+                    (seed.getFlagRootNode() ? FLAG_ROOT_NODE : 0) |
+                    (seed.getFlagSolrAvailable() ? FLAG_SOLR_AVAILABLE : 0) |
+                    (seed.getFlagSSLAvailable() ? FLAG_SSL_AVAILABLE : 0) |
+                    (seed.getFlagDirectConnect() ? FLAG_DIRECT_CONNECT : 0);
+            this.linkCount = seed.getLinkCount();
+            this.wordCount = seed.getWordCount();
+            this.lastSeen = seed.getLastSeenUTC();
+            this.birthdate = seed.getBirthdate();
+            this.version = seed.getVersion();
+        }
+    }
+
+    private static final Comparator<Peer> DHT_ORDER = new Comparator<Peer>() {
+        @Override
+        public int compare(final Peer p0, final Peer p1) {
+            return Base64Order.enhancedCoder.compare(p0.hash, p1.hash);
+        }
+    };
+
+    /**
+     * an immutable columnar view of the peer table in DHT order.
+     * All methods take the index of a peer, 0 <= i < size()
+     */
+    public static class Snapshot {
+
+        private final byte[] hashes; // size() * Word.commonHashLength
+        private final Seed[] seeds;
+        private final String[] ips;
+        private final int[] ports;
+        private final int[] flags;
+        private final long[] linkCounts, wordCounts, lastSeen, birthdates;
+        private final double[] versions;
+
+        private Snapshot(final Peer[] peers) {
+            Arrays.sort(peers, DHT_ORDER);
+            final int n = peers.length;
+            this.hashes = new byte[n * Word.commonHashLength];
+            this.seeds = new Seed[n];
+            this.ips = new String[n];
+            this.ports = new int[n];
+            this.flags = new int[n];
+            this.linkCounts = new long[n];
+            this.wordCounts = new long[n];
+            this.lastSeen = new long[n];
+            this.birthdates = new long[n];
+            this.versions = new double[n];
+            for (int i = 0; i < n; i++) {
+                final Peer p = peers[i];
+                System.arraycopy(p.hash, 0, this.hashes, i * Word.commonHashLength, Word.commonHashLength);
+                this.seeds[i] = p.seed;
+                this.ips[i] = p.ip;
+                this.ports[i] = p.port;
+                this.flags[i] = p.flags;
+                this.linkCounts[i] = p.linkCount;
+                this.wordCounts[i] = p.wordCount;
+                this.lastSeen[i] = p.lastSeen;
+                this.birthdates[i] = p.birthdate;
+                this.versions[i] = p.version;
+            }
+        }
+
+        public int size() {
+            return this.seeds.length;
+        }
+
+        /**
+         * find the DHT position of a hash
+         * @param hash a word or peer hash
+         * @return the index of the first peer with a hash equal to or after the given hash;
+         *         0 if the given hash is after all peer hashes because the DHT is a ring
+         */
+        public int position(final byte[] hash) {
+            final int p = ceiling(hash);
+            return p == this.seeds.length ? 0 : p;
+        }
+
+        /**
+         * @param hash a word or peer hash
+         * @return the index of the first peer with a hash equal to or after the given hash; size() if there is no such peer
+         */
+        public int ceiling(final byte[] hash) {
+            int low = 0;
+            int high = this.seeds.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (Base64Order.enhancedCoder.compare(this.hashes, mid * Word.commonHashLength, hash, 0, Word.commonHashLength) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @return the number of peers which are passed on the ring from the position of the start hash
+         *         until the position of the target hash is reached
+         */
+        public int distance(final byte[] startHash, final byte[] targetHash) {
+            final int a = ceiling(startHash);
+            final int b = ceiling(targetHash);
+            if (Base64Order.enhancedCoder.compare(targetHash, startHash) >= 0) return b - a;
+            return this.seeds.length - a + b;
+        }
+
+        public Seed seed(final int i) {
+            return this.seeds[i];
+        }
+
+        public String ip(final int i) {
+            return this.ips[i];
+        }
+
+        public int port(final int i) {
+            return this.ports[i];
+        }
+
+        public boolean flag(final int i, final int flag) {
+            return (this.flags[i] & flag) != 0;
+        }
+
+        public long linkCount(final int i) {
+            return this.linkCounts[i];
+        }
+
+        public long wordCount(final int i) {
+            return this.wordCounts[i];
+        }
+
+        public long lastSeen(final int i) {
+            return this.lastSeen[i];
+        }
+
+        /** @return the age of the peer in number of days, like Seed.getAge() */
+        public int age(final int i, final long now) {
+            return (int) Math.abs((now - this.birthdates[i]) / 1000 / 60 / 60 / 24);
+        }
+
+        public double version(final int i) {
+            return this.versions[i];
+        }
+
+        /** @return true if the peer has at least the given version or is a developer peer, like the seed enumeration of SeedDB */
+        public boolean hasVersion(final int i, final double minVersion) {
+            return this.versions[i] >= minVersion || this.versions[i] == 0.0;
+        }
+    }
+
+}
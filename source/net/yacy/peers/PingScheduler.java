@@ -0,0 +1,255 @@
+/**
+ *  PingScheduler
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+
+/**
+ * Scheduler for the peer ping (hello) rounds.
+ * The hello requests of a round are executed concurrently by a bounded thread pool instead of one new thread for each peer.
+ * Every peer gets its own ping interval: the interval is doubled after each successful ping up to a maximum,
+ * so stable peers are contacted less often, and it is reset to the minimum after a failure, so new and flaky peers
+ * are contacted more often.
+ * Seeds which are received second-hand in the hello responses of a round are coalesced and handed to the
+ * peer actions once at the end of the round, so a peer which is reported by many other peers is only integrated once.
+ */
+public class PingScheduler {
+
+    public static final long MIN_INTERVAL = 60000L;       // ping interval of new and flaky peers
+    public static final long MAX_INTERVAL = 10L * 60000L; // ping interval of stable peers, below the age limit of the accessibility reports
+    private static final int LATENCY_SAMPLES = 1000;      // number of latest latencies used for the distribution
+
+    private final ThreadPoolExecutor pool;
+    private final ConcurrentHashMap<String, State> states; // peer hash / ping state
+    private final Map<String, Seed> arrivals; // peer hash / most recent seed received second-hand in this round
+    private final long[] latencies;
+    private int latencyCount;
+
+    /**
+     * the ping state of one peer
+     */
+    private static class State {
+        private long last = 0;
+        private long interval = MIN_INTERVAL;
+        private int failures = 0;
+    }
+
+    /**
+     * @param maxConcurrent the maximum number of concurrent hello requests
+     */
+    public PingScheduler(final int maxConcurrent) {
+        this.pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamePrefixThreadFactory(PingScheduler.class.getSimpleName()));
+        this.pool.allowCoreThreadTimeOut(true); // the pool is idle most of the time
+        this.states = new ConcurrentHashMap<String, State>();
+        this.arrivals = new HashMap<String, Seed>();
+        this.latencies = new long[LATENCY_SAMPLES];
+        this.latencyCount = 0;
+    }
+
+    /**
+     * @return true if the peer was never pinged or its ping interval is over
+     */
+    public boolean isDue(final String hash, final long now) {
+        final State state = this.states.get(hash);
+        if (state == null) return true;
+        synchronized (state) {
+            return now - state.last >= state.interval;
+        }
+    }
+
+    /**
+     * select the peers which are due for a ping
+     * @param candidates the candidates in order of preference
+     * @param max the maximum number of selected peers
+     * @return the first max candidates which are due
+     */
+    public List<Seed> selectDue(final Collection<Seed> candidates, final int max) {
+        final long now = System.currentTimeMillis();
+        // forget peers which have not been pinged for a long time
+        final Iterator<State> i = this.states.values().iterator();
+        while (i.hasNext()) {
+            final State state = i.next();
+            if (now - state.last > 2 * MAX_INTERVAL) i.remove();
+        }
+        final List<Seed> due = new ArrayList<Seed>(Math.min(max, candidates.size()));
+        for (final Seed seed: candidates) {
+            if (due.size() >= max) break;
+            if (seed != null && isDue(seed.hash, now)) due.add(seed);
+        }
+        return due;
+    }
+
+    /**
+     * register a successful ping; the ping interval of the peer is doubled
+     * @param latency the response time of the hello in milliseconds
+     */
+    public void success(final String hash, final long latency) {
+        final State state = state(hash);
+        synchronized (state) {
+            state.interval = state.last == 0 ? MIN_INTERVAL : Math.min(MAX_INTERVAL, state.interval * 2);
+            state.last = System.currentTimeMillis();
+            state.failures = 0;
+        }
+        synchronized (this.latencies) {
+            this.latencies[this.latencyCount++ % LATENCY_SAMPLES] = latency;
+        }
+    }
+
+    /**
+     * register a failed ping; the ping interval of the peer is reset to the minimum
+     */
+    public void failure(final String hash) {
+        final State state = state(hash);
+        synchronized (state) {
+            state.interval = MIN_INTERVAL;
+            state.last = System.currentTimeMillis();
+            state.failures++;
+        }
+    }
+
+    /**
+     * @return the number of consecutive failed pings of the peer
+     */
+    public int failures(final String hash) {
+        final State state = this.states.get(hash);
+        if (state == null) return 0;
+        synchronized (state) {
+            return state.failures;
+        }
+    }
+
+    private State state(final String hash) {
+        State state = this.states.get(hash);
+        if (state == null) {
+            state = new State();
+            final State s = this.states.putIfAbsent(hash, state);
+            if (s != null) state = s;
+        }
+        return state;
+    }
+
+    /**
+     * collect a seed which was received in a hello response; if the same peer was already received
+     * in this round, the seed with the latest last-seen date is kept
+     */
+    public void arrival(final Seed seed) {
+        if (seed == null || seed.hash == null) return;
+        synchronized (this.arrivals) {
+            final Seed known = this.arrivals.get(seed.hash);
+            if (known == null || known.getLastSeenUTC() <= seed.getLastSeenUTC()) this.arrivals.put(seed.hash, seed);
+        }
+    }
+
+    /**
+     * integrate all collected seeds into the seed database
+     * @return the number of integrated seeds
+     */
+    public int flushArrivals(final PeerActions peerActions) {
+        final Seed[] seeds;
+        synchronized (this.arrivals) {
+            seeds = this.arrivals.values().toArray(new Seed[this.arrivals.size()]);
+            this.arrivals.clear();
+        }
+        for (final Seed seed: seeds) peerActions.peerArrival(seed, false);
+        return seeds.length;
+    }
+
+    /**
+     * run the ping tasks concurrently and wait until all are finished
+     * @param tasks the hello tasks, one for each peer
+     * @param timeout the maximum time to wait for the tasks in milliseconds; unfinished tasks are cancelled
+     * @return the number of tasks which were finished in time
+     * @throws InterruptedException if the waiting thread is interrupted; all tasks are cancelled
+     */
+    public int ping(final Collection<? extends Runnable> tasks, final long timeout) throws InterruptedException {
+        final List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+        for (final Runnable task: tasks) futures.add(this.pool.submit(task));
+        final long deadline = System.currentTimeMillis() + timeout;
+        int finished = 0;
+        try {
+            for (final Future<?> future: futures) {
+                final long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) break;
+                try {
+                    future.get(wait, TimeUnit.MILLISECONDS);
+                    finished++;
+                } catch (final ExecutionException e) {
+                    finished++;
+                    Network.log.warn("ping task failed: " + e.getCause().getMessage(), e.getCause());
+                } catch (final TimeoutException e) {
+                    break;
+                }
+            }
+        } finally {
+            for (final Future<?> future: futures) future.cancel(true);
+        }
+        return finished;
+    }
+
+    /**
+     * @return the number of latency samples for the distribution, at most 1000
+     */
+    public int latencySamples() {
+        synchronized (this.latencies) {
+            return Math.min(this.latencyCount, LATENCY_SAMPLES);
+        }
+    }
+
+    /**
+     * compute the distribution of the latest ping latencies
+     * @return the 50%, 90% and 99% percentiles and the maximum of the latencies in milliseconds, all 0 if there are no samples
+     */
+    public long[] latencyPercentiles() {
+        final long[] sorted;
+        synchronized (this.latencies) {
+            sorted = Arrays.copyOf(this.latencies, Math.min(this.latencyCount, LATENCY_SAMPLES));
+        }
+        if (sorted.length == 0) return new long[]{0, 0, 0, 0};
+        Arrays.sort(sorted);
+        return new long[]{
+            sorted[(sorted.length - 1) * 50 / 100],
+            sorted[(sorted.length - 1) * 90 / 100],
+            sorted[(sorted.length - 1) * 99 / 100],
+            sorted[sorted.length - 1]};
+    }
+
+    public void close() {
+        this.pool.shutdownNow();
+    }
+
+}
@@ -52,6 +52,7 @@ import java.net.MalformedURLException;
 import java.time.DateTimeException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
@@ -63,6 +64,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -93,6 +95,7 @@ import net.yacy.cora.federate.solr.connector.SolrConnector;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.Digest;
+import net.yacy.cora.protocol.ByteArrayBody;
 import net.yacy.cora.protocol.ClientIdentification;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.http.HTTPClient;
@@ -192,6 +195,20 @@ public final class Protocol {
         final PeerActions peerActions,
         final MultiProtocolURL targetBaseURL,
         final String targetHash) {
+        return hello(mySeed, peerActions, targetBaseURL, targetHash, null);
+    }
+
+    /**
+     * send a hello to another peer, see above
+     * @param scheduler if not null, the seeds of other peers in the response are collected by the scheduler
+     *        and integrated at the end of the ping round; the seed of the target peer is always integrated immediately
+     */
+    public static Map<String, String> hello(
+        final Seed mySeed,
+        final PeerActions peerActions,
+        final MultiProtocolURL targetBaseURL,
+        final String targetHash,
+        final PingScheduler scheduler) {
 
         Map<String, String> result = null;
         final String salt = crypt.randomSalt();
@@ -354,6 +371,10 @@ public final class Protocol {
                         s = Seed.genRemoteSeed(seedStr, false, host);
                     } else {
                         s = Seed.genRemoteSeed(seedStr, false, null);
+                        if (scheduler != null) {
+                            scheduler.arrival(s);
+                            continue;
+                        }
                     }
                     peerActions.peerArrival(s, (i == 1));
                 } catch (final IOException e ) {
@@ -408,6 +429,27 @@ public final class Protocol {
         final int maxCount,
         final long maxTime,
         final boolean preferHttps) {
+        return queryRemoteCrawlURLs(seedDB, target, maxCount, maxTime, 0, preferHttps);
+    }
+
+    /**
+     * pull remote crawl URLs from another peer
+     * @param seedDB the seed database
+     * @param target the peer which provides the URLs
+     * @param maxCount the maximum number of URLs
+     * @param maxTime the maximum time for the request in milliseconds
+     * @param leaseTime if positive, the URLs are pulled as a batch which is grouped by host and leased for this time in milliseconds;
+     *        the target peer returns the URLs to its crawl stack if no receipt arrives within the lease time
+     * @param preferHttps when true, the https protocol is tried first
+     * @return the URLs as rss feed or null if the request failed
+     */
+    public static RSSFeed queryRemoteCrawlURLs(
+        final SeedDB seedDB,
+        final Seed target,
+        final int maxCount,
+        final long maxTime,
+        final long leaseTime,
+        final boolean preferHttps) {
         // returns a list of
         if ( target == null ) {
             return null;
@@ -426,9 +468,10 @@ public final class Protocol {
         /* a long time-out is needed */
         final Map<String, ContentBody> parts =
             basicRequestParts(Switchboard.getSwitchboard(), target.hash, salt);
-        parts.put("call", UTF8.StringBody("remotecrawl"));
+        parts.put("call", UTF8.StringBody(leaseTime > 0 ? "remotecrawlbatch" : "remotecrawl"));
         parts.put("count", UTF8.StringBody(Integer.toString(maxCount)));
         parts.put("time", UTF8.StringBody(Long.toString(maxTime)));
+        if (leaseTime > 0) parts.put("lease", UTF8.StringBody(Long.toString(leaseTime)));
         // final byte[] result = HTTPConnector.getConnector(MultiProtocolURI.yacybotUserAgent).post(new MultiProtocolURI("http://" + target.getClusterAddress() + "/yacy/urls.xml"), (int) maxTime, target.getHexHash() + ".yacyh", parts);
         RSSReader reader = null;
         try (final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, (int) maxTime)) {
@@ -545,6 +588,7 @@ public final class Protocol {
                         partitions,
                         target.getHexHash() + ".yacyh",
                         targetBaseURL,
+                        target.getFlagBinarySearchResponse(),
                         secondarySearchSuperviser
                         );
                 break;
@@ -638,6 +682,7 @@ public final class Protocol {
                         partitions,
                         target.getHexHash() + ".yacyh",
                         targetBaseURL,
+                        target.getFlagBinarySearchResponse(),
                         null
                         );
                 break;
@@ -904,6 +949,7 @@ public final class Protocol {
             final int partitions,
             final String hostname,
             final String targetBaseURL,
+            final boolean binary,
             final SecondarySearchSuperviser secondarySearchSuperviser
             ) throws IOException {
             // send a search request to peer with remote Hash
@@ -922,6 +968,7 @@ public final class Protocol {
             // global     : if "true", then result may consist of answers from other peers
             // partitions : number of remote peers that are asked (for evaluation of QPM)
             // duetime    : maximum time that a peer should spent to create a result
+            // encoding   : if "binary", then the peer may answer with a BinarySearchResponse
 
             // send request
             Map<String, String> resultMap = null;
@@ -956,6 +1003,7 @@ public final class Protocol {
             parts.put("maxdist", UTF8.StringBody(Integer.toString(maxDistance)));
             parts.put("profile", UTF8.StringBody(crypt.simpleEncode(event.query.ranking.toExternalString())));
             parts.put("constraint", UTF8.StringBody((event.query.constraint == null) ? "" : event.query.constraint.exportB64()));
+            if (binary) parts.put("encoding", UTF8.StringBody(BinarySearchResponse.ENCODING));
             if ( secondarySearchSuperviser != null ) {
                 parts.put("abstracts", UTF8.StringBody("auto"));
                 // resultMap = FileUtils.table(HTTPConnector.getConnector(MultiProtocolURI.yacybotUserAgent).post(new MultiProtocolURI("http://" + hostaddress + "/yacy/search.html"), 60000, hostname, parts));
@@ -968,6 +1016,22 @@ public final class Protocol {
                     // there is something wrong. This is too large, maybe a hack on the other side?
                     a = null;
                 }
+                if (BinarySearchResponse.isBinary(a)) {
+                    // the peer answered in binary form; older peers answer in the text form even if binary was requested
+                    final BinarySearchResponse response = BinarySearchResponse.parse(a, "dht");
+                    try {
+                        this.totalCount = Integer.parseInt(response.properties.get("joincount"));
+                        this.availableCount = Integer.parseInt(response.properties.get("count"));
+                    } catch (final NumberFormatException e ) {
+                        throw new IOException("wrong output format for count: " + e.getMessage());
+                    }
+                    this.indexcount = response.indexcount;
+                    this.indexabstract = response.indexabstract;
+                    final String references = response.properties.get("references");
+                    this.references = CommonPattern.COMMA.split(references == null ? "" : references);
+                    this.links = response.links.size() > this.availableCount ? response.links.subList(0, this.availableCount) : response.links;
+                    return;
+                }
                 resultMap = FileUtils.table(a);
             }
 
@@ -1200,6 +1264,26 @@ public final class Protocol {
             final Blacklist blacklist,
             final boolean useSolrFacets,
             final boolean incrementNavigators) throws InterruptedException {
+        return solrQuery(event, solrQuery, offset, count, target, null, partitions, blacklist, useSolrFacets, incrementNavigators);
+    }
+
+    /**
+     * Execute solr query against the specified target or against a set of remote solr shards.
+     * @param target target peer to query. May be null : in that case, the shards or the local peer are queried.
+     * @param shards a connector to the solr shards of cluster peers, queried with a single distributed query. May be null.
+     * @see #solrQuery(SearchEvent, SolrQuery, int, int, Seed, int, Blacklist, boolean, boolean)
+     */
+    protected static int solrQuery(
+            final SearchEvent event,
+            final SolrQuery solrQuery,
+            final int offset,
+            final int count,
+            final Seed target,
+            final SolrConnector shards,
+            final int partitions,
+            final Blacklist blacklist,
+            final boolean useSolrFacets,
+            final boolean incrementNavigators) throws InterruptedException {
 
         //try {System.out.println("*** debug-query *** " + URLDecoder.decode(solrQuery.toString(), "UTF-8"));} catch (UnsupportedEncodingException e) {}
 
@@ -1211,13 +1295,23 @@ public final class Protocol {
         solrQuery.setStart(offset);
         solrQuery.setRows(count);
 
-        boolean localsearch = target == null || target.equals(event.peers.mySeed());
+        boolean localsearch = shards == null && (target == null || target.equals(event.peers.mySeed()));
         Map<String, ReversibleScoreMap<String>> facets = new HashMap<String, ReversibleScoreMap<String>>(event.query.facetfields.size());
         Map<String, LinkedHashSet<String>> snippets = new HashMap<String, LinkedHashSet<String>>(); // this will be a list of urlhash-snippet entries
         final QueryResponse[] rsp = new QueryResponse[]{null};
         final SolrDocumentList[] docList = new SolrDocumentList[]{null};
         {// encapsulate expensive solr QueryResponse object
-            if (localsearch && !Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.DEBUG_SEARCH_REMOTE_SOLR_TESTLOCAL, false)) {
+            if (shards != null) {
+                // one distributed query to all shards; the shards are queried concurrently and the results are merged
+                try {
+                    rsp[0] = shards.getResponseByParams(solrQuery);
+                    docList[0] = rsp[0].getResults();
+                } catch (final Throwable e) {
+                    Network.log.info("SEARCH failed (solr), cluster shards (" + e.getMessage() + ")");
+                    return -1;
+                }
+                if (docList[0] == null) return -1;
+            } else if (localsearch && !Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.DEBUG_SEARCH_REMOTE_SOLR_TESTLOCAL, false)) {
                 // search the local index
                 try {
                     SolrConnector sc = event.getQuery().getSegment().fulltext().getDefaultConnector();
@@ -1394,7 +1488,7 @@ public final class Protocol {
                     if (localsearch) {
                         Network.log.info("local search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ")");
                     } else {
-                        Network.log.info("remote search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ") from peer " + target.getName());
+                        Network.log.info("remote search (solr): rejected url '" + urlEntry.url().toNormalform(true) + "' (" + urlRejectReason + ") from " + (target == null ? "shard" : ("peer " + target.getName())));
                     }
                 }
                 continue; // reject url outside of our domain
@@ -1427,7 +1521,7 @@ public final class Protocol {
                         ASCII.String(urlEntry.url().hash()),
                         urlEntry.url().getHost(),
                         event.peers.mySeed().hash.getBytes(),
-                        UTF8.getBytes(target.hash),
+                        UTF8.getBytes(target == null ? event.peers.mySeed().hash : target.hash),
                         EventOrigin.QUERIES);
             }
 
@@ -1453,10 +1547,10 @@ public final class Protocol {
                         docs); // will clear docs on return
                 writeToLocalIndexThread.start();
             }
-            event.addNodes(resultContainer, facets, snippets, false, target.getName() + "/" + target.hash, numFound, incrementNavigators);
+            event.addNodes(resultContainer, facets, snippets, false, target == null ? "shards" : (target.getName() + "/" + target.hash), numFound, incrementNavigators);
             event.addFinalize();
             event.addExpectedRemoteReferences(-count);
-            Network.log.info("remote search (solr): peer " + target.getName() + " sent " + (resultContainer.size()) + "/" + numFound + " references");
+            Network.log.info("remote search (solr): " + (target == null ? "shards" : ("peer " + target.getName())) + " sent " + (resultContainer.size()) + "/" + numFound + " references");
         }
         return resultContainer.size();
     }
@@ -1616,18 +1710,7 @@ public final class Protocol {
                 parts.put("result", UTF8.StringBody(result));
                 parts.put("reason", UTF8.StringBody(reason));
                 parts.put("wordh", UTF8.StringBody(wordhashes));
-                final String lurlstr;
-                if (entry == null) {
-                    lurlstr = "";
-                } else {
-                    final ArrayList<String> ldesc = entry.getDescription();
-                    if (ldesc.isEmpty()) {
-                        lurlstr = entry.toString();
-                    } else { // add document abstract/description as snippet (remotely stored in description_txt)
-                        lurlstr = entry.toString(ldesc.get(0));
-                    }
-                }
-                parts.put("lurlEntry", UTF8.StringBody(crypt.simpleEncode(lurlstr, salt)));
+                parts.put("lurlEntry", UTF8.StringBody(crypt.simpleEncode(CrawlReceipts.entryString(entry), salt)));
                 // send request
                 byte[] content;
                 try (final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, 10000)) {
@@ -1659,6 +1742,32 @@ public final class Protocol {
         return null;
     }
 
+    /**
+     * send a batch of crawl receipts to the peer which initiated the crawl of the URLs
+     * @param sb the Switchboard instance holding server environment
+     * @param target the initiator peer
+     * @param receipts the receipts, at most CrawlLeases.MAX_BATCH
+     * @return the response properties of the target peer or null if the request failed
+     */
+    public static Map<String, String> crawlReceipts(final Switchboard sb, final Seed target, final List<CrawlReceipts.Receipt> receipts) {
+        if (!target.getFlagRemoteCrawlBatch()) return null;
+        final Set<String> targetIps = target.getIPs();
+        if (targetIps.isEmpty()) return null;
+        final String salt = crypt.randomSalt();
+        try {
+            final Map<String, ContentBody> parts = basicRequestParts(sb, target.hash, salt);
+            parts.put("receipts", UTF8.StringBody(Base64Order.standardCoder.encode(CrawlReceipts.encode(receipts))));
+            final String remoteBaseURL = target.getPublicURL(targetIps.iterator().next(),
+                    sb.getConfigBool(SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED,
+                            SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED_DEFAULT));
+            final Post post = new Post(new MultiProtocolURL(remoteBaseURL), target.hash, "/yacy/crawlReceipts.html", parts, 30000);
+            return FileUtils.table(post.result);
+        } catch (final IOException e ) {
+            Network.log.warn("yacyClient.crawlReceipts error to peer " + target.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     public static AtomicInteger metadataRetrievalRunning = new AtomicInteger(0);
 
     /**
@@ -1708,9 +1817,27 @@ public final class Protocol {
         final boolean preferHttps = sb.getConfigBool(SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED,
                 SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED_DEFAULT);
 
+        // load the url metadata while the RWI are transmitted; the target does usually not know most of the urls
+        final URLResourceLoader urlResources = new URLResourceLoader(urlRefs, segment);
+        urlResources.start();
+        try {
+            return transferIndex(sb, targetSeed, indexes, urlResources, gzipBody, timeout, preferHttps);
+        } finally {
+            urlResources.interrupt(); // stop the load if the urls are not transmitted
+        }
+    }
+
+    private static String transferIndex(
+        final Switchboard sb,
+        final Seed targetSeed,
+        final ReferenceContainerCache<WordReference> indexes,
+        final URLResourceLoader urlResources,
+        final boolean gzipBody,
+        final int timeout,
+        final boolean preferHttps) {
+
         // transfer the RWI without the URLs
         Map<String, String> in = transferRWI(targetSeed, indexes, gzipBody, timeout, preferHttps);
-
         if ( in == null ) {
             // targetSeed interface departure is already handled within transferRWI() for no response situation
             String errorCause = "no connection from transferRWI";
@@ -1748,7 +1875,17 @@ public final class Protocol {
 
         EventChannel.channels(EventChannel.DHTSEND).addMessage(new RSSMessage("Sent " + indexes.size() + " RWIs " + indexes.toString() + " to " + targetSeed.getName() + "/[" + targetSeed.hash + "], " + uhs.length + " URLs there unknown", "", targetSeed.hash));
 
-        in = transferURL(targetSeed, uhs, urlRefs, segment, gzipBody, timeout, preferHttps);
+        // only the unknown urls are loaded from now on; like the load after the RWI transmission before, this delays other transmissions
+        urlResources.restrict(uhs);
+        metadataRetrievalRunning.incrementAndGet();
+        try {
+            urlResources.join();
+        } catch (final InterruptedException e) {
+            return "interrupted while loading url metadata";
+        } finally {
+            metadataRetrievalRunning.decrementAndGet();
+        }
+        in = transferURL(targetSeed, uhs, urlResources.resources, gzipBody, timeout, preferHttps);
 
         if ( in == null ) {
             return "no connection from transferURL";
@@ -1824,19 +1961,8 @@ public final class Protocol {
             }
 
             int indexcount = 0;
-            final StringBuilder entrypost = new StringBuilder(indexes.size() * 73);
-            Iterator<WordReference> eenum;
-            Reference entry;
             for ( final ReferenceContainer<WordReference> ic : indexes ) {
-                eenum = ic.entries();
-                while ( eenum.hasNext() ) {
-                    entry = eenum.next();
-                    entrypost
-                            .append(ASCII.String(ic.getTermHash()))
-                            .append(entry.toPropertyForm())
-                            .append(serverCore.CRLF_STRING);
-                    indexcount++;
-                }
+                indexcount += ic.size();
             }
 
             if ( indexcount == 0 ) {
@@ -1850,7 +1976,31 @@ public final class Protocol {
                 final Map<String, ContentBody> parts = basicRequestParts(Switchboard.getSwitchboard(), targetSeed.hash, salt);
                 parts.put("wordc", UTF8.StringBody(Integer.toString(indexes.size())));
                 parts.put("entryc", UTF8.StringBody(Integer.toString(indexcount)));
-                parts.put("indexes", UTF8.StringBody(entrypost.toString()));
+                final int indexPayloadSize;
+                if (targetSeed.getFlagBinaryIndexTransfer()) {
+                    // binary payload, already compressed
+                    final byte[] payload = BinaryIndexTransfer.exportRWI(indexes);
+                    parts.put("encoding", UTF8.StringBody(BinaryIndexTransfer.ENCODING));
+                    parts.put("indexes", new ByteArrayBody(payload, BinaryIndexTransfer.FILENAME));
+                    indexPayloadSize = payload.length;
+                    gzipBody = false;
+                } else {
+                    final StringBuilder entrypost = new StringBuilder(indexcount * 73);
+                    Iterator<WordReference> eenum;
+                    Reference entry;
+                    for ( final ReferenceContainer<WordReference> ic : indexes ) {
+                        eenum = ic.entries();
+                        while ( eenum.hasNext() ) {
+                            entry = eenum.next();
+                            entrypost
+                                    .append(ASCII.String(ic.getTermHash()))
+                                    .append(entry.toPropertyForm())
+                                    .append(serverCore.CRLF_STRING);
+                        }
+                    }
+                    parts.put("indexes", UTF8.StringBody(entrypost.toString()));
+                    indexPayloadSize = entrypost.length();
+                }
                 byte[] content = null;
                 try (final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout)) {
                     try {
@@ -1876,7 +2026,7 @@ public final class Protocol {
 
                 final Map<String, String> result = FileUtils.table(v);
                 // return the transfered index data in bytes (for debugging only)
-                result.put("indexPayloadSize", Integer.toString(entrypost.length()));
+                result.put("indexPayloadSize", Integer.toString(indexPayloadSize));
                 result.put(Seed.IP, ip); // add used ip to result for error handling (in case no "result" key was received)
                 return result;
             } catch (final Exception e ) {
@@ -1908,8 +2058,7 @@ public final class Protocol {
     private static Map<String, String> transferURL(
         final Seed targetSeed,
         final String[] uhs,
-        final HandleSet urlRefs,
-        final Segment segment,
+        final Map<String, String> urlResources,
         boolean gzipBody,
         final int timeout,
         final boolean preferHttps) {
@@ -1925,36 +2074,37 @@ public final class Protocol {
                 gzipBody = false;
             }
 
-            // extract the urlCache from the result; this is io-intensive;
-            // other transmissions should not be started as long as this is running
-            byte[] key;
-            URIMetadataNode url;
+            // take the requested urls from the metadata which was loaded during the RWI transmission
+            final boolean binary = targetSeed.getFlagBinaryIndexTransfer();
+            final List<String> resources = new ArrayList<String>(uhs.length);
             String resource;
             int urlc = 0;
             int urlPayloadSize = 0;
-            metadataRetrievalRunning.incrementAndGet();
             for (int i = 0; i < uhs.length; i++) {
-                key = ASCII.getBytes(uhs[i]);
-                if (urlRefs.has(key)) {
-                    url = segment.fulltext().getMetadata(key);
-                    if (url == null) {
-                        if (Network.log.isFine()) Network.log.fine("DEBUG transferIndex: requested url hash '" + uhs[i] + "'");
-                        continue;
-                    }
-                    resource = url.toString();
-                    //System.out.println("*** DEBUG resource = " + resource);
-                    if ( resource != null && resource.indexOf(0) == -1 ) {
-                        parts.put("url" + urlc, UTF8.StringBody(resource));
-                        urlPayloadSize += resource.length();
-                        urlc++;
-                    }
+                resource = urlResources.get(uhs[i]);
+                if (resource == null) {
+                    if (Network.log.isFine()) Network.log.fine("DEBUG transferIndex: requested url hash '" + uhs[i] + "'");
+                    continue;
                 }
+                if (binary) {
+                    resources.add(resource);
+                } else {
+                    parts.put("url" + urlc, UTF8.StringBody(resource));
+                    urlPayloadSize += resource.length();
+                }
+                urlc++;
             }
-            metadataRetrievalRunning.decrementAndGet();
 
             try {
                 MultiProtocolURL targetBaseURL = targetSeed.getPublicMultiprotocolURL(ip, preferHttps);
 
+                if (binary) {
+                    final byte[] payload = BinaryIndexTransfer.exportURLs(resources);
+                    parts.put("encoding", UTF8.StringBody(BinaryIndexTransfer.ENCODING));
+                    parts.put("urls", new ByteArrayBody(payload, BinaryIndexTransfer.FILENAME));
+                    urlPayloadSize = payload.length;
+                    gzipBody = false;
+                }
                 parts.put("urlc", UTF8.StringBody(Integer.toString(urlc)));
                 byte[] content = null;
                 try (final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout)) {
@@ -1986,6 +2136,51 @@ public final class Protocol {
         return null;
     }
 
+    /**
+     * loads the transport form of the url metadata for a DHT transmission while the RWI are transmitted.
+     * When the target has answered with the unknown urls, the load is restricted to those urls.
+     */
+    private static class URLResourceLoader extends Thread {
+
+        private final HandleSet urlRefs;
+        private final Segment segment;
+        private final Map<String, String> resources;
+        private volatile Set<String> restriction;
+
+        public URLResourceLoader(final HandleSet urlRefs, final Segment segment) {
+            super("Protocol.URLResourceLoader");
+            this.urlRefs = urlRefs;
+            this.segment = segment;
+            this.resources = new ConcurrentHashMap<String, String>();
+            this.restriction = null;
+        }
+
+        /**
+         * skip all urls which are not in the given list from now on
+         * @param urlhashes the url hashes which are still needed
+         */
+        public void restrict(final String[] urlhashes) {
+            this.restriction = new HashSet<String>(Arrays.asList(urlhashes));
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (final byte[] key: this.urlRefs) {
+                    if (this.isInterrupted()) break;
+                    final Set<String> r = this.restriction;
+                    if (r != null && !r.contains(ASCII.String(key))) continue;
+                    final URIMetadataNode url = this.segment.fulltext().getMetadata(key);
+                    if (url == null) continue;
+                    final String resource = url.toString();
+                    if (resource != null && resource.indexOf(0) == -1) this.resources.put(ASCII.String(key), resource);
+                }
+            } catch (final Throwable e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+    }
+
     /**
      * Receive remote peers profile data
      *
@@ -2031,6 +2226,37 @@ public final class Protocol {
         return null;
     }
 
+    /**
+     * request the changes of the connected peers of another peer since the last request
+     * @param target the other peer
+     * @param epoch the epoch of the last delta from that peer, 0 if none was received
+     * @param since the version of the last delta from that peer, -1 if none was received
+     * @return the delta or null if the request failed
+     */
+    public static SeedDelta.Delta seedDelta(final Seed target, final long epoch, final long since) {
+        if (!target.getFlagSeedDelta()) return null;
+        final Set<String> targetIps = target.getIPs();
+        if (targetIps.isEmpty()) return null;
+        final String salt = crypt.randomSalt();
+        try {
+            final Map<String, ContentBody> parts = basicRequestParts(Switchboard.getSwitchboard(), target.hash, salt);
+            parts.put("epoch", UTF8.StringBody(Long.toString(epoch)));
+            parts.put("since", UTF8.StringBody(Long.toString(since)));
+            final String remoteBaseURL = target.getPublicURL(targetIps.iterator().next(),
+                    Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED,
+                            SwitchboardConstants.NETWORK_PROTOCOL_HTTPS_PREFERRED_DEFAULT));
+            final Post post = new Post(new MultiProtocolURL(remoteBaseURL), target.hash, "/yacy/seeddelta.html", parts, 10000);
+            final Map<String, String> result = FileUtils.table(post.result);
+            if (result == null) return null;
+            final String delta = result.get("delta");
+            if (delta == null || delta.isEmpty()) return null;
+            return SeedDelta.decode(Base64Order.standardCoder.decode(delta));
+        } catch (final IOException e ) {
+            Network.log.info("yacyClient.seedDelta error from peer " + target.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
     public static ReferenceContainerCache<HostReference> loadIDXHosts(final Seed target) {
         final ReferenceContainerCache<HostReference> index =
             new ReferenceContainerCache<HostReference>(
@@ -36,6 +36,7 @@ import org.apache.solr.client.solrj.SolrQuery;
 
 import net.yacy.cora.document.analysis.Classification.ContentDomain;
 import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.federate.solr.connector.SolrConnector;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ConcurrentLog;
@@ -57,6 +58,9 @@ public class RemoteSearch extends Thread {
 
     private static final ThreadGroup ysThreadGroup = new ThreadGroup("yacySearchThreadGroup");
     public static final ConcurrentLog log = new ConcurrentLog("DHT");
+
+    /** the solr cores of the cluster peers as shards of one index, used for cluster searches if CLUSTER_SOLR_SHARDS is set */
+    private static final ClusterSolrShards clusterShards = new ClusterSolrShards();
     
     final private SearchEvent event;
     final private String wordhashes, excludehashes;
@@ -178,6 +182,22 @@ public class RemoteSearch extends Thread {
         // check own peer status
         //if (wordIndex.seedDB.mySeed() == null || wordIndex.seedDB.mySeed().getPublicAddress() == null) { return null; }
         Switchboard sb = Switchboard.getSwitchboard();
+
+        // in a cluster the solr cores of all cluster peers can be searched with one distributed query instead of one remote search for each peer
+        if (clusterselection != null && sb.getConfigBool(SwitchboardConstants.CLUSTER_SOLR_SHARDS, false)) {
+            final Collection<Seed> clusterPeers = new ArrayList<Seed>();
+            for (final Seed s: DHTSelection.selectClusterPeers(event.peers, clusterselection)) {
+                if (!s.hash.equals(event.peers.mySeed().hash)) clusterPeers.add(s); // the own index is searched by the local search
+            }
+            final SolrConnector shards = clusterPeers.isEmpty() ? null : clusterShards.connector(clusterPeers);
+            if (shards != null) {
+                final SolrQuery solrQuery = event.query.solrQuery(event.getQuery().contentdom, event.query.isStrictContentDom(), false, event.excludeintext_image);
+                log.info("preparing cluster search: " + clusterPeers.size() + " cluster peers as solr shards");
+                event.nodeSearchThreads.add(solrRemoteSearch(event, solrQuery, start, count, null, shards, 0, blacklist, false, true));
+                return;
+            }
+            // no shards available, use the remote search protocol
+        }
         
         // check the peer memory and lifesign-situation to get a scaling for the number of remote search processes
         final boolean shortmem = MemoryControl.shortStatus();
@@ -395,6 +415,26 @@ public class RemoteSearch extends Thread {
                     final Blacklist blacklist,
                     final boolean useSolrFacets,
                     final boolean incrementNavigators) {
+        return solrRemoteSearch(event, solrQuery, start, count, targetPeer, null, partitions, blacklist, useSolrFacets, incrementNavigators);
+    }
+
+    /**
+     * Create and start a thread running a Solr query on the specified target, on a set of solr shards or on this peer.
+     * @param targetPeer the target of the Solr query. When null, the query will run on the shards or on this local peer.
+     * @param shards a connector to the solr shards of cluster peers. May be null.
+     * @see #solrRemoteSearch(SearchEvent, SolrQuery, int, int, Seed, int, Blacklist, boolean, boolean)
+     */
+    private static Thread solrRemoteSearch(
+                    final SearchEvent event,
+                    final SolrQuery solrQuery,
+                    final int start,
+                    final int count,
+                    final Seed targetPeer,
+                    final SolrConnector shards,
+                    final int partitions,
+                    final Blacklist blacklist,
+                    final boolean useSolrFacets,
+                    final boolean incrementNavigators) {
         
         //System.out.println("*** debug-remoteSearch ***:" + ConcurrentLog.stackTrace());
         
@@ -402,7 +442,7 @@ public class RemoteSearch extends Thread {
         // check own peer status
         if (event.peers.mySeed() == null) { return null; }
         // prepare threads
-        Thread solr = new Thread("RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? "myself" : targetPeer.hash) + ")") {
+        Thread solr = new Thread("RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? (shards == null ? "myself" : "shards") : targetPeer.hash) + ")") {
             @Override
             public void run() {
                     int urls = 0;
@@ -413,7 +453,8 @@ public class RemoteSearch extends Thread {
                                         solrQuery,
                                         start,
                                         count,
-                                        targetPeer == null ? event.peers.mySeed() : targetPeer,
+                                        shards == null && targetPeer == null ? event.peers.mySeed() : targetPeer,
+                                        shards,
                                         partitions,
                                         blacklist,
                                         useSolrFacets,
@@ -428,7 +469,7 @@ public class RemoteSearch extends Thread {
                             }
                         }
                     } catch (final InterruptedException e) {
-                    	Network.log.info("REMOTE SEARCH - interrupted search to remote peer " + targetPeer.hash + ":" + targetPeer.getName());
+                    	Network.log.info("REMOTE SEARCH - interrupted search to " + (targetPeer == null ? (shards == null ? "local peer" : "shards") : "remote peer " + targetPeer.hash + ":" + targetPeer.getName()));
                     } catch (final Exception e) {
                         ConcurrentLog.logException(e);
                     } finally {
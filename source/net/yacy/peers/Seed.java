@@ -214,6 +214,11 @@ public class Seed implements Cloneable, Comparable<Seed>, Comparator<Seed>
     private static final int FLAG_ACCEPT_REMOTE_INDEX = 2;
     private static final int FLAG_ROOT_NODE = 3;
     private static final int FLAG_SSL_AVAILABLE = 4;
+    // protocol extensions; bit 5 is skipped because it is set in FLAGSZERO
+    private static final int FLAG_BINARY_SEARCH_RESPONSE = 6;
+    private static final int FLAG_BINARY_INDEX_TRANSFER = 7;
+    private static final int FLAG_SEED_DELTA = 8;
+    private static final int FLAG_REMOTECRAWL_BATCH = 9;
 
     public static final String DFLT_NETWORK_UNIT = "freeworld";
     public static final String DFLT_NETWORK_GROUP = "";
@@ -1075,6 +1080,46 @@ public class Seed implements Cloneable, Comparable<Seed>, Comparator<Seed>
         return getFlag(FLAG_SSL_AVAILABLE);
     }
 
+    /**
+     * announce the protocol extensions which this peer serves; peers which do not set the flags
+     * get the old protocol, independent from their version
+     * @param value true for the own peer
+     */
+    public final void setFlagsProtocolExtensions(final boolean value) {
+        setFlag(FLAG_BINARY_SEARCH_RESPONSE, value);
+        setFlag(FLAG_BINARY_INDEX_TRANSFER, value);
+        setFlag(FLAG_SEED_DELTA, value);
+        setFlag(FLAG_REMOTECRAWL_BATCH, value);
+    }
+
+    /**
+     * @return true if the peer answers a remote search with the binary response if it is asked for it
+     */
+    public final boolean getFlagBinarySearchResponse() {
+        return getFlag(FLAG_BINARY_SEARCH_RESPONSE);
+    }
+
+    /**
+     * @return true if the peer accepts the binary payload of transferRWI and transferURL
+     */
+    public final boolean getFlagBinaryIndexTransfer() {
+        return getFlag(FLAG_BINARY_INDEX_TRANSFER);
+    }
+
+    /**
+     * @return true if the peer serves the incremental seed list exchange
+     */
+    public final boolean getFlagSeedDelta() {
+        return getFlag(FLAG_SEED_DELTA);
+    }
+
+    /**
+     * @return true if the peer serves remote crawl batches with leases and accepts batched receipts
+     */
+    public final boolean getFlagRemoteCrawlBatch() {
+        return getFlag(FLAG_REMOTECRAWL_BATCH);
+    }
+
     /**
      * remembers status of remote Solr interface dynamicly
      * should not be used for the local peer
@@ -1102,10 +1147,11 @@ public class Seed implements Cloneable, Comparable<Seed>, Comparator<Seed>
 
     /**
      * set unused flags to zero
-     * currently last used flag is FLAG_SSL_AVAILABLE=4 (2015-10-24)
+     * currently last used flag is FLAG_REMOTECRAWL_BATCH=9
      */
     public final void setUnusedFlags() {
-        for ( int i = 5; i < 20; i++ ) {
+        setFlag(5, false);
+        for ( int i = 10; i < 20; i++ ) {
             setFlag(i, false);
         }
     }
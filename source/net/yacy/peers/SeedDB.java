@@ -85,6 +85,9 @@ public final class SeedDB implements AlternativeDomainNames {
     private File seedActiveDBFile, seedPassiveDBFile, seedPotentialDBFile;
     private File myOwnSeedFile;
     private MapDataMining seedActiveDB, seedPassiveDB, seedPotentialDB;
+    private PeerTable connectedTable; // in-memory copy of the seedActiveDB for the peer selection
+    private volatile DHTRing dhtRing; // the ring of the last peer snapshot, rebuilt when the snapshot changes
+    private volatile SeedDelta seedDelta; // journal of the changes of the connected peers for the incremental seed list
 
     protected int lastSeedUpload_seedDBSize = 0;
     public long lastSeedUpload_timeStamp = System.currentTimeMillis();
@@ -120,6 +123,7 @@ public final class SeedDB implements AlternativeDomainNames {
         this.seedActiveDB = openSeedTable(this.seedActiveDBFile);
         this.seedPassiveDB = openSeedTable(this.seedPassiveDBFile);
         this.seedPotentialDB = openSeedTable(this.seedPotentialDBFile);
+        loadConnectedTable();
 
         // check if we are in the seedCaches: this can happen if someone else published our seed
         removeMySeed();
@@ -165,6 +169,7 @@ public final class SeedDB implements AlternativeDomainNames {
         this.seedActiveDB = openSeedTable(this.seedActiveDBFile);
         this.seedPassiveDB = openSeedTable(this.seedPassiveDBFile);
         this.seedPotentialDB = openSeedTable(this.seedPotentialDBFile);
+        loadConnectedTable();
 
         initMySeed();
         this.mySeed.setName(peername);
@@ -267,12 +272,56 @@ public final class SeedDB implements AlternativeDomainNames {
         return mySeed().hash;
     }
 
+    /**
+     * fill the in-memory peer table with the content of the seedActiveDB
+     */
+    private synchronized void loadConnectedTable() {
+        final PeerTable table = new PeerTable();
+        final Iterator<Seed> i = new seedEnum(true, false, null, null, this.seedActiveDB, 0.0);
+        while (i.hasNext()) {
+            final Seed seed = i.next();
+            if (seed != null) table.put(seed);
+        }
+        this.connectedTable = table;
+        this.seedDelta = new SeedDelta();
+    }
+
+    /**
+     * @return a snapshot of the connected peers in DHT order for the peer selection
+     */
+    public PeerTable.Snapshot connectedPeers() {
+        return this.connectedTable.snapshot();
+    }
+
+    /**
+     * @return the DHT ring of the connected peers; it is rebuilt on the first call after any change of the connected peers,
+     * also if only the flags of a peer were changed
+     */
+    public DHTRing dhtRing() {
+        final PeerTable.Snapshot peers = connectedPeers();
+        DHTRing ring = this.dhtRing;
+        if (ring == null || ring.peers() != peers) {
+            ring = new DHTRing(peers, this.scheme);
+            this.dhtRing = ring;
+        }
+        return ring;
+    }
+
+    /**
+     * @return the journal of the changes of the connected peers
+     */
+    public SeedDelta seedDelta() {
+        return this.seedDelta;
+    }
+
     public synchronized void removeMySeed() {
         if (this.seedActiveDB.isEmpty() && this.seedPassiveDB.isEmpty() && this.seedPotentialDB.isEmpty()) return; // avoid that the own seed is initialized too early
         if (this.mySeed == null) initMySeed();
         try {
             final byte[] mySeedHash = ASCII.getBytes(this.mySeed.hash);
             this.seedActiveDB.delete(mySeedHash);
+            if (this.connectedTable != null) this.connectedTable.remove(this.mySeed.hash);
+            if (this.seedDelta != null) this.seedDelta.removed(this.mySeed.hash);
             this.seedPassiveDB.delete(mySeedHash);
             this.seedPotentialDB.delete(mySeedHash);
         } catch (final IOException e) { ConcurrentLog.warn("yacySeedDB", "could not remove hash ("+ e.getClass() +"): "+ e.getMessage()); }
@@ -315,6 +364,10 @@ public final class SeedDB implements AlternativeDomainNames {
         // seed.db is detected
         Network.log.warn("seed-db " + seedDBFile.toString() + " reset (on-the-fly)");
         seedDB.close();
+        if (seedDB == this.seedActiveDB && this.connectedTable != null) {
+            this.connectedTable.clear();
+            this.seedDelta = new SeedDelta();
+        }
         FileUtils.deletedelete(seedDBFile);
         if (seedDBFile.exists())
         	ConcurrentLog.warn("yacySeedDB", "could not delete file "+ seedDBFile);
@@ -484,6 +537,8 @@ public final class SeedDB implements AlternativeDomainNames {
         synchronized (this) {
             try {
                 this.seedActiveDB.insert(ASCII.getBytes(seed.hash), seedPropMap);
+                this.connectedTable.put(seed);
+                this.seedDelta.changed(seed.hash);
                 this.seedPassiveDB.delete(ASCII.getBytes(seed.hash));
                 this.seedPotentialDB.delete(ASCII.getBytes(seed.hash));
             } catch (final Exception e) {
@@ -498,6 +553,8 @@ public final class SeedDB implements AlternativeDomainNames {
         synchronized (this) {
             try {
                 this.seedActiveDB.delete(ASCII.getBytes(seed.hash));
+                this.connectedTable.remove(seed.hash);
+                this.seedDelta.removed(seed.hash);
                 this.seedPotentialDB.delete(ASCII.getBytes(seed.hash));
             } catch (final Exception e) { ConcurrentLog.warn("yacySeedDB", "could not remove hash ("+ e.getClass() +"): "+ e.getMessage()); }
             //seed.put(yacySeed.LASTSEEN, yacyCore.shortFormatter.format(new Date(yacyCore.universalTime())));
@@ -517,6 +574,8 @@ public final class SeedDB implements AlternativeDomainNames {
         synchronized (this) {
             try {
                 this.seedActiveDB.delete(ASCII.getBytes(seed.hash));
+                this.connectedTable.remove(seed.hash);
+                this.seedDelta.removed(seed.hash);
                 this.seedPassiveDB.delete(ASCII.getBytes(seed.hash));
             } catch (final Exception e) { ConcurrentLog.warn("yacySeedDB", "could not remove hash ("+ e.getClass() +"): "+ e.getMessage()); }
             //seed.put(yacySeed.LASTSEEN, yacyCore.shortFormatter.format(new Date(yacyCore.universalTime())));
@@ -636,6 +695,8 @@ public final class SeedDB implements AlternativeDomainNames {
         synchronized (this) {
             if (this.seedActiveDB.containsKey(ASCII.getBytes(seed.hash))) try {
                 this.seedActiveDB.insert(ASCII.getBytes(seed.hash), seedPropMap);
+                this.connectedTable.put(seed);
+                this.seedDelta.changed(seed.hash);
             } catch (final Exception e) {
                 Network.log.severe("ERROR add: seed.db corrupt (" + e.getMessage() + "); resetting seed.db", e);
                 resetActiveTable();
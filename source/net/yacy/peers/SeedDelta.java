@@ -0,0 +1,211 @@
+/**
+ *  SeedDelta
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.util.VarInt;
+
+/**
+ * A journal of the changes of the connected peers for an incremental seed list exchange.
+ * Every addition, change or removal of a connected peer gets a new version number. A peer which
+ * knows the epoch and version of the last delta it received from another peer asks only for the
+ * changes after that version and receives the changed seeds and the hashes of the removed peers.
+ * The journal keeps only the latest change of each peer and is bounded; if the requested version is
+ * older than the journal (or the other peer was restarted, which starts a new epoch) the full list must be sent.
+ */
+public class SeedDelta {
+
+    public static final int MAX_CHANGES = 10000;
+    private static final byte[] MAGIC = new byte[]{0, 'Y', 'S', 1};
+
+    private final long epoch;
+    private long version;
+    private long horizon; // changes up to this version were dropped from the journal
+    private final LinkedHashMap<String, Change> changes; // peer hash / latest change, in version order
+
+    private static class Change {
+        private final long version;
+        private final boolean removed;
+        private Change(final long version, final boolean removed) {
+            this.version = version;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * the changes of the connected peers of another peer since a given version
+     */
+    public static class Delta {
+        public final long epoch, version; // the state of the journal of the other peer, to be used for the next request
+        public final boolean full; // true if the changes are the complete list of connected peers
+        public final List<Seed> changed;
+        public final List<String> removed;
+        public Delta(final long epoch, final long version, final boolean full, final List<Seed> changed, final List<String> removed) {
+            this.epoch = epoch;
+            this.version = version;
+            this.full = full;
+            this.changed = changed;
+            this.removed = removed;
+        }
+    }
+
+    public SeedDelta() {
+        this.epoch = System.currentTimeMillis();
+        this.version = 0;
+        this.horizon = 0;
+        this.changes = new LinkedHashMap<String, Change>();
+    }
+
+    /**
+     * @return the epoch of the journal; the version numbers of different epochs are not comparable
+     */
+    public long epoch() {
+        return this.epoch;
+    }
+
+    /**
+     * @return the version of the latest change
+     */
+    public synchronized long version() {
+        return this.version;
+    }
+
+    /**
+     * record that a peer was added to or changed in the connected peers
+     */
+    public synchronized void changed(final String hash) {
+        record(hash, false);
+    }
+
+    /**
+     * record that a peer was removed from the connected peers
+     */
+    public synchronized void removed(final String hash) {
+        record(hash, true);
+    }
+
+    private void record(final String hash, final boolean removed) {
+        this.changes.remove(hash); // move the peer to the end of the version order
+        this.changes.put(hash, new Change(++this.version, removed));
+        if (this.changes.size() > MAX_CHANGES) {
+            final Iterator<Change> i = this.changes.values().iterator();
+            this.horizon = i.next().version;
+            i.remove();
+        }
+    }
+
+    /**
+     * get the peers which were changed after a given version
+     * @param epoch the epoch of the given version
+     * @param since the version of the last delta which the requester received
+     * @return peer hash / true if the peer was removed, in version order;
+     *         null if the version is not in the journal and the full list must be sent
+     */
+    public synchronized Map<String, Boolean> since(final long epoch, final long since) {
+        if (epoch != this.epoch || since < this.horizon || since > this.version) return null;
+        final Map<String, Boolean> result = new LinkedHashMap<String, Boolean>();
+        for (final Map.Entry<String, Change> entry: this.changes.entrySet()) {
+            if (entry.getValue().version > since) result.put(entry.getKey(), entry.getValue().removed);
+        }
+        return result;
+    }
+
+    /**
+     * encode a delta in the binary form: the epoch, version and full-list flag, the changed seeds
+     * as hash and property lists and the hashes of the removed peers
+     * @param epoch the epoch of the journal
+     * @param version the version of the latest change which is contained in the delta
+     * @param full true if the changed seeds are the complete list of connected peers
+     * @param changed the added or changed seeds
+     * @param removed the hashes of the removed peers
+     * @return the binary payload
+     * @throws IOException
+     */
+    public static byte[] encode(final long epoch, final long version, final boolean full, final Collection<Seed> changed, final Collection<String> removed) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(changed.size() * 512 + removed.size() * 13 + 32);
+        final DataOutputStream out = new DataOutputStream(body);
+        VarInt.writeUnsigned(out, epoch);
+        VarInt.writeUnsigned(out, version);
+        out.writeBoolean(full);
+        VarInt.writeUnsigned(out, changed.size());
+        for (final Seed seed: changed) {
+            VarInt.writeString(out, seed.hash);
+            final Map<String, String> dna = seed.getMap();
+            final List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>(dna.entrySet()); // the map may change concurrently
+            VarInt.writeUnsigned(out, entries.size());
+            for (final Map.Entry<String, String> entry: entries) {
+                VarInt.writeString(out, entry.getKey());
+                VarInt.writeString(out, entry.getValue());
+            }
+        }
+        VarInt.writeUnsigned(out, removed.size());
+        for (final String hash: removed) VarInt.writeString(out, hash);
+        out.flush();
+        return BinaryIndexTransfer.frame(MAGIC, body);
+    }
+
+    /**
+     * decode a delta; changed seeds which are not proper are skipped
+     * @param b the binary payload
+     * @return the delta
+     * @throws IOException if the payload is malformed
+     */
+    public static Delta decode(final byte[] b) throws IOException {
+        try (final DataInputStream in = new DataInputStream(BinaryIndexTransfer.open(MAGIC, b))) {
+            final long epoch = VarInt.readUnsigned(in);
+            final long version = VarInt.readUnsigned(in);
+            final boolean full = in.readBoolean();
+            final int n = VarInt.readLength(in);
+            final List<Seed> changed = new ArrayList<Seed>(Math.min(n, 1000));
+            for (int i = 0; i < n; i++) {
+                final String hash = VarInt.readString(in);
+                final int p = VarInt.readLength(in);
+                final ConcurrentHashMap<String, String> dna = new ConcurrentHashMap<String, String>();
+                for (int j = 0; j < p; j++) {
+                    final String key = VarInt.readString(in);
+                    dna.put(key, VarInt.readString(in));
+                }
+                final Seed seed = new Seed(hash, dna);
+                final String error = seed.isProper(false);
+                if (error == null) {
+                    changed.add(seed);
+                } else {
+                    Network.log.info("seed delta: rejected seed " + hash + ": " + error);
+                }
+            }
+            final int r = VarInt.readLength(in);
+            final List<String> removed = new ArrayList<String>(Math.min(r, 1000));
+            for (int i = 0; i < r; i++) removed.add(VarInt.readString(in));
+            return new Delta(epoch, version, full, changed, removed);
+        }
+    }
+
+}
@@ -59,18 +59,24 @@ public class Transmission {
     protected SeedDB seeds;
     protected boolean gzipBody4Transfer;
     protected int timeout4Transfer;
+    protected TransmissionJournal journal;
 
+    /**
+     * @param journal durable copy of the chunk containers until they are transmitted or restored, may be null
+     */
     public Transmission(
     		final Switchboard env,
             final ConcurrentLog log,
             final boolean gzipBody4Transfer,
-            final int timeout4Transfer) {
+            final int timeout4Transfer,
+            final TransmissionJournal journal) {
     	this.env = env;
         this.log = log;
         this.segment = env.index;
         this.seeds = env.peers;
         this.gzipBody4Transfer = gzipBody4Transfer;
         this.timeout4Transfer = timeout4Transfer;
+        this.journal = journal;
     }
 
     public Chunk newChunk(final Seed dhtTarget) {
@@ -91,6 +97,7 @@ public class Transmission {
         private final ReferenceContainerCache<WordReference> containers;
         private final HandleSet                      references;
         private final HandleSet                      badReferences;
+        private final TransmissionJournal.JournalSegment journalSegment;
 
         /**
          * generate a new dispatcher target. such a target is defined with a primary target and
@@ -104,6 +111,7 @@ public class Transmission {
             this.containers = new ReferenceContainerCache<WordReference>(Segment.wordReferenceFactory, Segment.wordOrder, Word.commonHashLength);
             this.references = new RowHandleSet(WordReferenceRow.urlEntryRow.primaryKeyLength, WordReferenceRow.urlEntryRow.objectOrder, 0);
             this.badReferences = new RowHandleSet(WordReferenceRow.urlEntryRow.primaryKeyLength, WordReferenceRow.urlEntryRow.objectOrder, 0);
+            this.journalSegment = Transmission.this.journal == null ? null : Transmission.this.journal.open(dhtTarget.hash);
         }
 
         /*
@@ -185,6 +193,7 @@ public class Transmission {
             for (final byte[] b : notFoundx) c.removeReference(b);
             // finally add the remaining container to the cache
             this.containers.add(c);
+            if (this.journalSegment != null) this.journalSegment.append(c);
         }
 
         /**
@@ -234,6 +243,7 @@ public class Transmission {
                 // if the peer has set a pause time and we are in flush mode (index transfer)
                 // then we pause for a while now
                 Transmission.this.log.info("Transfer finished of chunk to target " + this.dhtTarget.hash + "/" + this.dhtTarget.getName());
+                if (this.journalSegment != null) this.journalSegment.delete();
                 return true;
             }
             Transmission.this.log.info(
@@ -261,7 +271,9 @@ public class Transmission {
                 Transmission.this.segment.storeRWI(ic);
             } catch (final Exception e) {
                 ConcurrentLog.logException(e);
+                return; // keep the journal segment, it is replayed with the next start
             }
+            if (this.journalSegment != null) this.journalSegment.delete();
         }
 
     }
@@ -0,0 +1,152 @@
+// TransmissionJournal.java
+// ------------------------------
+// part of YaCy
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.index.RowSet;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.search.index.Segment;
+
+/**
+ * The transmission journal is a durable copy of the references which had been removed from the RWI index
+ * for a DHT transmission but are not yet confirmed by the target peer.
+ * Every transmission chunk appends its containers to its own segment file; the segment is deleted
+ * when the chunk was transmitted or put back to the index. Segments which are left over after a crash
+ * are replayed into the index when the dispatcher starts again, so they are selected for a new transmission.
+ */
+public class TransmissionJournal {
+
+    private static final String SUFFIX = ".rwi";
+
+    private final File location;
+    private final AtomicLong sequence;
+    private final ConcurrentLog log;
+
+    public TransmissionJournal(final File location, final ConcurrentLog log) {
+        this.location = location;
+        this.location.mkdirs();
+        this.sequence = new AtomicLong(System.currentTimeMillis());
+        this.log = log;
+    }
+
+    /**
+     * open a new segment for a transmission chunk
+     * @param targetHash the hash of the target peer, only used for the file name
+     * @return a new, still empty segment
+     */
+    public JournalSegment open(final String targetHash) {
+        return new JournalSegment(new File(this.location, targetHash + "." + this.sequence.incrementAndGet() + SUFFIX));
+    }
+
+    /**
+     * put all references from left-over segments back to the index and delete the segments.
+     * A segment is only deleted when it was read completely; if the index rejects a container, the segment
+     * is kept and replayed again at the next start. The containers which were already stored are then stored
+     * a second time, which does no harm because the references are joined by their url hash.
+     * @param segment the index segment
+     * @return the number of restored references
+     */
+    public int replay(final Segment segment) {
+        final String[] files = this.location.list();
+        if (files == null) return 0;
+        int count = 0;
+        for (final String name: files) {
+            if (!name.endsWith(SUFFIX)) continue;
+            final File f = new File(this.location, name);
+            boolean complete = false;
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                final byte[] termHash = new byte[Word.commonHashLength];
+                while (true) {
+                    try {
+                        in.readFully(termHash);
+                    } catch (final EOFException e) {
+                        complete = true; // regular end of the segment
+                        break;
+                    }
+                    final byte[] b = new byte[in.readInt()];
+                    in.readFully(b); // a truncated last record throws an EOFException and is discarded
+                    final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(
+                            Segment.wordReferenceFactory, termHash.clone(), RowSet.importRowSet(b, Segment.wordReferenceFactory.getRow()));
+                    segment.storeRWI(container);
+                    count += container.size();
+                }
+            } catch (final EOFException e) {
+                this.log.warn("TransmissionJournal: truncated segment " + name);
+                complete = true; // the truncated last record was never confirmed as written
+            } catch (final IOException | SpaceExceededException e) {
+                this.log.warn("TransmissionJournal: cannot replay segment " + name + ", it is kept for the next start: " + e.getMessage());
+            } catch (final Exception e) {
+                this.log.warn("TransmissionJournal: cannot replay segment " + name + ", it is kept for the next start", e);
+            }
+            if (complete && !f.delete()) f.deleteOnExit();
+        }
+        if (count > 0) this.log.info("TransmissionJournal: restored " + count + " references from unfinished transmissions");
+        return count;
+    }
+
+    /**
+     * an append-only segment file for the containers of one transmission chunk
+     */
+    public class JournalSegment {
+
+        private final File file;
+
+        private JournalSegment(final File file) {
+            this.file = file;
+        }
+
+        /**
+         * append a container to the segment; the record is flushed before this method returns
+         * @param container
+         */
+        public synchronized void append(final ReferenceContainer<WordReference> container) {
+            final byte[] b = container.exportCollection();
+            if (b == null) return;
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(this.file, true)))) {
+                out.write(container.getTermHash(), 0, Word.commonHashLength);
+                out.writeInt(b.length);
+                out.write(b);
+            } catch (final IOException e) {
+                TransmissionJournal.this.log.warn("TransmissionJournal: cannot write " + this.file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * remove the segment after the containers were either transmitted or stored back into the index
+         */
+        public synchronized void delete() {
+            if (this.file.exists() && !this.file.delete()) this.file.deleteOnExit();
+        }
+    }
+
+}
@@ -30,10 +30,14 @@ package net.yacy.peers.graphics;
 import java.io.File;
 import java.io.Serializable;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -41,6 +45,7 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import net.yacy.cora.date.GenericFormatter;
 import net.yacy.cora.date.MicroDate;
@@ -79,6 +84,12 @@ public class WebStructureGraph {
     /** Maximum number of parsed anchors when computing the structure of a newly added document */
     public static final int MAX_PARSED_ANCHORS = 1000;
 
+    /** Maximum number of queued documents which are joined into the structure at once */
+    public static final int LEARN_BATCH_SIZE = 1000;
+
+    /** Time between two snapshots of the structure to the backup file */
+    private static final long SNAPSHOT_INTERVAL = 1000L * 60L * 60L; // one hour
+
     private final static ConcurrentLog log = new ConcurrentLog("WebStructureGraph");
 
     /** Eventual backup file */
@@ -104,6 +115,9 @@ public class WebStructureGraph {
     /** Worker thread consuming the publicRefDNSResolvingQueue */
     private final PublicRefDNSResolvingProcess publicRefDNSResolvingWorker;
 
+    /** true when the structure was changed after the last snapshot */
+    private volatile boolean changed;
+
     /** Entry used to terminate the worker thread */
     private final static LearnObject leanrefObjectPOISON = new LearnObject(null, null);
 
@@ -135,6 +149,7 @@ public class WebStructureGraph {
         this.structure_new = new TreeMap<String, byte[]>();
         this.structureFile = structureFile;
         this.publicRefDNSResolvingQueue = new LinkedBlockingQueue<LearnObject>();
+        this.changed = false;
 
         // load web structure from file if exists
         Map<String, byte[]> loadedStructureB;
@@ -176,7 +191,10 @@ public class WebStructureGraph {
     }
 
     /**
-     * Task consuming the queue of new entries to compute and add to the structure
+     * Task consuming the queue of new entries to compute and add to the structure.
+     * All entries waiting in the queue are taken at once and joined into the structure as one batch,
+     * so that the references of each source host are decoded and encoded only once per batch.
+     * The structure is also saved to the backup file from time to time.
      */
     private class PublicRefDNSResolvingProcess extends Thread {
         private PublicRefDNSResolvingProcess() {
@@ -185,10 +203,23 @@ public class WebStructureGraph {
 
         @Override
         public void run() {
-            LearnObject lro;
+            final List<LearnObject> batch = new ArrayList<LearnObject>();
+            long lastSnapshot = System.currentTimeMillis();
+            boolean terminate = false;
             try {
-                while ( (lro = WebStructureGraph.this.publicRefDNSResolvingQueue.take()) != leanrefObjectPOISON ) {
-                    learnrefs(lro);
+                while (!terminate) {
+                    final LearnObject lro = WebStructureGraph.this.publicRefDNSResolvingQueue.poll(10, TimeUnit.SECONDS);
+                    if (lro != null) {
+                        batch.add(lro);
+                        WebStructureGraph.this.publicRefDNSResolvingQueue.drainTo(batch, LEARN_BATCH_SIZE - 1);
+                        if (batch.remove(leanrefObjectPOISON)) terminate = true;
+                        learnrefs(batch);
+                        batch.clear();
+                    }
+                    if (!terminate && System.currentTimeMillis() - lastSnapshot > SNAPSHOT_INTERVAL) {
+                        snapshot();
+                        lastSnapshot = System.currentTimeMillis();
+                    }
                 }
             } catch (final InterruptedException e ) {
             }
@@ -201,6 +232,7 @@ public class WebStructureGraph {
     public void clear() {
         this.structure_old.clear();
         this.structure_new.clear();
+        this.changed = true;
     }
     
     public void generateCitationReference(final DigestURL url, final Document document) {
@@ -739,31 +771,70 @@ public class WebStructureGraph {
 
 
     protected void learnrefs(final LearnObject lro) {
-        final DigestURL url = lro.url;
-        final String sourceHosthash = url.hosthash();
-
-        // parse the new reference string and join it with the stored references
-        final StructureEntry structure = outgoingReferences(sourceHosthash);
-        final Map<String, Integer> refs = (structure == null) ? new HashMap<String, Integer>() : structure.references;
-        int c;
-        for (final DigestURL u : lro.globalRefURLs) {
-        	String domain = u.hosthash();
-        	if (Switchboard.getSwitchboard() != null && Switchboard.getSwitchboard().shallTerminate()) break;
-            if (!exists(domain)) {
+        learnrefs(Collections.singletonList(lro));
+    }
+
+    /**
+     * Join the references of several documents into the structure. The reference counts are first summed up
+     * per source host, then each source host entry is decoded, updated and encoded only once.
+     * @param lros the new entries
+     */
+    protected void learnrefs(final Collection<LearnObject> lros) {
+        // sum up the references per source host and collect the target hosts
+        final Map<String, DigestURL> sources = new LinkedHashMap<String, DigestURL>(); // source key -> an url of the source host
+        final Map<String, Map<String, int[]>> sourceRefs = new HashMap<String, Map<String, int[]>>(); // source key -> target hash -> count
+        final Map<String, DigestURL> targets = new LinkedHashMap<String, DigestURL>(); // target hash -> an url of the target host
+        learn: for (final LearnObject lro : lros) {
+            final DigestURL url = lro.url;
+            final String sourceKey = url.hosthash() + "," + url.getHost();
+            Map<String, int[]> refs = sourceRefs.get(sourceKey);
+            if (refs == null) {
+                refs = new HashMap<String, int[]>();
+                sources.put(sourceKey, url);
+                sourceRefs.put(sourceKey, refs);
+            }
+            for (final DigestURL u : lro.globalRefURLs) {
+                if (Switchboard.getSwitchboard() != null && Switchboard.getSwitchboard().shallTerminate()) break learn;
+                final String domain = u.hosthash();
+                if (!targets.containsKey(domain)) targets.put(domain, u);
+                final int[] c = refs.get(domain);
+                if (c == null) refs.put(domain, new int[]{1}); else c[0]++;
+            }
+        }
+
+        for (final Map.Entry<String, DigestURL> target : targets.entrySet()) {
+            if (!exists(target.getKey())) {
                 // this must be recorded as an host with no references
                 synchronized ( this.structure_new ) {
-                    this.structure_new.put(domain + "," + u.getHost(), UTF8.getBytes(none2refstr()));
+                    this.structure_new.put(target.getKey() + "," + target.getValue().getHost(), UTF8.getBytes(none2refstr()));
                 }
             }
-            c = 0;
-            Integer existingCount = refs.get(domain);
-            if ( existingCount != null) {
-                c = existingCount.intValue();
+        }
+
+        for (final Map.Entry<String, DigestURL> source : sources.entrySet()) {
+            final String sourceHosthash = source.getValue().hosthash();
+
+            // parse the new reference string and join it with the stored references
+            final StructureEntry structure = outgoingReferences(sourceHosthash);
+            final Map<String, Integer> refs = (structure == null) ? new HashMap<String, Integer>() : structure.references;
+            for (final Map.Entry<String, int[]> ref : sourceRefs.get(source.getKey()).entrySet()) {
+                final Integer existingCount = refs.get(ref.getKey());
+                refs.put(ref.getKey(), Integer.valueOf((existingCount == null ? 0 : existingCount.intValue()) + ref.getValue()[0]));
+            }
+            shrink(refs);
+
+            // store the map back to the structure
+            synchronized ( this.structure_new ) {
+                this.structure_new.put(source.getKey(), UTF8.getBytes(map2refstr(refs)));
             }
-            refs.put(domain, Integer.valueOf(++c));
         }
+        if (!sources.isEmpty()) this.changed = true;
+    }
 
-        // check if the maxref is exceeded
+    /**
+     * shrink the references if the maxref is exceeded: the entries with the smallest number of references are removed
+     */
+    private static void shrink(final Map<String, Integer> refs) {
         if ( refs.size() > maxref ) {
             int shrink = refs.size() - (maxref * 9 / 10);
             delloop: while ( shrink > 0 ) {
@@ -787,11 +858,6 @@ public class WebStructureGraph {
                 shrink--;
             }
         }
-
-        // store the map back to the structure
-        synchronized ( this.structure_new ) {
-            this.structure_new.put(sourceHosthash + "," + url.getHost(), UTF8.getBytes(map2refstr(refs)));
-        }
     }
 
     private static void joinStructure(final TreeMap<String, byte[]> into, final TreeMap<String, byte[]> from) {
@@ -997,6 +1063,30 @@ public class WebStructureGraph {
         }
     }
 
+    /**
+     * Save a snapshot of the complete structure to the backup file, if the structure was changed since the last snapshot.
+     * The structure is copied while it is locked and written afterwards, so the learning of new entries is not blocked
+     * by the file operation.
+     */
+    public void snapshot() {
+        if (this.structureFile == null || !this.changed) return;
+        this.changed = false;
+        final long time = System.currentTimeMillis();
+        final TreeMap<String, byte[]> snapshot;
+        synchronized ( this.structure_old ) {
+            snapshot = new TreeMap<String, byte[]>(this.structure_old);
+        }
+        synchronized ( this.structure_new ) {
+            joinStructure(snapshot, this.structure_new);
+        }
+        if (snapshot.isEmpty()) return;
+        FileUtils.saveMapB(
+                this.structureFile,
+                snapshot,
+                "Web Structure Syntax: <b64hash(6)>','<host> to <date-yyyymmdd(8)>{<target-b64hash(6)><target-count-hex(4)>}*");
+        log.info("saved snapshot of " + snapshot.size() + " web structure entries in " + (System.currentTimeMillis() - time) + " milliseconds");
+    }
+
     public synchronized void close() {
         // finish dns resolving queue
         if ( this.publicRefDNSResolvingWorker.isAlive() ) {
@@ -165,8 +165,10 @@ import net.yacy.data.wiki.WikiCode;
 import net.yacy.data.wiki.WikiParser;
 import net.yacy.document.Condenser;
 import net.yacy.document.Document;
+import net.yacy.document.DocumentCache;
 import net.yacy.document.LibraryProvider;
 import net.yacy.document.Parser;
+import net.yacy.document.ParserPool;
 import net.yacy.document.ProbabilisticClassifier;
 import net.yacy.document.TextParser;
 import net.yacy.document.Tokenizer;
@@ -176,6 +178,7 @@ import net.yacy.document.content.SurrogateReader;
 import net.yacy.document.importer.JsonListImporter;
 import net.yacy.document.importer.OAIListFriendsLoader;
 import net.yacy.document.importer.WarcImporter;
+import net.yacy.document.language.NGramProfiles;
 import net.yacy.document.parser.audioTagParser;
 import net.yacy.document.parser.pdfParser;
 import net.yacy.document.parser.html.Evaluation;
@@ -198,8 +201,10 @@ import net.yacy.kelondro.util.SetTools;
 import net.yacy.kelondro.workflow.BusyThread;
 import net.yacy.kelondro.workflow.InstantBusyThread;
 import net.yacy.kelondro.workflow.OneTimeBusyThread;
+import net.yacy.kelondro.workflow.WorkflowBalancer;
 import net.yacy.kelondro.workflow.WorkflowProcessor;
 import net.yacy.kelondro.workflow.WorkflowThread;
+import net.yacy.peers.CrawlReceipts;
 import net.yacy.peers.DHTSelection;
 import net.yacy.peers.Dispatcher;
 import net.yacy.peers.EventChannel;
@@ -305,6 +310,8 @@ public final class Switchboard extends serverSwitch {
     public WorkflowProcessor<IndexingQueueEntry> indexingCondensementProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingAnalysisProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingStorageProcessor;
+    public WorkflowBalancer indexingBalancer;
+    public DocumentCache parsedDocumentCache;
 
     public RobotsTxtConfig robotstxtConfig = null;
     public boolean useTailCache;
@@ -454,7 +461,14 @@ public final class Switchboard extends serverSwitch {
 
         // init the language detector
         this.log.config("Loading language profiles");
-        try {
+        boolean ngramProfiles = false;
+        if ("ngram".equals(this.getConfig(SwitchboardConstants.LANGUAGE_IDENTIFICATION, "ngram"))) try {
+            NGramProfiles.load(new File(appPath, "langdetect"));
+            ngramProfiles = true;
+        } catch (final IOException e) {
+            this.log.warn("cannot load the n-gram language profiles, using langdetect: " + e.getMessage());
+        }
+        if (!ngramProfiles) try {
             DetectorFactory.loadProfile(new File(appPath, "langdetect").toString());
         } catch (final LangDetectException e) {
             ConcurrentLog.logException(e);
@@ -912,6 +926,8 @@ public final class Switchboard extends serverSwitch {
                 TextParser.setDenyExtension(this.getConfig(SwitchboardConstants.PARSER_EXTENSIONS_DENY, ""));
                 pdfParser.individualPages = this.getConfigBool(SwitchboardConstants.PARSER_PDF_INDIVIDUALPAGES, false);
                 pdfParser.individualPagePropertyname = this.getConfig(SwitchboardConstants.PARSER_PDF_INDIVIDUALPAGES_KEY, "page");
+                this.parsedDocumentCache = new DocumentCache(this.getConfigInt(SwitchboardConstants.PARSER_CACHE_SIZE, 1000), this.getConfigLong(SwitchboardConstants.PARSER_CACHE_MAXTEXT, 20000000L));
+                ParserPool.setLimits(this.getConfigLong(SwitchboardConstants.PARSER_TIMELIMIT, 120000), this.getConfigLong(SwitchboardConstants.PARSER_CPULIMIT, 60000));
 
                 // start a loader
                 this.log.config("Starting Crawl Loader");
@@ -1041,7 +1057,7 @@ public final class Switchboard extends serverSwitch {
                 this.indexingStorageProcessor =
                         new WorkflowProcessor<>(
                                 "storeDocumentIndex",
-                                "This is the sequencing step of the indexing queue. Files are written as streams, too much councurrency would destroy IO performance. In this process the words are written to the RWI cache, which flushes if it is full.",
+                                "This is the sequencing step of the indexing queue. In this process the words are written to the RWI cache, which flushes if it is full. The Solr documents are collected in batches which are written with one request for each core, so a few concurrent threads do not destroy IO performance.",
                                 new String[] {
                                         "RWI/Cache/Collections"
                                 },
@@ -1049,9 +1065,9 @@ public final class Switchboard extends serverSwitch {
                                     Switchboard.this.storeDocumentIndex(in);
                                     return null;
                                 },
-                                2,
+                                WorkflowProcessor.availableCPU + 1,
                                 null,
-                                1);
+                                Math.max(1, Math.min(4, WorkflowProcessor.availableCPU / 2)));
                 this.indexingAnalysisProcessor =
                         new WorkflowProcessor<>(
                                 "webStructureAnalysis",
@@ -1086,6 +1102,17 @@ public final class Switchboard extends serverSwitch {
                                 this.indexingCondensementProcessor,
                                 WorkflowProcessor.availableCPU);
 
+                // the shared thread budget of the indexing stages; 0 means the sum of the static pool sizes
+                int indexingThreads = this.getConfigInt(SwitchboardConstants.INDEXING_WORKFLOW_THREADS, 0);
+                if (indexingThreads <= 0) indexingThreads =
+                        this.indexingDocumentProcessor.getMaxConcurrency() + this.indexingCondensementProcessor.getMaxConcurrency() +
+                        this.indexingAnalysisProcessor.getMaxConcurrency() + this.indexingStorageProcessor.getMaxConcurrency();
+                this.indexingBalancer = new WorkflowBalancer(indexingThreads);
+                this.indexingBalancer.add(this.indexingDocumentProcessor, 1, WorkflowProcessor.availableCPU * 2);
+                this.indexingBalancer.add(this.indexingCondensementProcessor, 1, WorkflowProcessor.availableCPU * 2);
+                this.indexingBalancer.add(this.indexingAnalysisProcessor, 1, WorkflowProcessor.availableCPU);
+                this.indexingBalancer.add(this.indexingStorageProcessor, 1, Math.max(1, Math.min(8, WorkflowProcessor.availableCPU)));
+
                 // deploy busy threads
                 this.log.config("Starting Threads");
                 MemoryControl.gc(10000, "plasmaSwitchboard, help for profiler"); // help for profiler - thq
@@ -1114,6 +1141,20 @@ public final class Switchboard extends serverSwitch {
                         },
                         60000); // all 10 minutes, wait 1 minute until first run
 
+                this.deployThread(
+                        SwitchboardConstants.WORKFLOW_BALANCER,
+                        "Indexing Thread Balancer",
+                        "moves the worker threads of the indexing queues to the stage with the largest backlog",
+                        "/PerformanceQueues_p.html#WorkflowSettings",
+                        new InstantBusyThread("Switchboard.indexingBalancer", 5000, 5000) {
+                            @Override
+                            public boolean jobImpl() throws Exception {
+                                if (!Switchboard.this.getConfigBool(SwitchboardConstants.INDEXING_WORKFLOW_ADAPTIVE, true)) return false;
+                                return Switchboard.this.indexingBalancer.balance();
+                            }
+                        },
+                        30000);
+
                 this.deployThread(
                         SwitchboardConstants.SCHEDULER,
                         "Scheduler",
@@ -1988,6 +2029,9 @@ public final class Switchboard extends serverSwitch {
 
         MemoryTracker.stopSystemProfiling();
         this.terminateAllThreads(true);
+        if ( this.yc != null ) {
+            this.yc.close();
+        }
         net.yacy.gui.framework.Switchboard.shutdown();
         this.log.config("SWITCHBOARD SHUTDOWN STEP 2: sending termination signal to threaded indexing");
         // closing all still running db importer jobs
@@ -2574,6 +2618,11 @@ public final class Switchboard extends serverSwitch {
             // close unused connections
             ConnectionInfo.cleanUp();
 
+            // return urls of expired remote crawl leases and send pending crawl receipts
+            this.checkInterruption();
+            this.crawlQueues.returnExpiredLeases();
+            this.crawlQueues.sendReceipts();
+
             // clean up delegated stack
             this.checkInterruption();
             if (this.crawlQueues.delegatedURL != null && (this.crawlQueues.delegatedURL.size() > 1000) ) {
@@ -2958,18 +3007,29 @@ public final class Switchboard extends serverSwitch {
                     return null;
                 }
             } else {
-                // parse the document
-                documents =
-                        TextParser.parseSource(
-                                new AnchorURL(response.url()),
-                                response.getMimeType(),
-                                response.getCharacterEncoding(),
-                                response.profile().defaultValency(),
-                                response.profile().valencySwitchTagNames(),
-                                response.profile().scraper(),
-                                response.profile().timezoneOffset(),
-                                response.depth(),
-                                response.getContent());
+                // the same content may have been parsed already for another url
+                final String cacheKey = this.parsedDocumentCache.isEnabled()
+                        ? DocumentCache.key(response.url(), response.getMimeType(), response.getCharacterEncoding(), response.profile().handle(), response.getContent())
+                        : null;
+                final Document cached = cacheKey == null ? null : this.parsedDocumentCache.get(cacheKey, new AnchorURL(response.url()));
+                if (cached != null) {
+                    cached.setDepth(response.depth());
+                    documents = new Document[]{cached};
+                } else {
+                    // parse the document
+                    documents =
+                            TextParser.parseSource(
+                                    new AnchorURL(response.url()),
+                                    response.getMimeType(),
+                                    response.getCharacterEncoding(),
+                                    response.profile().defaultValency(),
+                                    response.profile().valencySwitchTagNames(),
+                                    response.profile().scraper(),
+                                    response.profile().timezoneOffset(),
+                                    response.depth(),
+                                    response.getContent());
+                    if (cacheKey != null) this.parsedDocumentCache.put(cacheKey, response.url(), documents);
+                }
             }
             if ( documents == null ) {
                 throw new Parser.Failure("Parser returned null.", response.url());
@@ -3448,7 +3508,19 @@ public final class Switchboard extends serverSwitch {
                 // start a thread for receipt sending to avoid a blocking here
                 try {
                     final SolrDocument sd = this.index.fulltext().getDefaultConfiguration().toSolrDocument(newEntry);
-                    new Thread(new receiptSending(initiatorPeer, new URIMetadataNode(sd)), "sending receipt to " + ASCII.String(queueEntry.initiator())).start();
+                    if (initiatorPeer.getFlagRemoteCrawlBatch()) {
+                        // the receipt is sent in a batch when the batch is full or by the cleanup job
+                        if (this.crawlQueues.receipts.add(initiatorPeer.hash, new CrawlReceipts.Receipt("fill", "indexed", new URIMetadataNode(sd)))) {
+                            new Thread("sending receipts to " + initiatorPeer.hash) {
+                                @Override
+                                public void run() {
+                                    Switchboard.this.crawlQueues.sendReceipts(initiatorPeer.hash);
+                                }
+                            }.start();
+                        }
+                    } else {
+                        new Thread(new receiptSending(initiatorPeer, new URIMetadataNode(sd)), "sending receipt to " + ASCII.String(queueEntry.initiator())).start();
+                    }
                 } catch (final MalformedURLException ex) {
                     this.log.info("malformed url: "+ex.getMessage());
                 }
@@ -4388,6 +4460,7 @@ public final class Switchboard extends serverSwitch {
         mySeed.setFlagAcceptRemoteIndex(this.getConfigBool(SwitchboardConstants.INDEX_RECEIVE_ALLOW, true));
         mySeed.setFlagSSLAvailable(this.getHttpServer() != null && this.getHttpServer().withSSL() && this.getConfigBool("server.https", false));
         if (mySeed.getFlagSSLAvailable()) mySeed.put(Seed.PORTSSL, Integer.toString(this.getPublicPort(SwitchboardConstants.SERVER_SSLPORT, 8443)));
+        mySeed.setFlagsProtocolExtensions(true);
 
         // set local ips
         final String staticIP = this.getConfig(SwitchboardConstants.SERVER_STATICIP, "");
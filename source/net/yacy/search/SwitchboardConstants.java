@@ -160,6 +160,14 @@ public final class SwitchboardConstants {
     public static final String SCHEDULER                    = "85_scheduler";
     public static final String SCHEDULER_IDLESLEEP          = "85_scheduler_idlesleep";
     public static final String SCHEDULER_BUSYSLEEP          = "85_scheduler_busysleep";
+    // 88_workflowbalancer
+    /**
+     * <p><code>public static final String <strong>WORKFLOW_BALANCER</strong> = "88_workflowbalancer"</code></p>
+     * <p>The thread which distributes the worker threads of the indexing queues to the stage with the largest backlog</p>
+     */
+    public static final String WORKFLOW_BALANCER            = "88_workflowbalancer";
+    public static final String INDEXING_WORKFLOW_ADAPTIVE   = "indexing.workflow.adaptive";
+    public static final String INDEXING_WORKFLOW_THREADS    = "indexing.workflow.threads";
     // 90_cleanup
     /**
      * <p><code>public static final String <strong>CLEANUP</strong> = "90_cleanup"</code></p>
@@ -221,6 +229,11 @@ public final class SwitchboardConstants {
     public static final String PARSER_EXTENSIONS_DENY           = "parser.extensions.deny";
     public static final String PARSER_PDF_INDIVIDUALPAGES       = "parser.pdf.individualpages";
     public static final String PARSER_PDF_INDIVIDUALPAGES_KEY   = "parser.pdf.individualpages.key";
+    public static final String PARSER_TIMELIMIT                 = "parser.timelimit";
+    public static final String PARSER_CPULIMIT                  = "parser.cpulimit";
+    public static final String PARSER_CACHE_SIZE                = "parser.cache.size";
+    public static final String PARSER_CACHE_MAXTEXT             = "parser.cache.maxtext";
+    public static final String LANGUAGE_IDENTIFICATION          = "language.identification";
     /**
      * <p><code>public static final String <strong>PROXY_ONLINE_CAUTION_DELAY</strong> = "onlineCautionDelay"</code></p>
      * <p>Name of the setting how long indexing should pause after the last time the proxy was used in milliseconds</p>
@@ -261,6 +274,8 @@ public final class SwitchboardConstants {
     public static final String CLUSTER_MODE_PUBLIC_PEER         = "publicpeer";
     public static final String CLUSTER_MODE_PRIVATE_PEER        = "privatepeer";
     public static final String CLUSTER_PEERS_IPPORT             = "cluster.peers.ipport";
+    /** when true, a cluster search queries the solr cores of the cluster peers as shards with one distributed query */
+    public static final String CLUSTER_SOLR_SHARDS              = "cluster.solrshards";
     
     /** Key of the global HTTP Referrer policy delivered by meta tag */
     public static final String REFERRER_META_POLICY = "referrer.meta.policy";
@@ -340,6 +355,11 @@ public final class SwitchboardConstants {
     public static final String CORE_SERVICE_CITATION            = "core.service.citation.tmp";
     public static final String CORE_SERVICE_WEBGRAPH            = "core.service.webgraph.tmp";
 
+    /** Keys of the settings of the commit scheduler of the local index: target latency, latency during a bulk import, changes per second of a bulk import */
+    public static final String INDEX_COMMIT_LATENCY             = "index.commit.latency";
+    public static final String INDEX_COMMIT_BULKLATENCY         = "index.commit.bulklatency";
+    public static final String INDEX_COMMIT_BULKRATE            = "index.commit.bulkrate";
+
     /**
      * <p><code>public static final String <strong>CRAWLER_THREADS_ACTIVE_MAX</strong> = "crawler.MaxActiveThreads"</code></p>
      * <p>Name of the setting how many active crawler-threads may maximal be running on the same time</p>
@@ -0,0 +1,234 @@
+/**
+ *  CommitScheduler
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.index;
+
+/**
+ * A scheduler for the commits of the Solr index. The commit requests of the different callers are coalesced:
+ * a request which comes too early after the last commit is not dropped but executed later by the scheduler
+ * thread, together with all other requests which come in the meantime. Requests which are made while a commit
+ * is running are fulfilled by the next commit.
+ *
+ * Changes of the index are made visible by the scheduler within a target latency with a soft commit. The
+ * scheduler measures the rate of the changes; during a bulk import with a high rate the target latency and
+ * the minimum time between two soft commits are stretched to the bulk latency, so that the index is not
+ * flooded with small segments and new searchers. Hard commits are not delayed by a bulk import.
+ */
+public class CommitScheduler {
+
+    public static final long DEFAULT_LATENCY = 5000;       // milliseconds
+    public static final long DEFAULT_BULK_LATENCY = 60000; // milliseconds
+    public static final int DEFAULT_BULK_RATE = 50;        // changes per second
+    public static final long DEFAULT_MIN_INTERVAL = 10000; // milliseconds
+    private static final long RATE_WINDOW = 1000;          // milliseconds
+    private static final long MAX_WAIT = 1000;             // milliseconds, the scheduler checks the rate at least this often
+
+    /**
+     * the target of the commits
+     */
+    public interface Committer {
+        public void commit(boolean softCommit);
+    }
+
+    private final Committer committer;
+    private final long latency, bulkLatency, minInterval;
+    private final int bulkRate;
+    private final Object commitLock;
+    private long lastCommit;     // the start time of the last commit
+    private long changedSince;   // the time of the first change after the last commit, 0 if there was no change
+    private long requestedSince; // the time of the first commit request after the last commit, 0 if there was no request
+    private boolean hardRequested;
+    private double rate;         // the smoothed number of changes per second
+    private long rateStart;      // the start of the current rate window
+    private int rateCount;       // the number of changes in the current rate window
+    private long commits;
+    private Thread scheduler;
+
+    /**
+     * @param committer the target of the commits
+     * @param latency the target latency for the visibility of changes in milliseconds, 0 to leave the visibility of changes to the index
+     * @param bulkLatency the latency and the minimum time between soft commits during a bulk import in milliseconds
+     * @param bulkRate the number of changes per second which indicates a bulk import
+     * @param minInterval the minimum time between two commits in milliseconds
+     */
+    public CommitScheduler(final Committer committer, final long latency, final long bulkLatency, final int bulkRate, final long minInterval) {
+        this.committer = committer;
+        this.latency = Math.max(0, latency);
+        this.bulkLatency = Math.max(this.latency, bulkLatency);
+        this.bulkRate = Math.max(1, bulkRate);
+        this.minInterval = Math.max(0, minInterval);
+        this.commitLock = new Object();
+        this.lastCommit = 0;
+        this.changedSince = 0;
+        this.requestedSince = 0;
+        this.hardRequested = false;
+        this.rate = 0.0d;
+        this.rateStart = System.currentTimeMillis();
+        this.rateCount = 0;
+        this.commits = 0;
+        this.scheduler = null;
+    }
+
+    /**
+     * @return true if the scheduler makes the changes visible; then the automatic soft commit of the index is not needed
+     */
+    public boolean isAutomatic() {
+        return this.latency > 0;
+    }
+
+    /**
+     * notify the scheduler about changes of the index
+     * @param count the number of added or deleted documents
+     */
+    public void changed(final int count) {
+        if (count <= 0) return;
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            updateRate(now, count);
+            if (this.changedSince == 0) this.changedSince = now;
+            if (this.latency > 0) ensureScheduler();
+        }
+    }
+
+    /**
+     * request a commit; the commit is done in the calling thread if it is due, otherwise it is done by the scheduler thread
+     * @param softCommit false if the changes must be written to disk
+     */
+    public void commit(final boolean softCommit) {
+        final long now = System.currentTimeMillis();
+        final boolean due;
+        synchronized (this) {
+            if (this.requestedSince == 0) this.requestedSince = now;
+            if (!softCommit) this.hardRequested = true;
+            due = due(now) <= now;
+            if (!due) ensureScheduler();
+        }
+        if (due) commitNow();
+    }
+
+    /**
+     * @return true if the rate of the changes indicates a bulk import
+     */
+    public synchronized boolean isBulk() {
+        updateRate(System.currentTimeMillis(), 0);
+        return this.rate >= this.bulkRate;
+    }
+
+    /**
+     * @return the smoothed number of changes per second
+     */
+    public synchronized double getRate() {
+        updateRate(System.currentTimeMillis(), 0);
+        return this.rate;
+    }
+
+    /**
+     * @return the number of commits
+     */
+    public synchronized long getCommits() {
+        return this.commits;
+    }
+
+    /**
+     * @return true if there is a pending commit request or a change which was not committed
+     */
+    public synchronized boolean isPending() {
+        return this.requestedSince > 0 || (this.latency > 0 && this.changedSince > 0);
+    }
+
+    private void updateRate(final long now, final int count) {
+        this.rateCount += count;
+        final long elapsed = now - this.rateStart;
+        if (elapsed < RATE_WINDOW) return;
+        final double current = this.rateCount * 1000.0d / elapsed;
+        // a window without changes after a long pause ends the bulk import at once
+        this.rate = elapsed > 10 * RATE_WINDOW ? current : 0.7d * this.rate + 0.3d * current;
+        this.rateStart = now;
+        this.rateCount = 0;
+    }
+
+    /**
+     * @return the time when the next commit is due, Long.MAX_VALUE if no commit is needed
+     */
+    private long due(final long now) {
+        updateRate(now, 0);
+        final boolean bulk = this.rate >= this.bulkRate;
+        long due = Long.MAX_VALUE;
+        if (this.requestedSince > 0) {
+            due = bulk && !this.hardRequested ? Math.max(this.lastCommit, this.changedSince) + this.bulkLatency : this.lastCommit + this.minInterval;
+        }
+        if (this.latency > 0 && this.changedSince > 0) {
+            due = Math.min(due, Math.max(this.changedSince + (bulk ? this.bulkLatency : this.latency), this.lastCommit + (bulk ? this.bulkLatency : 0)));
+        }
+        return due;
+    }
+
+    private void ensureScheduler() {
+        if (this.scheduler != null) return;
+        this.scheduler = new Thread("CommitScheduler") {
+            @Override
+            public void run() {
+                scheduleLoop();
+            }
+        };
+        this.scheduler.setDaemon(true);
+        this.scheduler.start();
+    }
+
+    private void scheduleLoop() {
+        while (true) {
+            long wait;
+            synchronized (this) {
+                final long now = System.currentTimeMillis();
+                final long due = due(now);
+                if (due == Long.MAX_VALUE) {
+                    this.scheduler = null;
+                    return;
+                }
+                wait = due - now;
+            }
+            if (wait > 0) {
+                try {Thread.sleep(Math.min(wait, MAX_WAIT));} catch (final InterruptedException e) {}
+                continue;
+            }
+            commitNow();
+        }
+    }
+
+    /**
+     * do a commit which fulfills all requests and changes until now; concurrent calls are done one after the other
+     * and a call after a concurrent commit does nothing if there was no new request or change
+     */
+    private void commitNow() {
+        synchronized (this.commitLock) {
+            final boolean softCommit;
+            synchronized (this) {
+                if (this.requestedSince == 0 && this.changedSince == 0) return;
+                softCommit = !this.hardRequested;
+                this.requestedSince = 0;
+                this.changedSince = 0;
+                this.hardRequested = false;
+                this.lastCommit = System.currentTimeMillis();
+                this.commits++;
+            }
+            this.committer.commit(softCommit);
+        }
+    }
+
+}
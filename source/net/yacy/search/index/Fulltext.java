@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -59,6 +60,7 @@ import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
 import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
+import net.yacy.cora.federate.solr.connector.MirrorSolrConnector;
 import net.yacy.cora.federate.solr.connector.RemoteSolrConnector;
 import net.yacy.cora.federate.solr.connector.ShardSelection;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
@@ -103,6 +105,8 @@ public final class Fulltext {
     private final CollectionConfiguration collectionConfiguration;
     private final WebgraphConfiguration   webgraphConfiguration;
     private       boolean                 writeWebgraph;
+    private final SolrBatchWriter         batchWriter;
+    private final CommitScheduler         commitScheduler;
 
     protected Fulltext(final File segmentPath, final File archivePath,
             final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration) {
@@ -114,6 +118,39 @@ public final class Fulltext {
         this.collectionConfiguration = collectionConfiguration;
         this.webgraphConfiguration = webgraphConfiguration;
         this.writeWebgraph = false;
+        this.batchWriter = new SolrBatchWriter(new SolrBatchWriter.Sink() {
+            @Override
+            public void writeDocuments(final List<SolrInputDocument> documents) throws IOException {
+                putDocuments(documents);
+            }
+            @Override
+            public void writeEdges(final List<SolrInputDocument> edges) throws IOException {
+                putEdges(edges);
+            }
+        }, SolrBatchWriter.DEFAULT_BATCH_SIZE, SolrBatchWriter.DEFAULT_WINDOW);
+        long commitLatency = CommitScheduler.DEFAULT_LATENCY;
+        long commitBulkLatency = CommitScheduler.DEFAULT_BULK_LATENCY;
+        int commitBulkRate = CommitScheduler.DEFAULT_BULK_RATE;
+        if (Switchboard.getSwitchboard() != null) {
+            commitLatency = Switchboard.getSwitchboard().getConfigLong(SwitchboardConstants.INDEX_COMMIT_LATENCY, commitLatency);
+            commitBulkLatency = Switchboard.getSwitchboard().getConfigLong(SwitchboardConstants.INDEX_COMMIT_BULKLATENCY, commitBulkLatency);
+            commitBulkRate = Switchboard.getSwitchboard().getConfigInt(SwitchboardConstants.INDEX_COMMIT_BULKRATE, commitBulkRate);
+        }
+        this.commitScheduler = new CommitScheduler(new CommitScheduler.Committer() {
+            @Override
+            public void commit(final boolean softCommit) {
+                final SolrConnector connector = getDefaultConnector();
+                if (connector != null) connector.commit(softCommit);
+                if (Fulltext.this.writeWebgraph) getWebgraphConnector().commit(softCommit);
+            }
+        }, commitLatency, commitBulkLatency, commitBulkRate, CommitScheduler.DEFAULT_MIN_INTERVAL);
+        // every write to the default and webgraph connectors is reported to the scheduler, also the writes of other classes
+        this.solrInstances.setChangeListener(new MirrorSolrConnector.ChangeListener() {
+            @Override
+            public void changed(final int count) {
+                Fulltext.this.commitScheduler.changed(count);
+            }
+        });
     }
 
     public void setUseWebgraph(boolean check) {
@@ -152,6 +189,8 @@ public final class Fulltext {
         }
          */
 
+        // the commit scheduler replaces the automatic soft commit of the embedded solr, see solrconfig.xml
+        if (this.commitScheduler.isAutomatic()) System.setProperty("solr.autoSoftCommit.maxTime", "-1"); else System.clearProperty("solr.autoSoftCommit.maxTime");
         final EmbeddedInstance localCollectionInstance = new EmbeddedInstance(new File(new File(Switchboard.getSwitchboard().appPath, "defaults"), "solr"), solrLocation, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
         final SolrConfig config = localCollectionInstance.getDefaultCore().getSolrConfig();
         final Version luceneVersion = config.luceneMatchVersion;
@@ -164,6 +203,7 @@ public final class Fulltext {
     }
 
     public void disconnectLocalSolr() {
+        this.batchWriter.flush();
         this.solrInstances.disconnectEmbedded();
     }
 
@@ -241,7 +281,7 @@ public final class Fulltext {
     }
 
     public int bufferSize() {
-        return this.solrInstances.bufferSize();
+        return this.solrInstances.bufferSize() + this.batchWriter.size();
     }
 
     public void clearCaches() {
@@ -249,6 +289,7 @@ public final class Fulltext {
     }
 
     public void clearLocalSolr() throws IOException {
+        this.batchWriter.flush();
         if (this.exportthread != null) {
             this.exportthread.interrupt();
         }
@@ -307,6 +348,7 @@ public final class Fulltext {
     }
 
     public void close() {
+        this.batchWriter.flush();
         try {
             this.solrInstances.close();
         } catch (final Throwable e) {
@@ -314,13 +356,18 @@ public final class Fulltext {
         }
     }
 
-    private long lastCommit = 0;
+    /**
+     * request a commit; commits which are requested shortly after the last commit or during a bulk import
+     * are coalesced and done later by the commit scheduler
+     * @param softCommit false if the changes must be written to disk
+     */
     public void commit(boolean softCommit) {
-        final long t = System.currentTimeMillis();
-        if (this.lastCommit + 10000 > t) return;
-        this.lastCommit = t;
-        getDefaultConnector().commit(softCommit);
-        if (this.writeWebgraph) getWebgraphConnector().commit(softCommit);
+        this.batchWriter.flush();
+        this.commitScheduler.commit(softCommit);
+    }
+
+    public CommitScheduler getCommitScheduler() {
+        return this.commitScheduler;
     }
 
     /**
@@ -379,6 +426,35 @@ public final class Fulltext {
         if (MemoryControl.shortStatus()) clearCaches();
     }
 
+    /**
+     * store a document and its webgraph edges with the next batch of the group commit buffer;
+     * the batch is written with one add for each core when it is full or after a short time window
+     * @param doc the collection document
+     * @param edges the webgraph edges, may be null; ignored if the webgraph is not used
+     */
+    public void putDocumentBatched(final SolrInputDocument doc, final Collection<SolrInputDocument> edges) {
+        ConcurrentLog.info("Fulltext", "indexing: " + doc.getFieldValue(CollectionSchema.id.getSolrFieldName()) + " " + doc.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
+        this.batchWriter.add(doc, this.useWebgraph() ? edges : null);
+    }
+
+    /**
+     * write the documents which are waiting in the group commit buffer
+     */
+    public void flushBatch() {
+        this.batchWriter.flush();
+    }
+
+    private void putDocuments(final Collection<SolrInputDocument> docs) throws IOException {
+        final SolrConnector connector = this.getDefaultConnector();
+        if (connector == null || connector.isClosed()) return;
+        try {
+            connector.add(docs);
+        } catch (final SolrException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (MemoryControl.shortStatus()) clearCaches();
+    }
+
     public void putEdges(final Collection<SolrInputDocument> edges) throws IOException {
         if (!this.useWebgraph()) return;
         if (edges == null || edges.size() == 0) return;
@@ -522,6 +598,7 @@ public final class Fulltext {
      */
     public void remove(final Collection<String> deleteIDs) {
         if (deleteIDs == null || deleteIDs.size() == 0) return;
+        this.batchWriter.flush(); // a pending add must not overwrite the deletion
         try {
             this.getDefaultConnector().deleteByIds(deleteIDs);
             if (this.writeWebgraph) { // Webgraph.id is combination of sourceHash+targetHash+hexCounter, to be successful use source_id_s and/or target_id_s
@@ -543,6 +620,7 @@ public final class Fulltext {
      */
     public boolean remove(final byte[] urlHash) {
         if (urlHash == null) return false;
+        this.batchWriter.flush(); // a pending add must not overwrite the deletion
         try {
             final String id = ASCII.String(urlHash);
             this.getDefaultConnector().deleteById(id);
@@ -571,6 +649,37 @@ public final class Fulltext {
         return this.getDefaultConnector().exists(id);
     }
 
+    /**
+     * check which of the given documents exist, with one index request for up to 255 ids
+     * @param ids url hashes and document ids
+     * @return the subset of the ids which exist in the index
+     */
+    public Set<String> exists(final Collection<String> ids) {
+        final Set<String> existing = new HashSet<>();
+        if (ids == null || ids.isEmpty()) return existing;
+        final List<String> subset = new ArrayList<>(Math.min(ids.size(), 255)); // a larger list causes a "too many boolean clauses" exception
+        final StringBuilder query = new StringBuilder();
+        final Iterator<String> i = ids.iterator();
+        while (i.hasNext()) {
+            subset.add(i.next());
+            if (subset.size() < 255 && i.hasNext()) continue;
+            query.setLength(0);
+            for (final String s: subset) {
+                if (query.length() > 0) query.append(" OR ");
+                query.append("({!cache=false raw f=").append(CollectionSchema.id.getSolrFieldName()).append('}').append(s).append(")");
+            }
+            try {
+                final SolrDocumentList docs = this.getDefaultConnector().getDocumentListByQuery(query.toString(), null, 0, subset.size(), CollectionSchema.id.getSolrFieldName());
+                for (final SolrDocument doc: docs) existing.add((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()));
+            } catch (final IOException e) {
+                // fall back to the single requests
+                for (final String s: subset) if (this.exists(s)) existing.add(s);
+            }
+            subset.clear();
+        }
+        return existing;
+    }
+
     public List<File> dumpFiles() {
         final EmbeddedInstance esc = this.solrInstances.getEmbedded();
         final ArrayList<File> zips = new ArrayList<>();
@@ -663,29 +663,8 @@ public class Segment {
         }
 
         // STORE TO SOLR
-        this.putDocument(vector);
-        List<SolrInputDocument> webgraph = vector.getWebgraphDocuments();
-        String error = null;
-        if (webgraph != null && webgraph.size() > 0) {
-
-            // write the edges to the webgraph solr index
-            if (this.fulltext.useWebgraph()) {
-                tryloop: for (int i = 0; i < 20; i++) {
-                    try {
-                        error = null;
-                        this.fulltext.putEdges(webgraph);
-                        break tryloop;
-                    } catch (final IOException e ) {
-                        error = "failed to send " + urlNormalform + " to solr: " + e.getMessage();
-                        ConcurrentLog.warn("SOLR", error);
-                        if (i == 10) this.fulltext.commit(true);
-                        try {Thread.sleep(1000);} catch (final InterruptedException e1) {}
-                        continue tryloop;
-                    }
-                }
-            }
-
-        }
+        // the document and its edges are written with the next batch of the group commit buffer of the fulltext
+        this.fulltext.putDocumentBatched(vector, vector.getWebgraphDocuments());
 
         // REMEMBER FIRST SEEN
         long now = System.currentTimeMillis();
@@ -732,11 +711,6 @@ public class Segment {
             ConcurrentLog.logException(e);
         }
 
-        if (error != null) {
-            ConcurrentLog.severe("SOLR", error + ", PLEASE REPORT TO https://github.com/yacy/yacy_search_server/issues");
-            //Switchboard.getSwitchboard().pauseCrawlJob(SwitchboardConstants.CRAWLJOB_LOCAL_CRAWL, error);
-            //Switchboard.getSwitchboard().pauseCrawlJob(SwitchboardConstants.CRAWLJOB_REMOTE_TRIGGERED_CRAWL, error);
-        }
         final long storageEndTime = System.currentTimeMillis();
 
         // STORE PAGE INDEX INTO WORD INDEX DB
@@ -0,0 +1,169 @@
+/**
+ *  SolrBatchWriter
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.common.SolrInputDocument;
+
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.search.schema.CollectionSchema;
+
+/**
+ * A group commit buffer for the documents and webgraph edges which are written to Solr.
+ * Instead of one add request for every document, the documents of the indexing threads are collected
+ * until a maximum number of documents is reached or a short time window has passed; then the whole batch
+ * is written with one add(Collection) for each core. The buffer is swapped out before the batch is written,
+ * so several batches may be written concurrently by different indexing threads.
+ */
+public class SolrBatchWriter {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_WINDOW = 1000; // milliseconds
+    private static final int RETRIES = 20; // the number of tries for the webgraph edges, as for the single document writes before
+
+    /**
+     * the target of the batches
+     */
+    public interface Sink {
+        public void writeDocuments(List<SolrInputDocument> documents) throws IOException;
+        public void writeEdges(List<SolrInputDocument> edges) throws IOException;
+    }
+
+    private final Sink sink;
+    private final int batchSize;
+    private final long window;
+    private List<SolrInputDocument> documents, edges;
+    private long oldest; // the time when the first document of the current batch was added
+    private Thread flusher;
+
+    public SolrBatchWriter(final Sink sink, final int batchSize, final long window) {
+        this.sink = sink;
+        this.batchSize = Math.max(1, batchSize);
+        this.window = Math.max(1, window);
+        this.documents = new ArrayList<SolrInputDocument>(this.batchSize);
+        this.edges = new ArrayList<SolrInputDocument>();
+        this.oldest = 0;
+        this.flusher = null;
+    }
+
+    /**
+     * add a document and its webgraph edges to the current batch; if the batch is full it is written
+     * by the calling thread, otherwise it is written by the flusher thread at the end of the time window
+     * @param document the collection document
+     * @param edges the webgraph edges of the document, may be null
+     */
+    public void add(final SolrInputDocument document, final Collection<SolrInputDocument> edges) {
+        List<SolrInputDocument> fullDocuments = null, fullEdges = null;
+        synchronized (this) {
+            if (this.documents.isEmpty()) this.oldest = System.currentTimeMillis();
+            this.documents.add(document);
+            if (edges != null) this.edges.addAll(edges);
+            if (this.documents.size() >= this.batchSize) {
+                fullDocuments = this.documents;
+                fullEdges = this.edges;
+                this.documents = new ArrayList<SolrInputDocument>(this.batchSize);
+                this.edges = new ArrayList<SolrInputDocument>();
+            } else if (this.flusher == null) {
+                this.flusher = new Thread("SolrBatchWriter.flusher") {
+                    @Override
+                    public void run() {
+                        flushLoop();
+                    }
+                };
+                this.flusher.setDaemon(true);
+                this.flusher.start();
+            }
+        }
+        if (fullDocuments != null) write(fullDocuments, fullEdges);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long wait;
+            synchronized (this) {
+                if (this.documents.isEmpty()) {
+                    this.flusher = null;
+                    return;
+                }
+                wait = this.oldest + this.window - System.currentTimeMillis();
+            }
+            if (wait > 0) {
+                try {Thread.sleep(wait);} catch (final InterruptedException e) {}
+                continue;
+            }
+            flush();
+        }
+    }
+
+    /**
+     * write the current batch immediately, i.e. before a commit or close of the index
+     */
+    public void flush() {
+        final List<SolrInputDocument> flushDocuments, flushEdges;
+        synchronized (this) {
+            if (this.documents.isEmpty() && this.edges.isEmpty()) return;
+            flushDocuments = this.documents;
+            flushEdges = this.edges;
+            this.documents = new ArrayList<SolrInputDocument>(this.batchSize);
+            this.edges = new ArrayList<SolrInputDocument>();
+        }
+        write(flushDocuments, flushEdges);
+    }
+
+    /**
+     * @return the number of documents in the current batch
+     */
+    public synchronized int size() {
+        return this.documents.size();
+    }
+
+    private void write(final List<SolrInputDocument> documents, final List<SolrInputDocument> edges) {
+        if (!documents.isEmpty()) try {
+            this.sink.writeDocuments(documents);
+        } catch (final IOException e) {
+            // one bad document must not drop the whole batch: write the documents one by one
+            ConcurrentLog.warn("SOLR", "failed to write a batch of " + documents.size() + " documents, writing them one by one: " + e.getMessage());
+            for (final SolrInputDocument document: documents) {
+                try {
+                    this.sink.writeDocuments(Collections.singletonList(document));
+                } catch (final IOException ee) {
+                    ConcurrentLog.warn("SOLR", "failed to send " + document.getFieldValue(CollectionSchema.sku.getSolrFieldName()) + " to solr: " + ee.getMessage());
+                }
+            }
+        }
+        if (edges.isEmpty()) return;
+        for (int i = 0; i < RETRIES; i++) {
+            try {
+                this.sink.writeEdges(edges);
+                return;
+            } catch (final IOException e) {
+                ConcurrentLog.warn("SOLR", "failed to write a batch of " + edges.size() + " edges: " + e.getMessage());
+                try {Thread.sleep(1000);} catch (final InterruptedException e1) {}
+            }
+        }
+        ConcurrentLog.severe("SOLR", "dropped a batch of " + edges.size() + " webgraph edges, PLEASE REPORT TO https://github.com/yacy/yacy_search_server/issues");
+    }
+
+}
@@ -63,6 +63,7 @@ import net.yacy.cora.federate.yacy.Distribution;
 import net.yacy.cora.lod.vocabulary.Tagging;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.Domains;
+import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.ConcurrentScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.sorting.ScoreMap;
@@ -451,7 +452,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.rwiProcess = null;
         if (query.getSegment().connectedRWI() && !Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.DEBUG_SEARCH_LOCAL_DHT_OFF, false)) {
             // we start the local search only if this peer is doing a remote search or when it is doing a local search and the peer is old
-            this.rwiProcess = new RWIProcess(this.localsolrsearch);
+            this.rwiProcess = new RWIProcess(this.localsolrsearch, generateAbstracts);
             this.rwiProcess.start();
         }
 
@@ -587,9 +588,13 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 
         final Thread waitForThread;
 
-        public RWIProcess(final Thread waitForThread) {
+        /** when true, the complete containers of the query terms are kept to compute index abstracts */
+        final boolean fullInclusion;
+
+        public RWIProcess(final Thread waitForThread, final boolean fullInclusion) {
             super("SearchEvent.RWIProcess(" + (waitForThread != null ? waitForThread.getName() : "") + ")");
             this.waitForThread = waitForThread;
+            this.fullInclusion = fullInclusion;
         }
 
         /**
@@ -616,7 +621,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                                 SearchEvent.this.query.getQueryGoal().getExcludeHashes(),
                                 null,
                                 Segment.wordReferenceFactory,
-                                SearchEvent.this.query.maxDistance);
+                                SearchEvent.this.query.maxDistance,
+                                this.fullInclusion);
                 SearchEvent.this.localSearchInclusion = search.inclusion();
                 ReferenceContainer<WordReference> index = search.joined();
                 if ( !index.isEmpty() ) {
@@ -642,7 +648,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                                         SearchEvent.this.query.getQueryGoal().getExcludeHashes(),
                                         null,
                                         Segment.wordReferenceFactory,
-                                        SearchEvent.this.query.maxDistance);
+                                        SearchEvent.this.query.maxDistance,
+                                        this.fullInclusion);
                         SearchEvent.this.localSearchInclusion = search.inclusion();
                         index = search.joined();
                         if (!index.isEmpty()) {
@@ -691,8 +698,12 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         }
         long timer = System.currentTimeMillis();
 
-        // normalize entries
-        final BlockingQueue<WordReferenceVars> decodedEntries = this.order.normalizeWith(index, maxtime, local);
+        // normalize entries; without filter constraints only the best entries can reach the rwi stack.
+        // Entries which are already known from other sources are excluded before the cut, otherwise they would take the place of new entries
+        final AtomicInteger pruned = new AtomicInteger(0);
+        final BlockingQueue<WordReferenceVars> decodedEntries = this.hasRWIConstraints() ?
+                this.order.normalizeWith(index, maxtime, local) :
+                this.order.normalizeWith(index, maxtime, local, max_results_rwi, this.urlhashes, pruned);
         final int is = index.size();
         EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(
                 this.query.id(true),
@@ -819,6 +830,9 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             }
             if (System.currentTimeMillis() >= timeout) ConcurrentLog.warn("SearchEvent", "rwi normalization ended with timeout = " + maxtime);
 
+            // entries omitted by the top-k normalization are available but not ranked high enough for the stack
+            if (local) this.local_rwi_available.addAndGet(pruned.get()); else this.remote_rwi_available.addAndGet(pruned.get());
+
         } catch (final InterruptedException | SpaceExceededException e ) {
         }
 
@@ -980,6 +994,9 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             incrNavigatorsFromSolrFacets(facets);
         }
 
+        // accepted entries whose navigation information is not available in facets are counted in one batch at the end
+        final List<URIMetadataNode> navigationDocs = incrementNavigators ? new ArrayList<>(nodeList.size()) : null;
+
         // apply all constraints
         try {
             pollloop: for (final URIMetadataNode iEntry: nodeList) {
@@ -1113,11 +1130,14 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 
                 // collect navigation information not available in facets
                 if(incrementNavigators) {
-                    incrNavigatorsFromSingleDocument(iEntry, facets);
+                    navigationDocs.add(iEntry);
                 }
             }
         } catch (final SpaceExceededException e ) {
         }
+        if(incrementNavigators) {
+            incrNavigatorsFromDocuments(navigationDocs, facets);
+        }
         EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.PRESORT, resourceName, nodeList.size(), System.currentTimeMillis() - timer), false);
     }
 
@@ -1188,18 +1208,22 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     }
 
     /**
-     * Increment this event eventual navigators with the given entry, only when the concerned field is not present in facets
-     * @param doc a document entry from a Solr source
+     * Increment this event eventual navigators with the given entries, only for the fields not present in facets.
+     * Counts are first aggregated locally over the whole batch, so that each shared navigator is updated once per distinct key
+     * instead of once per document.
+     * @param docs document entries from a Solr source. Must not be null.
      * @param facets facets counts from a Solr instance
      */
-    private void incrNavigatorsFromSingleDocument(final URIMetadataNode doc,
+    private void incrNavigatorsFromDocuments(final List<URIMetadataNode> docs,
             final Map<String, ReversibleScoreMap<String>> facets) {
+        if (docs.isEmpty()) {
+            return;
+        }
 
         /* Iterate over active navigator plugins to let them update the counters */
-        for (final String s : this.navigatorPlugins.keySet()) {
-            final Navigator navi = this.navigatorPlugins.get(s);
-            if (navi != null && facets == null || !facets.containsKey(navi.getIndexFieldName())) {
-                navi.incDoc(doc);
+        for (final Navigator navi : this.navigatorPlugins.values()) {
+            if (navi != null && (facets == null || !facets.containsKey(navi.getIndexFieldName()))) {
+                navi.incDocList(docs);
             }
         }
 
@@ -1208,43 +1232,60 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 
         if (this.dateNavigator != null) {
             if (facets == null || !facets.containsKey(CollectionSchema.dates_in_content_dts.getSolrFieldName())) {
-                final Date[] dates = doc.datesInContent();
-                if (dates != null) {
-                    for (final Date date : dates) {
-                        if (date != null) {
-                            this.dateNavigator.inc(ISO8601Formatter.FORMATTER.format(date));
+                final ScoreMap<String> dateCounts = new ClusteredScoreMap<>(false);
+                for (final URIMetadataNode doc : docs) {
+                    final Date[] dates = doc.datesInContent();
+                    if (dates != null) {
+                        for (final Date date : dates) {
+                            if (date != null) {
+                                dateCounts.inc(ISO8601Formatter.FORMATTER.format(date));
+                            }
                         }
                     }
                 }
+                this.dateNavigator.inc(dateCounts);
             }
         }
 
         if (this.protocolNavigator != null) {
             if (facets == null || !facets.containsKey(CollectionSchema.url_protocol_s.getSolrFieldName())) {
-                final String protocol = doc.url().getProtocol();
-                // include only protocols supported protocols
-                if (protocol != null && PROTOCOL_NAVIGATOR_SUPPORTED_VALUES.indexOf(protocol) >= 0) {
-                    this.protocolNavigator.inc(protocol);
+                final ScoreMap<String> protocolCounts = new ClusteredScoreMap<>(false);
+                for (final URIMetadataNode doc : docs) {
+                    final String protocol = doc.url().getProtocol();
+                    // include only protocols supported protocols
+                    if (protocol != null && PROTOCOL_NAVIGATOR_SUPPORTED_VALUES.indexOf(protocol) >= 0) {
+                        protocolCounts.inc(protocol);
+                    }
                 }
+                this.protocolNavigator.inc(protocolCounts);
             }
         }
 
         // get the vocabulary navigation
         if(this.vocabularyNavigator != null) {
-            final Set<String> genericFacets = new LinkedHashSet<>();
-            for (final Tagging v : LibraryProvider.autotagging.getVocabularies()) {
-                genericFacets.add(v.getName());
-            }
-            genericFacets.addAll(ProbabilisticClassifier.getContextNames());
-            for (final String vocName : genericFacets) {
+            for (final String vocName : vocabularyNavigatorNames()) {
                 final String fieldName = CollectionSchema.VOCABULARY_PREFIX + vocName + CollectionSchema.VOCABULARY_TERMS_SUFFIX;
                 if (facets == null || !facets.containsKey(fieldName)) {
-                    incrementVocNavigator(doc, vocName, fieldName);
+                    for (final URIMetadataNode doc : docs) {
+                        incrementVocNavigator(doc, vocName, fieldName);
+                    }
                 }
             }
         }
     }
 
+    /**
+     * @return the names of the vocabularies and classifier contexts which can feed the vocabulary navigator
+     */
+    private static Set<String> vocabularyNavigatorNames() {
+        final Set<String> genericFacets = new LinkedHashSet<>();
+        for (final Tagging v : LibraryProvider.autotagging.getVocabularies()) {
+            genericFacets.add(v.getName());
+        }
+        genericFacets.addAll(ProbabilisticClassifier.getContextNames());
+        return genericFacets;
+    }
+
     /**
      * Increment a vocabulary navigator with the given document
      * @param doc a document entry. Must not be null.
@@ -1596,12 +1637,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 
             // handle the vocabulary navigator
             if (this.vocabularyNavigator != null) {
-                final Set<String> genericFacets = new LinkedHashSet<>();
-                for (final Tagging v : LibraryProvider.autotagging.getVocabularies()) {
-                    genericFacets.add(v.getName());
-                }
-                genericFacets.addAll(ProbabilisticClassifier.getContextNames());
-                for (final String vocName : genericFacets) {
+                for (final String vocName : vocabularyNavigatorNames()) {
                     final String fieldName = CollectionSchema.VOCABULARY_PREFIX + vocName
                             + CollectionSchema.VOCABULARY_TERMS_SUFFIX;
                     incrementVocNavigator(page, vocName, fieldName);
@@ -2443,6 +2479,18 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         return c;
     }
 
+    /**
+     * @return true if addRWIs drops references because of query constraints; in that case the
+     * references must not be reduced to the best ranked ones before the constraints are tested
+     */
+    private boolean hasRWIConstraints() {
+        return this.query.constraint != null ||
+                this.query.contentdom.getCode() > 0 ||
+                (this.query.modifier.language != null && !this.query.modifier.language.isEmpty()) ||
+                this.query.modifier.sitehash != null ||
+                (this.query.siteexcludes != null && !this.query.siteexcludes.isEmpty());
+    }
+
     protected boolean testFlags(final Bitfield flags) {
         if (this.query.constraint == null) return true;
         // test if ientry matches with filter
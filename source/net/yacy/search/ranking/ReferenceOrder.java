@@ -27,16 +27,20 @@
 package net.yacy.search.ranking;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.sorting.ConcurrentScoreMap;
+import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.document.LargeNumberCache;
 import net.yacy.document.Tokenizer;
@@ -78,6 +82,144 @@ public class ReferenceOrder {
         return out;
     }
 
+    /**
+     * normalize the container and deliver only the topk best ranked entries, ordered by descending ranking.
+     * Entries which cannot enter the top-k heap are not delivered; their number is added to the pruned counter
+     * before the poison entry is put into the result queue.
+     * This must only be used if the consumer does not apply any further filtering to the entries, because
+     * otherwise entries ranked below the first topk could be missing in the result. Entries which the consumer
+     * drops as already known must be given as exclude set, then they do not take a place in the top-k heap.
+     * @param container the references to rank
+     * @param maxtime the maximum time for the normalization
+     * @param local true if the container is from the local index
+     * @param topk the number of entries to deliver; if the container is not larger than that, all entries are normalized as usual
+     * @param exclude the url hashes of entries which are not delivered and not counted as pruned, may be null
+     * @param pruned a counter which is increased by the number of omitted entries
+     * @return a queue with at most topk entries terminated by WordReferenceVars.poison
+     */
+    public BlockingQueue<WordReferenceVars> normalizeWith(final ReferenceContainer<WordReference> container, long maxtime, final boolean local, final int topk, final HandleSet exclude, final AtomicInteger pruned) {
+        if (topk <= 0 || container.size() <= topk) return normalizeWith(container, maxtime, local);
+        final LinkedBlockingQueue<WordReferenceVars> out = new LinkedBlockingQueue<WordReferenceVars>();
+        final Thread normalizer = new TopKNormalizer(container, out, topk, exclude, pruned, maxtime, local);
+        normalizer.start();
+        return out;
+    }
+
+    /**
+     * top-k normalization in a single thread: a first pass decodes all rows and collects the min/max and domain statistics,
+     * a second pass ranks the entries against a bounded min-heap. Because the min/max statistics are complete
+     * after the first pass, the normalized part of the ranking of every entry has a fixed upper bound; entries whose
+     * static ranking part plus this bound cannot beat the smallest score in the heap are skipped without computing
+     * their full ranking. The second pass uses a private copy of the min/max statistics, so that concurrent
+     * normalizers of the same search do not change the ranking while the heap is filled.
+     */
+    private final class TopKNormalizer extends Thread {
+
+        private final ReferenceContainer<WordReference> container;
+        private final LinkedBlockingQueue<WordReferenceVars> out;
+        private final int topk;
+        private final HandleSet exclude;
+        private final AtomicInteger pruned;
+        private final long maxtime;
+        private final boolean local;
+
+        public TopKNormalizer(final ReferenceContainer<WordReference> container, final LinkedBlockingQueue<WordReferenceVars> out, final int topk, final HandleSet exclude, final AtomicInteger pruned, final long maxtime, final boolean local) {
+            super("ReferenceOrder.TopKNormalizer");
+            this.container = container;
+            this.out = out;
+            this.topk = topk;
+            this.exclude = exclude;
+            this.pruned = pruned;
+            this.maxtime = maxtime;
+            this.local = local;
+        }
+
+        @Override
+        public void run() {
+            int omitted = 0;
+            try {
+                final long timeout = this.maxtime == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + this.maxtime;
+
+                // first pass: decode and collect statistics
+                final int size = this.container.size();
+                final WordReferenceVars[] entries = new WordReferenceVars[size];
+                final Map<String, Integer> doms0 = new HashMap<String, Integer>();
+                WordReferenceVars min0 = null, max0 = null;
+                int decoded = 0;
+                final Iterator<WordReference> ri = this.container.entries();
+                while (ri.hasNext()) {
+                    final WordReferenceVars iEntry = new WordReferenceVars(ri.next(), this.local);
+                    entries[decoded++] = iEntry;
+                    if (min0 == null) min0 = iEntry.clone(); else min0.min(iEntry);
+                    if (max0 == null) max0 = iEntry.clone(); else max0.max(iEntry);
+                    final String dom = iEntry.hosthash();
+                    final Integer count = doms0.get(dom);
+                    doms0.put(dom, count == null ? LargeNumberCache.valueOf(1) : LargeNumberCache.valueOf(count.intValue() + 1));
+                    if (decoded % 100 == 0 && System.currentTimeMillis() > timeout) {
+                        ConcurrentLog.warn("TopKNormalizer", "decoding of rows ended with timeout = " + this.maxtime);
+                        break;
+                    }
+                }
+                omitted = size - decoded;
+                if (decoded == 0) return;
+
+                // publish the statistics; other normalizers of the same search may work concurrently
+                final WordReferenceVars min1, max1;
+                synchronized (ReferenceOrder.this) {
+                    if (ReferenceOrder.this.min == null) ReferenceOrder.this.min = min0; else ReferenceOrder.this.min.min(min0);
+                    if (ReferenceOrder.this.max == null) ReferenceOrder.this.max = max0; else ReferenceOrder.this.max.max(max0);
+                    min1 = ReferenceOrder.this.min.clone();
+                    max1 = ReferenceOrder.this.max.clone();
+                }
+                for (final Map.Entry<String, Integer> entry: doms0.entrySet()) {
+                    ReferenceOrder.this.doms.inc(entry.getKey(), entry.getValue().intValue());
+                }
+                ReferenceOrder.this.maxdomcount = ReferenceOrder.this.doms.getMaxScore();
+
+                // second pass: rank against the top-k heap
+                final long bound = normalizedScoreBound(min1, max1);
+                final long[] score = new long[decoded];
+                final PriorityQueue<Integer> heap = new PriorityQueue<Integer>(this.topk + 1, new Comparator<Integer>() {
+                    @Override
+                    public int compare(final Integer a, final Integer b) {
+                        return Long.compare(score[a.intValue()], score[b.intValue()]);
+                    }
+                });
+                for (int i = 0; i < decoded; i++) {
+                    if (this.exclude != null && this.exclude.has(entries[i].urlhash())) continue; // dropped by the consumer anyway
+                    final long s = staticScore(entries[i]);
+                    if (heap.size() >= this.topk && s + bound <= score[heap.peek().intValue()]) {
+                        omitted++; // cannot enter the heap
+                        continue;
+                    }
+                    score[i] = s + normalizedScore(entries[i], min1, max1);
+                    if (heap.size() < this.topk) {
+                        heap.add(i);
+                    } else if (score[i] > score[heap.peek().intValue()]) {
+                        heap.poll();
+                        heap.add(i);
+                        omitted++;
+                    } else {
+                        omitted++;
+                    }
+                }
+
+                // deliver the best entries first
+                final int[] best = new int[heap.size()];
+                for (int i = best.length - 1; i >= 0; i--) best[i] = heap.poll().intValue();
+                for (final int i: best) this.out.put(entries[i]);
+            } catch (final InterruptedException e) {
+            } catch (final Exception e) {
+                ConcurrentLog.logException(e);
+            } finally {
+                this.pruned.addAndGet(omitted);
+                try {
+                    this.out.put(WordReferenceVars.poison);
+                } catch (final InterruptedException e) {}
+            }
+        }
+    }
+
     private final class NormalizeDistributor extends Thread {
 
         ReferenceContainer<WordReference> container;
@@ -226,25 +368,61 @@ public class ReferenceOrder {
         assert this.max != null;
         assert t != null;
         assert this.ranking != null;
-        final Bitfield flags = t.flags();
-        final long tf = ((this.max.termFrequency() == this.min.termFrequency()) ? 0 : (((int)(((t.termFrequency()-this.min.termFrequency())*256.0)/(this.max.termFrequency() - this.min.termFrequency())))) << this.ranking.coeff_termfrequency);
+        return normalizedScore(t, this.min, this.max) + staticScore(t); // the higher the number the better the ranking.
+    }
+
+    /**
+     * the part of the ranking which depends on the min/max normalization of the container statistics
+     */
+    private long normalizedScore(final WordReference t, final WordReferenceVars min, final WordReferenceVars max) {
+        final long tf = ((max.termFrequency() == min.termFrequency()) ? 0 : (((int)(((t.termFrequency()-min.termFrequency())*256.0)/(max.termFrequency() - min.termFrequency())))) << this.ranking.coeff_termfrequency);
         //System.out.println("tf(" + t.urlHash + ") = " + Math.floor(1000 * t.termFrequency()) + ", min = " + Math.floor(1000 * min.termFrequency()) + ", max = " + Math.floor(1000 * max.termFrequency()) + ", tf-normed = " + tf);
-        final long r =
+        return
+             ((max.urlcomps()      == min.urlcomps()   )   ? 0 : (256 - (((t.urlcomps()     - min.urlcomps()    ) << 8) / (max.urlcomps()    - min.urlcomps())    )) << this.ranking.coeff_urlcomps)
+           + ((max.urllength()     == min.urllength()  )   ? 0 : (256 - (((t.urllength()    - min.urllength()   ) << 8) / (max.urllength()   - min.urllength())   )) << this.ranking.coeff_urllength)
+           + ((max.posintext()     == min.posintext())     ? 0 : (256 - (((t.posintext()    - min.posintext()   ) << 8) / (max.posintext()   - min.posintext())   )) << this.ranking.coeff_posintext)
+           + ((max.posofphrase()   == min.posofphrase())   ? 0 : (256 - (((t.posofphrase()  - min.posofphrase() ) << 8) / (max.posofphrase() - min.posofphrase()) )) << this.ranking.coeff_posofphrase)
+           + ((max.posinphrase()   == min.posinphrase())   ? 0 : (256 - (((t.posinphrase()  - min.posinphrase() ) << 8) / (max.posinphrase() - min.posinphrase()) )) << this.ranking.coeff_posinphrase)
+           + ((max.distance()      == min.distance()   )   ? 0 : (256 - (((t.distance()     - min.distance()    ) << 8) / (max.distance()    - min.distance())    )) << this.ranking.coeff_worddistance)
+           + ((max.virtualAge()    == min.virtualAge())    ? 0 :        (((t.virtualAge()   - min.virtualAge()  ) << 8) / (max.virtualAge()  - min.virtualAge())   ) << this.ranking.coeff_date)
+           + ((max.wordsintitle()  == min.wordsintitle())  ? 0 : (((t.wordsintitle() - min.wordsintitle()  ) << 8) / (max.wordsintitle() - min.wordsintitle())  ) << this.ranking.coeff_wordsintitle)
+           + ((max.wordsintext()   == min.wordsintext())   ? 0 : (((t.wordsintext()  - min.wordsintext()   ) << 8) / (max.wordsintext()  - min.wordsintext())   ) << this.ranking.coeff_wordsintext)
+           + ((max.phrasesintext() == min.phrasesintext()) ? 0 : (((t.phrasesintext()- min.phrasesintext() ) << 8) / (max.phrasesintext()- min.phrasesintext()) ) << this.ranking.coeff_phrasesintext)
+           + ((max.llocal()        == min.llocal())        ? 0 : (((t.llocal()       - min.llocal()        ) << 8) / (max.llocal()       - min.llocal())        ) << this.ranking.coeff_llocal)
+           + ((max.lother()        == min.lother())        ? 0 : (((t.lother()       - min.lother()        ) << 8) / (max.lother()       - min.lother())        ) << this.ranking.coeff_lother)
+           + ((max.hitcount()      == min.hitcount())      ? 0 : (((t.hitcount()     - min.hitcount()      ) << 8) / (max.hitcount()     - min.hitcount())      ) << this.ranking.coeff_hitcount)
+           + tf;
+    }
+
+    /**
+     * the upper bound of normalizedScore() for any entry within the current min/max statistics:
+     * each normalized criterion contributes at most 256 shifted by its ranking coefficient
+     */
+    private long normalizedScoreBound(final WordReferenceVars min, final WordReferenceVars max) {
+        return
+             ((max.urlcomps()      == min.urlcomps())      ? 0 : 256L << this.ranking.coeff_urlcomps)
+           + ((max.urllength()     == min.urllength())     ? 0 : 256L << this.ranking.coeff_urllength)
+           + ((max.posintext()     == min.posintext())     ? 0 : 256L << this.ranking.coeff_posintext)
+           + ((max.posofphrase()   == min.posofphrase())   ? 0 : 256L << this.ranking.coeff_posofphrase)
+           + ((max.posinphrase()   == min.posinphrase())   ? 0 : 256L << this.ranking.coeff_posinphrase)
+           + ((max.distance()      == min.distance())      ? 0 : 256L << this.ranking.coeff_worddistance)
+           + ((max.virtualAge()    == min.virtualAge())    ? 0 : 256L << this.ranking.coeff_date)
+           + ((max.wordsintitle()  == min.wordsintitle())  ? 0 : 256L << this.ranking.coeff_wordsintitle)
+           + ((max.wordsintext()   == min.wordsintext())   ? 0 : 256L << this.ranking.coeff_wordsintext)
+           + ((max.phrasesintext() == min.phrasesintext()) ? 0 : 256L << this.ranking.coeff_phrasesintext)
+           + ((max.llocal()        == min.llocal())        ? 0 : 256L << this.ranking.coeff_llocal)
+           + ((max.lother()        == min.lother())        ? 0 : 256L << this.ranking.coeff_lother)
+           + ((max.hitcount()      == min.hitcount())      ? 0 : 256L << this.ranking.coeff_hitcount)
+           + ((max.termFrequency() == min.termFrequency()) ? 0 : 256L << this.ranking.coeff_termfrequency);
+    }
+
+    /**
+     * the part of the ranking which depends only on the entry itself and the domain counts
+     */
+    private long staticScore(final WordReference t) {
+        final Bitfield flags = t.flags();
+        return
              ((256 - DigestURL.domLengthNormalized(t.urlhash())) << this.ranking.coeff_domlength)
-           + ((this.max.urlcomps()      == this.min.urlcomps()   )   ? 0 : (256 - (((t.urlcomps()     - this.min.urlcomps()    ) << 8) / (this.max.urlcomps()    - this.min.urlcomps())    )) << this.ranking.coeff_urlcomps)
-           + ((this.max.urllength()     == this.min.urllength()  )   ? 0 : (256 - (((t.urllength()    - this.min.urllength()   ) << 8) / (this.max.urllength()   - this.min.urllength())   )) << this.ranking.coeff_urllength)
-           + ((this.max.posintext()     == this.min.posintext())     ? 0 : (256 - (((t.posintext()    - this.min.posintext()   ) << 8) / (this.max.posintext()   - this.min.posintext())   )) << this.ranking.coeff_posintext)
-           + ((this.max.posofphrase()   == this.min.posofphrase())   ? 0 : (256 - (((t.posofphrase()  - this.min.posofphrase() ) << 8) / (this.max.posofphrase() - this.min.posofphrase()) )) << this.ranking.coeff_posofphrase)
-           + ((this.max.posinphrase()   == this.min.posinphrase())   ? 0 : (256 - (((t.posinphrase()  - this.min.posinphrase() ) << 8) / (this.max.posinphrase() - this.min.posinphrase()) )) << this.ranking.coeff_posinphrase)
-           + ((this.max.distance()      == this.min.distance()   )   ? 0 : (256 - (((t.distance()     - this.min.distance()    ) << 8) / (this.max.distance()    - this.min.distance())    )) << this.ranking.coeff_worddistance)
-           + ((this.max.virtualAge()    == this.min.virtualAge())    ? 0 :        (((t.virtualAge()   - this.min.virtualAge()  ) << 8) / (this.max.virtualAge()  - this.min.virtualAge())   ) << this.ranking.coeff_date)
-           + ((this.max.wordsintitle()  == this.min.wordsintitle())  ? 0 : (((t.wordsintitle() - this.min.wordsintitle()  ) << 8) / (this.max.wordsintitle() - this.min.wordsintitle())  ) << this.ranking.coeff_wordsintitle)
-           + ((this.max.wordsintext()   == this.min.wordsintext())   ? 0 : (((t.wordsintext()  - this.min.wordsintext()   ) << 8) / (this.max.wordsintext()  - this.min.wordsintext())   ) << this.ranking.coeff_wordsintext)
-           + ((this.max.phrasesintext() == this.min.phrasesintext()) ? 0 : (((t.phrasesintext()- this.min.phrasesintext() ) << 8) / (this.max.phrasesintext()- this.min.phrasesintext()) ) << this.ranking.coeff_phrasesintext)
-           + ((this.max.llocal()        == this.min.llocal())        ? 0 : (((t.llocal()       - this.min.llocal()        ) << 8) / (this.max.llocal()       - this.min.llocal())        ) << this.ranking.coeff_llocal)
-           + ((this.max.lother()        == this.min.lother())        ? 0 : (((t.lother()       - this.min.lother()        ) << 8) / (this.max.lother()       - this.min.lother())        ) << this.ranking.coeff_lother)
-           + ((this.max.hitcount()      == this.min.hitcount())      ? 0 : (((t.hitcount()     - this.min.hitcount()      ) << 8) / (this.max.hitcount()     - this.min.hitcount())      ) << this.ranking.coeff_hitcount)
-           + tf
            + ((this.ranking.coeff_authority > 12) ? (authority(t.hosthash()) << this.ranking.coeff_authority) : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_identifier))  ? 255 << this.ranking.coeff_appurl             : 0)
            + ((flags.get(WordReferenceRow.flag_app_dc_title))       ? 255 << this.ranking.coeff_app_dc_title       : 0)
@@ -260,10 +438,8 @@ public class ReferenceOrder {
            + ((Arrays.equals(t.getLanguage(), ASCII.getBytes(this.language))) ? 255 << this.ranking.coeff_language    : 0);
 
         //if (searchWords != null) r += (yacyURL.probablyWordURL(t.urlHash(), searchWords) != null) ? 256 << ranking.coeff_appurl : 0;
-
-        return r; // the higher the number the better the ranking.
     }
-    
+
     public long cardinal(final URIMetadataNode t) {
         // the normalizedEntry must be a normalized indexEntry
         assert t != null;
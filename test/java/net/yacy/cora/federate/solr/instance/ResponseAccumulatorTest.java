@@ -0,0 +1,63 @@
+package net.yacy.cora.federate.solr.instance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.junit.Test;
+
+public class ResponseAccumulatorTest {
+
+    private static SolrDocumentList shard(final Object... idAndScore) {
+        final SolrDocumentList list = new SolrDocumentList();
+        float maxScore = 0f;
+        for (int i = 0; i < idAndScore.length; i += 2) {
+            final SolrDocument doc = new SolrDocument();
+            doc.setField("id", idAndScore[i]);
+            doc.setField("score", idAndScore[i + 1]);
+            list.add(doc);
+            maxScore = Math.max(maxScore, (Float) idAndScore[i + 1]);
+        }
+        list.setNumFound(10);
+        list.setMaxScore(maxScore);
+        return list;
+    }
+
+    private static String ids(final SolrDocumentList list) {
+        final StringBuilder sb = new StringBuilder();
+        for (final SolrDocument doc: list) sb.append(doc.getFieldValue("id"));
+        return sb.toString();
+    }
+
+    /**
+     * the results of the shards are merged by score, duplicates are removed and the requested window is returned
+     */
+    @Test
+    public void testMergeByScore() {
+        final List<SolrDocumentList> lists = new ArrayList<SolrDocumentList>();
+        lists.add(shard("a", 9f, "c", 5f, "e", 1f));
+        lists.add(shard("b", 7f, "c", 5f, "d", 3f));
+        SolrDocumentList merged = ResponseAccumulator.merge(lists, 0, 3, true);
+        assertEquals("abc", ids(merged));
+        assertEquals(20, merged.getNumFound());
+        assertEquals(9f, merged.getMaxScore().floatValue(), 0f);
+        merged = ResponseAccumulator.merge(lists, 2, 10, true);
+        assertEquals("cde", ids(merged));
+        assertEquals(2, merged.getStart());
+    }
+
+    /**
+     * without score order the results of the shards are interleaved by position
+     */
+    @Test
+    public void testMergeInterleaved() {
+        final List<SolrDocumentList> lists = new ArrayList<SolrDocumentList>();
+        lists.add(shard("a", 1f, "c", 9f));
+        lists.add(shard("b", 2f, "d", 8f, "e", 7f));
+        assertEquals("abcde", ids(ResponseAccumulator.merge(lists, 0, 10, false)));
+    }
+
+}
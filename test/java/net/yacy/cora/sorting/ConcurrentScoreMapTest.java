@@ -31,4 +31,28 @@ public class ConcurrentScoreMapTest {
         assertEquals(sum, csm.totalCount());
     }
 
+    /**
+     * Test of inc(ScoreMap) method, of class ConcurrentScoreMap.
+     */
+    @Test
+    public void testIncScoreMap() {
+        final ConcurrentScoreMap<String> csm = new ConcurrentScoreMap<String>();
+        csm.inc("first");
+
+        final ClusteredScoreMap<String> batch = new ClusteredScoreMap<String>(false);
+        batch.inc("first", 2);
+        batch.inc("second", 3);
+        batch.inc("third", 0);
+
+        final int[] updates = new int[1];
+        csm.setUpdatesListener(() -> updates[0]++);
+        csm.inc(batch);
+
+        assertEquals(3, csm.get("first"));
+        assertEquals(3, csm.get("second"));
+        assertEquals(false, csm.containsKey("third"));
+        assertEquals(6, csm.totalCount());
+        assertEquals(1, updates[0]);
+    }
+
 }
@@ -0,0 +1,54 @@
+package net.yacy.crawler.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.crawler.retrieval.Request;
+
+public class CrawlLeasesTest {
+
+    private static final String PEER = "AAAAAAAAAAAA";
+
+    /**
+     * a released lease does not expire, an expired lease is returned once and dropped the second time
+     */
+    @Test
+    public void testExpire() throws MalformedURLException {
+        final CrawlLeases leases = new CrawlLeases();
+        final Request a = new Request(new DigestURL("http://a.example.org/"), null);
+        final Request b = new Request(new DigestURL("http://b.example.org/"), null);
+        leases.lease(PEER, a, CrawlLeases.DEFAULT_LEASE_TIME);
+        leases.lease(PEER, b, CrawlLeases.DEFAULT_LEASE_TIME);
+        assertEquals(2, leases.size(PEER));
+        assertEquals(0, leases.size("BBBBBBBBBBBB"));
+
+        assertSame(a, leases.release(ASCII.String(a.url().hash())));
+        assertNull(leases.release(ASCII.String(a.url().hash())));
+
+        final List<Request> exhausted = new ArrayList<Request>();
+        assertTrue(leases.expire(System.currentTimeMillis(), exhausted).isEmpty());
+        final long later = System.currentTimeMillis() + 2 * CrawlLeases.MAX_LEASE_TIME;
+        final List<Request> retry = leases.expire(later, exhausted);
+        assertEquals(1, retry.size());
+        assertSame(b, retry.get(0));
+        assertTrue(exhausted.isEmpty());
+        assertEquals(0, leases.size());
+
+        // the returned url is pulled again and expires again
+        leases.lease(PEER, b, CrawlLeases.DEFAULT_LEASE_TIME);
+        assertTrue(leases.expire(later + 2 * CrawlLeases.MAX_LEASE_TIME, exhausted).isEmpty());
+        assertEquals(1, exhausted.size());
+        assertSame(b, exhausted.get(0));
+    }
+
+}
@@ -0,0 +1,58 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class CharTokenizerTest {
+
+    private static final String[] TEXTS = new String[] {
+        "  word word..... (word) [word] . 'word word' \"word word\" word ?  word! ",
+        "word-word word . word.word@word.word ....word... word,word ",
+        "Übergrößenträger İstanbul ΟΔΥΣΣΕΥΣ straße. Ein\tneuer\r\nSatz!\u0000Noch einer?",
+        "index of /pub\nName Last modified Size\nfile.txt 2020-01-01 12:00 1k\n",
+        "中文文本 😀 emoji and CamelCase Words"
+    };
+
+    /**
+     * the tokens are the same as the tokens of the WordTokenizer
+     */
+    @Test
+    public void testSameTokens() {
+        for (final String text: TEXTS) {
+            final List<String> expected = new ArrayList<String>();
+            final WordTokenizer wt = new WordTokenizer(new SentenceReader(text), null);
+            while (wt.hasMoreElements()) expected.add(wt.nextElement().toString());
+            wt.close();
+
+            final List<String> tokens = new ArrayList<String>();
+            final CharTokenizer ct = new CharTokenizer(text);
+            while (ct.next()) {
+                tokens.add(ct.toString());
+                assertEquals(ct.toString().toLowerCase(Locale.ENGLISH), ct.lowerString());
+            }
+            assertEquals(text, expected, tokens);
+        }
+    }
+
+    /**
+     * terms are found with a slice of a char buffer
+     */
+    @Test
+    public void testTermTable() {
+        final TermTable<Integer> table = new TermTable<Integer>(1);
+        final char[] b = "xxhelloworldhello".toCharArray();
+        for (int i = 0; i < 100; i++) table.put("term" + i, i);
+        assertEquals("hello", table.put(b, 2, 5, 1));
+        assertEquals(Integer.valueOf(1), table.get(b, 12, 5));
+        assertNull(table.get(b, 7, 5));
+        assertEquals(Integer.valueOf(42), table.get("term42".toCharArray(), 0, 6));
+        assertEquals(101, table.size());
+    }
+
+}
@@ -2,7 +2,9 @@ package net.yacy.document;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -163,4 +165,20 @@ public class DateDetectionTest {
 		checkFormattedDates(holidays, "Muttertag", new String[] { "2017/05/14", "2018/05/13", "2019/05/12" });
 		checkFormattedDates(holidays, "1. Advent", new String[] { "2017/12/03", "2018/12/02", "2019/12/01" });
 	}
+
+	/**
+	 * all holidays of a text are found with the single holiday pattern, also when the names are adjacent
+	 */
+	@Test
+	public void testParseHolidays() {
+		final Set<Date> dates = DateDetection.parse("Zwischen Heiligabend Silvester und Neujahr; aber nicht an XOstern", 0);
+		for (final String holiday : new String[] { "Heiligabend", "Silvester", "Neujahr" }) {
+			for (final Date d : DateDetection.Holidays.get(holiday)) {
+				assertTrue(holiday, dates.contains(d));
+			}
+		}
+		for (final Date d : DateDetection.Holidays.get("Ostersonntag")) {
+			assertFalse(dates.contains(d));
+		}
+	}
 }
@@ -0,0 +1,68 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.document.id.DigestURL;
+
+public class DocumentCacheTest {
+
+    private static Document document(final DigestURL url, final String text) {
+        final List<String> titles = new ArrayList<String>();
+        titles.add("title");
+        return new Document(url, "text/html", "UTF-8", null, null, null, titles, null, null, null, null, 0.0d, 0.0d, text, null, null, null, false, null);
+    }
+
+    /**
+     * a cached document is returned as an independent copy for the url of the request
+     */
+    @Test
+    public void testCopy() throws MalformedURLException {
+        final DocumentCache cache = new DocumentCache(10, 1000);
+        final DigestURL url1 = new DigestURL("http://localhost/page.html?sid=1");
+        final DigestURL url2 = new DigestURL("http://localhost/page.html?sid=2");
+        final byte[] content = UTF8.getBytes("<html>same</html>");
+        final String key1 = DocumentCache.key(url1, "text/html", "UTF-8", "profile", content);
+        final String key2 = DocumentCache.key(url2, "text/html", "UTF-8", "profile", content);
+        assertEquals(key1, key2);
+        assertNull(cache.get(key1, url1));
+
+        cache.put(key1, url1, new Document[]{document(url1, "same")});
+        final Document copy = cache.get(key2, url2);
+        assertEquals(url2, copy.dc_source());
+        assertEquals("same", copy.getTextString());
+        copy.setTitle("changed");
+        assertEquals("title", cache.get(key2, url2).dc_title());
+
+        // another directory resolves relative links differently
+        assertNotEquals(key1, DocumentCache.key(new DigestURL("http://localhost/other/page.html"), "text/html", "UTF-8", "profile", content));
+    }
+
+    /**
+     * the cache is bounded by the number of entries and the length of the texts
+     */
+    @Test
+    public void testBounds() throws MalformedURLException {
+        final DocumentCache cache = new DocumentCache(2, 10);
+        for (int i = 0; i < 3; i++) {
+            final DigestURL url = new DigestURL("http://localhost/" + i + ".html");
+            cache.put("k" + i, url, new Document[]{document(url, "abcd")});
+        }
+        assertEquals(2, cache.size());
+        assertNull(cache.get("k0", new DigestURL("http://localhost/0.html")));
+        final DigestURL url = new DigestURL("http://localhost/big.html");
+        cache.put("big", url, new Document[]{document(url, "abcdefghijk")});
+        assertNull(cache.get("big", url));
+        cache.put("k3", url, new Document[]{document(url, "abcdefgh")});
+        assertEquals(1, cache.size());
+    }
+
+}
@@ -0,0 +1,112 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+
+public class ParserPoolTest {
+
+    /**
+     * a parser which exceeds the time limit is interrupted and the call fails with a timeout
+     */
+    @Test
+    public void testTimeout() throws MalformedURLException {
+        final DigestURL location = new DigestURL("http://localhost/slow.pdf");
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+        ParserPool.setLimits(200, 0);
+        try {
+            final long start = System.currentTimeMillis();
+            try {
+                ParserPool.execute(location, () -> {
+                    try {
+                        Thread.sleep(10000);
+                    } catch (final InterruptedException e) {
+                        interrupted.set(true);
+                        throw e;
+                    }
+                    return new Document[0];
+                });
+                fail("timeout expected");
+            } catch (final ParserPool.Timeout e) {
+                // expected
+            } catch (final Parser.Failure e) {
+                fail("timeout expected: " + e.getMessage());
+            }
+            assertTrue(System.currentTimeMillis() - start < 5000);
+            final long wait = System.currentTimeMillis() + 5000;
+            while (!interrupted.get() && System.currentTimeMillis() < wait) Thread.yield();
+            assertTrue(interrupted.get());
+        } finally {
+            ParserPool.setLimits(0, 0);
+        }
+    }
+
+    /**
+     * the entries of a batch are parsed in parallel and returned in the order of the submission
+     */
+    @Test
+    public void testBatchOrder() throws InterruptedException {
+        final Document[][] expected = new Document[10][];
+        final ParserPool.Batch batch = new ParserPool.Batch(3);
+        for (int i = 0; i < expected.length; i++) {
+            final Document[] docs = new Document[0];
+            expected[i] = docs;
+            final int delay = (expected.length - i) * 5;
+            batch.submit(() -> {
+                Thread.sleep(delay);
+                return docs;
+            });
+        }
+        batch.submit(() -> {
+            throw new Exception("failed entry");
+        });
+        final List<Document[]> result = batch.collect();
+        assertEquals(expected.length, result.size());
+        for (int i = 0; i < expected.length; i++) assertTrue(expected[i] == result.get(i));
+    }
+
+    /**
+     * the temporary files of cancelled entries are deleted, also the file of an entry whose submission was interrupted
+     */
+    @Test
+    public void testBatchCancelDeletesTempFiles() throws IOException, InterruptedException {
+        final ParserPool.Batch batch = new ParserPool.Batch(2);
+        final File running = File.createTempFile("ParserPoolTest", ".tmp");
+        final File second = File.createTempFile("ParserPoolTest", ".tmp");
+        final File interrupted = File.createTempFile("ParserPoolTest", ".tmp");
+        final CountDownLatch started = new CountDownLatch(1);
+        batch.submit(() -> {
+            started.countDown();
+            Thread.sleep(10000);
+            return null;
+        }, running);
+        started.await();
+        batch.submit(() -> {
+            Thread.sleep(10000);
+            return null;
+        }, second);
+        Thread.currentThread().interrupt();
+        try {
+            batch.submit(() -> null, interrupted);
+            fail("interruption expected");
+        } catch (final InterruptedException e) {
+            batch.cancel();
+        }
+        assertFalse(interrupted.exists());
+        assertFalse(running.exists());
+        assertFalse(second.exists());
+    }
+
+}
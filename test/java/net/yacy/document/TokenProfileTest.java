@@ -0,0 +1,51 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.solr.common.params.MapSolrParams;
+import org.junit.Test;
+
+import net.yacy.cora.document.analysis.EnhancedTextProfileSignature;
+
+public class TokenProfileTest {
+
+    private static final String[] TEXTS = new String[] {
+        "The quick brown fox jumps over the lazy dog. The dog sleeps; the fox runs! The end?",
+        "word-word word . word.word@word.word ....word... word,word wordy WORDY Wordy",
+        "Übergrößenträger İstanbul ΟΔΥΣΣΕΥΣ straße Straße STRASSE. Ein\tneuer\r\nSatz!\u0000Noch einer?",
+        "中文文本 😀 emoji and CamelCase Words and camelcase words 2020 2020 2020"
+    };
+
+    private static EnhancedTextProfileSignature signature() {
+        final EnhancedTextProfileSignature s = new EnhancedTextProfileSignature();
+        final Map<String, String> sp = new HashMap<String, String>();
+        sp.put("quantRate", "0.01");
+        sp.put("minTokenLen", "2");
+        s.init(new MapSolrParams(sp));
+        return s;
+    }
+
+    /**
+     * the signature from the shared token stream is the same as the signature computed from the text
+     */
+    @Test
+    public void testSameSignature() {
+        for (final String text: TEXTS) {
+            final EnhancedTextProfileSignature expected = signature();
+            expected.add(text);
+
+            final TokenProfile profile = new TokenProfile(2);
+            final CharTokenizer tokens = new CharTokenizer(text);
+            while (tokens.next()) profile.token(tokens);
+            final EnhancedTextProfileSignature shared = signature();
+            shared.add(profile.getCounts());
+
+            assertEquals(text, expected.getSignatureText().toString(), shared.getSignatureText().toString());
+            assertEquals(text, EnhancedTextProfileSignature.getSignatureLong(expected), EnhancedTextProfileSignature.getSignatureLong(shared));
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package net.yacy.document.language;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.yacy.document.CharTokenizer;
+
+public class NGramDetectorTest {
+
+    @BeforeClass
+    public static void loadProfiles() throws IOException {
+        NGramProfiles.load(new File("langdetect"));
+    }
+
+    @AfterClass
+    public static void clearProfiles() {
+        NGramProfiles.clear();
+    }
+
+    /**
+     * the language of short texts is detected from the n-gram profiles
+     */
+    @Test
+    public void testLanguages() {
+        final String[][] texts = new String[][] {
+            {"en", "The quick brown fox jumps over the lazy dog and runs into the forest where nobody can find it."},
+            {"de", "Der schnelle braune Fuchs springt über den faulen Hund und läuft in den Wald, wo ihn niemand findet."},
+            {"fr", "Le renard brun rapide saute par-dessus le chien paresseux et court dans la forêt où personne ne le trouve."},
+            {"es", "El rápido zorro marrón salta sobre el perro perezoso y corre hacia el bosque donde nadie puede encontrarlo."},
+            {"ru", "Быстрая коричневая лиса прыгает через ленивую собаку и убегает в лес, где её никто не найдёт."}
+        };
+        for (final String[] t: texts) {
+            final Identificator identificator = new Identificator();
+            assertTrue(identificator.isStreaming());
+            final CharTokenizer tokens = new CharTokenizer(t[1]);
+            while (tokens.next()) identificator.token(tokens);
+            assertEquals(t[1], t[0], identificator.getLanguage());
+            assertTrue(identificator.getProbability() > 0.9);
+        }
+        assertNull(new Identificator().getLanguage());
+    }
+
+    /**
+     * the detection stops when the language is certain
+     */
+    @Test
+    public void testEarlyExit() {
+        final NGramDetector detector = new NGramDetector(NGramProfiles.get());
+        final String sentence = "Dies ist ein ganz normaler deutscher Satz mit vielen gewöhnlichen Wörtern. ";
+        int appended = 0;
+        while (!detector.isDone() && appended < 1000) {
+            detector.append(sentence);
+            appended++;
+        }
+        assertTrue(detector.isDone());
+        assertTrue(appended * sentence.length() < NGramDetector.MAX_TEXT_LENGTH);
+        assertEquals("de", detector.getLanguage());
+    }
+
+}
@@ -0,0 +1,49 @@
+package net.yacy.document.parser.html;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.yacy.cora.document.id.AnchorURL;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.document.VocabularyScraper;
+
+public class TransformerWriterTest {
+
+    /**
+     * nested tags, attributes and text urls are scraped from the token buffer, which is reused
+     * by the following writers of the same thread
+     */
+    @Test
+    public void testScraping() throws IOException {
+        final DigestURL root = new DigestURL("http://test.org/test.html");
+        final String page = "<html><head><title>Test &amp; Title</title></head><body>"
+                + "<h1>Head <a href=\"/a?x=1&amp;y=2\">link</a></h1>"
+                + "<!-- a <comment> --><p>Visit http://example.org/page now</p>"
+                + "<img src='img.png' alt=\"an &quot;image&quot;\"></body></html>";
+        for (int i = 0; i < 3; i++) {
+            final ContentScraper scraper = new ContentScraper(root, 10, new HashSet<String>(), TagValency.EVAL, new VocabularyScraper(), 0);
+            final Writer writer = new TransformerWriter(null, null, scraper, false);
+            final char[] chars = ("xxx" + page).toCharArray();
+            writer.write(chars, 3, page.length()); // the offset must be respected
+            writer.close();
+
+            Assert.assertEquals("Test & Title", scraper.getTitles().get(0));
+            Assert.assertEquals("Head link", scraper.getHeadlines(1)[0]);
+            final List<String> anchors = new ArrayList<String>();
+            for (final AnchorURL anchor: scraper.getAnchors()) anchors.add(anchor.toNormalform(false));
+            Assert.assertTrue(anchors.toString(), anchors.contains("http://test.org/a?x=1&y=2"));
+            Assert.assertTrue(anchors.toString(), anchors.contains("http://example.org/page"));
+            Assert.assertEquals(1, scraper.getImages().size());
+            Assert.assertEquals("an \"image\"", scraper.getImages().get(0).alt());
+            Assert.assertTrue(scraper.getText(), scraper.getText().contains("Visit http://example.org/page now"));
+            scraper.close();
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ *  TermSearchTest
+ *  part of YaCy
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.yacy.kelondro.rwi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.util.Bitfield;
+
+/**
+ * Unit tests for TermSearch class.
+ */
+public class TermSearchTest {
+
+    private final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+    private ReferenceContainerCache<WordReference> index;
+
+    private final byte[] common = Word.word2hash("common");
+    private final byte[] rare = Word.word2hash("rare");
+    private final byte[] excluded = Word.word2hash("excluded");
+    private final byte[] unknown = Word.word2hash("unknown");
+
+    @Before
+    public void setUp() throws Exception {
+        this.index = new ReferenceContainerCache<WordReference>(this.factory, Base64Order.enhancedCoder, Word.commonHashLength);
+        for (int i = 0; i < 50; i++) {
+            this.index.add(this.common, reference(i));
+        }
+        this.index.add(this.rare, reference(10));
+        this.index.add(this.rare, reference(20));
+        this.index.add(this.rare, reference(30));
+        this.index.add(this.excluded, reference(20));
+    }
+
+    private static WordReferenceVars reference(final int doc) throws Exception {
+        final DigestURL url = new DigestURL("http://test.org/doc" + doc + ".html");
+        final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+        positions.add(1);
+        return new WordReferenceVars(url.hash(), url.toNormalform(true).length(), 2, 0, 1, 1, 1, 1, positions, 1, 1, 0,
+                "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d);
+    }
+
+    private static HandleSet hashes(final byte[]... termHashes) throws Exception {
+        final HandleSet set = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, termHashes.length);
+        for (final byte[] termHash: termHashes) set.put(termHash);
+        return set;
+    }
+
+    private static TreeSet<String> urlHashes(final ReferenceContainer<WordReference> container) {
+        final TreeSet<String> result = new TreeSet<String>();
+        final Iterator<WordReference> i = container.entries();
+        while (i.hasNext()) result.add(ASCII.String(i.next().urlhash()));
+        return result;
+    }
+
+    /**
+     * The join ordered by term selectivity must give the same result as the join of the complete containers
+     */
+    @Test
+    public void testPlannedJoinEqualsFullJoin() throws Exception {
+        final HandleSet include = hashes(this.common, this.rare);
+        final HandleSet exclude = hashes(this.excluded);
+
+        final TermSearch<WordReference> full = new TermSearch<WordReference>(this.index, include, exclude, null, this.factory, Integer.MAX_VALUE, true);
+        final TermSearch<WordReference> planned = new TermSearch<WordReference>(this.index, include, exclude, null, this.factory, Integer.MAX_VALUE, false);
+
+        final TreeSet<String> expected = new TreeSet<String>();
+        expected.add(ASCII.String(reference(10).urlhash()));
+        expected.add(ASCII.String(reference(30).urlhash()));
+        assertEquals(expected, urlHashes(full.joined()));
+        assertEquals(expected, urlHashes(planned.joined()));
+
+        // the common term is only retrieved for the candidates of the rare term
+        assertEquals(50, full.inclusion().get(this.common).size());
+        assertTrue(planned.inclusion().get(this.common).size() <= 3);
+    }
+
+    /**
+     * A term without any reference must make the conjunction empty
+     */
+    @Test
+    public void testPlannedJoinUnknownTerm() throws Exception {
+        final TermSearch<WordReference> planned = new TermSearch<WordReference>(this.index, hashes(this.common, this.unknown),
+                hashes(), null, this.factory, Integer.MAX_VALUE, false);
+        assertTrue(planned.joined().isEmpty());
+        assertTrue(planned.inclusion().isEmpty());
+    }
+}
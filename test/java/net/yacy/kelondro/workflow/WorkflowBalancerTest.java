@@ -0,0 +1,52 @@
+package net.yacy.kelondro.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class WorkflowBalancerTest {
+
+    /**
+     * the threads of the budget are moved to the stage with the backlog and back to the
+     * initial allocation on reset; surplus executors terminate after their current job
+     */
+    @Test
+    public void testBalance() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final WorkflowProcessor<WorkflowJob> busy = new WorkflowProcessor<WorkflowJob>("busy", "", new String[0], in -> {
+            release.await();
+            return null;
+        }, 100, null, 1);
+        final WorkflowProcessor<WorkflowJob> idle = new WorkflowProcessor<WorkflowJob>("idle", "", new String[0], in -> null, 100, null, 3);
+        try {
+            final WorkflowBalancer balancer = new WorkflowBalancer(6);
+            balancer.add(busy, 1, 4);
+            balancer.add(idle, 1, 4);
+            assertFalse(balancer.balance()); // no backlog
+
+            for (int i = 0; i < 20; i++) busy.enQueue(new WorkflowJob());
+            assertTrue(balancer.balance());
+            assertEquals(4, busy.getMaxConcurrency());
+            assertEquals(1, idle.getMaxConcurrency());
+            assertEquals(4, busy.getExecutors());
+
+            balancer.reset();
+            assertEquals(1, busy.getMaxConcurrency());
+            assertEquals(3, idle.getMaxConcurrency());
+            release.countDown();
+            final long timeout = System.currentTimeMillis() + 5000;
+            while ((busy.getQueueSize() > 0 || busy.getExecutors() > 1) && System.currentTimeMillis() < timeout) Thread.sleep(10);
+            assertEquals(0, busy.getQueueSize());
+            assertEquals(1, busy.getExecutors());
+        } finally {
+            release.countDown();
+            busy.shutdown();
+            idle.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.VarInt;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceContainerCache;
+import net.yacy.kelondro.util.Bitfield;
+import net.yacy.search.index.Segment;
+
+public class BinaryIndexTransferTest {
+
+    private static ReferenceContainerCache<WordReference> newCache() {
+        return new ReferenceContainerCache<WordReference>(Segment.wordReferenceFactory, Base64Order.enhancedCoder, Word.commonHashLength);
+    }
+
+    private static ReferenceContainerCache<WordReference> indexes(final int terms, final int docs) throws Exception {
+        final ReferenceContainerCache<WordReference> indexes = newCache();
+        for (int t = 0; t < terms; t++) {
+            for (int d = 0; d < docs; d++) {
+                final DigestURL url = new DigestURL("http://test" + (d % 7) + ".org/doc" + d + ".html");
+                final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+                positions.add(d + 1);
+                final Bitfield flags = new Bitfield(4);
+                flags.set(d % 32, true);
+                indexes.add(Word.word2hash("term" + t), new WordReferenceVars(url.hash(), url.toNormalform(true).length(), 3, 2, d + 1, 100 + d, 10, 2, positions,
+                        d % 5, 1, System.currentTimeMillis(), "en", Response.DT_TEXT, d, 2 * d, flags, 0.0d));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * the binary form must give the same reference rows as the text form
+     */
+    @Test
+    public void testRWIRoundTrip() throws Exception {
+        final ReferenceContainerCache<WordReference> indexes = indexes(5, 100);
+        final byte[] payload = BinaryIndexTransfer.exportRWI(indexes);
+
+        final ReferenceContainerCache<WordReference> cache = newCache();
+        assertEquals(500, BinaryIndexTransfer.parseRWI(payload, cache, 1000));
+        assertEquals(indexes.size(), cache.size());
+        for (final ReferenceContainer<WordReference> expected: indexes) {
+            final ReferenceContainer<WordReference> container = cache.get(expected.getTermHash(), null);
+            assertNotNull(container);
+            assertEquals(expected.size(), container.size());
+            final Iterator<WordReference> i = expected.entries();
+            while (i.hasNext()) {
+                final WordReference reference = i.next();
+                final WordReference decoded = container.getReference(reference.urlhash());
+                assertNotNull(decoded);
+                assertEquals(reference.toPropertyForm(), decoded.toPropertyForm());
+                assertEquals(reference.toPropertyForm(), new WordReferenceRow(decoded.toPropertyForm()).toPropertyForm());
+            }
+        }
+    }
+
+    /**
+     * decoding must stop at the given number of references
+     */
+    @Test
+    public void testRWILimit() throws Exception {
+        final ReferenceContainerCache<WordReference> cache = newCache();
+        assertEquals(250, BinaryIndexTransfer.parseRWI(BinaryIndexTransfer.exportRWI(indexes(5, 100)), cache, 250));
+        int count = 0;
+        for (final ReferenceContainer<WordReference> container: cache) count += container.size();
+        assertEquals(250, count);
+    }
+
+    @Test
+    public void testURLRoundTrip() throws Exception {
+        final List<String> resources = new ArrayList<String>();
+        for (int i = 0; i < 50; i++) resources.add("{hash=" + ASCII.String(Word.word2hash("url" + i)) + ",url=http://test.org/doc" + i + ".html,title=Dökument " + i + "}");
+        assertEquals(resources, BinaryIndexTransfer.parseURLs(BinaryIndexTransfer.exportURLs(resources), 50));
+        try {
+            BinaryIndexTransfer.parseURLs(BinaryIndexTransfer.exportURLs(resources), 49);
+            fail("too many urls must be rejected");
+        } catch (final IOException e) {}
+    }
+
+    /**
+     * a forged count of references must not allocate more than the limit
+     */
+    @Test
+    public void testRWIForgedCount() throws Exception {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(body);
+        VarInt.writeUnsigned(out, 1);
+        out.write(Word.word2hash("term"));
+        VarInt.writeUnsigned(out, VarInt.MAX_LENGTH);
+        out.flush();
+        try {
+            BinaryIndexTransfer.parseRWI(BinaryIndexTransfer.frame(new byte[]{0, 'Y', 'R', 1}, body), newCache(), 1000);
+            fail("truncated payload must be rejected");
+        } catch (final IOException e) {}
+    }
+
+}
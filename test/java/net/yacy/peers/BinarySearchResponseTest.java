@@ -0,0 +1,73 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.util.Bitfield;
+import net.yacy.search.schema.CollectionConfiguration;
+
+public class BinarySearchResponseTest {
+
+    /**
+     * a response must survive the binary round trip with the same properties as the text transport form
+     */
+    @Test
+    public void testExportParse() throws Exception {
+        final CollectionConfiguration cc = new CollectionConfiguration(new File("defaults/solr.collection.schema"), true);
+        final BinarySearchResponse response = new BinarySearchResponse();
+        response.properties.put("joincount", "42");
+        response.properties.put("count", "20");
+        final byte[] wordhash = Word.word2hash("test");
+        response.indexcount.put(wordhash, 42);
+        response.indexabstract.put(wordhash, "{AAAAAA:BBBBBBCCCCCC}");
+        for (int i = 0; i < 20; i++) {
+            final DigestURL url = new DigestURL("http://test" + i + ".org/index.html");
+            final URIMetadataNode node = new URIMetadataNode(url);
+            node.setField("title", "Test Document " + i);
+            final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+            positions.add(1);
+            final WordReferenceVars word = new WordReferenceVars(url.hash(), url.toNormalform(true).length(), 2, 3, 1, 100, 10, 1, positions, 2, 1, 0,
+                    "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d);
+            final URIMetadataNode stored = new URIMetadataNode(cc.toSolrDocument(cc.metadata2solr(node)), word, i);
+            response.links.add(stored);
+        }
+
+        final byte[] b = response.export();
+        assertTrue(BinarySearchResponse.isBinary(b));
+        assertFalse(BinarySearchResponse.isBinary(UTF8.getBytes("version=1.926\ncount=0")));
+
+        final BinarySearchResponse parsed = BinarySearchResponse.parse(b, "dht");
+        assertEquals("42", parsed.properties.get("joincount"));
+        assertEquals(Integer.valueOf(42), parsed.indexcount.get(wordhash));
+        assertEquals("{AAAAAA:BBBBBBCCCCCC}", parsed.indexabstract.get(wordhash));
+        assertEquals(20, parsed.links.size());
+        for (int i = 0; i < 20; i++) {
+            final URIMetadataNode expected = response.links.get(i);
+            final URIMetadataNode node = parsed.links.get(i);
+            assertEquals(ASCII.String(expected.hash()), ASCII.String(node.hash()));
+            assertEquals(expected.dc_title(), node.dc_title());
+            assertEquals(expected.doctype(), node.doctype());
+            assertArrayEquals(expected.word().urlhash(), node.word().urlhash());
+            assertEquals(expected.word().wordsintitle(), node.word().wordsintitle());
+            // the binary transport must give the same node as the text transport
+            assertEquals(URIMetadataNode.importEntry(expected.resource(), "dht").toString(), node.toString());
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.federate.yacy.Distribution;
+
+public class DHTRingTest {
+
+    private static Seed seed(final String hash, final boolean acceptRemoteIndex) {
+        final Seed seed = new Seed(hash, new ConcurrentHashMap<String, String>());
+        seed.setFlagAcceptRemoteIndex(acceptRemoteIndex);
+        seed.put(Seed.VERSION, "1.926");
+        return seed;
+    }
+
+    private static DHTRing ring(final Distribution scheme) {
+        final PeerTable table = new PeerTable();
+        table.put(seed("AAAAAAAAAAAA", true));
+        table.put(seed("CCCCCCCCCCCC", false)); // robinson peer, not in the ring
+        table.put(seed("EEEEEEEEEEEE", true));
+        table.put(seed("kkkkkkkkkkkk", true));
+        table.put(seed("wwwwwwwwwwww", true));
+        return new DHTRing(table.snapshot(), scheme);
+    }
+
+    /**
+     * only peers which accept remote indexes are ring members and positions wrap around the ring
+     */
+    @Test
+    public void testHorizontalPosition() {
+        final DHTRing ring = ring(new Distribution(0));
+        assertEquals(4, ring.size());
+        assertEquals("AAAAAAAAAAAA", ring.peers().seed(ring.member(0)).hash);
+        assertEquals("EEEEEEEEEEEE", ring.peers().seed(ring.member(1)).hash);
+        assertEquals("AAAAAAAAAAAA", ring.peers().seed(ring.member(4)).hash);
+        assertEquals(1, ring.position(ASCII.getBytes("BBBBBBBBBBBB")));
+        assertEquals(0, ring.position(ASCII.getBytes("zzzzzzzzzzzz")));
+        assertEquals(1, ring.distance(ASCII.getBytes("BBBBBBBBBBBB"), ASCII.getBytes("FFFFFFFFFFFF")));
+        assertEquals(2, ring.distance(ASCII.getBytes("xxxxxxxxxxxx"), ASCII.getBytes("FFFFFFFFFFFF")));
+    }
+
+    /**
+     * the ring position of a vertical partition must be the ceiling of the vertical DHT position
+     */
+    @Test
+    public void testVerticalPosition() {
+        final Distribution scheme = new Distribution(2);
+        final DHTRing ring = ring(scheme);
+        final byte[] wordhash = ASCII.getBytes("BBBBBBBBBBBB");
+        for (int v = 0; v < scheme.verticalPartitions(); v++) {
+            final byte[] verticalhash = Distribution.positionToHash(scheme.verticalDHTPosition(wordhash, v));
+            assertEquals(ring.position(verticalhash), ring.position(wordhash, v));
+        }
+        assertEquals(0, ring.position(ASCII.getBytes("zzzzzzzzzzzz"), 3));
+    }
+
+}
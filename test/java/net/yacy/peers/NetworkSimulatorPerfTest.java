@@ -0,0 +1,264 @@
+// NetworkSimulatorPerfTest.java
+// -----------------------
+// part of YaCy
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.federate.yacy.Distribution;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceContainerCache;
+import net.yacy.kelondro.util.Bitfield;
+import net.yacy.search.index.Segment;
+import net.yacy.search.schema.CollectionConfiguration;
+
+/**
+ * In-process simulation of a network of peers for the evaluation of the DHT distribution and the remote search
+ * without a live network. Every simulated peer has an own in-memory RWI store; the peers are connected by an
+ * in-memory transport which encodes and decodes the index transmissions like the transferRWI protocol, either in the
+ * binary form or in the gzipped text form, and counts the transferred bytes.
+ * One peer indexes a number of documents and distributes the references with the DHT target selection of
+ * DHTSelection to the other peers; afterwards searches for the indexed words are sent to the peers of all vertical
+ * partitions, which answer with a BinarySearchResponse.
+ * The simulation reports the throughput, the latency distribution of transfers and searches, the transferred bytes
+ * and the recall of the searches.
+ */
+public class NetworkSimulatorPerfTest {
+
+    /**
+     * a simulated peer: a seed and an in-memory RWI store
+     */
+    private static class SimPeer {
+        private final Seed seed;
+        private final ReferenceContainerCache<WordReference> rwi;
+        private SimPeer(final int i) {
+            this.seed = new Seed(ASCII.String(Word.word2hash("simulated peer " + i)), new ConcurrentHashMap<String, String>());
+            this.seed.setFlagAcceptRemoteIndex(true);
+            this.seed.put(Seed.VERSION, "1.926");
+            this.seed.put(Seed.ICOUNT, "1000");
+            this.rwi = newCache();
+        }
+    }
+
+    /**
+     * latencies and bytes of one kind of operation
+     */
+    private static class Stats {
+        private final List<Long> latencies = new ArrayList<Long>(); // in nanoseconds
+        private long bytes = 0, items = 0;
+        private void add(final long latency, final long bytes, final long items) {
+            this.latencies.add(latency);
+            this.bytes += bytes;
+            this.items += items;
+        }
+        private String report(final String name) {
+            final long[] l = new long[this.latencies.size()];
+            long total = 0;
+            for (int i = 0; i < l.length; i++) {l[i] = this.latencies.get(i); total += l[i];}
+            Arrays.sort(l);
+            if (l.length == 0) return name + ": no operations";
+            return name + ": " + l.length + " operations, " + this.items + " items, " + this.bytes + " bytes, " +
+                    String.format("%.1f", this.items * 1.0e9d / Math.max(1, total)) + " items/s, latency ms " +
+                    "p50=" + ms(l[(l.length - 1) * 50 / 100]) + " p90=" + ms(l[(l.length - 1) * 90 / 100]) +
+                    " p99=" + ms(l[(l.length - 1) * 99 / 100]) + " max=" + ms(l[l.length - 1]);
+        }
+        private static String ms(final long nanos) {
+            return String.format("%.3f", nanos / 1.0e6d);
+        }
+    }
+
+    private static ReferenceContainerCache<WordReference> newCache() {
+        return new ReferenceContainerCache<WordReference>(Segment.wordReferenceFactory, Base64Order.enhancedCoder, Word.commonHashLength);
+    }
+
+    /**
+     * the in-memory transport: encode a transmission like Protocol.transferRWI, decode it like the transferRWI servlet
+     * @param target the RWI store of the receiving peer
+     * @return the number of transferred bytes
+     */
+    private static int transfer(final ReferenceContainerCache<WordReference> payload, final ReferenceContainerCache<WordReference> target, final boolean binary) throws Exception {
+        if (binary) {
+            final byte[] b = BinaryIndexTransfer.exportRWI(payload);
+            BinaryIndexTransfer.parseRWI(b, target, Integer.MAX_VALUE);
+            return b.length;
+        }
+        final StringBuilder entrypost = new StringBuilder();
+        for (final ReferenceContainer<WordReference> ic: payload) {
+            final Iterator<WordReference> i = ic.entries();
+            while (i.hasNext()) entrypost.append(ASCII.String(ic.getTermHash())).append(i.next().toPropertyForm()).append("\r\n");
+        }
+        final byte[] text = entrypost.toString().getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream(text.length / 4);
+        try (final GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(text);
+        }
+        for (final String line: entrypost.toString().split("\r\n")) {
+            if (line.length() <= Word.commonHashLength) continue;
+            target.add(ASCII.getBytes(line.substring(0, Word.commonHashLength)), new WordReferenceRow(line.substring(Word.commonHashLength)));
+        }
+        return gzipped.size();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length > 0 && (args[0].equals("-h") || args[0].equals("--help"))) {
+            System.out.println("Usage : java NetworkSimulatorPerfTest [peers] [words] [documents] [searches] [partitionExponent] [redundancy] [binary|text]");
+            return;
+        }
+        final int peerCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        final int wordCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final int docCount = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        final int searchCount = args.length > 3 ? Integer.parseInt(args[3]) : 500;
+        final Distribution scheme = new Distribution(args.length > 4 ? Integer.parseInt(args[4]) : 4);
+        final int redundancy = args.length > 5 ? Integer.parseInt(args[5]) : 3;
+        final boolean binary = args.length <= 6 || !args[6].equals("text");
+        final Random random = new Random(4711);
+        RemoteSearch.log.setLevel(Level.WARNING); // the target selection logs every selected peer
+
+        // boot the peers
+        final PeerTable table = new PeerTable();
+        final Map<String, SimPeer> peers = new HashMap<String, SimPeer>();
+        for (int i = 0; i < peerCount; i++) {
+            final SimPeer peer = new SimPeer(i);
+            peers.put(peer.seed.hash, peer);
+            table.put(peer.seed);
+        }
+        final DHTRing ring = new DHTRing(table.snapshot(), scheme);
+        System.out.println("simulated network: " + peerCount + " peers, " + scheme.verticalPartitions() + " vertical partitions, redundancy " + redundancy + ", " + (binary ? "binary" : "text") + " transfer");
+
+        // index documents on the local peer: every document contains a random selection of words
+        final byte[][] words = new byte[wordCount][];
+        for (int w = 0; w < wordCount; w++) words[w] = Word.word2hash("word" + w);
+        final ReferenceContainerCache<WordReference> local = newCache();
+        final Map<String, Integer> expected = new HashMap<String, Integer>(); // word hash / number of documents
+        final Map<String, DigestURL> urls = new HashMap<String, DigestURL>(); // url hash / url, the metadata of the search responses
+        for (int d = 0; d < docCount; d++) {
+            final DigestURL url = new DigestURL("http://host" + (d % 97) + ".example.org/doc" + d + ".html");
+            urls.put(ASCII.String(url.hash()), url);
+            for (int k = 0; k < 10; k++) {
+                final byte[] word = words[random.nextInt(wordCount)];
+                final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+                positions.add(k + 1);
+                local.add(word, new WordReferenceVars(url.hash(), url.toNormalform(true).length(), 3, 2, k + 1, 100, 10, 2, positions,
+                        0, 1, System.currentTimeMillis(), "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d));
+            }
+        }
+        for (final ReferenceContainer<WordReference> container: local) expected.put(ASCII.String(container.getTermHash()), container.size());
+
+        // DHT distribution: split the references into the target peers of their vertical partitions
+        final Stats selection = new Stats();
+        final Map<String, ReferenceContainerCache<WordReference>> outgoing = new HashMap<String, ReferenceContainerCache<WordReference>>();
+        for (final ReferenceContainer<WordReference> container: local) {
+            final Iterator<WordReference> i = container.entries();
+            while (i.hasNext()) {
+                final WordReference reference = i.next();
+                final long start = System.nanoTime();
+                final int vertical = scheme.verticalDHTPosition(reference.urlhash());
+                for (final Seed target: DHTSelection.selectVerticalDHTPositions(ring, container.getTermHash(), 0, Integer.MIN_VALUE, redundancy, vertical)) {
+                    ReferenceContainerCache<WordReference> chunk = outgoing.get(target.hash);
+                    if (chunk == null) {
+                        chunk = newCache();
+                        outgoing.put(target.hash, chunk);
+                    }
+                    chunk.add(container.getTermHash(), reference);
+                }
+                selection.add(System.nanoTime() - start, 0, 1);
+            }
+        }
+        final Stats transfers = new Stats();
+        for (final Map.Entry<String, ReferenceContainerCache<WordReference>> chunk: outgoing.entrySet()) {
+            int references = 0;
+            for (final ReferenceContainer<WordReference> container: chunk.getValue()) references += container.size();
+            final long start = System.nanoTime();
+            final int bytes = transfer(chunk.getValue(), peers.get(chunk.getKey()).rwi, binary);
+            transfers.add(System.nanoTime() - start, bytes, references);
+        }
+
+        // remote search: ask one peer in each vertical partition and join the results
+        final CollectionConfiguration configuration = new CollectionConfiguration(new File("defaults/solr.collection.schema"), true);
+        final Stats searches = new Stats();
+        long found = 0, wanted = 0;
+        for (int s = 0; s < searchCount; s++) {
+            final byte[] word = words[random.nextInt(wordCount)];
+            final long start = System.nanoTime();
+            final ReferenceContainerCache<WordReference> result = newCache();
+            long bytes = 0;
+            for (int v = 0; v < scheme.verticalPartitions(); v++) {
+                for (final Seed seed: DHTSelection.selectVerticalDHTPositions(ring, word, 0, Integer.MIN_VALUE, 1, v)) {
+                    final ReferenceContainer<WordReference> container = peers.get(seed.hash).rwi.get(word, null);
+                    if (container == null) continue;
+                    // the search response of the target peer, like the binary form of /yacy/search.html
+                    final BinarySearchResponse response = new BinarySearchResponse();
+                    response.indexcount.put(word, container.size());
+                    response.properties.put("joincount", Integer.toString(container.size()));
+                    final Iterator<WordReference> i = container.entries();
+                    while (i.hasNext()) {
+                        final WordReferenceVars reference = new WordReferenceVars(i.next(), false);
+                        final URIMetadataNode node = new URIMetadataNode(urls.get(ASCII.String(reference.urlhash())));
+                        response.links.add(new URIMetadataNode(configuration.toSolrDocument(configuration.metadata2solr(node)), reference, 0));
+                    }
+                    final byte[] b = response.export();
+                    bytes += b.length;
+                    for (final URIMetadataNode link: BinarySearchResponse.parse(b, "dht").links) result.add(word, link.word());
+                }
+            }
+            final ReferenceContainer<WordReference> joined = result.get(word, null);
+            final int count = joined == null ? 0 : joined.size();
+            searches.add(System.nanoTime() - start, bytes, count);
+            found += count;
+            final Integer e = expected.get(ASCII.String(word));
+            wanted += e == null ? 0 : e.intValue();
+        }
+
+        System.out.println(selection.report("target selection"));
+        System.out.println(transfers.report("index transfer"));
+        System.out.println(searches.report("remote search"));
+        System.out.println("search recall: " + found + " of " + wanted + " references (" + String.format("%.1f", 100.0d * found / Math.max(1, wanted)) + "%)");
+        int min = Integer.MAX_VALUE, max = 0;
+        for (final SimPeer peer: peers.values()) {
+            int references = 0;
+            for (final ReferenceContainer<WordReference> container: peer.rwi) references += container.size();
+            min = Math.min(min, references);
+            max = Math.max(max, references);
+        }
+        System.out.println("references per peer: min " + min + ", max " + max);
+    }
+
+}
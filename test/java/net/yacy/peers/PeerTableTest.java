@@ -0,0 +1,73 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+public class PeerTableTest {
+
+    private static Seed seed(final String hash, final boolean acceptRemoteIndex, final long linkCount) {
+        final Seed seed = new Seed(hash, new ConcurrentHashMap<String, String>());
+        seed.setFlagAcceptRemoteIndex(acceptRemoteIndex);
+        seed.put(Seed.LCOUNT, Long.toString(linkCount));
+        seed.put(Seed.VERSION, "1.926");
+        return seed;
+    }
+
+    /**
+     * the snapshot must be ordered in DHT order and positions must wrap around the ring
+     */
+    @Test
+    public void testPosition() {
+        final PeerTable table = new PeerTable();
+        table.put(seed("CCCCCCCCCCCC", true, 3));
+        table.put(seed("AAAAAAAAAAAA", true, 1));
+        table.put(seed("EEEEEEEEEEEE", false, 5));
+        final PeerTable.Snapshot peers = table.snapshot();
+        assertEquals(3, peers.size());
+        assertEquals("AAAAAAAAAAAA", peers.seed(0).hash);
+        assertEquals("CCCCCCCCCCCC", peers.seed(1).hash);
+        assertEquals("EEEEEEEEEEEE", peers.seed(2).hash);
+
+        assertEquals(0, peers.position(ASCII.getBytes("AAAAAAAAAAAA")));
+        assertEquals(1, peers.position(ASCII.getBytes("BBBBBBBBBBBB")));
+        assertEquals(2, peers.position(ASCII.getBytes("DDDDDDDDDDDD")));
+        assertEquals(0, peers.position(ASCII.getBytes("FFFFFFFFFFFF"))); // ring
+
+        assertEquals(1, peers.distance(ASCII.getBytes("AAAAAAAAAAAA"), ASCII.getBytes("BBBBBBBBBBBB")));
+        assertEquals(2, peers.distance(ASCII.getBytes("DDDDDDDDDDDD"), ASCII.getBytes("BBBBBBBBBBBB")));
+
+        assertTrue(peers.flag(0, PeerTable.FLAG_ACCEPT_REMOTE_INDEX));
+        assertFalse(peers.flag(2, PeerTable.FLAG_ACCEPT_REMOTE_INDEX));
+        assertEquals(3, peers.linkCount(1));
+        assertTrue(peers.hasVersion(1, 1.9));
+    }
+
+    /**
+     * a snapshot does not change, a new snapshot reflects changes of the table
+     */
+    @Test
+    public void testSnapshotUpdate() {
+        final PeerTable table = new PeerTable();
+        table.put(seed("AAAAAAAAAAAA", true, 1));
+        final PeerTable.Snapshot before = table.snapshot();
+        table.put(seed("AAAAAAAAAAAA", true, 7));
+        table.put(seed("BBBBBBBBBBBB", true, 2));
+        table.remove("CCCCCCCCCCCC");
+        assertEquals(1, before.size());
+        assertEquals(1, before.linkCount(0));
+        final PeerTable.Snapshot after = table.snapshot();
+        assertEquals(2, after.size());
+        assertEquals(7, after.linkCount(0));
+        table.remove("AAAAAAAAAAAA");
+        assertEquals(1, table.snapshot().size());
+        assertEquals("BBBBBBBBBBBB", table.snapshot().seed(0).hash);
+    }
+
+}
@@ -0,0 +1,73 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class PingSchedulerTest {
+
+    /**
+     * a pinged peer is not due until its interval is over; failures make the peer due again after the minimum interval
+     */
+    @Test
+    public void testAdaptiveInterval() {
+        final PingScheduler scheduler = new PingScheduler(2);
+        try {
+            final long now = System.currentTimeMillis();
+            assertTrue(scheduler.isDue("AAAAAAAAAAAA", now));
+            scheduler.success("AAAAAAAAAAAA", 10);
+            assertFalse(scheduler.isDue("AAAAAAAAAAAA", now + PingScheduler.MIN_INTERVAL / 2));
+            assertTrue(scheduler.isDue("AAAAAAAAAAAA", now + PingScheduler.MIN_INTERVAL + 1000));
+            scheduler.success("AAAAAAAAAAAA", 10);
+            assertFalse(scheduler.isDue("AAAAAAAAAAAA", now + PingScheduler.MIN_INTERVAL + 1000)); // doubled interval
+            scheduler.failure("AAAAAAAAAAAA");
+            scheduler.failure("AAAAAAAAAAAA");
+            assertEquals(2, scheduler.failures("AAAAAAAAAAAA"));
+            assertTrue(scheduler.isDue("AAAAAAAAAAAA", now + PingScheduler.MIN_INTERVAL + 1000));
+
+            final List<Seed> candidates = new ArrayList<Seed>();
+            candidates.add(new Seed("AAAAAAAAAAAA", new ConcurrentHashMap<String, String>()));
+            candidates.add(new Seed("BBBBBBBBBBBB", new ConcurrentHashMap<String, String>()));
+            candidates.add(new Seed("CCCCCCCCCCCC", new ConcurrentHashMap<String, String>()));
+            final List<Seed> due = scheduler.selectDue(candidates, 5);
+            assertEquals(2, due.size());
+            assertEquals("BBBBBBBBBBBB", due.get(0).hash);
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    public void testPingAndLatency() throws InterruptedException {
+        final PingScheduler scheduler = new PingScheduler(4);
+        try {
+            final AtomicInteger count = new AtomicInteger();
+            final List<Runnable> tasks = new ArrayList<Runnable>();
+            for (int i = 0; i < 10; i++) {
+                final int latency = (i + 1) * 10;
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        count.incrementAndGet();
+                        scheduler.success("peer" + latency, latency);
+                    }
+                });
+            }
+            assertEquals(10, scheduler.ping(tasks, 10000));
+            assertEquals(10, count.get());
+            assertEquals(10, scheduler.latencySamples());
+            assertArrayEquals(new long[]{50, 90, 90, 100}, scheduler.latencyPercentiles());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SeedDeltaTest {
+
+    /**
+     * the journal returns the latest change of each peer after the requested version
+     */
+    @Test
+    public void testJournal() {
+        final SeedDelta journal = new SeedDelta();
+        journal.changed("AAAAAAAAAAAA");
+        journal.changed("BBBBBBBBBBBB");
+        final long v = journal.version();
+        journal.changed("CCCCCCCCCCCC");
+        journal.removed("AAAAAAAAAAAA");
+        final Map<String, Boolean> changes = journal.since(journal.epoch(), v);
+        assertEquals(2, changes.size());
+        assertEquals(Boolean.FALSE, changes.get("CCCCCCCCCCCC"));
+        assertEquals(Boolean.TRUE, changes.get("AAAAAAAAAAAA"));
+        assertEquals(0, journal.since(journal.epoch(), journal.version()).size());
+        assertNull(journal.since(journal.epoch() + 1, v)); // other epoch: full list
+        assertNull(journal.since(journal.epoch(), -1)); // first request: full list
+    }
+
+    /**
+     * versions which were dropped from the bounded journal require the full list
+     */
+    @Test
+    public void testHorizon() {
+        final SeedDelta journal = new SeedDelta();
+        for (int i = 0; i < SeedDelta.MAX_CHANGES + 10; i++) journal.changed("peer" + i);
+        assertNull(journal.since(journal.epoch(), 5));
+        assertEquals(5, journal.since(journal.epoch(), journal.version() - 5).size());
+    }
+
+    /**
+     * the header and the removed peers must survive the encoding; the seeds are checked with Seed.isProper which needs a running peer
+     */
+    @Test
+    public void testEncoding() throws Exception {
+        final List<String> removed = new ArrayList<String>();
+        for (int i = 0; i < 300; i++) removed.add("peer" + i + "AAAAAAAA".substring(0, 8 - Integer.toString(i).length()));
+        final SeedDelta.Delta delta = SeedDelta.decode(SeedDelta.encode(4711L, 42L, true, new ArrayList<Seed>(), removed));
+        assertEquals(4711L, delta.epoch);
+        assertEquals(42L, delta.version);
+        assertTrue(delta.full);
+        assertEquals(0, delta.changed.size());
+        assertEquals(removed, delta.removed);
+    }
+
+}
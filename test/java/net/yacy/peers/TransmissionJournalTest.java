@@ -0,0 +1,76 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.Bitfield;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.search.index.Segment;
+
+public class TransmissionJournalTest {
+
+    /**
+     * a segment which counts the stored references and fails while fail is set
+     */
+    private static class TestSegment extends Segment {
+        private boolean fail = true;
+        private int stored = 0;
+        private TestSegment(final File path) throws IOException {
+            super(new ConcurrentLog("TransmissionJournalTest"), new File(path, "SEGMENTS"), new File(path, "ARCHIVE"), null, null);
+        }
+        @Override
+        public void storeRWI(final ReferenceContainer<WordReference> wordContainer) throws IOException, SpaceExceededException {
+            if (this.fail) throw new IOException("index not available");
+            this.stored += wordContainer.size();
+        }
+    }
+
+    /**
+     * a segment which cannot be stored in the index must survive the replay and be replayed at the next start
+     */
+    @Test
+    public void testReplayKeepsSegmentOnStoreFailure() throws Exception {
+        final File path = Files.createTempDirectory("TransmissionJournalTest").toFile();
+        final TestSegment segment = new TestSegment(path);
+        try {
+            final File location = new File(path, "dhtOutbound");
+            final TransmissionJournal journal = new TransmissionJournal(location, new ConcurrentLog("TransmissionJournalTest"));
+            final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(Segment.wordReferenceFactory, Word.word2hash("test"));
+            for (int i = 0; i < 10; i++) {
+                final DigestURL url = new DigestURL("http://test.org/" + i + ".html");
+                final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+                positions.add(1);
+                container.add(new WordReferenceVars(url.hash(), url.toNormalform(true).length(), 2, 1, 1, 100, 10, 1,
+                        positions, 0, 0, 0, "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d));
+            }
+            journal.open("AAAAAAAAAAAA").append(container);
+
+            assertEquals(0, journal.replay(segment));
+            assertEquals(1, location.list().length);
+
+            segment.fail = false;
+            assertEquals(10, journal.replay(segment));
+            assertEquals(10, segment.stored);
+            assertEquals(0, location.list().length);
+        } finally {
+            segment.close();
+            FileUtils.deletedelete(path);
+        }
+    }
+
+}
@@ -21,8 +21,12 @@
 
 package net.yacy.peers.graphics;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -313,6 +317,63 @@ public class WebStructureGraphTest {
 		}
 	}
 	
+	/**
+	 * References of several documents joined as one batch are counted like references joined one after the other,
+	 * and a snapshot of the structure is loaded again.
+	 */
+	@Test
+	public void testLearnrefsBatchAndSnapshot() throws IOException {
+		final File structureFile = File.createTempFile("webStructureTest", ".map");
+		structureFile.delete();
+		WebStructureGraph graph = new WebStructureGraph(structureFile);
+		final DigestURL source = new DigestURL("http://source.net/index.html");
+		final DigestURL otherSource = new DigestURL("http://other.net/index.html");
+		final DigestURL target = new DigestURL("http://target.com/index.html");
+		final DigestURL otherTarget = new DigestURL("http://target.org/index.html");
+		try {
+			final List<LearnObject> batch = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				final Set<DigestURL> targets = new HashSet<>();
+				targets.add(target);
+				if (i == 0) targets.add(otherTarget);
+				batch.add(new LearnObject(source, targets));
+			}
+			final Set<DigestURL> targets = new HashSet<>();
+			targets.add(target);
+			batch.add(new LearnObject(otherSource, targets));
+			graph.learnrefs(batch);
+
+			StructureEntry outRefs = graph.outgoingReferences(source.hosthash());
+			Assert.assertNotNull(outRefs);
+			Assert.assertEquals(2, outRefs.references.size());
+			Assert.assertEquals(Integer.valueOf(3), outRefs.references.get(target.hosthash()));
+			Assert.assertEquals(Integer.valueOf(1), outRefs.references.get(otherTarget.hosthash()));
+			Assert.assertTrue(graph.exists(otherTarget.hosthash()));
+
+			/* a following batch is added to the counts */
+			graph.learnrefs(batch.subList(0, 1));
+			outRefs = graph.outgoingReferences(source.hosthash());
+			Assert.assertEquals(Integer.valueOf(4), outRefs.references.get(target.hosthash()));
+
+			graph.snapshot();
+			Assert.assertTrue(structureFile.exists());
+			final WebStructureGraph loaded = new WebStructureGraph(structureFile);
+			try {
+				outRefs = loaded.outgoingReferences(source.hosthash());
+				Assert.assertNotNull(outRefs);
+				Assert.assertEquals(Integer.valueOf(4), outRefs.references.get(target.hosthash()));
+				Assert.assertEquals(Integer.valueOf(1), loaded.outgoingReferences(otherSource.hosthash()).references.get(target.hosthash()));
+			} finally {
+				loaded.clear();
+				loaded.close();
+			}
+		} finally {
+			graph.clear();
+			graph.close();
+			structureFile.delete();
+		}
+	}
+
 	/**
 	 * Simple performance measurements with a test structure filled to its limits.
 	 */
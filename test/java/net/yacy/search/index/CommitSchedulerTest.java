@@ -0,0 +1,120 @@
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import net.yacy.cora.federate.solr.connector.MirrorSolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.instance.InstanceMirror;
+import net.yacy.search.schema.CollectionSchema;
+import net.yacy.search.schema.WebgraphSchema;
+
+public class CommitSchedulerTest {
+
+    private static class RecordingCommitter implements CommitScheduler.Committer {
+        private final List<Boolean> commits = Collections.synchronizedList(new ArrayList<Boolean>());
+        @Override
+        public void commit(final boolean softCommit) {
+            this.commits.add(softCommit);
+        }
+    }
+
+    private static void waitFor(final CommitScheduler scheduler, final long timeout) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        while (scheduler.isPending() && System.currentTimeMillis() - start < timeout) Thread.sleep(10);
+    }
+
+    /**
+     * the first request is committed at once, the following requests are coalesced into one later commit
+     */
+    @Test
+    public void testCoalesceRequests() throws InterruptedException {
+        final RecordingCommitter committer = new RecordingCommitter();
+        final CommitScheduler scheduler = new CommitScheduler(committer, 0, 0, 1000, 200);
+        scheduler.commit(true);
+        assertEquals(1, committer.commits.size());
+        scheduler.commit(true);
+        scheduler.commit(false);
+        scheduler.commit(true);
+        assertEquals(1, committer.commits.size());
+        assertTrue(scheduler.isPending());
+        waitFor(scheduler, 5000);
+        assertEquals(2, committer.commits.size());
+        assertFalse(committer.commits.get(1)); // a hard commit was requested
+    }
+
+    /**
+     * changes are made visible within the latency
+     */
+    @Test
+    public void testLatency() throws InterruptedException {
+        final RecordingCommitter committer = new RecordingCommitter();
+        final CommitScheduler scheduler = new CommitScheduler(committer, 100, 60000, 1000, 0);
+        assertTrue(scheduler.isAutomatic());
+        scheduler.changed(1);
+        scheduler.changed(1);
+        assertEquals(0, committer.commits.size());
+        waitFor(scheduler, 5000);
+        assertEquals(1, committer.commits.size());
+        assertTrue(committer.commits.get(0));
+    }
+
+    /**
+     * during a bulk import the soft commits are delayed to the bulk latency, but hard commits are not
+     */
+    @Test
+    public void testBulk() throws InterruptedException {
+        final RecordingCommitter committer = new RecordingCommitter();
+        final CommitScheduler scheduler = new CommitScheduler(committer, 2000, 60000, 10, 0);
+        for (int i = 0; i < 12; i++) {
+            scheduler.changed(10);
+            Thread.sleep(100);
+        }
+        assertTrue(scheduler.isBulk());
+        assertEquals(0, committer.commits.size());
+        scheduler.commit(true);
+        assertEquals(0, committer.commits.size());
+        scheduler.commit(false);
+        assertEquals(1, committer.commits.size());
+        assertFalse(committer.commits.get(0));
+    }
+
+    /**
+     * writes which go directly to the connectors of the index, not through Fulltext, are committed within the latency
+     */
+    @Test
+    public void testDirectConnectorWrite() throws InterruptedException, IOException {
+        final RecordingCommitter committer = new RecordingCommitter();
+        final CommitScheduler scheduler = new CommitScheduler(committer, 100, 60000, 1000, 0);
+        final InstanceMirror instances = new InstanceMirror();
+        final SolrConnector webgraph = instances.getGenericMirrorConnector(WebgraphSchema.CORE_NAME);
+        instances.setChangeListener(new MirrorSolrConnector.ChangeListener() {
+            @Override
+            public void changed(final int count) {
+                scheduler.changed(count);
+            }
+        });
+        final SolrConnector collection = instances.getGenericMirrorConnector(CollectionSchema.CORE_NAME);
+        final SolrInputDocument doc = new SolrInputDocument();
+        doc.setField(CollectionSchema.id.getSolrFieldName(), "AAAAAAAAAAAA");
+        collection.add(doc);
+        assertTrue(scheduler.isPending());
+        waitFor(scheduler, 5000);
+        assertEquals(1, committer.commits.size());
+        webgraph.deleteByQuery(WebgraphSchema.source_id_s.getSolrFieldName() + ":\"AAAAAAAAAAAA\"");
+        assertTrue(scheduler.isPending());
+        waitFor(scheduler, 5000);
+        assertEquals(2, committer.commits.size());
+        assertTrue(committer.commits.get(1));
+    }
+
+}
@@ -0,0 +1,98 @@
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+public class SolrBatchWriterTest {
+
+    private static class RecordingSink implements SolrBatchWriter.Sink {
+        private final List<Integer> documentBatches = Collections.synchronizedList(new ArrayList<Integer>());
+        private final List<Integer> edgeBatches = Collections.synchronizedList(new ArrayList<Integer>());
+        @Override
+        public void writeDocuments(final List<SolrInputDocument> documents) throws IOException {
+            this.documentBatches.add(documents.size());
+        }
+        @Override
+        public void writeEdges(final List<SolrInputDocument> edges) throws IOException {
+            this.edgeBatches.add(edges.size());
+        }
+    }
+
+    /**
+     * a sink which rejects every write which contains the document with the id "bad"
+     */
+    private static class RejectingSink extends RecordingSink {
+        private final List<String> written = Collections.synchronizedList(new ArrayList<String>());
+        @Override
+        public void writeDocuments(final List<SolrInputDocument> documents) throws IOException {
+            for (final SolrInputDocument doc: documents) {
+                if ("bad".equals(doc.getFieldValue("id"))) throw new IOException("rejected");
+            }
+            super.writeDocuments(documents);
+            for (final SolrInputDocument doc: documents) this.written.add((String) doc.getFieldValue("id"));
+        }
+    }
+
+    private static SolrInputDocument doc(final int i) {
+        final SolrInputDocument doc = new SolrInputDocument();
+        doc.setField("id", "doc" + i);
+        return doc;
+    }
+
+    /**
+     * a full batch is written at once with all documents and edges, the rest on flush
+     */
+    @Test
+    public void testBatchSize() {
+        final RecordingSink sink = new RecordingSink();
+        final SolrBatchWriter writer = new SolrBatchWriter(sink, 3, 60000);
+        for (int i = 0; i < 7; i++) writer.add(doc(i), Collections.singletonList(doc(100 + i)));
+        assertEquals("[3, 3]", sink.documentBatches.toString());
+        assertEquals("[3, 3]", sink.edgeBatches.toString());
+        assertEquals(1, writer.size());
+        writer.flush();
+        assertEquals("[3, 3, 1]", sink.documentBatches.toString());
+        assertEquals(0, writer.size());
+        writer.flush();
+        assertEquals(3, sink.documentBatches.size());
+    }
+
+    /**
+     * an incomplete batch is written by the flusher thread after the time window
+     */
+    @Test
+    public void testWindow() throws InterruptedException {
+        final RecordingSink sink = new RecordingSink();
+        final SolrBatchWriter writer = new SolrBatchWriter(sink, 100, 50);
+        writer.add(doc(1), null);
+        writer.add(doc(2), null);
+        final long timeout = System.currentTimeMillis() + 5000;
+        while (sink.documentBatches.isEmpty() && System.currentTimeMillis() < timeout) Thread.sleep(10);
+        assertEquals("[2]", sink.documentBatches.toString());
+        assertEquals(0, sink.edgeBatches.size());
+    }
+
+    /**
+     * if the batch is rejected, the documents are written one by one and only the bad document is lost
+     */
+    @Test
+    public void testBatchFailureFallback() {
+        final RejectingSink sink = new RejectingSink();
+        final SolrBatchWriter writer = new SolrBatchWriter(sink, 3, 60000);
+        writer.add(doc(1), null);
+        final SolrInputDocument bad = new SolrInputDocument();
+        bad.setField("id", "bad");
+        writer.add(bad, null);
+        writer.add(doc(2), null);
+        assertEquals("[1, 1]", ((RecordingSink) sink).documentBatches.toString());
+        assertEquals("[doc1, doc2]", sink.written.toString());
+    }
+
+}
@@ -1,17 +1,35 @@
 package net.yacy.search.ranking;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.solr.common.SolrInputDocument;
 import org.junit.Test;
 
 import net.yacy.cora.document.analysis.Classification;
 import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.crawler.retrieval.Response;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.Bitfield;
 import net.yacy.search.schema.CollectionConfiguration;
 
 public class ReferenceOrderTest {
@@ -51,4 +69,57 @@ public class ReferenceOrderTest {
 
     }
 
+    /**
+     * Test of the top-k mode of normalizeWith: it must deliver the best ranked entries of a full normalization
+     */
+    @Test
+    public void testNormalizeWithTopK() throws Exception {
+        final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(new WordReferenceFactory(), Word.word2hash("test"));
+        for (int i = 0; i < 200; i++) {
+            final DigestURL url = new DigestURL("http://host" + (i % 7) + ".test.org/" + i + ".html");
+            final Queue<Integer> positions = new LinkedBlockingQueue<Integer>();
+            positions.add(1 + (i * 13) % 50);
+            container.add(new WordReferenceVars(url.hash(), url.toNormalform(true).length(), 2, i % 11, 1 + (i * 7) % 23, 100 + i, 10, 1,
+                    positions, (i * 3) % 17, i % 5, 0, "en", Response.DT_TEXT, 0, 0, new Bitfield(4), 0.0d));
+        }
+        final RankingProfile ranking = new RankingProfile(Classification.ContentDomain.TEXT);
+
+        // reference: normalize all entries
+        final ReferenceOrder fullOrder = new ReferenceOrder(ranking, "en");
+        final List<WordReferenceVars> all = drain(fullOrder.normalizeWith(container, Long.MAX_VALUE, true));
+        assertEquals(200, all.size());
+        final List<Long> expected = new ArrayList<Long>();
+        for (final WordReferenceVars entry: all) expected.add(fullOrder.cardinal(entry));
+        Collections.sort(expected, Collections.reverseOrder());
+
+        final ReferenceOrder topkOrder = new ReferenceOrder(ranking, "en");
+        final AtomicInteger pruned = new AtomicInteger(0);
+        final List<WordReferenceVars> topk = drain(topkOrder.normalizeWith(container, Long.MAX_VALUE, true, 20, null, pruned));
+        assertEquals(20, topk.size());
+        assertEquals(180, pruned.get());
+        for (int i = 0; i < topk.size(); i++) {
+            assertEquals(expected.get(i).longValue(), topkOrder.cardinal(topk.get(i)));
+        }
+
+        // excluded entries do not take a place in the top-k: the next best entries move up
+        final HandleSet exclude = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 5);
+        for (int i = 0; i < 5; i++) exclude.put(topk.get(i).urlhash());
+        final ReferenceOrder excludeOrder = new ReferenceOrder(ranking, "en");
+        final AtomicInteger excludePruned = new AtomicInteger(0);
+        final List<WordReferenceVars> rest = drain(excludeOrder.normalizeWith(container, Long.MAX_VALUE, true, 20, exclude, excludePruned));
+        assertEquals(20, rest.size());
+        assertEquals(175, excludePruned.get());
+        for (int i = 0; i < rest.size(); i++) {
+            assertFalse(exclude.has(rest.get(i).urlhash()));
+            assertEquals(expected.get(i + 5).longValue(), excludeOrder.cardinal(rest.get(i)));
+        }
+    }
+
+    private static List<WordReferenceVars> drain(final BlockingQueue<WordReferenceVars> queue) throws InterruptedException {
+        final List<WordReferenceVars> list = new ArrayList<WordReferenceVars>();
+        WordReferenceVars entry;
+        while ((entry = queue.take()) != WordReferenceVars.poison) list.add(entry);
+        return list;
+    }
+
 }